@@ -0,0 +1,85 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.client.BatchSerializer;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
+
+/**
+ * Measures the wire serialization of a result batch with {@link BatchSerializer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchSerializerBenchmark {
+
+	@Param({"256", "2048"})
+	public int rows;
+
+	private String[] types;
+	private List<List<?>> batch;
+	private byte[] serialized;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		types = BenchmarkData.types();
+		batch = BenchmarkData.rows(rows, rows);
+		serialized = write().toByteArray();
+	}
+
+	private AccessibleByteArrayOutputStream write() throws Exception {
+		AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 16);
+		ObjectOutputStream out = new ObjectOutputStream(baos);
+		BatchSerializer.writeBatch(out, types, batch);
+		out.flush();
+		return baos;
+	}
+
+	@Benchmark
+	public int writeBatch() throws Exception {
+		return write().getCount();
+	}
+
+	@Benchmark
+	public int readBatch() throws Exception {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized));
+		return BatchSerializer.readBatch(in, types).size();
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Shared data generation for the benchmarks.  All data is derived from a fixed
+ * seed so that runs are repeatable and comparable.
+ */
+final class BenchmarkData {
+
+	static final long SEED = 1234567L;
+
+	private BenchmarkData() {
+	}
+
+	static ElementSymbol element(String name, Class<?> type) {
+		ElementSymbol es = new ElementSymbol(name);
+		es.setType(type);
+		return es;
+	}
+
+	/**
+	 * @return the schema (integer, string, double) used by {@link #rows(int, int)}
+	 */
+	static List<ElementSymbol> schema(String prefix) {
+		return Arrays.asList(element(prefix + "_int", DataTypeManager.DefaultDataClasses.INTEGER), //$NON-NLS-1$
+				element(prefix + "_string", DataTypeManager.DefaultDataClasses.STRING), //$NON-NLS-1$
+				element(prefix + "_double", DataTypeManager.DefaultDataClasses.DOUBLE)); //$NON-NLS-1$
+	}
+
+	static String[] types() {
+		return new String[] {DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.DOUBLE};
+	}
+
+	/**
+	 * Generate rows of (integer, string, double) with the integer column
+	 * drawn from [0, distinct)
+	 */
+	static List<List<?>> rows(int count, int distinct) {
+		Random r = new Random(SEED);
+		List<List<?>> result = new ArrayList<List<?>>(count);
+		for (int i = 0; i < count; i++) {
+			int val = r.nextInt(distinct);
+			result.add(Arrays.asList(val, "value_" + val, r.nextDouble())); //$NON-NLS-1$
+		}
+		return result;
+	}
+
+	/**
+	 * Fully process the node and return the number of rows produced
+	 */
+	static int drain(RelationalNode node) throws TeiidComponentException, TeiidProcessingException {
+		node.open();
+		int rows = 0;
+		while (true) {
+			try {
+				TupleBatch batch = node.nextBatch();
+				rows += batch.getRowCount();
+				if (batch.getTerminationFlag()) {
+					break;
+				}
+			} catch (BlockedException e) {
+				//the fake sources may block, just continue
+			}
+		}
+		node.close();
+		return rows;
+	}
+
+}
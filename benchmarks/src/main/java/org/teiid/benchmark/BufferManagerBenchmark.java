@@ -0,0 +1,88 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Writes a tuple buffer that exceeds the memory allowed by the buffer manager,
+ * so that batches are persisted, and then reads it back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BufferManagerBenchmark {
+
+	@Param({"100000"})
+	public int rows;
+
+	@Param({"1048576", "16777216"})
+	public long memory;
+
+	private BufferManagerImpl bufferManager;
+	private List<List<?>> tuples;
+	private List<ElementSymbol> schema;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		bufferManager = BufferManagerFactory.getTestBufferManager(memory, 256);
+		schema = BenchmarkData.schema("buffer"); //$NON-NLS-1$
+		tuples = BenchmarkData.rows(rows, rows);
+	}
+
+	@Benchmark
+	public long persistAndReload() throws Exception {
+		TupleBuffer buffer = bufferManager.createTupleBuffer(schema, "buffer", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		for (List<?> tuple : tuples) {
+			buffer.addTuple(tuple);
+		}
+		buffer.close();
+		long count = 0;
+		TupleSource ts = buffer.createIndexedTupleSource(true);
+		while (ts.nextTuple() != null) {
+			count++;
+		}
+		ts.closeSource();
+		buffer.remove();
+		return count;
+	}
+
+}
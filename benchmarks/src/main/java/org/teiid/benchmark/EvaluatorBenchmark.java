@@ -0,0 +1,108 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.resolver.util.ResolverUtil;
+import org.teiid.query.resolver.util.ResolverVisitor;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Evaluates common projection and predicate expressions against pm1.g1
+ * rows of (e1 string, e2 integer, e3 boolean, e4 double).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluatorBenchmark {
+
+	private static final int ROWS = 1024;
+
+	@Param({"e2 * 2 + 1", //$NON-NLS-1$
+		"concat(e1, '_x')", //$NON-NLS-1$
+		"CASE WHEN e2 < 10 THEN 'low' WHEN e2 < 50 THEN 'mid' ELSE 'high' END", //$NON-NLS-1$
+		"cast(e4 AS string)", //$NON-NLS-1$
+		"e2 > 50 AND e1 LIKE 'a%'"}) //$NON-NLS-1$
+	public String expression;
+
+	private Expression expr;
+	private Evaluator evaluator;
+	private List<List<?>> tuples;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+		GroupSymbol group = new GroupSymbol("pm1.g1"); //$NON-NLS-1$
+		ResolverUtil.resolveGroup(group, metadata);
+		expr = QueryParser.getQueryParser().parseExpression(expression);
+		ResolverVisitor.resolveLanguageObject(expr, Arrays.asList(group), metadata);
+		Map<ElementSymbol, Integer> elements = new HashMap<ElementSymbol, Integer>();
+		for (ElementSymbol es : ElementCollectorVisitor.getElements(expr, true)) {
+			//e1 through e4 map to positions 0 through 3
+			elements.put(es, Integer.parseInt(es.getShortName().substring(1)) - 1);
+		}
+		evaluator = new Evaluator(elements, null, new CommandContext());
+		Random r = new Random(BenchmarkData.SEED);
+		tuples = new ArrayList<List<?>>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			int val = r.nextInt(100);
+			tuples.add(Arrays.asList((char)('a' + r.nextInt(26)) + String.valueOf(val), val, r.nextBoolean(), r.nextDouble()));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void evaluate(Blackhole bh) throws Exception {
+		for (List<?> tuple : tuples) {
+			bh.consume(evaluator.evaluate(expr, tuple));
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BaseCacheEntry;
+import org.teiid.common.buffer.CacheKey;
+import org.teiid.common.buffer.impl.LrfuEvictionQueue;
+
+/**
+ * Compares a single {@link LrfuEvictionQueue} against the striped form under
+ * contention from 1 to 64 threads.  The access pattern mimics the buffer manager,
+ * where each read advances the shared clock and touches an entry, and eviction polls the
+ * first entry.  The touched entries come from a fixed seed sequence so that runs are
+ * reproducible, with each thread starting at its own offset.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvictionQueueBenchmark {
+
+	private static final int ENTRIES = 1 << 16;
+	private static final int ACCESSES = 1 << 20;
+
+	@Param({"1", "32"})
+	public int stripes;
+
+	private AtomicLong clock;
+	private LrfuEvictionQueue<BaseCacheEntry> queue;
+	private BaseCacheEntry[] entries;
+	private int[] accesses;
+	private AtomicInteger threads;
+
+	/**
+	 * The position of a thread in the access sequence
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int position;
+
+		@Setup(Level.Iteration)
+		public void setup(EvictionQueueBenchmark benchmark) {
+			position = (benchmark.threads.getAndIncrement() * (ACCESSES / 64)) & (ACCESSES - 1);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		clock = new AtomicLong();
+		queue = new LrfuEvictionQueue<BaseCacheEntry>(clock, stripes);
+		Random r = new Random(BenchmarkData.SEED);
+		entries = new BaseCacheEntry[ENTRIES];
+		for (int i = 0; i < ENTRIES; i++) {
+			entries[i] = new BaseCacheEntry(new CacheKey((long)i, r.nextInt(ENTRIES), 0));
+			queue.add(entries[i]);
+		}
+		accesses = new int[ACCESSES];
+		for (int i = 0; i < ACCESSES; i++) {
+			accesses[i] = r.nextInt(ENTRIES);
+		}
+		threads = new AtomicInteger();
+	}
+
+	private void touch(Cursor cursor) {
+		clock.incrementAndGet();
+		queue.touch(entries[accesses[cursor.position]]);
+		cursor.position = (cursor.position + 1) & (ACCESSES - 1);
+	}
+
+	private BaseCacheEntry evict() {
+		BaseCacheEntry entry = queue.firstEntry(true);
+		if (entry != null) {
+			queue.add(entry);
+		}
+		return entry;
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void touch1(Cursor cursor) {
+		touch(cursor);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void touch4(Cursor cursor) {
+		touch(cursor);
+	}
+
+	@Benchmark
+	@Threads(16)
+	public void touch16(Cursor cursor) {
+		touch(cursor);
+	}
+
+	@Benchmark
+	@Threads(64)
+	public void touch64(Cursor cursor) {
+		touch(cursor);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public BaseCacheEntry evict1() {
+		return evict();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public BaseCacheEntry evict16() {
+		return evict();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public BaseCacheEntry evict64() {
+		return evict();
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.query.processor.relational.FakeRelationalNode;
+import org.teiid.query.processor.relational.GroupingNode;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.symbol.AggregateSymbol;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Computes COUNT, SUM, and MAX grouped by an integer column using either
+ * sort or hash based aggregation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupingBenchmark {
+
+	@Param({"100000"})
+	public int rows;
+
+	@Param({"100", "10000"})
+	public int groups;
+
+	@Param({"false", "true"})
+	public boolean hash;
+
+	private BufferManager bufferManager;
+	private List[] data;
+	private List<ElementSymbol> schema;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		bufferManager = BufferManagerFactory.createBufferManager();
+		schema = BenchmarkData.schema("group"); //$NON-NLS-1$
+		data = BenchmarkData.rows(rows, groups).toArray(new List[rows]);
+	}
+
+	@Benchmark
+	public int group() throws Exception {
+		CommandContext context = new CommandContext("pid", "test", null, null, 1); //$NON-NLS-1$ //$NON-NLS-2$
+		FakeRelationalNode child = new FakeRelationalNode(2, data, bufferManager.getProcessorBatchSize());
+		child.setElements(schema);
+		child.initialize(context, bufferManager, null);
+
+		ElementSymbol key = schema.get(0);
+		ElementSymbol value = schema.get(2);
+		GroupingNode node = new GroupingNode(1);
+		List<Expression> outputElements = new ArrayList<Expression>();
+		outputElements.add(key);
+		outputElements.add(new AggregateSymbol("COUNT", false, null)); //$NON-NLS-1$
+		outputElements.add(new AggregateSymbol("SUM", false, value)); //$NON-NLS-1$
+		outputElements.add(new AggregateSymbol("MAX", false, value)); //$NON-NLS-1$
+		node.setElements(outputElements);
+		List<ElementSymbol> groupingElements = new ArrayList<ElementSymbol>();
+		groupingElements.add(key);
+		node.setOrderBy(new OrderBy(groupingElements).getOrderByItems());
+		node.setHashAggregate(hash);
+		node.addChild(child);
+		node.initialize(context, bufferManager, null);
+		return BenchmarkData.drain(node);
+	}
+
+}
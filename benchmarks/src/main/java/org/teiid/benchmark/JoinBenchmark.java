@@ -0,0 +1,118 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.query.processor.relational.FakeRelationalNode;
+import org.teiid.query.processor.relational.HashJoinStrategy;
+import org.teiid.query.processor.relational.JoinNode;
+import org.teiid.query.processor.relational.JoinStrategy;
+import org.teiid.query.processor.relational.MergeJoinStrategy;
+import org.teiid.query.processor.relational.MergeJoinStrategy.SortOption;
+import org.teiid.query.sql.lang.JoinType;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Compares the merge and hash join strategies for an equi-join of two
+ * unsorted inputs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JoinBenchmark {
+
+	public enum Strategy {MERGE, HASH}
+
+	@Param({"10000", "100000"})
+	public int rows;
+
+	@Param({"MERGE", "HASH"})
+	public Strategy strategy;
+
+	private BufferManager bufferManager;
+	private List[] leftData;
+	private List[] rightData;
+	private List<ElementSymbol> leftSchema;
+	private List<ElementSymbol> rightSchema;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		bufferManager = BufferManagerFactory.createBufferManager();
+		leftSchema = BenchmarkData.schema("left"); //$NON-NLS-1$
+		rightSchema = BenchmarkData.schema("right"); //$NON-NLS-1$
+		leftData = BenchmarkData.rows(rows, rows).toArray(new List[rows]);
+		//the smaller side has unique keys
+		List<List<?>> right = new ArrayList<List<?>>(rows / 10);
+		for (int i = 0; i < rows / 10; i++) {
+			right.add(Arrays.asList(i * 10, "right_" + i, (double)i)); //$NON-NLS-1$
+		}
+		rightData = right.toArray(new List[right.size()]);
+	}
+
+	@Benchmark
+	public int join() throws Exception {
+		CommandContext context = new CommandContext("pid", "test", null, null, 1); //$NON-NLS-1$ //$NON-NLS-2$
+		FakeRelationalNode left = new FakeRelationalNode(1, leftData, bufferManager.getProcessorBatchSize());
+		left.setElements(leftSchema);
+		left.initialize(context, bufferManager, null);
+		FakeRelationalNode right = new FakeRelationalNode(2, rightData, bufferManager.getProcessorBatchSize());
+		right.setElements(rightSchema);
+		right.initialize(context, bufferManager, null);
+
+		JoinNode join = new JoinNode(3);
+		List<ElementSymbol> elements = new ArrayList<ElementSymbol>(leftSchema);
+		elements.addAll(rightSchema);
+		join.setElements(elements);
+		join.setJoinType(JoinType.JOIN_INNER);
+		join.setJoinExpressions(leftSchema.subList(0, 1), rightSchema.subList(0, 1));
+		JoinStrategy joinStrategy = null;
+		if (strategy == Strategy.HASH) {
+			joinStrategy = new HashJoinStrategy();
+		} else {
+			joinStrategy = new MergeJoinStrategy(SortOption.SORT, SortOption.SORT, false);
+		}
+		join.setJoinStrategy(joinStrategy);
+		join.addChild(left);
+		join.addChild(right);
+		join.initialize(context, bufferManager, null);
+		return BenchmarkData.drain(join);
+	}
+
+}
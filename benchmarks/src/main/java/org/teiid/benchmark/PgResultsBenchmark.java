@@ -0,0 +1,124 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.benchmark;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.transport.pg.PGbinary;
+import org.teiid.transport.pg.TimestampUtils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Compares the text and binary encoding of pg data row values for a wide
+ * numeric and temporal result.  Each value is length prefixed as in a data row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PgResultsBenchmark {
+
+	private static final int ROWS = 1024;
+
+	private List<List<?>> rows;
+	private TimeZone tz = TimeZone.getDefault();
+	private ByteBuf buffer = Unpooled.buffer(1 << 20);
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random r = new Random(BenchmarkData.SEED);
+		rows = new ArrayList<List<?>>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			long millis = 946684800000L + r.nextInt(Integer.MAX_VALUE) * 1000L;
+			rows.add(Arrays.asList(r.nextInt(), r.nextLong(), r.nextDouble(), 
+					BigDecimal.valueOf(r.nextInt(), 4), new Timestamp(millis), new Date(millis)));
+		}
+	}
+
+	@Benchmark
+	public int text() throws Exception {
+		buffer.clear();
+		Writer writer = new OutputStreamWriter(new ByteBufOutputStream(buffer), StandardCharsets.UTF_8);
+		for (List<?> row : rows) {
+			for (Object value : row) {
+				int index = buffer.writerIndex();
+				buffer.writeInt(-1);
+				writer.write((String)DataTypeManager.transformValue(value, DataTypeManager.DefaultDataClasses.STRING));
+				writer.flush();
+				buffer.setInt(index, buffer.writerIndex() - index - 4);
+			}
+		}
+		return buffer.writerIndex();
+	}
+
+	@Benchmark
+	public int binary() throws Exception {
+		buffer.clear();
+		for (List<?> row : rows) {
+			for (Object value : row) {
+				int index = buffer.writerIndex();
+				buffer.writeInt(-1);
+				if (value instanceof Integer) {
+					buffer.writeInt((Integer)value);
+				} else if (value instanceof Long) {
+					buffer.writeLong((Long)value);
+				} else if (value instanceof Double) {
+					buffer.writeLong(Double.doubleToLongBits((Double)value));
+				} else if (value instanceof BigDecimal) {
+					PGbinary.writeNumeric(buffer, (BigDecimal)value);
+				} else if (value instanceof Timestamp) {
+					buffer.writeLong(TimestampUtils.toPgMicros(tz, (Timestamp)value));
+				} else {
+					buffer.writeInt(TimestampUtils.toPgDays(tz, (Date)value));
+				}
+				buffer.setInt(index, buffer.writerIndex() - index - 4);
+			}
+		}
+		return buffer.writerIndex();
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.STree;
+import org.teiid.common.buffer.STree.InsertMode;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Measures {@link STree} random inserts and point lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class STreeBenchmark {
+
+	@Param({"10000", "100000"})
+	public int rows;
+
+	private BufferManager bufferManager;
+	private List<ElementSymbol> schema;
+	private List<List<?>> tuples;
+	private STree lookupTree;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		bufferManager = BufferManagerFactory.createBufferManager();
+		schema = Arrays.asList(BenchmarkData.element("key", DataTypeManager.DefaultDataClasses.INTEGER), //$NON-NLS-1$
+				BenchmarkData.element("value", DataTypeManager.DefaultDataClasses.STRING)); //$NON-NLS-1$
+		Random r = new Random(BenchmarkData.SEED);
+		tuples = new ArrayList<List<?>>(rows);
+		for (int i = 0; i < rows; i++) {
+			int key = r.nextInt();
+			tuples.add(Arrays.asList(key, String.valueOf(key)));
+		}
+		lookupTree = insertAll();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		lookupTree.remove();
+	}
+
+	private STree insertAll() throws Exception {
+		STree tree = bufferManager.createSTree(schema, "stree", 1); //$NON-NLS-1$
+		for (List<?> tuple : tuples) {
+			tree.insert(tuple, InsertMode.NEW, rows);
+		}
+		return tree;
+	}
+
+	@Benchmark
+	public long insert() throws Exception {
+		STree tree = insertAll();
+		long count = tree.getRowCount();
+		tree.remove();
+		return count;
+	}
+
+	@Benchmark
+	public int find() throws Exception {
+		int found = 0;
+		for (List<?> tuple : tuples) {
+			if (lookupTree.find(tuple.subList(0, 1)) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+}
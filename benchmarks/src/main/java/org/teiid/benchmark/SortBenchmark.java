@@ -0,0 +1,90 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.query.processor.relational.SortUtility;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Sorts a buffer of generated rows with {@link SortUtility} using the
+ * sort and the duplicate removing sort modes.
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SortBenchmark {
+
+	@Param({"10000", "100000"})
+	public int rows;
+
+	@Param({"SORT", "DUP_REMOVE"})
+	public SortUtility.Mode mode;
+
+	private BufferManager bufferManager;
+	private TupleBuffer input;
+	private List<ElementSymbol> schema;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		bufferManager = BufferManagerFactory.createBufferManager();
+		schema = BenchmarkData.schema("sort"); //$NON-NLS-1$
+		input = bufferManager.createTupleBuffer(schema, "sort", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		for (List<?> tuple : BenchmarkData.rows(rows, rows / 2)) {
+			input.addTuple(tuple);
+		}
+		input.close();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		input.remove();
+	}
+
+	@Benchmark
+	public long sort() throws Exception {
+		SortUtility su = new SortUtility(input.createIndexedTupleSource(), schema.subList(0, 2), Arrays.asList(Boolean.TRUE, Boolean.FALSE), mode, bufferManager, "sort", schema); //$NON-NLS-1$
+		TupleBuffer result = su.sort();
+		long count = result.getRowCount();
+		result.remove();
+		return count;
+	}
+
+}
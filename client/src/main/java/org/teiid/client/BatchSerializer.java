@@ -18,11 +18,13 @@
 
 package org.teiid.client;
 
+import java.io.ByteArrayInputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Array;
@@ -36,6 +38,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.ArrayImpl;
@@ -47,7 +52,10 @@ import org.teiid.core.types.GeographyType;
 import org.teiid.core.types.GeometryType;
 import org.teiid.core.types.JsonType;
 import org.teiid.core.types.XMLType;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.jdbc.JDBCPlugin;
+import org.teiid.netty.handler.codec.serialization.CompactObjectInputStream;
+import org.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
 
 
 
@@ -65,13 +73,29 @@ import org.teiid.jdbc.JDBCPlugin;
  * <li>version 3: starts with 8.6 and adds better repeated string performance
  * <li>version 4: starts with 8.10 and adds the geometry type
  * <li>version 5: starts with 11.2 and adds the geography and json types
+ * <li>version 6: starts with 12.1 and adds variable length delta encoding of integral and 
+ *   date/time values, compact repeated string references, and optional block compression
  * </ul>
  */
 public class BatchSerializer {
 
 	public static final byte VERSION_GEOMETRY = (byte)4;
 	public static final byte VERSION_GEOGRAPHY = (byte)5;
-    static final byte CURRENT_VERSION = VERSION_GEOGRAPHY;
+	public static final byte VERSION_COLUMN_ENCODING = (byte)6;
+    static final byte CURRENT_VERSION = VERSION_COLUMN_ENCODING;
+    
+    private static final byte BLOCK_PLAIN = 0;
+    private static final byte BLOCK_BUFFERED = 1;
+    private static final byte BLOCK_DEFLATED = 2;
+    /**
+     * Batches with a smaller encoded size are not worth compressing
+     */
+    static final int MIN_COMPRESSION_SIZE = 1 << 10;
+    /**
+     * Upper bound on the decoded size of a block read from the wire, so that a
+     * corrupt or hostile length cannot force a huge allocation
+     */
+    static final int MAX_BLOCK_SIZE = 1 << 27;
 
 	private BatchSerializer() {} // Uninstantiable
 
@@ -84,15 +108,15 @@ public class BatchSerializer {
         serializers.put(DataTypeManager.DefaultDataTypes.BOOLEAN,       new ColumnSerializer[] {new BooleanColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.BYTE,          new ColumnSerializer[] {new ByteColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.CHAR,          new ColumnSerializer[] {new CharColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.DATE,          new ColumnSerializer[] {new DateColumnSerializer(), new DateColumnSerializer1(), new DateColumnSerializer()});
+        serializers.put(DataTypeManager.DefaultDataTypes.DATE,          new ColumnSerializer[] {new DateColumnSerializer(), new DateColumnSerializer1(), new DateColumnSerializer(), new DateColumnSerializer(), new DateColumnSerializer(), new DateColumnSerializer(), new DeltaDateColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.DOUBLE,        new ColumnSerializer[] {new DoubleColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.FLOAT,         new ColumnSerializer[] {new FloatColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.INTEGER,       new ColumnSerializer[] {new IntColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.LONG,          new ColumnSerializer[] {new LongColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.SHORT,         new ColumnSerializer[] {new ShortColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.TIME,          new ColumnSerializer[] {new TimeColumnSerializer(), new TimeColumnSerializer1(), new TimeColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.TIMESTAMP,     new ColumnSerializer[] {new TimestampColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.STRING,     	new ColumnSerializer[] {defaultSerializer, new StringColumnSerializer1(), new StringColumnSerializer1(), new StringColumnSerializer3()});
+        serializers.put(DataTypeManager.DefaultDataTypes.INTEGER,       new ColumnSerializer[] {new IntColumnSerializer(), new IntColumnSerializer(), new IntColumnSerializer(), new IntColumnSerializer(), new IntColumnSerializer(), new IntColumnSerializer(), new DeltaIntColumnSerializer()});
+        serializers.put(DataTypeManager.DefaultDataTypes.LONG,          new ColumnSerializer[] {new LongColumnSerializer(), new LongColumnSerializer(), new LongColumnSerializer(), new LongColumnSerializer(), new LongColumnSerializer(), new LongColumnSerializer(), new DeltaLongColumnSerializer()});
+        serializers.put(DataTypeManager.DefaultDataTypes.SHORT,         new ColumnSerializer[] {new ShortColumnSerializer(), new ShortColumnSerializer(), new ShortColumnSerializer(), new ShortColumnSerializer(), new ShortColumnSerializer(), new ShortColumnSerializer(), new DeltaShortColumnSerializer()});
+        serializers.put(DataTypeManager.DefaultDataTypes.TIME,          new ColumnSerializer[] {new TimeColumnSerializer(), new TimeColumnSerializer1(), new TimeColumnSerializer(), new TimeColumnSerializer(), new TimeColumnSerializer(), new TimeColumnSerializer(), new DeltaTimeColumnSerializer()});
+        serializers.put(DataTypeManager.DefaultDataTypes.TIMESTAMP,     new ColumnSerializer[] {new TimestampColumnSerializer(), new TimestampColumnSerializer(), new TimestampColumnSerializer(), new TimestampColumnSerializer(), new TimestampColumnSerializer(), new TimestampColumnSerializer(), new DeltaTimestampColumnSerializer()});
+        serializers.put(DataTypeManager.DefaultDataTypes.STRING,     	new ColumnSerializer[] {defaultSerializer, new StringColumnSerializer1(), new StringColumnSerializer1(), new StringColumnSerializer3(), new StringColumnSerializer3(), new StringColumnSerializer3(), new StringColumnSerializer6()});
         serializers.put(DataTypeManager.DefaultDataTypes.CLOB,  	   	new ColumnSerializer[] {defaultSerializer, new ClobColumnSerializer1()});
         serializers.put(DataTypeManager.DefaultDataTypes.JSON,          new ColumnSerializer[] {defaultSerializer, new ClobColumnSerializer1(), new ClobColumnSerializer1(), new ClobColumnSerializer1(), new ClobColumnSerializer1(), new JsonColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.BLOB,     		new ColumnSerializer[] {defaultSerializer, new BlobColumnSerializer1()});
@@ -375,6 +399,53 @@ public class BatchSerializer {
     	}
     }
 
+    /**
+     * Uses a batch level dictionary of all strings longer than a character with 
+     * variable length references.
+     */
+    private static class StringColumnSerializer6 extends StringColumnSerializer1 {
+    	private static final int MAX_INLINE_STRING_LENGTH = 1;
+    	private static final byte REPEATED_STRING = 0;
+    	@Override
+    	protected Object readObject(ObjectInput in, List<Object> cache, byte version)
+    			throws IOException, ClassNotFoundException {
+    		byte b = in.readByte();
+    		String val = null;
+    		if (b == ObjectStreamConstants.TC_STRING) {
+    			val = in.readUTF();
+    		} else if (b == REPEATED_STRING) {
+    			return cache.get((int)readVarLong(in));
+    		} else {
+    			val = (String) in.readObject();
+    		}
+    		if (val.length() > MAX_INLINE_STRING_LENGTH) {
+    			cache.add(val);
+    		}
+    		return val;
+    	}
+    	
+    	@Override
+    	protected void writeObject(ObjectOutput out, Object obj,
+    			Map<Object, Integer> cache, byte version) throws IOException {
+    		String str = (String)obj;
+    		Integer val = cache.get(str);
+    		if (val != null) {
+    			out.writeByte(REPEATED_STRING);
+    			writeVarLong(out, val);
+    			return;
+    		} 
+    		if (str.length() > MAX_INLINE_STRING_LENGTH) {
+    			cache.put(str, cache.size());
+    		}
+    		super.writeObject(out, obj, cache, version);
+    	}
+    	
+    	@Override
+    	public boolean usesCache(byte version) {
+    		return true;
+    	}
+    }
+
     private static class NullColumnSerializer1 extends ColumnSerializer {
     	@Override
     	public void writeColumn(ObjectOutput out, int col,
@@ -867,6 +938,148 @@ public class BatchSerializer {
         }
     }
 
+    static void writeVarLong(ObjectOutput out, long value) throws IOException {
+    	while ((value & ~0x7fL) != 0) {
+    		out.write((int)((value & 0x7f) | 0x80));
+    		value >>>= 7;
+    	}
+    	out.write((int)value);
+    }
+    
+    static long readVarLong(ObjectInput in) throws IOException {
+    	long result = 0;
+    	for (int shift = 0; shift < 64; shift += 7) {
+    		int b = in.readUnsignedByte();
+    		result |= (long)(b & 0x7f) << shift;
+    		if ((b & 0x80) == 0) {
+    			return result;
+    		}
+    	}
+    	throw new StreamCorruptedException("Invalid variable length value"); //$NON-NLS-1$
+    }
+    
+    /**
+     * Writes the non-null values as the zig-zag variable length encoded difference from 
+     * the prior non-null value, so that small, sorted, or clustered values take 
+     * only a byte or two.
+     */
+    private static abstract class DeltaColumnSerializer extends ColumnSerializer {
+    	@Override
+    	public void writeColumn(ObjectOutput out, int col, List<? extends List<?>> batch, Map<Object, Integer> cache, byte version) throws IOException {
+    		writeIsNullData(out, col, batch);
+    		long previous = 0;
+    		for (int i = 0; i < batch.size(); i++) {
+    			Object obj = batch.get(i).get(col);
+    			if (obj != null) {
+    				long value = toLong(obj);
+    				long delta = value - previous;
+    				writeVarLong(out, (delta << 1) ^ (delta >> 63));
+    				writeRemainder(out, obj);
+    				previous = value;
+    			}
+    		}
+    	}
+    	
+    	@Override
+    	public void readColumn(ObjectInput in, int col, List<List<Object>> batch, byte[] isNull, List<Object> cache, byte version) throws IOException, ClassNotFoundException {
+    		readIsNullData(in, isNull);
+    		long previous = 0;
+    		for (int i = 0; i < batch.size(); i++) {
+    			if (!isNullObject(isNull, i)) {
+    				long delta = readVarLong(in);
+    				previous += (delta >>> 1) ^ -(delta & 1);
+    				batch.get(i).set(col, DataTypeManager.getCanonicalValue(fromLong(previous, in)));
+    			}
+    		}
+    	}
+    	
+    	protected abstract long toLong(Object obj);
+    	
+    	protected abstract Object fromLong(long value, ObjectInput in) throws IOException;
+    	
+    	/**
+    	 * Write any information not captured by the long value
+    	 */
+    	protected void writeRemainder(ObjectOutput out, Object obj) throws IOException {
+    		
+    	}
+    }
+    
+    private static class DeltaIntColumnSerializer extends DeltaColumnSerializer {
+    	@Override
+    	protected long toLong(Object obj) {
+    		return ((Integer)obj).intValue();
+    	}
+    	@Override
+    	protected Object fromLong(long value, ObjectInput in) {
+    		return Integer.valueOf((int)value);
+    	}
+    }
+    
+    private static class DeltaLongColumnSerializer extends DeltaColumnSerializer {
+    	@Override
+    	protected long toLong(Object obj) {
+    		return ((Long)obj).longValue();
+    	}
+    	@Override
+    	protected Object fromLong(long value, ObjectInput in) {
+    		return Long.valueOf(value);
+    	}
+    }
+    
+    private static class DeltaShortColumnSerializer extends DeltaColumnSerializer {
+    	@Override
+    	protected long toLong(Object obj) {
+    		return ((Short)obj).shortValue();
+    	}
+    	@Override
+    	protected Object fromLong(long value, ObjectInput in) {
+    		return Short.valueOf((short)value);
+    	}
+    }
+    
+    private static class DeltaDateColumnSerializer extends DeltaColumnSerializer {
+    	@Override
+    	protected long toLong(Object obj) {
+    		return ((java.sql.Date)obj).getTime();
+    	}
+    	@Override
+    	protected Object fromLong(long value, ObjectInput in) {
+    		return new java.sql.Date(value);
+    	}
+    }
+    
+    private static class DeltaTimeColumnSerializer extends DeltaColumnSerializer {
+    	@Override
+    	protected long toLong(Object obj) {
+    		return ((Time)obj).getTime();
+    	}
+    	@Override
+    	protected Object fromLong(long value, ObjectInput in) {
+    		return new Time(value);
+    	}
+    }
+    
+    /**
+     * The millisecond value is delta encoded and the sub-millisecond nanos follow 
+     */
+    private static class DeltaTimestampColumnSerializer extends DeltaColumnSerializer {
+    	@Override
+    	protected long toLong(Object obj) {
+    		return ((Timestamp)obj).getTime();
+    	}
+    	@Override
+    	protected void writeRemainder(ObjectOutput out, Object obj) throws IOException {
+    		writeVarLong(out, ((Timestamp)obj).getNanos() % 1000000);
+    	}
+    	@Override
+    	protected Object fromLong(long value, ObjectInput in) throws IOException {
+    		Timestamp ts = new Timestamp(value);
+    		ts.setNanos(ts.getNanos() + (int)readVarLong(in));
+    		return ts;
+    	}
+    }
+
     private static ColumnSerializer getSerializer(String type, byte version) {
     	ColumnSerializer[] sers = serializers.get(type);
     	if (sers == null) {
@@ -886,6 +1099,13 @@ public class BatchSerializer {
     }
 
     public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version) throws IOException {
+    	writeBatch(out, types, batch, version, false);
+    }
+    
+    /**
+     * @param compress if true and the version supports it, compress the column data when beneficial 
+     */
+    public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version, boolean compress) throws IOException {
         if (batch == null) {
             out.writeInt(-1);
         } else {
@@ -898,31 +1118,88 @@ public class BatchSerializer {
             if (batch.size() > 0) {
 	            int columns = types.length;
 	            out.writeInt(columns);
-	            Map<Object, Integer> cache = null;
-	            for(int i = 0; i < columns; i++) {
-	            	ColumnSerializer serializer = getSerializer(types[i], version);
-	            	
-	            	if (cache == null && serializer.usesCache(version)) {
-	            		cache = new HashMap<Object, Integer>();
-	            	}
-	                try {
-	                    serializer.writeColumn(out, i, batch, cache, version);
-	                } catch (ClassCastException e) {
-	                    Object obj = null;
-	                    String objectClass = null;
-	                    objectSearch: for (int row = 0; row < batch.size(); row++) {
-	                        obj = batch.get(row).get(i);
-	                        if (obj != null) {
-	                            objectClass = obj.getClass().getName();
-	                            break objectSearch;
-	                        }
-	                    }
-	                     throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
-	                }
+	            if (version < VERSION_COLUMN_ENCODING) {
+	            	writeColumns(out, types, batch, version);
+	            } else if (!compress) {
+	            	out.writeByte(BLOCK_PLAIN);
+	            	writeColumns(out, types, batch, version);
+	            } else {
+	            	writeBlock(out, types, batch, version);
 	            }
             }
         }
     }
+    
+    /**
+     * Write the columns into a separate buffer and deflate them if that is smaller.
+     * <br>
+     * Lob and stream values are replaced by references whose data follows the message, 
+     * which cannot be tracked from within the separate buffer - such batches are written plain.
+     */
+	private static void writeBlock(ObjectOutput out, String[] types,
+			List<? extends List<?>> batch, byte version) throws IOException {
+		AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 13);
+		CompactObjectOutputStream oos = new CompactObjectOutputStream(baos);
+		writeColumns(oos, types, batch, version);
+		oos.close();
+		if (!oos.getReferences().isEmpty()) {
+			out.writeByte(BLOCK_PLAIN);
+			writeColumns(out, types, batch, version);
+			return;
+		}
+		int length = baos.getCount();
+		if (length >= MIN_COMPRESSION_SIZE) {
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try {
+				deflater.setInput(baos.getBuffer(), 0, length);
+				deflater.finish();
+				byte[] compressed = new byte[length];
+				int compressedLength = 0;
+				while (!deflater.finished() && compressedLength < length) {
+					compressedLength += deflater.deflate(compressed, compressedLength, length - compressedLength);
+				}
+				if (deflater.finished() && compressedLength < length) {
+					out.writeByte(BLOCK_DEFLATED);
+					out.writeInt(length);
+					out.writeInt(compressedLength);
+					out.write(compressed, 0, compressedLength);
+					return;
+				}
+			} finally {
+				deflater.end();
+			}
+		}
+		out.writeByte(BLOCK_BUFFERED);
+		out.writeInt(length);
+		out.write(baos.getBuffer(), 0, length);
+	}
+
+	private static void writeColumns(ObjectOutput out, String[] types,
+			List<? extends List<?>> batch, byte version) throws IOException {
+		int columns = types.length;
+		Map<Object, Integer> cache = null;
+		for(int i = 0; i < columns; i++) {
+			ColumnSerializer serializer = getSerializer(types[i], version);
+			
+			if (cache == null && serializer.usesCache(version)) {
+				cache = new HashMap<Object, Integer>();
+			}
+		    try {
+		        serializer.writeColumn(out, i, batch, cache, version);
+		    } catch (ClassCastException e) {
+		        Object obj = null;
+		        String objectClass = null;
+		        objectSearch: for (int row = 0; row < batch.size(); row++) {
+		            obj = batch.get(row).get(i);
+		            if (obj != null) {
+		                objectClass = obj.getClass().getName();
+		                break objectSearch;
+		            }
+		        }
+		         throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
+		    }
+		}
+	}
 
     public static List<List<Object>> readBatch(ObjectInput in, String[] types) throws IOException, ClassNotFoundException {
     	int rows = 0;
@@ -957,7 +1234,53 @@ public class BatchSerializer {
             batch.add(currentRow, Arrays.asList(new Object[columns]));
         }
         byte[] isNullBuffer = new byte[(extraRows > 0) ? numBytes + 1: numBytes];
-        List<Object> cache = null;
+        if (version >= VERSION_COLUMN_ENCODING) {
+        	byte block = in.readByte();
+        	if (block != BLOCK_PLAIN) {
+        		int length = in.readInt();
+        		if (length < 0 || length > MAX_BLOCK_SIZE) {
+        			throw new StreamCorruptedException("Invalid batch block length " + length); //$NON-NLS-1$
+        		}
+        		byte[] bytes = new byte[length];
+        		if (block == BLOCK_DEFLATED) {
+        			int compressedLength = in.readInt();
+        			if (compressedLength < 0 || compressedLength > length) {
+        				throw new StreamCorruptedException("Invalid compressed batch block length " + compressedLength); //$NON-NLS-1$
+        			}
+        			byte[] compressed = new byte[compressedLength];
+        			in.readFully(compressed);
+        			Inflater inflater = new Inflater();
+        			try {
+        				inflater.setInput(compressed);
+        				int read = 0;
+        				while (read < length) {
+        					int count = inflater.inflate(bytes, read, length - read);
+        					if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+        						throw new StreamCorruptedException("Truncated compressed batch"); //$NON-NLS-1$
+        					}
+        					read += count;
+        				}
+        			} catch (DataFormatException e) {
+        				throw new StreamCorruptedException(e.getMessage());
+        			} finally {
+        				inflater.end();
+        			}
+        		} else {
+        			in.readFully(bytes);
+        		}
+        		CompactObjectInputStream ois = new CompactObjectInputStream(new ByteArrayInputStream(bytes), BatchSerializer.class.getClassLoader());
+        		readColumns(ois, types, version, columns, batch, isNullBuffer);
+        		return batch;
+        	}
+        }
+        readColumns(in, types, version, columns, batch, isNullBuffer);
+        return batch;
+    }
+
+	private static void readColumns(ObjectInput in, String[] types, byte version,
+			int columns, List<List<Object>> batch, byte[] isNullBuffer)
+			throws IOException, ClassNotFoundException {
+		List<Object> cache = null;
         for (int col = 0; col < columns; col++) {
             ColumnSerializer serializer = getSerializer(types[col], version);
             if (cache == null && serializer.usesCache(version)) {
@@ -965,8 +1288,7 @@ public class BatchSerializer {
         	}
             serializer.readColumn(in, col, batch, isNullBuffer, cache, version);
         }
-        return batch;
-    }
+	}
 
     public static String getClientSafeType(String type,
             byte clientSerializationVersion) {
@@ -77,6 +77,9 @@ public class ResultsMessage implements Externalizable {
     private String debugLog;
     
     private byte clientSerializationVersion;
+    
+    /** Server side setting to compress the serialized batch, not sent to the client */
+    private boolean compressResults;
         
     /** 
      * Query plan annotations, if OPTION SHOWPLAN or OPTION PLANONLY was used:
@@ -109,6 +112,17 @@ public class ResultsMessage implements Externalizable {
 		return results;
 	}
 	
+	/**
+	 * @return the serialized size of the results if they have not yet been processed, or -1 if unknown
+	 */
+	public int getResultsSize() {
+		byte[] bytes = resultBytes;
+		if (bytes == null) {
+			return -1;
+		}
+		return bytes.length;
+	}
+	
 	public void processResults() throws TeiidSQLException {
 		if (results == null && resultBytes != null) {
 			try {
@@ -312,7 +326,7 @@ public class ResultsMessage implements Externalizable {
         if (delayDeserialization) {
         	BatchSerializer.writeBatch(out, dataTypes, null, clientSerializationVersion);
     	} else {
-        	BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion);
+        	BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion, compressResults);
     	}
         
         // Plan descriptions
@@ -361,7 +375,7 @@ public class ResultsMessage implements Externalizable {
 		if (serializationBuffer == null) {
 			serializationBuffer = new MultiArrayOutputStream(1 << 13);
 			CompactObjectOutputStream oos = new CompactObjectOutputStream(serializationBuffer);
-			BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion);
+			BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion, compressResults);
 			oos.close();
 		}
 		int result = serializationBuffer.getCount();
@@ -427,6 +441,18 @@ public class ResultsMessage implements Externalizable {
 		this.clientSerializationVersion = clientSerializationVersion;
 	}
 	
+	/**
+	 * Compress the serialized results if supported by the client serialization version
+	 * @param compressResults
+	 */
+	public void setCompressResults(boolean compressResults) {
+		this.compressResults = compressResults;
+	}
+	
+	public boolean isCompressResults() {
+		return compressResults;
+	}
+	
 	public void setUpdateCount(int updateCount) {
 		this.updateCount = updateCount;
 	}
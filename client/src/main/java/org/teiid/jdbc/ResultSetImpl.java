@@ -24,6 +24,7 @@ import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.*;
+import java.util.ArrayDeque;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
@@ -97,10 +98,18 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
     
     private ResultsFuture<ResultsMessage> prefetch;
     private boolean usePrefetch;
+    //additional outstanding batch requests following the prefetch
+    private ArrayDeque<ResultsFuture<ResultsMessage>> pipeline;
+    private int prefetchBatches = 1;
+    private int batchBytes;
 
 	private int skipTo;
 	
 	private static boolean DISABLE_FETCH_SIZE_DEFAULT = PropertiesUtils.getHierarchicalProperty("org.teiid." + DISABLE_FETCH_SIZE, false, Boolean.class); //$NON-NLS-1$
+	//the maximum number of batches requested ahead of a forward only cursor
+	private static int MAX_PREFETCH_BATCHES = PropertiesUtils.getHierarchicalProperty("org.teiid.maxPrefetchBatches", 1, Integer.class); //$NON-NLS-1$
+	//the maximum serialized size of the batches requested ahead
+	private static int PREFETCH_WINDOW_BYTES = PropertiesUtils.getHierarchicalProperty("org.teiid.prefetchWindowBytes", 1 << 24, Integer.class); //$NON-NLS-1$
 	
 	private Boolean disableFetchSize;
 
@@ -144,6 +153,10 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 		}
 		this.usePrefetch = cursorType == ResultSet.TYPE_FORWARD_ONLY && !statement.useCallingThread();
 		this.maxRows = statement.getMaxRows();
+		if (usePrefetch && MAX_PREFETCH_BATCHES > 1 && maxRows == 0 
+				&& statement.getConnection().getServerConnection().getServerVersion().compareTo("12.01") >= 0) { //$NON-NLS-1$
+			this.pipeline = new ArrayDeque<ResultsFuture<ResultsMessage>>();
+		}
 		this.batchResults = new BatchResults(this, getCurrentBatch(resultsMsg), this.cursorType == ResultSet.TYPE_FORWARD_ONLY ? 1 : BatchResults.DEFAULT_SAVED_BATCHES);
 	}
 	
@@ -375,8 +388,13 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
     			//TODO: this is not efficient if the user is skipping around the results
     			//but the server logic at this point basically requires us
     			//to read what we have requested before requesting more (no queuing)
+    			boolean waited = !prefetch.isDone();
     			ResultsMessage result = getResults(prefetch);
     			prefetch = null;
+    			if (pipeline != null) {
+    				prefetch = pipeline.poll();
+    				adjustPrefetchBatches(waited);
+    			}
     			Batch nextBatch = processBatch(result);
 				return nextBatch;
         	}
@@ -398,6 +416,23 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 		}
     }
 
+	/**
+	 * Request more batches ahead if the consumer had to wait on the server and
+	 * fewer if the batches are already waiting, bounded by the byte window
+	 */
+	private void adjustPrefetchBatches(boolean waited) {
+		int max = MAX_PREFETCH_BATCHES;
+		if (batchBytes > 0) {
+			max = Math.max(1, Math.min(max, PREFETCH_WINDOW_BYTES / batchBytes));
+		}
+		if (waited) {
+			prefetchBatches++;
+		} else if (prefetch != null && prefetch.isDone() && !pipeline.isEmpty() && pipeline.peek().isDone()) {
+			prefetchBatches--;
+		}
+		prefetchBatches = Math.max(1, Math.min(prefetchBatches, max));
+	}
+
 	private ResultsFuture<ResultsMessage> submitRequestBatch(int beginRow)
 			throws TeiidSQLException {
 		if (beginRow > maxRows && skipTo > 0) {
@@ -453,6 +488,22 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 			//fetch before processing the results
 			prefetch = submitRequestBatch(currentResultMsg.getLastRow() + 1);
 		}
+		if (pipeline != null) {
+			if (currentResultMsg.getLastRow() == currentResultMsg.getFinalRow()) {
+				//the server answers the remaining requests without results
+				prefetch = null;
+				pipeline.clear();
+			} else {
+				int bytes = currentResultMsg.getResultsSize();
+				if (bytes > 0) {
+					batchBytes = bytes;
+				}
+				while (pipeline.size() + 1 < prefetchBatches) {
+					//request the rows following the last requested
+					pipeline.add(submitRequestBatch(0));
+				}
+			}
+		}
 		currentResultMsg.processResults();
 		List<?> lastTuple = null;
 		List<List<?>> resultsList = (List<List<?>>) currentResultMsg.getResultsList();
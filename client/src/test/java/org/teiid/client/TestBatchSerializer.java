@@ -25,8 +25,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.List;
 
@@ -40,6 +42,7 @@ import org.teiid.core.types.GeographyType;
 import org.teiid.core.types.GeometryType;
 import org.teiid.core.types.JsonType;
 import org.teiid.core.util.TimestampWithTimezone;
+import org.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
 import org.teiid.query.unittest.TimestampUtil;
 
 
@@ -50,25 +53,30 @@ import org.teiid.query.unittest.TimestampUtil;
 public class TestBatchSerializer {
 
     private static List<List<Object>> helpTestSerialization(String[] types, List<?>[] batch, byte version) throws IOException, ClassNotFoundException {
-        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-        ObjectOutputStream out = new ObjectOutputStream(byteStream);
+        return helpTestSerialization(types, batch, version, false);
+    }
+
+    private static List<List<Object>> helpTestSerialization(String[] types, List<?>[] batch, byte version, boolean compress) throws IOException, ClassNotFoundException {
+        byte[] bytes = serialize(types, batch, version, compress);
         List<List<?>> batchList = Arrays.asList(batch);
         
-        BatchSerializer.writeBatch(out, types, batchList, version);
-        out.flush();
-        
-        byte[] bytes = byteStream.toByteArray();
-        
         ByteArrayInputStream bytesIn = new ByteArrayInputStream(bytes);
         ObjectInputStream in = new ObjectInputStream(bytesIn);
         List<List<Object>> newBatch = BatchSerializer.readBatch(in, types);
-        out.close();
         in.close();
 
         assertTrue(batchList.equals(newBatch));
         return newBatch;
     }
     
+    private static byte[] serialize(String[] types, List<?>[] batch, byte version, boolean compress) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(byteStream);
+        BatchSerializer.writeBatch(out, types, Arrays.asList(batch), version, compress);
+        out.close();
+        return byteStream.toByteArray();
+    }
+    
     private static final String[] sampleBatchTypes = {DataTypeManager.DefaultDataTypes.BIG_DECIMAL,
                                                       DataTypeManager.DefaultDataTypes.BIG_INTEGER,
                                                       DataTypeManager.DefaultDataTypes.BOOLEAN,
@@ -203,5 +211,63 @@ public class TestBatchSerializer {
         val = helpTestSerialization(new String[] {DataTypeManager.DefaultDataTypes.OBJECT}, new List[] {Arrays.asList(json)}, (byte)1).get(0).get(0); //clob serialization
         assertTrue(val instanceof ClobType);
     }
+    
+    @Test public void testCompression() throws Exception {
+        helpTestSerialization(sampleBatchTypes, sampleBatchWithNulls(1), BatchSerializer.CURRENT_VERSION, true); //too small to compress
+        helpTestSerialization(sampleBatchTypes, sampleBatchWithNulls(833), BatchSerializer.CURRENT_VERSION, true);
+        List<?>[] batch = new List[1000];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = Arrays.asList("some repeated value " + (i%10), i%7 == 0?null:"other value " + (i%3));
+        }
+        String[] types = new String[] {DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.STRING};
+        helpTestSerialization(types, batch, BatchSerializer.CURRENT_VERSION, true);
+        assertTrue(serialize(types, batch, BatchSerializer.CURRENT_VERSION, true).length < serialize(types, batch, BatchSerializer.CURRENT_VERSION, false).length);
+        //ignored prior to the column encoding version
+        helpTestSerialization(types, batch, BatchSerializer.VERSION_GEOGRAPHY, true);
+    }
+    
+    @Test public void testCompressionWithLobReferences() throws Exception {
+        List<?>[] batch = new List[200];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = Arrays.asList("some repeated value " + i, new ClobImpl("clob " + i));
+        }
+        String[] types = new String[] {DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.OBJECT};
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        CompactObjectOutputStream out = new CompactObjectOutputStream(byteStream);
+        BatchSerializer.writeBatch(out, types, Arrays.asList(batch), BatchSerializer.CURRENT_VERSION, true);
+        out.close();
+        //the lob streams must be sent with the enclosing message
+        assertEquals(batch.length, out.getReferences().size());
+        assertEquals(batch.length, out.getStreams().size());
+    }
+    
+    @Test(expected=StreamCorruptedException.class) public void testInvalidBlockLength() throws Exception {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(byteStream);
+        out.writeInt(-2);
+        out.writeByte(BatchSerializer.CURRENT_VERSION);
+        out.writeInt(1);
+        out.writeByte(2); //deflated
+        out.writeInt(Integer.MAX_VALUE);
+        out.writeInt(10);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(byteStream.toByteArray()));
+        BatchSerializer.readBatch(in, new String[] {DataTypeManager.DefaultDataTypes.STRING});
+    }
+    
+    @Test public void testDeltaEncoding() throws Exception {
+        List<?>[] batch = new List[1000];
+        long time = 1500000000000l;
+        for (int i = 0; i < batch.length; i++) {
+            Timestamp ts = new Timestamp(time + i*1000);
+            ts.setNanos(ts.getNanos() + i);
+            batch[i] = Arrays.asList(i, (long)i - 500, ts, i%5==0?null:new java.sql.Date(time - i*86400000l));
+        }
+        batch[1] = Arrays.asList(Integer.MIN_VALUE, Long.MAX_VALUE, new Timestamp(-1), new java.sql.Date(Long.MIN_VALUE));
+        batch[2] = Arrays.asList(Integer.MAX_VALUE, Long.MIN_VALUE, new Timestamp(0), null);
+        String[] types = new String[] {DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.LONG, DataTypeManager.DefaultDataTypes.TIMESTAMP, DataTypeManager.DefaultDataTypes.DATE};
+        helpTestSerialization(types, batch, BatchSerializer.CURRENT_VERSION);
+        assertTrue(serialize(types, batch, BatchSerializer.CURRENT_VERSION, false).length < serialize(types, batch, BatchSerializer.VERSION_GEOGRAPHY, false).length / 2);
+    }
 
 }
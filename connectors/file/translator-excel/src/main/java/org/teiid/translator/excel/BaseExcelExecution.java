@@ -75,6 +75,9 @@ public class BaseExcelExecution implements Execution {
 	protected FormulaEvaluator evaluator;
 	private DataFormatter dataFormatter;
     protected Workbook workbook;
+    private boolean streaming;
+    private int maxSharedStringsSize;
+    protected XlsxSheetReader sheetReader;
 
 	public BaseExcelExecution(ExecutionContext executionContext,
 			RuntimeMetadata metadata, VirtualFileConnection connection) {
@@ -97,9 +100,16 @@ public class BaseExcelExecution implements Execution {
 		this.rowIterator = readXLSFile(xlsFiles[fileCount.getAndIncrement()]);
     }
 
+	/**
+	 * @return the row iterator or null if the file is read with the {@link #sheetReader}
+	 */
 	private Iterator<Row> readXLSFile(VirtualFile xlsFile) throws TranslatorException {
+		String extension = ExcelMetadataProcessor.getFileExtension(xlsFile);
+		if (this.streaming && extension.equalsIgnoreCase("xlsx")) { //$NON-NLS-1$
+			this.sheetReader = new XlsxSheetReader(xlsFile, this.visitor, this.maxSharedStringsSize);
+			return null;
+		}
 		try (InputStream xlsFileStream = xlsFile.openInputStream(true)) {
-			String extension = ExcelMetadataProcessor.getFileExtension(xlsFile);
 			if (extension.equalsIgnoreCase("xls")) { //$NON-NLS-1$
 				workbook = new HSSFWorkbook(xlsFileStream);
 			}
@@ -142,6 +152,10 @@ public class BaseExcelExecution implements Execution {
         	}
         	
         	if (!this.visitor.allows(row.getRowNum())) {
+        		if (!this.visitor.allowsAfter(row.getRowNum())) {
+        			//no later row in this file can match
+        			this.rowIterator = null;
+        		}
         		continue;
         	}
         	return row;
@@ -168,6 +182,9 @@ public class BaseExcelExecution implements Execution {
     		    break;
     		}
 			this.rowIterator = readXLSFile(nextXlsFile);
+			if (this.rowIterator == null) {
+				return null;
+			}
 			hasNext = this.rowIterator.hasNext();
     	}
         if (hasNext) {
@@ -244,6 +261,48 @@ public class BaseExcelExecution implements Execution {
 		}
     }
     
+    /**
+     * Convert a numeric value read without the workbook model
+     */
+    Object convertFromExcelType(final double value, int formatIndex, String formatString, boolean date1904, final Class<?> expectedType) throws TranslatorException {
+		if (expectedType.isAssignableFrom(Double.class)) {
+			return value;
+		}
+		else if (expectedType.isAssignableFrom(Timestamp.class)) {
+			Date date = DateUtil.getJavaDate(value, date1904);
+			return new Timestamp(date.getTime());
+		}
+		else if (expectedType.isAssignableFrom(java.sql.Date.class)) {
+			Date date = DateUtil.getJavaDate(value, date1904);
+			return TimestampWithTimezone.createDate(date);
+		}
+		else if (expectedType.isAssignableFrom(java.sql.Time.class)) {
+			Date date = DateUtil.getJavaDate(value, date1904);
+			return TimestampWithTimezone.createTime(date);
+		}
+		
+		if (formatString == null) {
+			formatString = "General"; //$NON-NLS-1$
+		}
+		
+		if (expectedType == String.class && dataFormatter != null) {
+		    return dataFormatter.formatRawCellContents(value, formatIndex, formatString, date1904);
+		}
+		
+		Object val = value;
+		
+		if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+		    Date date = DateUtil.getJavaDate(value, date1904);
+            val = new java.sql.Timestamp(date.getTime());
+		}
+		
+		try {
+			return DataTypeManager.transformValue(val, expectedType);
+		} catch (TransformationException e) {
+			throw new TranslatorException(e);
+		}
+    }
+    
     static Object convertFromExcelType(final String value, final Class<?> expectedType) throws TranslatorException {
 		if (value == null) {
 			return null;
@@ -278,6 +337,10 @@ public class BaseExcelExecution implements Execution {
     
     @Override
     public void close() {
+        if (this.sheetReader != null) {
+            this.sheetReader.close();
+            this.sheetReader = null;
+        }
     }
 
     @Override
@@ -288,4 +351,12 @@ public class BaseExcelExecution implements Execution {
     public void setDataFormatter(DataFormatter dataFormatter) {
         this.dataFormatter = dataFormatter;
     }
+    
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+    
+    public void setMaxSharedStringsSize(int maxSharedStringsSize) {
+        this.maxSharedStringsSize = maxSharedStringsSize;
+    }
 }
@@ -31,6 +31,8 @@ import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.TranslatorException;
+import org.teiid.translator.excel.XlsxSheetReader.FormattedNumber;
+import org.teiid.translator.excel.XlsxSheetReader.SheetRow;
 
 
 public class ExcelExecution extends BaseExcelExecution implements ResultSetExecution {
@@ -47,11 +49,56 @@ public class ExcelExecution extends BaseExcelExecution implements ResultSetExecu
     
     @Override
     public List<?> next() throws TranslatorException, DataNotAvailableException {
-        Row row = nextRow();
-        if (row == null) {
-            return null;
+        while (true) {
+            if (this.sheetReader != null) {
+                SheetRow sheetRow = this.sheetReader.nextRow();
+                if (sheetRow != null) {
+                    return projectRow(sheetRow);
+                }
+                this.sheetReader.close();
+                this.sheetReader = null;
+            }
+            Row row = nextRow();
+            if (row != null) {
+                return projectRow(row);
+            }
+            if (this.sheetReader == null) {
+                return null;
+            }
         }
-    	return projectRow(row);
+    }
+    
+    List<Object> projectRow(SheetRow row) throws TranslatorException {
+        ArrayList<Object> output = new ArrayList<Object>(this.visitor.getProjectedColumns().size());
+        
+        int id = row.rowNum+1;
+        
+        int i = -1;
+        for (int index:this.visitor.getProjectedColumns()) {
+            
+            i++;
+            // check if the row is ROW_ID
+            if (index == -1) {
+                output.add(id);
+                continue;
+            }
+            
+            Object value = row.getValue(index-1);
+            if (value instanceof String) {
+                output.add(convertFromExcelType((String)value, this.expectedColumnTypes[i]));
+            } else if (value instanceof Boolean) {
+                output.add(convertFromExcelType(((Boolean)value).booleanValue(), this.expectedColumnTypes[i]));
+            } else if (value instanceof Double) {
+                output.add(convertFromExcelType(((Double)value).doubleValue(), 0, null, this.sheetReader.isDate1904(), this.expectedColumnTypes[i]));
+            } else if (value instanceof FormattedNumber) {
+                FormattedNumber number = (FormattedNumber)value;
+                output.add(convertFromExcelType(number.value, number.formatIndex, number.formatString, this.sheetReader.isDate1904(), this.expectedColumnTypes[i]));
+            } else {
+                output.add(null);
+            }
+        }
+        
+        return output;
     }
     
     /**
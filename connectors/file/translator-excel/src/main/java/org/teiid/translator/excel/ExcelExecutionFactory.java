@@ -38,6 +38,8 @@ import org.teiid.translator.TranslatorProperty;
 public class ExcelExecutionFactory extends ExecutionFactory<ConnectionFactory, VirtualFileConnection> {
 
     private boolean formatStrings;
+    private boolean streaming;
+    private int maxSharedStringsSize = 1 << 24;
     
 	public ExcelExecutionFactory() {
 		setSourceRequiredForMetadata(true);
@@ -51,6 +53,8 @@ public class ExcelExecutionFactory extends ExecutionFactory<ConnectionFactory, V
     	if (formatStrings) {
     	    ex.setDataFormatter(new DataFormatter()); //assume default locale
     	}
+    	ex.setStreaming(streaming);
+    	ex.setMaxSharedStringsSize(maxSharedStringsSize);
     	return ex;
     }
     
@@ -108,4 +112,22 @@ public class ExcelExecutionFactory extends ExecutionFactory<ConnectionFactory, V
 	public void setFormatStrings(boolean formatStrings) {
         this.formatStrings = formatStrings;
     }
+	
+	@TranslatorProperty(display="Streaming", description="Read .xlsx files for queries with a streaming parser that holds only the current row and the shared strings in memory.  The shared strings are limited by MaxSharedStringsSize.  Formula cells return their cached values rather than being evaluated.", advanced=true)
+	public boolean isStreaming() {
+        return streaming;
+    }
+	
+	public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+	
+	@TranslatorProperty(display="Max Shared Strings Size", description="The maximum number of characters of shared strings held in memory when streaming an .xlsx file.  A query against a file with more shared string characters fails.", advanced=true)
+	public int getMaxSharedStringsSize() {
+		return maxSharedStringsSize;
+	}
+	
+	public void setMaxSharedStringsSize(int maxSharedStringsSize) {
+		this.maxSharedStringsSize = maxSharedStringsSize;
+	}
 }
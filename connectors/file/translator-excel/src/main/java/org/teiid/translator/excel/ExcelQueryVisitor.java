@@ -44,6 +44,10 @@ public class ExcelQueryVisitor extends HierarchyVisitor {
 	
 	static interface Filter {
 		public boolean allows (int row);
+		/**
+		 * @return false if no row at or after the given row can be allowed
+		 */
+		public boolean allowsAfter (int row);
 	}
 	
 	static class InFilter implements Filter {
@@ -61,6 +65,16 @@ public class ExcelQueryVisitor extends HierarchyVisitor {
 			}
 			return false;
 		}
+		
+		@Override
+		public boolean allowsAfter(int row) {
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] >= row) {
+					return true;
+				}
+			}
+			return false;
+		}
 	}
 	
 	static class CompareFilter implements Filter {
@@ -89,6 +103,18 @@ public class ExcelQueryVisitor extends HierarchyVisitor {
 	        }	
 	    	return false;
 		}
+		
+		public boolean allowsAfter (int row) {
+			switch(op) {
+			case EQ:
+			case LE:
+				return row <= start;
+			case LT:
+				return row < start;
+			default:
+				return true;
+			}
+		}
 	}
 	
 	private ArrayList<ExcelQueryVisitor.Filter> filters = new ArrayList<ExcelQueryVisitor.Filter>();
@@ -273,6 +299,18 @@ public class ExcelQueryVisitor extends HierarchyVisitor {
 		return true;
 	}
 	
+	/**
+	 * @return false if the filters exclude the given row and all rows after it
+	 */
+	public boolean allowsAfter(int row) {
+		for (Filter f:this.filters) {
+			if (!f.allowsAfter(row)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
 	@Override
 	public void visit(Insert obj) {
 	    visit(obj.getTable());
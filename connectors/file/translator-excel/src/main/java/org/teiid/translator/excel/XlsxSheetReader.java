@@ -0,0 +1,478 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.translator.excel;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.teiid.core.types.XMLType;
+import org.teiid.file.VirtualFile;
+import org.teiid.translator.TranslatorException;
+
+/**
+ * Reads the rows of an .xlsx worksheet with a pull parser directly from the zip entries
+ * rather than loading the workbook.  Only the current row, the cell formats, and the shared
+ * strings - which are kept in a single character buffer - are held in memory.  The shared strings
+ * are limited to a maximum number of characters, beyond which the file cannot be read.
+ * <br>
+ * The file is read twice, first for the workbook, relationship, style, and shared string parts
+ * then for the worksheet.  Formula cells return their cached values.
+ */
+public class XlsxSheetReader implements Closeable {
+
+	private static final String WORKBOOK = "xl/workbook.xml"; //$NON-NLS-1$
+	private static final String WORKBOOK_RELS = "xl/_rels/workbook.xml.rels"; //$NON-NLS-1$
+	private static final String SHARED_STRINGS = "xl/sharedStrings.xml"; //$NON-NLS-1$
+	private static final String STYLES = "xl/styles.xml"; //$NON-NLS-1$
+
+	/**
+	 * A numeric value with a non-general cell format
+	 */
+	static class FormattedNumber {
+		double value;
+		int formatIndex;
+		String formatString;
+	}
+
+	/**
+	 * A row of cell values by zero based column index.  The values are String, Boolean, Double,
+	 * {@link FormattedNumber}, or null for blank cells.
+	 */
+	static class SheetRow {
+		int rowNum;
+		List<Object> values = new ArrayList<Object>();
+		boolean hasCells;
+
+		Object getValue(int column) {
+			if (column < 0 || column >= values.size()) {
+				return null;
+			}
+			return values.get(column);
+		}
+
+		void setValue(int column, Object value) {
+			hasCells = true;
+			while (values.size() <= column) {
+				values.add(null);
+			}
+			values.set(column, value);
+		}
+	}
+
+	/**
+	 * Shared strings held in a single buffer to avoid the per string overhead
+	 */
+	static class SharedStrings {
+		private char[] chars = new char[1 << 12];
+		private int length;
+		private int[] offsets = new int[1 << 8];
+		private int count;
+		private int maxLength;
+		
+		SharedStrings(int maxLength) {
+			this.maxLength = maxLength;
+		}
+
+		/**
+		 * @return false if the value would exceed the max length
+		 */
+		boolean add(CharSequence value) {
+			if (value.length() > maxLength - length) {
+				return false;
+			}
+			if (count + 1 >= offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length << 1);
+			}
+			if (length + value.length() > chars.length) {
+				chars = Arrays.copyOf(chars, Math.min(maxLength, Math.max(chars.length << 1, length + value.length())));
+			}
+			for (int i = 0; i < value.length(); i++) {
+				chars[length++] = value.charAt(i);
+			}
+			offsets[++count] = length;
+			return true;
+		}
+
+		String get(int index) {
+			if (index < 0 || index >= count) {
+				return null;
+			}
+			return new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+		}
+	}
+
+	private VirtualFile file;
+	private ExcelQueryVisitor visitor;
+	private SharedStrings sharedStrings;
+	private Map<Integer, String> numberFormats = new HashMap<Integer, String>();
+	private List<Integer> cellFormats = new ArrayList<Integer>();
+	private boolean date1904;
+	private ZipInputStream zip;
+	private XMLStreamReader reader;
+	private int rowNum = -1;
+	private boolean done;
+
+	public XlsxSheetReader(VirtualFile file, ExcelQueryVisitor visitor, int maxSharedStringsSize) throws TranslatorException {
+		this.file = file;
+		this.visitor = visitor;
+		this.sharedStrings = new SharedStrings(maxSharedStringsSize);
+		String sheetPart = readWorkbookParts();
+		try {
+			this.zip = new ZipInputStream(this.file.openInputStream(true));
+			ZipEntry entry = null;
+			while ((entry = this.zip.getNextEntry()) != null) {
+				if (entry.getName().equals(sheetPart)) {
+					this.reader = XMLType.getXmlInputFactory().createXMLStreamReader(this.zip);
+					return;
+				}
+			}
+		} catch (IOException e) {
+			close();
+			throw new TranslatorException(e);
+		} catch (XMLStreamException e) {
+			close();
+			throw new TranslatorException(e);
+		}
+		close();
+		throw new TranslatorException(ExcelPlugin.Event.TEIID23011, ExcelPlugin.Util.gs(ExcelPlugin.Event.TEIID23011, this.visitor.getSheetName(), this.file.getName()));
+	}
+
+	/**
+	 * Read the parts needed to interpret the worksheet
+	 * @return the name of the worksheet part
+	 */
+	private String readWorkbookParts() throws TranslatorException {
+		String sheetId = null;
+		Map<String, String> targets = new HashMap<String, String>();
+		try (ZipInputStream zis = new ZipInputStream(this.file.openInputStream(true))) {
+			//the parser may close its input at the end of a part, which must not close the zip
+			InputStream entryStream = new FilterInputStream(zis) {
+				@Override
+				public void close() {
+				}
+			};
+			ZipEntry entry = null;
+			while ((entry = zis.getNextEntry()) != null) {
+				String name = entry.getName();
+				if (!name.equals(WORKBOOK) && !name.equals(WORKBOOK_RELS) && !name.equals(SHARED_STRINGS) && !name.equals(STYLES)) {
+					continue;
+				}
+				XMLStreamReader xsr = XMLType.getXmlInputFactory().createXMLStreamReader(entryStream);
+				try {
+					if (name.equals(WORKBOOK)) {
+						sheetId = readWorkbook(xsr);
+					} else if (name.equals(WORKBOOK_RELS)) {
+						readRelationships(xsr, targets);
+					} else if (name.equals(SHARED_STRINGS)) {
+						readSharedStrings(xsr);
+					} else {
+						readStyles(xsr);
+					}
+				} finally {
+					xsr.close();
+				}
+			}
+		} catch (IOException e) {
+			throw new TranslatorException(e);
+		} catch (XMLStreamException e) {
+			throw new TranslatorException(e);
+		}
+		String target = targets.get(sheetId);
+		if (target == null) {
+			throw new TranslatorException(ExcelPlugin.Event.TEIID23011, ExcelPlugin.Util.gs(ExcelPlugin.Event.TEIID23011, this.visitor.getSheetName(), this.file.getName()));
+		}
+		if (target.startsWith("/")) { //$NON-NLS-1$
+			return target.substring(1);
+		}
+		return "xl/" + target; //$NON-NLS-1$
+	}
+
+	private String readWorkbook(XMLStreamReader xsr) throws XMLStreamException {
+		String sheetId = null;
+		while (xsr.hasNext()) {
+			if (xsr.next() != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			String name = xsr.getLocalName();
+			if (name.equals("workbookPr")) { //$NON-NLS-1$
+				String value = xsr.getAttributeValue(null, "date1904"); //$NON-NLS-1$
+				this.date1904 = "1".equals(value) || "true".equalsIgnoreCase(value); //$NON-NLS-1$ //$NON-NLS-2$
+			} else if (name.equals("sheet") && sheetId == null && this.visitor.getSheetName().equals(xsr.getAttributeValue(null, "name"))) { //$NON-NLS-1$ //$NON-NLS-2$
+				for (int i = 0; i < xsr.getAttributeCount(); i++) {
+					if (xsr.getAttributeLocalName(i).equals("id")) { //$NON-NLS-1$
+						sheetId = xsr.getAttributeValue(i);
+					}
+				}
+			}
+		}
+		return sheetId;
+	}
+
+	private void readRelationships(XMLStreamReader xsr, Map<String, String> targets) throws XMLStreamException {
+		while (xsr.hasNext()) {
+			if (xsr.next() == XMLStreamConstants.START_ELEMENT && xsr.getLocalName().equals("Relationship")) { //$NON-NLS-1$
+				targets.put(xsr.getAttributeValue(null, "Id"), xsr.getAttributeValue(null, "Target")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	private void readSharedStrings(XMLStreamReader xsr) throws XMLStreamException, TranslatorException {
+		StringBuilder value = new StringBuilder();
+		boolean phonetic = false;
+		while (xsr.hasNext()) {
+			int event = xsr.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = xsr.getLocalName();
+				if (name.equals("si")) { //$NON-NLS-1$
+					value.setLength(0);
+				} else if (name.equals("rPh")) { //$NON-NLS-1$
+					phonetic = true;
+				} else if (name.equals("t") && !phonetic) { //$NON-NLS-1$
+					value.append(xsr.getElementText());
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				String name = xsr.getLocalName();
+				if (name.equals("si")) { //$NON-NLS-1$
+					if (!this.sharedStrings.add(value)) {
+						throw new TranslatorException(ExcelPlugin.Event.TEIID23012, ExcelPlugin.Util.gs(ExcelPlugin.Event.TEIID23012, this.file.getName(), this.sharedStrings.maxLength));
+					}
+				} else if (name.equals("rPh")) { //$NON-NLS-1$
+					phonetic = false;
+				}
+			}
+		}
+	}
+
+	private void readStyles(XMLStreamReader xsr) throws XMLStreamException {
+		boolean cellXfs = false;
+		while (xsr.hasNext()) {
+			int event = xsr.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = xsr.getLocalName();
+				if (name.equals("numFmt")) { //$NON-NLS-1$
+					this.numberFormats.put(Integer.valueOf(xsr.getAttributeValue(null, "numFmtId")), xsr.getAttributeValue(null, "formatCode")); //$NON-NLS-1$ //$NON-NLS-2$
+				} else if (name.equals("cellXfs")) { //$NON-NLS-1$
+					cellXfs = true;
+				} else if (name.equals("xf") && cellXfs) { //$NON-NLS-1$
+					String id = xsr.getAttributeValue(null, "numFmtId"); //$NON-NLS-1$
+					this.cellFormats.add(id == null ? 0 : Integer.valueOf(id));
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT && xsr.getLocalName().equals("cellXfs")) { //$NON-NLS-1$
+				cellXfs = false;
+			}
+		}
+	}
+
+	/**
+	 * @return the next non-empty row allowed by the visitor filters, or null if there are no more.
+	 * Rows that are not allowed are skipped without reading their cells and reading stops
+	 * once no later row can be allowed.
+	 */
+	public SheetRow nextRow() throws TranslatorException {
+		if (this.done) {
+			return null;
+		}
+		try {
+			while (this.reader.hasNext()) {
+				if (this.reader.next() != XMLStreamConstants.START_ELEMENT || !this.reader.getLocalName().equals("row")) { //$NON-NLS-1$
+					continue;
+				}
+				String r = this.reader.getAttributeValue(null, "r"); //$NON-NLS-1$
+				this.rowNum = r != null ? Integer.parseInt(r) - 1 : this.rowNum + 1;
+				if (!this.visitor.allowsAfter(this.rowNum)) {
+					break;
+				}
+				if (this.rowNum < this.visitor.getFirstDataRowNumber() || !this.visitor.allows(this.rowNum)) {
+					skipElement();
+					continue;
+				}
+				SheetRow row = readRow();
+				if (row.hasCells) {
+					return row;
+				}
+			}
+		} catch (XMLStreamException e) {
+			throw new TranslatorException(e);
+		}
+		this.done = true;
+		close();
+		return null;
+	}
+
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && this.reader.hasNext()) {
+			int event = this.reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private SheetRow readRow() throws XMLStreamException {
+		SheetRow row = new SheetRow();
+		row.rowNum = this.rowNum;
+		int column = -1;
+		while (this.reader.hasNext()) {
+			int event = this.reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT && this.reader.getLocalName().equals("row")) { //$NON-NLS-1$
+				break;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT || !this.reader.getLocalName().equals("c")) { //$NON-NLS-1$
+				continue;
+			}
+			String ref = this.reader.getAttributeValue(null, "r"); //$NON-NLS-1$
+			column = ref != null ? getColumnIndex(ref) : column + 1;
+			String type = this.reader.getAttributeValue(null, "t"); //$NON-NLS-1$
+			String style = this.reader.getAttributeValue(null, "s"); //$NON-NLS-1$
+			row.setValue(column, readCell(type, style));
+		}
+		return row;
+	}
+
+	private Object readCell(String type, String style) throws XMLStreamException {
+		String value = null;
+		StringBuilder inline = null;
+		boolean phonetic = false;
+		while (this.reader.hasNext()) {
+			int event = this.reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				String name = this.reader.getLocalName();
+				if (name.equals("c")) { //$NON-NLS-1$
+					break;
+				}
+				if (name.equals("rPh")) { //$NON-NLS-1$
+					phonetic = false;
+				}
+			} else if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = this.reader.getLocalName();
+				if (name.equals("v")) { //$NON-NLS-1$
+					value = this.reader.getElementText();
+				} else if (name.equals("rPh")) { //$NON-NLS-1$
+					phonetic = true;
+				} else if (name.equals("t") && !phonetic) { //$NON-NLS-1$
+					if (inline == null) {
+						inline = new StringBuilder();
+					}
+					inline.append(this.reader.getElementText());
+				}
+			}
+		}
+		if (type == null || type.equals("n")) { //$NON-NLS-1$
+			if (value == null || value.isEmpty()) {
+				return null;
+			}
+			double number = Double.parseDouble(value);
+			int formatIndex = 0;
+			if (style != null) {
+				int index = Integer.parseInt(style);
+				if (index >= 0 && index < this.cellFormats.size()) {
+					formatIndex = this.cellFormats.get(index);
+				}
+			}
+			if (formatIndex == 0) {
+				return number;
+			}
+			FormattedNumber result = new FormattedNumber();
+			result.value = number;
+			result.formatIndex = formatIndex;
+			result.formatString = this.numberFormats.get(formatIndex);
+			if (result.formatString == null) {
+				result.formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+			}
+			return result;
+		}
+		if (type.equals("s")) { //$NON-NLS-1$
+			if (value == null) {
+				return null;
+			}
+			return this.sharedStrings.get(Integer.parseInt(value.trim()));
+		}
+		if (type.equals("inlineStr")) { //$NON-NLS-1$
+			return inline == null ? null : inline.toString();
+		}
+		if (type.equals("b")) { //$NON-NLS-1$
+			if (value == null) {
+				return null;
+			}
+			return "1".equals(value) || "true".equalsIgnoreCase(value); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		if (type.equals("e")) { //$NON-NLS-1$
+			return null;
+		}
+		//str formula results and iso dates
+		return value;
+	}
+
+	/**
+	 * @return the zero based column index of a cell reference such as AB12
+	 */
+	static int getColumnIndex(String ref) {
+		int column = 0;
+		for (int i = 0; i < ref.length(); i++) {
+			char c = ref.charAt(i);
+			if (c < 'A' || c > 'Z') {
+				break;
+			}
+			column = column * 26 + (c - 'A' + 1);
+		}
+		return column - 1;
+	}
+
+	public boolean isDate1904() {
+		return date1904;
+	}
+
+	@Override
+	public void close() {
+		if (this.reader != null) {
+			try {
+				this.reader.close();
+			} catch (XMLStreamException e) {
+				//ignore
+			}
+			this.reader = null;
+		}
+		if (this.zip != null) {
+			try {
+				this.zip.close();
+			} catch (IOException e) {
+				//ignore
+			}
+			this.zip = null;
+		}
+	}
+
+}
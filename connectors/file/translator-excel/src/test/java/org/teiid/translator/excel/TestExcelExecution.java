@@ -47,8 +47,17 @@ public class TestExcelExecution {
     }
     
     static ArrayList helpExecute(String ddl, VirtualFileConnection connection, String query, boolean format) throws Exception {
+        return helpExecute(ddl, connection, query, format, false);
+    }
+    
+    static ArrayList helpExecute(String ddl, VirtualFileConnection connection, String query, boolean format, boolean streaming) throws Exception {
 		ExcelExecutionFactory translator = new ExcelExecutionFactory();
 		translator.setFormatStrings(format);
+		translator.setStreaming(streaming);
+		return helpExecute(ddl, connection, query, translator);
+    }
+    
+    static ArrayList helpExecute(String ddl, VirtualFileConnection connection, String query, ExcelExecutionFactory translator) throws Exception {
     	translator.start();
     	
     	TransformationMetadata metadata = RealMetadataFactory.fromDDL(ddl, "vdb", "excel");
@@ -109,6 +118,48 @@ public class TestExcelExecution {
     	assertEquals("[[1, FirstName, LastName, Age], [2, John, Doe, null], [3, Jane, Smith, 40.0], [4, Matt, Liek, 13.0], [5, Sarah, Byne, 10.0], [6, Rocky, Dog, 3.0]]", results.toString());
 	}	
 	
+	@Test
+	public void testExecutionStreamingXLSX() throws Exception {
+		String ddl = "CREATE FOREIGN TABLE Sheet1 (\n" + 
+				"	ROW_ID integer OPTIONS (SEARCHABLE 'All_Except_Like', \"teiid_excel:CELL_NUMBER\" 'ROW_ID'),\n" + 
+				"	column1 string OPTIONS (SEARCHABLE 'Unsearchable', \"teiid_excel:CELL_NUMBER\" '1'),\n" + 
+				"	column2 string OPTIONS (SEARCHABLE 'Unsearchable', \"teiid_excel:CELL_NUMBER\" '2'),\n" + 
+				"	column3 string OPTIONS (SEARCHABLE 'Unsearchable', \"teiid_excel:CELL_NUMBER\" '3'),\n" + 
+				"	CONSTRAINT PK0 PRIMARY KEY(ROW_ID)\n" + 
+				") OPTIONS (\"teiid_excel:FILE\" 'names.xlsx');";
+
+    	VirtualFileConnection connection = Mockito.mock(VirtualFileConnection.class);
+    	Mockito.stub(connection.getFiles("names.xlsx")).toReturn(JavaVirtualFile.getFiles("names.xlsx", new File(UnitTestUtil.getTestDataPath(), "names.xlsx")));
+
+    	ArrayList results = helpExecute(ddl, connection, "select * from Sheet1", false, true);
+    	assertEquals("[[1, FirstName, LastName, Age], [2, John, Doe, null], [3, Jane, Smith, 40.0], [4, Matt, Liek, 13.0], [5, Sarah, Byne, 10.0], [6, Rocky, Dog, 3.0]]", results.toString());
+    	
+    	results = helpExecute(ddl, connection, "select column1 from Sheet1 where ROW_ID >= 3 and ROW_ID <= 4", false, true);
+    	assertEquals("[[Jane], [Matt]]", results.toString());
+	}	
+	
+	@Test
+	public void testExecutionStreamingXLSXMaxSharedStrings() throws Exception {
+		String ddl = "CREATE FOREIGN TABLE Sheet1 (\n" + 
+				"	ROW_ID integer OPTIONS (SEARCHABLE 'All_Except_Like', \"teiid_excel:CELL_NUMBER\" 'ROW_ID'),\n" + 
+				"	column1 string OPTIONS (SEARCHABLE 'Unsearchable', \"teiid_excel:CELL_NUMBER\" '1'),\n" + 
+				"	CONSTRAINT PK0 PRIMARY KEY(ROW_ID)\n" + 
+				") OPTIONS (\"teiid_excel:FILE\" 'names.xlsx');";
+
+    	VirtualFileConnection connection = Mockito.mock(VirtualFileConnection.class);
+    	Mockito.stub(connection.getFiles("names.xlsx")).toReturn(JavaVirtualFile.getFiles("names.xlsx", new File(UnitTestUtil.getTestDataPath(), "names.xlsx")));
+
+    	ExcelExecutionFactory translator = new ExcelExecutionFactory();
+    	translator.setStreaming(true);
+    	translator.setMaxSharedStringsSize(10);
+    	try {
+    		helpExecute(ddl, connection, "select * from Sheet1", translator);
+    		fail();
+    	} catch (TranslatorException e) {
+    		assertTrue(e.getMessage(), e.getMessage().startsWith("TEIID23012"));
+    	}
+	}
+	
 	@Test
 	public void testExecutionColumnWithNullCell() throws Exception {
 		String ddl = "CREATE FOREIGN TABLE Sheet1 (\n" + 
@@ -0,0 +1,536 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * A {@link TupleBatch} that holds its values column-wise.  Integer, long, double and
+ * boolean columns are held in primitive arrays with a null {@link BitSet}, all other
+ * types are held in an Object array.
+ * <br>
+ * Row access through {@link #getTuple(long)} or {@link #getTuples()} returns lightweight
+ * row views over the columns, so that nodes that are not aware of the columnar
+ * form may process the batch unchanged.  The row list is not resizable.
+ */
+public class ColumnarTupleBatch extends TupleBatch {
+
+	public abstract static class Column {
+		protected BitSet nulls = new BitSet();
+
+		public boolean isNull(int row) {
+			return nulls.get(row);
+		}
+
+		public BitSet getNulls() {
+			return nulls;
+		}
+
+		public Object getValue(int row) {
+			if (nulls.get(row)) {
+				return null;
+			}
+			return getNonNullValue(row);
+		}
+
+		void setValue(int row, Object value) {
+			if (value == null) {
+				nulls.set(row);
+			} else {
+				nulls.clear(row);
+				setNonNullValue(row, value);
+			}
+		}
+
+		/**
+		 * @return the size in bytes of a single value, or -1 for object references
+		 */
+		public abstract int getValueWidth();
+
+		public abstract Class<?> getType();
+
+		protected abstract Object getNonNullValue(int row);
+
+		protected abstract void setNonNullValue(int row, Object value);
+
+		abstract Column newColumn(int size);
+
+		/**
+		 * Copy the non-null value at the given row to the target column of the same type
+		 */
+		abstract void copyValue(int row, Column target, int targetRow);
+
+		Column select(int[] rows, int count) {
+			Column result = newColumn(count);
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				if (nulls.get(row)) {
+					result.nulls.set(i);
+				} else {
+					copyValue(row, result, i);
+				}
+			}
+			return result;
+		}
+	}
+
+	public static final class IntColumn extends Column {
+		private int[] values;
+
+		IntColumn(int size) {
+			this.values = new int[size];
+		}
+
+		public int getInt(int row) {
+			return values[row];
+		}
+
+		public int[] getValues() {
+			return values;
+		}
+
+		@Override
+		protected Object getNonNullValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		protected void setNonNullValue(int row, Object value) {
+			values[row] = (Integer)value;
+		}
+
+		@Override
+		void copyValue(int row, Column target, int targetRow) {
+			((IntColumn)target).values[targetRow] = values[row];
+		}
+
+		@Override
+		Column newColumn(int size) {
+			return new IntColumn(size);
+		}
+
+		@Override
+		public Class<?> getType() {
+			return DataTypeManager.DefaultDataClasses.INTEGER;
+		}
+
+		@Override
+		public int getValueWidth() {
+			return 4;
+		}
+	}
+
+	public static final class LongColumn extends Column {
+		private long[] values;
+
+		LongColumn(int size) {
+			this.values = new long[size];
+		}
+
+		public long getLong(int row) {
+			return values[row];
+		}
+
+		public long[] getValues() {
+			return values;
+		}
+
+		@Override
+		protected Object getNonNullValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		protected void setNonNullValue(int row, Object value) {
+			values[row] = (Long)value;
+		}
+
+		@Override
+		void copyValue(int row, Column target, int targetRow) {
+			((LongColumn)target).values[targetRow] = values[row];
+		}
+
+		@Override
+		Column newColumn(int size) {
+			return new LongColumn(size);
+		}
+
+		@Override
+		public Class<?> getType() {
+			return DataTypeManager.DefaultDataClasses.LONG;
+		}
+
+		@Override
+		public int getValueWidth() {
+			return 8;
+		}
+	}
+
+	public static final class DoubleColumn extends Column {
+		private double[] values;
+
+		DoubleColumn(int size) {
+			this.values = new double[size];
+		}
+
+		public double getDouble(int row) {
+			return values[row];
+		}
+
+		public double[] getValues() {
+			return values;
+		}
+
+		@Override
+		protected Object getNonNullValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		protected void setNonNullValue(int row, Object value) {
+			values[row] = (Double)value;
+		}
+
+		@Override
+		void copyValue(int row, Column target, int targetRow) {
+			((DoubleColumn)target).values[targetRow] = values[row];
+		}
+
+		@Override
+		Column newColumn(int size) {
+			return new DoubleColumn(size);
+		}
+
+		@Override
+		public Class<?> getType() {
+			return DataTypeManager.DefaultDataClasses.DOUBLE;
+		}
+
+		@Override
+		public int getValueWidth() {
+			return 8;
+		}
+	}
+
+	public static final class BooleanColumn extends Column {
+		private BitSet values;
+
+		BooleanColumn(int size) {
+			this.values = new BitSet(size);
+		}
+
+		public boolean getBoolean(int row) {
+			return values.get(row);
+		}
+
+		public BitSet getValues() {
+			return values;
+		}
+
+		@Override
+		protected Object getNonNullValue(int row) {
+			return values.get(row);
+		}
+
+		@Override
+		protected void setNonNullValue(int row, Object value) {
+			values.set(row, (Boolean)value);
+		}
+
+		@Override
+		void copyValue(int row, Column target, int targetRow) {
+			((BooleanColumn)target).values.set(targetRow, values.get(row));
+		}
+
+		@Override
+		Column newColumn(int size) {
+			return new BooleanColumn(size);
+		}
+
+		@Override
+		public Class<?> getType() {
+			return DataTypeManager.DefaultDataClasses.BOOLEAN;
+		}
+
+		@Override
+		public int getValueWidth() {
+			return 1;
+		}
+	}
+
+	public static final class ObjectColumn extends Column {
+		private Object[] values;
+		private Class<?> type;
+
+		ObjectColumn(Class<?> type, int size) {
+			this.type = type;
+			this.values = new Object[size];
+		}
+
+		@Override
+		public Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		public boolean isNull(int row) {
+			return values[row] == null;
+		}
+
+		@Override
+		void setValue(int row, Object value) {
+			values[row] = value;
+		}
+
+		@Override
+		protected Object getNonNullValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		protected void setNonNullValue(int row, Object value) {
+			values[row] = value;
+		}
+
+		@Override
+		Column select(int[] rows, int count) {
+			ObjectColumn result = new ObjectColumn(type, count);
+			for (int i = 0; i < count; i++) {
+				result.values[i] = values[rows[i]];
+			}
+			return result;
+		}
+
+		@Override
+		void copyValue(int row, Column target, int targetRow) {
+			((ObjectColumn)target).values[targetRow] = values[row];
+		}
+
+		@Override
+		Column newColumn(int size) {
+			return new ObjectColumn(type, size);
+		}
+
+		@Override
+		public Class<?> getType() {
+			return type;
+		}
+
+		@Override
+		public int getValueWidth() {
+			return -1;
+		}
+	}
+
+	/**
+	 * A row view over the columns.  Updates are written through to the columns.
+	 */
+	private final class RowView extends AbstractList<Object> implements RandomAccess {
+		private final int row;
+
+		RowView(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public Object get(int index) {
+			return columns[index].getValue(row);
+		}
+
+		@Override
+		public Object set(int index, Object element) {
+			Column column = columns[index];
+			Object old = column.getValue(row);
+			column.setValue(row, element);
+			return old;
+		}
+
+		@Override
+		public int size() {
+			return columns.length;
+		}
+	}
+
+	private final class Rows extends AbstractList<List<?>> implements RandomAccess {
+
+		@Override
+		public List<?> get(int index) {
+			if (index < 0 || index >= rowCount) {
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			}
+			return new RowView(index);
+		}
+
+		@Override
+		public int size() {
+			return rowCount;
+		}
+
+		ColumnarTupleBatch getBatch() {
+			return ColumnarTupleBatch.this;
+		}
+	}
+
+	private Column[] columns;
+	private int rowCount;
+
+	public ColumnarTupleBatch(long beginRow, Column[] columns, int rowCount) {
+		this.columns = columns;
+		this.rowCount = rowCount;
+		this.tuples = new Rows();
+		setRowOffset(beginRow);
+	}
+
+	/**
+	 * @return true if at least one of the types has a primitive column representation
+	 */
+	public static boolean isColumnar(Class<?>[] types) {
+		for (Class<?> type : types) {
+			if (isPrimitive(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the column types for the given elements, or null if none of the types has a primitive column representation
+	 */
+	public static Class<?>[] getColumnarTypes(List<? extends Expression> elements) {
+		Class<?>[] types = new Class<?>[elements.size()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = elements.get(i).getType();
+		}
+		if (!isColumnar(types)) {
+			return null;
+		}
+		return types;
+	}
+
+	static boolean isPrimitive(Class<?> type) {
+		return type == DataTypeManager.DefaultDataClasses.INTEGER
+				|| type == DataTypeManager.DefaultDataClasses.LONG
+				|| type == DataTypeManager.DefaultDataClasses.DOUBLE
+				|| type == DataTypeManager.DefaultDataClasses.BOOLEAN;
+	}
+
+	static Column createColumn(Class<?> type, int size) {
+		if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+			return new IntColumn(size);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.LONG) {
+			return new LongColumn(size);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+			return new DoubleColumn(size);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.BOOLEAN) {
+			return new BooleanColumn(size);
+		}
+		return new ObjectColumn(type, size);
+	}
+
+	/**
+	 * Create a columnar batch from the given rows.
+	 * @return the columnar batch or null if a value does not match the expected column type
+	 */
+	public static ColumnarTupleBatch create(long beginRow, Class<?>[] types, List<? extends List<?>> rows) {
+		int size = rows.size();
+		Column[] columns = new Column[types.length];
+		for (int col = 0; col < types.length; col++) {
+			columns[col] = createColumn(types[col], size);
+		}
+		for (int row = 0; row < size; row++) {
+			List<?> tuple = rows.get(row);
+			for (int col = 0; col < columns.length; col++) {
+				Object value = tuple.get(col);
+				Column column = columns[col];
+				if (value != null && !(column instanceof ObjectColumn) && value.getClass() != column.getType()) {
+					return null;
+				}
+				column.setValue(row, value);
+			}
+		}
+		return new ColumnarTupleBatch(beginRow, columns, size);
+	}
+
+	/**
+	 * Get the columnar batch backing the given tuple list
+	 * @return the batch or null if the list is not backed by a columnar batch
+	 */
+	public static ColumnarTupleBatch getColumnarBatch(List<? extends List<?>> tuples) {
+		if (tuples instanceof ColumnarTupleBatch.Rows) {
+			return ((ColumnarTupleBatch.Rows)tuples).getBatch();
+		}
+		return null;
+	}
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	public Column getColumn(int index) {
+		return columns[index];
+	}
+
+	/**
+	 * Create a new batch sharing these columns positioned at the given row.
+	 */
+	public ColumnarTupleBatch withRowOffset(long beginRow) {
+		return new ColumnarTupleBatch(beginRow, columns, rowCount);
+	}
+
+	/**
+	 * Create a new batch sharing the columns at the given indexes.
+	 */
+	public ColumnarTupleBatch project(int[] indexes) {
+		Column[] result = new Column[indexes.length];
+		for (int i = 0; i < indexes.length; i++) {
+			result[i] = columns[indexes[i]];
+		}
+		return new ColumnarTupleBatch(getBeginRow(), result, rowCount);
+	}
+
+	/**
+	 * Create a new batch containing only the given rows (zero-based) and the projected columns.
+	 * @param rows selection vector of zero-based row indexes
+	 * @param count the number of valid entries in the selection vector
+	 * @param indexes the column projection or null to retain all columns
+	 */
+	public ColumnarTupleBatch select(int[] rows, int count, int[] indexes) {
+		int cols = indexes == null?columns.length:indexes.length;
+		Column[] result = new Column[cols];
+		for (int i = 0; i < cols; i++) {
+			result[i] = columns[indexes == null?i:indexes[i]].select(rows, count);
+		}
+		return new ColumnarTupleBatch(getBeginRow(), result, count);
+	}
+
+}
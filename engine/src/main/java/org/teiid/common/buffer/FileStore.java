@@ -190,6 +190,53 @@ public abstract class FileStore implements Removable {
     	} while (n < length);
 	}
 
+	/**
+	 * Scattering read that fills the remaining space of each buffer 
+	 */
+	public void readFully(long fileOffset, ByteBuffer... buffers) throws IOException {
+		checkRemoved();
+		readWriteFully(fileOffset, buffers, false);
+	}
+	
+	/**
+	 * Gathering write of the remaining bytes of each buffer
+	 */
+	public void write(long start, ByteBuffer... buffers) throws IOException {
+		checkRemoved();
+		readWriteFully(start, buffers, true);
+	}
+	
+	/**
+	 * Transfer the buffer contents.  The default implementation copies through 
+	 * heap arrays, subclasses may override to transfer directly.
+	 */
+	protected void readWriteFully(long fileOffset, ByteBuffer[] buffers, boolean write) throws IOException {
+		byte[] copy = null;
+		for (ByteBuffer bb : buffers) {
+			int length = bb.remaining();
+			if (bb.hasArray()) {
+				if (write) {
+					write(fileOffset, bb.array(), bb.arrayOffset() + bb.position(), length);
+				} else {
+					readFully(fileOffset, bb.array(), bb.arrayOffset() + bb.position(), length);
+				}
+			} else {
+				if (copy == null || copy.length < length) {
+					copy = new byte[length];
+				}
+				if (write) {
+					bb.duplicate().get(copy, 0, length);
+					write(fileOffset, copy, 0, length);
+				} else {
+					readFully(fileOffset, copy, 0, length);
+					bb.duplicate().put(copy, 0, length);
+				}
+			}
+			bb.position(bb.position() + length);
+			fileOffset += length;
+		}
+	}
+
 	public void remove() {
 		if (removed.compareAndSet(false, true)) {
 			this.removeDirect();
@@ -188,6 +188,14 @@ public class TupleBuffer {
 	public void addTupleBatch(TupleBatch batch, boolean save) throws TeiidComponentException {
 		setRowCount(batch.getBeginRow() - 1); 
 		List<List<?>> tuples = batch.getTuples();
+		if (save && batch instanceof ColumnarTupleBatch && !isLobs() 
+				&& (batchBuffer == null || batchBuffer.isEmpty()) && batch.getRowCount() >= Math.max(1, batchSize / 32)) {
+			//retain the columnar form rather than copying to boxed rows
+			Long mbatch = manager.createManagedBatch(tuples, null, false);
+			this.batches.put(batch.getBeginRow(), mbatch);
+			this.rowCount += batch.getRowCount();
+			return;
+		}
 		if (save) {
 			for (int i = 0; i < batch.getRowCount(); i++) {
 				addTuple(tuples.get(i));
@@ -283,7 +291,12 @@ public class TupleBuffer {
 			Assertion.isNotNull(entry);
 			Long batch = entry.getValue();
 	    	List<List<?>> rows = manager.getBatch(batch, !forwardOnly);
-	    	result = new TupleBatch(entry.getKey(), rows);
+	    	ColumnarTupleBatch columnar = ColumnarTupleBatch.getColumnarBatch(rows);
+	    	if (columnar != null) {
+	    		result = columnar.withRowOffset(entry.getKey());
+	    	} else {
+	    		result = new TupleBatch(entry.getKey(), rows);
+	    	}
 	    	if (isFinal && result.getEndRow() == rowCount) {
 	    		result.setTerminationFlag(true);
 	    	}
@@ -20,6 +20,10 @@ package org.teiid.common.buffer.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.teiid.common.buffer.FileStore;
@@ -38,6 +42,8 @@ class BlockStore {
 	final ConcurrentBitSet blocksInUse;
 	final FileStore[] stores;
 	final ReentrantReadWriteLock[] locks;
+	final AtomicLong reads = new AtomicLong();
+	final AtomicLong writes = new AtomicLong();
 	
 	public BlockStore(StorageManager storageManager, int blockSize, int blockCountLog, int concurrencyLevel) {
 		this.blockSize = blockSize;
@@ -73,19 +79,31 @@ class BlockStore {
 		try {
 			FileStore fs = stores[segment];
 			long blockOffset = (block%blocksInUse.getBitsPerSegment())*blockSize;
-			//TODO: there is still an extra buffer being created here, we could FileChannels to do better
-			byte[] b = new byte[BufferFrontedFileStoreCache.BLOCK_SIZE];
-			int read = 0;
 			long newLength = blockOffset+blockSize;
 			if (fs.getLength() < newLength) {
 				//grow by whole blocks
 				//TODO: could pad the growth
 				fs.setLength(newLength); 
 			}
-			while ((read = is.read(b, 0, b.length)) != -1) {
-				fs.write(blockOffset, b, 0, read);
-				blockOffset+=read;
+			if (is instanceof BlockInputStream) {
+				//gather the memory blocks into a single write
+				BlockInputStream bis = (BlockInputStream)is;
+				List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+				ByteBuffer bb = null;
+				while ((bb = bis.getBuffer()) != null) {
+					buffers.add(bb.slice());
+					bb.position(bb.limit());
+				}
+				fs.write(blockOffset, buffers.toArray(new ByteBuffer[buffers.size()]));
+			} else {
+				byte[] b = new byte[BufferFrontedFileStoreCache.BLOCK_SIZE];
+				int read = 0;
+				while ((read = is.read(b, 0, b.length)) != -1) {
+					fs.write(blockOffset, b, 0, read);
+					blockOffset+=read;
+				}
 			}
+			writes.incrementAndGet();
 			success = true;
 		} finally {
 			locks[segment].writeLock().unlock();
@@ -18,6 +18,7 @@
 
 package org.teiid.common.buffer.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
@@ -50,7 +51,6 @@ import org.teiid.common.buffer.AutoCleanupUtil;
 import org.teiid.common.buffer.Cache;
 import org.teiid.common.buffer.CacheEntry;
 import org.teiid.common.buffer.CacheKey;
-import org.teiid.common.buffer.ExtensibleBufferedInputStream;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.Serializer;
 import org.teiid.common.buffer.StorageManager;
@@ -94,6 +94,10 @@ import org.teiid.query.QueryPlugin;
  * The root directory "physicalMapping" is held in memory for performance.  It will grow in
  * proportion to the number of tables/tuplebuffers in use.
  * 
+ * Entries read back from storage are only promoted into the memory buffer if their estimated access
+ * frequency exceeds that of the eviction candidate, see {@link FrequencySketch}.  This keeps large one time 
+ * scans from flushing frequently used entries.
+ * 
  * The locking is as fine grained as possible to prevent contention.  See {@link PhysicalInfo} for
  * flags that are used when it is used as a lock.  It is important to not access the
  * group maps when a {@link PhysicalInfo} lock is held.
@@ -129,6 +133,39 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	static final int MAX_INDIRECT = DIRECT_POINTERS + ADDRESSES_PER_BLOCK;
 	static final int MAX_DOUBLE_INDIRECT = MAX_INDIRECT + ADDRESSES_PER_BLOCK * ADDRESSES_PER_BLOCK;
 	
+	/**
+	 * Point in time statistics for a storage size class
+	 */
+	public static final class StorageTierStatistics {
+		private final long blockSize;
+		private final int blocksInUse;
+		private final long reads;
+		private final long writes;
+		
+		StorageTierStatistics(long blockSize, int blocksInUse, long reads, long writes) {
+			this.blockSize = blockSize;
+			this.blocksInUse = blocksInUse;
+			this.reads = reads;
+			this.writes = writes;
+		}
+		
+		public long getBlockSize() {
+			return blockSize;
+		}
+		
+		public int getBlocksInUse() {
+			return blocksInUse;
+		}
+		
+		public long getReads() {
+			return reads;
+		}
+		
+		public long getWrites() {
+			return writes;
+		}
+	}
+	
 	private enum Mode {
 		GET,
 		UPDATE,
@@ -551,6 +588,11 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	
 	private AtomicLong storageWrites = new AtomicLong();
 	private AtomicLong storageReads = new AtomicLong();
+	private AtomicLong memoryHits = new AtomicLong();
+	private AtomicLong admissionRejects = new AtomicLong();
+	
+	private boolean admissionFiltering;
+	private FrequencySketch admissionSketch;
 	
 	private long minDefrag = DEFAULT_MIN_DEFRAG;
 	private BufferManagerImpl bufferManager;
@@ -572,6 +614,9 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		//ensure that we'll run out of blocks first
 		this.inodeByteBuffer = new BlockByteBuffer(allocationBits, blocks+1, LOG_INODE_SIZE, direct);
 		memoryWritePermits = new Semaphore(blocks);
+		if (admissionFiltering) {
+			admissionSketch = new FrequencySketch(blocks);
+		}
 		maxMemoryBlocks = Math.min(MAX_DOUBLE_INDIRECT, blocks);
 		maxMemoryBlocks = Math.min(maxMemoryBlocks, (maxStorageObjectSize>>LOG_BLOCK_SIZE) + ((maxStorageObjectSize&BufferFrontedFileStoreCache.BLOCK_MASK)>0?1:0));
 		//try to maintain enough freespace so that writers don't block in cleaning
@@ -785,16 +830,22 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 			return null;
 		}
 		readAttempts.incrementAndGet();
+		if (admissionSketch != null) {
+			admissionSketch.increment(getFrequencyKey(info));
+		}
 		InputStream is = null;
 		Lock lock = null;
-		ExtensibleBufferedInputStream eis = null;
+		FileStore fs = null;
+		long blockOffset = 0;
 		int memoryBlocks = 0;
+		boolean admit = true;
 		try {
 			synchronized (info) {
 				assert !info.pinned && info.loading; //load should be locked
 				info.await(true, false); //not necessary, but should make things safer
 				if (info.inode != EMPTY_ADDRESS) {
 					info.pinned = true;
+					memoryHits.incrementAndGet();
 					memoryBufferEntries.touch(info); 
 					if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
 						LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Getting object at inode", info.inode, serializer.getId(), oid); //$NON-NLS-1$
@@ -809,18 +860,24 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 						LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Getting object at block", info.block, info.sizeIndex, serializer.getId(), oid); //$NON-NLS-1$
 					}
 					BlockStore blockStore = sizeBasedStores[info.sizeIndex];
+					blockStore.reads.incrementAndGet();
 					int segment = info.block/blockStore.blocksInUse.getBitsPerSegment();
-					FileStore fs = blockStore.stores[segment];
-					long blockOffset = (info.block%blockStore.blocksInUse.getBitsPerSegment())*blockStore.blockSize;
-					eis = fs.createInputStream(blockOffset, info.memoryBlockCount<<LOG_BLOCK_SIZE);
+					fs = blockStore.stores[segment];
+					blockOffset = (info.block%blockStore.blocksInUse.getBitsPerSegment())*blockStore.blockSize;
 					lock = blockStore.locks[segment].writeLock();
 					memoryBlocks = info.memoryBlockCount;
+					admit = admit(info);
 				} else {
 					return null;
 				}
 			}
 			if (lock != null) {
-				is = readIntoMemory(info, eis, lock, memoryBlocks);
+				if (admit) {
+					is = readIntoMemory(info, fs, blockOffset, lock, memoryBlocks);
+				} else {
+					admissionRejects.incrementAndGet();
+					is = readFromStorage(fs, blockOffset, lock, memoryBlocks);
+				}
 			}
 			for (int i = 0; i < HEADER_BYTES; i++) {
 				is.read();
@@ -842,12 +899,51 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
         }
 	}
 
+	/**
+	 * Read directly from storage without promoting into the memory buffer
+	 */
+	private InputStream readFromStorage(FileStore fs, long blockOffset, Lock fileLock, int memoryBlocks) throws IOException {
+		byte[] bytes = new byte[memoryBlocks<<LOG_BLOCK_SIZE];
+		fileLock.lock();
+		try {
+			fs.readFully(blockOffset, bytes, 0, bytes.length);
+		} finally {
+			fileLock.unlock();
+		}
+		return new ByteArrayInputStream(bytes);
+	}
+	
+	/**
+	 * Determine if a storage entry should be promoted into the memory buffer.
+	 * When the memory buffer is low the entry must be more frequently accessed 
+	 * than the current eviction candidate.
+	 */
+	private boolean admit(PhysicalInfo info) {
+		if (admissionSketch == null || !lowBlocks(false)) {
+			return true;
+		}
+		PhysicalInfo victim = memoryBufferEntries.firstEntry(false);
+		return victim == null || admit(info, victim);
+	}
+	
+	private boolean admit(PhysicalInfo candidate, PhysicalInfo victim) {
+		if (admissionSketch == null) {
+			return true;
+		}
+		return admissionSketch.frequency(getFrequencyKey(candidate)) > admissionSketch.frequency(getFrequencyKey(victim));
+	}
+
+	private static long getFrequencyKey(PhysicalInfo info) {
+		return info.gid * 0x9e3779b97f4a7c15L + info.getId();
+	}
+
 	/**
 	 * Transfer into memory to release memory/file locks
 	 */
-	private InputStream readIntoMemory(PhysicalInfo info, ExtensibleBufferedInputStream is,
+	private InputStream readIntoMemory(PhysicalInfo info, FileStore fs, long blockOffset,
 			Lock fileLock, int memoryBlocks) throws InterruptedException,
 			IOException {
+		InputStream is = null;
 		checkForLowMemory();
 		this.memoryWritePermits.acquire(memoryBlocks);
 		BlockManager manager = null;
@@ -863,16 +959,13 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 			
 			fileLock.lock();
 			locked = true;
-			ExtensibleBufferedOutputStream os = new BlockOutputStream(manager, -1);
-			//TODO: there is still an extra buffer being created here, we could FileChannels to do better
-			ByteBuffer bb = null;
-			while ((bb = is.getBuffer()) != null) {
-				byte[] array = bb.array();
-				os.write(array, bb.position() + bb.arrayOffset(), bb.remaining());
-				bb.position(bb.position()+bb.remaining());
+			//scatter the stored bytes directly into the memory blocks
+			ByteBuffer[] buffers = new ByteBuffer[memoryBlocks];
+			for (int i = 0; i < memoryBlocks; i++) {
+				buffers[i] = manager.getBlock(i).slice();
 			}
+			fs.readFully(blockOffset, buffers);
 			fileLock.unlock();
-			os.close();
 			locked = false;
 		    synchronized (info) {
 		        info.inode = manager.getInode();
@@ -912,7 +1005,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		CacheKey key = info.getKey();
 		return (blocksInuse.getTotalBits() - blocksInuse.getBitsSet()) > (cleaningThreshold + info.memoryBlockCount)
 				|| (lowest != null && lowest.block != EMPTY_ADDRESS 
-						&& lowest.getKey().getOrderingValue() < key.getOrderingValue());
+						&& lowest.getKey().getOrderingValue() < key.getOrderingValue() && admit(info, lowest));
 	}
 	
 	@Override
@@ -1259,6 +1352,39 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		return storageWrites.get();
 	}
 	
+	/**
+	 * @return the number of reads satisfied by the memory buffer
+	 */
+	public long getMemoryHits() {
+		return memoryHits.get();
+	}
+	
+	/**
+	 * @return the number of storage reads that were not promoted into the memory buffer
+	 */
+	public long getAdmissionRejects() {
+		return admissionRejects.get();
+	}
+	
+	/**
+	 * @return the statistics for each storage size class, from smallest to largest block size
+	 */
+	public List<StorageTierStatistics> getStorageTierStatistics() {
+		List<StorageTierStatistics> result = new ArrayList<StorageTierStatistics>(sizeBasedStores.length);
+		for (BlockStore blockStore : sizeBasedStores) {
+			result.add(new StorageTierStatistics(blockStore.blockSize, blockStore.blocksInUse.getBitsSet(), blockStore.reads.get(), blockStore.writes.get()));
+		}
+		return result;
+	}
+	
+	public void setAdmissionFiltering(boolean admissionFiltering) {
+		this.admissionFiltering = admissionFiltering;
+	}
+	
+	public boolean isAdmissionFiltering() {
+		return admissionFiltering;
+	}
+	
 	public long getMemoryBufferSpace() {
 		return memoryBufferSpace;
 	}
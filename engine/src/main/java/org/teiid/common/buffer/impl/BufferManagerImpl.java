@@ -139,11 +139,16 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		}
 
         private void checkForOrphanedMemoryEntries(BufferManagerImpl impl) {
-            if (impl.memoryEntries.size() <= impl.evictionQueue.getSize() + impl.initialEvictionQueue.getSize() + CONCURRENCY_LEVEL) {
+            WriteBehindQueue writeBehind = impl.writeBehindQueue;
+            int pending = writeBehind != null?writeBehind.getPendingCount():0;
+            if (impl.memoryEntries.size() <= impl.evictionQueue.getSize() + impl.initialEvictionQueue.getSize() + pending + CONCURRENCY_LEVEL) {
                 return;
             }
             int count = 0;
             for (CacheEntry entry : impl.memoryEntries.values()) {
+                if (writeBehind != null && writeBehind.isPending(entry)) {
+                    continue;
+                }
                 boolean added = false;
                 synchronized (entry) {
                     if (entry.isPersistent()) {
@@ -470,6 +475,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	}
 
 	static final int CONCURRENCY_LEVEL = 32; //TODO: make this configurable since it is roughly the same as max active plans
+	static final int EVICTION_QUEUE_STRIPES = Math.min(CONCURRENCY_LEVEL, Runtime.getRuntime().availableProcessors());
 	private static final int TARGET_BYTES_PER_ROW = 1 << 11; //2k bytes per row
 	private static ReferenceQueue<CacheEntry> SOFT_QUEUE = new ReferenceQueue<CacheEntry>();
 	
@@ -495,8 +501,9 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     
     private AtomicLong readAttempts = new AtomicLong();
     //TODO: consider the size estimate in the weighting function
-    LrfuEvictionQueue<CacheEntry> evictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts);
-    LrfuEvictionQueue<CacheEntry> initialEvictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts);
+    //striped to reduce contention from concurrent touches
+    LrfuEvictionQueue<CacheEntry> evictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts, EVICTION_QUEUE_STRIPES);
+    LrfuEvictionQueue<CacheEntry> initialEvictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts, EVICTION_QUEUE_STRIPES);
     ConcurrentHashMap<Long, CacheEntry> memoryEntries = new ConcurrentHashMap<Long, CacheEntry>(16, .75f, CONCURRENCY_LEVEL);
     
     //limited size reference caches based upon the memory settings
@@ -532,6 +539,10 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	
 	private Cleaner cleaner;
 	private AtomicBoolean cleaning = new AtomicBoolean();
+	
+	private int writeBehindThreads;
+	private long writeBehindMaxBytes = 1 << 26;
+	private volatile WriteBehindQueue writeBehindQueue;
 
     private long maxFileStoreLength = Long.MAX_VALUE;
     private long maxBatchManagerSizeEstimate = Long.MAX_VALUE;
@@ -589,6 +600,84 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		return readAttempts.get();
 	}
 	
+	/**
+	 * Set the number of background threads used to write evicted batches.
+	 * 0, the default, performs the writes on the evicting thread.
+	 * Takes effect on {@link #initialize()}
+	 * @param writeBehindThreads
+	 */
+	public void setWriteBehindThreads(int writeBehindThreads) {
+		this.writeBehindThreads = writeBehindThreads;
+	}
+	
+	public int getWriteBehindThreads() {
+		return writeBehindThreads;
+	}
+	
+	/**
+	 * Set the heap size estimate of batches that may be pending a background write.  
+	 * Beyond this the evicting thread will perform the write itself. 
+	 * @param writeBehindMaxBytes
+	 */
+	public void setWriteBehindMaxBytes(long writeBehindMaxBytes) {
+		this.writeBehindMaxBytes = writeBehindMaxBytes;
+	}
+	
+	public long getWriteBehindMaxBytes() {
+		return writeBehindMaxBytes;
+	}
+	
+	public int getWriteBehindPendingCount() {
+		WriteBehindQueue wbq = this.writeBehindQueue;
+		if (wbq != null) {
+			return wbq.getPendingCount();
+		}
+		return 0;
+	}
+	
+	public long getWriteBehindPendingBytes() {
+		WriteBehindQueue wbq = this.writeBehindQueue;
+		if (wbq != null) {
+			return wbq.getPendingBytes();
+		}
+		return 0;
+	}
+	
+	public long getWriteBehindCount() {
+		WriteBehindQueue wbq = this.writeBehindQueue;
+		if (wbq != null) {
+			return wbq.getWriteCount();
+		}
+		return 0;
+	}
+	
+	/**
+	 * @return the number of writes performed by evicting threads due to the pending bytes limit
+	 */
+	public long getWriteBehindCallerWriteCount() {
+		WriteBehindQueue wbq = this.writeBehindQueue;
+		if (wbq != null) {
+			return wbq.getCallerWriteCount();
+		}
+		return 0;
+	}
+	
+	public double getWriteBehindAverageWriteMillis() {
+		WriteBehindQueue wbq = this.writeBehindQueue;
+		if (wbq != null) {
+			return wbq.getAverageWriteMillis();
+		}
+		return 0;
+	}
+	
+	public double getWriteBehindMaxWriteMillis() {
+		WriteBehindQueue wbq = this.writeBehindQueue;
+		if (wbq != null) {
+			return wbq.getMaxWriteMillis();
+		}
+		return 0;
+	}
+	
 	@Override
 	public int getMaxProcessingSize() {
 		return maxProcessingBytes;
@@ -755,6 +844,13 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
             }
             this.maxBatchManagerSizeEstimate = Math.min(maxBatchManagerSizeEstimate, maxSessionBatchManagerSizeEstimate);
 		}
+		if (this.writeBehindQueue != null) {
+			this.writeBehindQueue.shutdown();
+			this.writeBehindQueue = null;
+		}
+		if (this.writeBehindThreads > 0) {
+			this.writeBehindQueue = new WriteBehindQueue(this, this.writeBehindThreads, this.writeBehindMaxBytes);
+		}
 		//make a guess at the max number of batches
 		long memoryBatches = maxMemory / (processorBatchSize * targetBytesPerRow);
 		//memoryBatches represents a full batch, so assume that most will be smaller
@@ -1025,24 +1121,45 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 				}
 				queue.remove(ce);
 			}
-			boolean evicted = true;
-			try {
-				evicted = evict(ce);
-			} catch (Throwable e) {
-				LogManager.logError(LogConstants.CTX_BUFFER_MGR, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30017, ce.getId() ));
-			} finally {
-				if (evicted) {
-					synchronized (ce) {
-						if (memoryEntries.remove(ce.getId()) != null) {
-						    Serializer<?> s = ce.getSerializer();
-						    if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.TRACE)) {
-				                LogManager.logTrace(LogConstants.CTX_BUFFER_MGR, "Removing batch from heap cache", s!=null?s.getId():null, ce.getId()); //$NON-NLS-1$
-				            }
-							freed += ce.getSizeEstimate();
-							long result = activeBatchBytes.addAndGet(-ce.getSizeEstimate());
-                            assert result >= 0 || !LrfuEvictionQueue.isSuspectSize(activeBatchBytes);
-							queue.remove(ce); //ensures that an intervening get will still be cleaned
-						}
+			WriteBehindQueue writeBehind = this.writeBehindQueue;
+			if (writeBehind != null) {
+				if (writeBehind.isPending(ce)) {
+					continue; //already being written
+				}
+				if (!ageOut && ce.getSerializer() != null && !ce.isPersistent() && writeBehind.offer(ce, queue)) {
+					//the memory will be freed once the write completes
+					freed += ce.getSizeEstimate();
+					continue;
+				}
+			}
+			freed += completeEviction(ce, queue);
+		}
+		return freed;
+	}
+
+	/**
+	 * Write the entry if needed and remove it from the heap cache 
+	 * @return the bytes freed
+	 */
+	long completeEviction(CacheEntry ce, LrfuEvictionQueue<CacheEntry> queue) {
+		long freed = 0;
+		boolean evicted = true;
+		try {
+			evicted = evict(ce);
+		} catch (Throwable e) {
+			LogManager.logError(LogConstants.CTX_BUFFER_MGR, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30017, ce.getId() ));
+		} finally {
+			if (evicted) {
+				synchronized (ce) {
+					if (memoryEntries.remove(ce.getId()) != null) {
+					    Serializer<?> s = ce.getSerializer();
+					    if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.TRACE)) {
+			                LogManager.logTrace(LogConstants.CTX_BUFFER_MGR, "Removing batch from heap cache", s!=null?s.getId():null, ce.getId()); //$NON-NLS-1$
+			            }
+						freed += ce.getSizeEstimate();
+						long result = activeBatchBytes.addAndGet(-ce.getSizeEstimate());
+						assert result >= 0 || !LrfuEvictionQueue.isSuspectSize(activeBatchBytes);
+						queue.remove(ce); //ensures that an intervening get will still be cleaned
 					}
 				}
 			}
@@ -1274,6 +1391,10 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		this.evictionQueue.getEvictionQueue().clear();
 		this.initialEvictionQueue.getEvictionQueue().clear();
 		this.cleaner.cancel();
+		if (this.writeBehindQueue != null) {
+			this.writeBehindQueue.shutdown();
+			this.writeBehindQueue = null;
+		}
 		if (this.timer != SHARED_TIMER) {
 		    this.timer.cancel();
 		}
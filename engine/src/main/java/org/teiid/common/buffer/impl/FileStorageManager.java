@@ -22,6 +22,13 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -43,7 +50,20 @@ import org.teiid.query.QueryPlugin;
  */
 public class FileStorageManager implements StorageManager {
 	
+	/**
+	 * How the buffer files are read and written
+	 */
+	public enum FileAccessMode {
+		/** seek and read/write through the RandomAccessFile */
+		RANDOM_ACCESS,
+		/** positional FileChannel transfers with scatter/gather of whole blocks */
+		CHANNEL,
+		/** CHANNEL access with whole segments of the file memory mapped */
+		MAPPED
+	}
+	
 	private static final long MB = 1024L * 1024L;
+	static final int MAPPED_SEGMENT_SIZE = 1 << 26; //64 MB
 	public static final int DEFAULT_MAX_OPEN_FILES = 64;
 	public static final long DEFAULT_MAX_BUFFERSPACE = 5L * 1024L * MB; //5 GB
 	private static final String FILE_PREFIX = "b_"; //$NON-NLS-1$
@@ -53,6 +73,51 @@ public class FileStorageManager implements StorageManager {
 	private AtomicInteger fileCounter = new AtomicInteger();
 	
 	private AtomicLong sample = new AtomicLong();
+	private FileAccessMode fileAccessMode = FileAccessMode.RANDOM_ACCESS;
+	
+	private static Object unsafe;
+	private static Method invokeCleaner;
+	
+	static {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe"); //$NON-NLS-1$
+			//java 9+
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class); //$NON-NLS-1$
+			Field f = unsafeClass.getDeclaredField("theUnsafe"); //$NON-NLS-1$
+			f.setAccessible(true);
+			unsafe = f.get(null);
+		} catch (Exception e) {
+			invokeCleaner = null;
+		}
+	}
+	
+	/**
+	 * Release the mapping immediately rather than waiting for the 
+	 * buffer to be garbage collected.  The caller must ensure that 
+	 * no views of the buffer are still in use.
+	 */
+	static void unmap(MappedByteBuffer buffer) {
+		if (buffer == null) {
+			return;
+		}
+		try {
+			if (invokeCleaner != null) {
+				invokeCleaner.invoke(unsafe, buffer);
+				return;
+			}
+			//java 8
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner"); //$NON-NLS-1$
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(buffer);
+			if (cleaner != null) {
+				Method clean = cleaner.getClass().getMethod("clean"); //$NON-NLS-1$
+				clean.setAccessible(true);
+				clean.invoke(cleaner);
+			}
+		} catch (Exception e) {
+			LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, e, "Could not unmap buffer file segment, it will be released when collected"); //$NON-NLS-1$
+		}
+	}
 	
 	private class FileInfo {
     	private File file;
@@ -98,6 +163,7 @@ public class FileStorageManager implements StorageManager {
 	public class DiskStore extends FileStore {
 	    private String name;
 		private FileInfo fileInfo; 
+		private MappedByteBuffer[] segments;
 	    
 	    public DiskStore(String name) {
 			this.name = name;
@@ -120,8 +186,17 @@ public class FileStorageManager implements StorageManager {
 	    		}
 				try {
 					RandomAccessFile fileAccess = fileInfo.open();
-			        fileAccess.seek(fileOffset);
-			        return fileAccess.read(b, offSet, length);
+					if (fileAccessMode == FileAccessMode.RANDOM_ACCESS) {
+				        fileAccess.seek(fileOffset);
+				        return fileAccess.read(b, offSet, length);
+					}
+					ByteBuffer bb = ByteBuffer.wrap(b, offSet, length);
+					ByteBuffer segment = getSegment(fileAccess, fileOffset, length);
+					if (segment != null) {
+						bb.put(segment);
+						return length;
+					}
+					return fileAccess.getChannel().read(bb, fileOffset);
 				} finally {
 					fileInfo.close();
 				}
@@ -133,14 +208,114 @@ public class FileStorageManager implements StorageManager {
 	        	RandomAccessFile fileAccess = fileInfo.open();
 	            long newLength = fileOffset + length;
 	            setLength(fileAccess, newLength, false);
-	            fileAccess.seek(fileOffset);
-	            fileAccess.write(b, offSet, length);
+	            if (fileAccessMode == FileAccessMode.RANDOM_ACCESS) {
+		            fileAccess.seek(fileOffset);
+		            fileAccess.write(b, offSet, length);
+	            } else {
+	            	transferFully(fileAccess, fileOffset, new ByteBuffer[] {ByteBuffer.wrap(b, offSet, length)}, length, true);
+	            }
 	        } finally {
 	        	fileInfo.close();
 	        }	    		
 	    	return length;
 	    }
 
+	    @Override
+	    protected synchronized void readWriteFully(long fileOffset, ByteBuffer[] buffers,
+	    		boolean write) throws IOException {
+	    	if (fileAccessMode == FileAccessMode.RANDOM_ACCESS || (!write && fileInfo == null)) {
+	    		super.readWriteFully(fileOffset, buffers, write);
+	    		return;
+	    	}
+	    	long length = 0;
+	    	for (ByteBuffer bb : buffers) {
+	    		length += bb.remaining();
+	    	}
+	    	if (fileInfo == null) {
+	    		fileInfo = new FileInfo(createFile(name));
+	    	}
+	    	try {
+	    		RandomAccessFile fileAccess = fileInfo.open();
+	    		if (write) {
+	    			setLength(fileAccess, fileOffset + length, false);
+	    		}
+	    		transferFully(fileAccess, fileOffset, buffers, length, write);
+	    	} finally {
+	    		fileInfo.close();
+	    	}
+	    }
+	    
+	    /**
+	     * Transfer all of the buffer bytes using the mapped segments when possible
+	     * and otherwise with a single scattering/gathering channel operation.
+	     */
+	    private void transferFully(RandomAccessFile fileAccess, long fileOffset, ByteBuffer[] buffers, long length, boolean write) throws IOException {
+	    	if (fileAccessMode == FileAccessMode.MAPPED) {
+	    		for (ByteBuffer bb : buffers) {
+	    			int remaining = bb.remaining();
+	    			ByteBuffer segment = getSegment(fileAccess, fileOffset, remaining);
+	    			if (segment == null) {
+	    				transferFully(fileAccess.getChannel(), fileOffset, new ByteBuffer[] {bb}, remaining, write);
+	    			} else if (write) {
+	    				segment.put(bb);
+	    			} else {
+	    				bb.put(segment);
+	    			}
+	    			fileOffset += remaining;
+	    		}
+	    		return;
+	    	}
+	    	transferFully(fileAccess.getChannel(), fileOffset, buffers, length, write);
+	    }
+
+		private void transferFully(FileChannel channel, long fileOffset, ByteBuffer[] buffers, long length, boolean write) throws IOException {
+			channel.position(fileOffset);
+			while (length > 0) {
+				long count = write?channel.write(buffers):channel.read(buffers);
+				if (count < 0) {
+					throw new IOException("not enough bytes available"); //$NON-NLS-1$
+				}
+				length -= count;
+			}
+		}
+	    
+	    /**
+	     * Get a view of the mapped file for the given range.  Only segments that are entirely
+	     * within the current file length are mapped.
+	     * @return the view or null if the range cannot be accessed through a mapped segment 
+	     */
+	    private ByteBuffer getSegment(RandomAccessFile fileAccess, long fileOffset, int length) throws IOException {
+	    	if (fileAccessMode != FileAccessMode.MAPPED) {
+	    		return null;
+	    	}
+	    	int index = (int)(fileOffset / MAPPED_SEGMENT_SIZE);
+	    	int position = (int)(fileOffset % MAPPED_SEGMENT_SIZE);
+	    	if (position + length > MAPPED_SEGMENT_SIZE) {
+	    		return null;
+	    	}
+	    	MappedByteBuffer segment = null;
+	    	if (segments != null && index < segments.length) {
+	    		segment = segments[index];
+	    	}
+	    	if (segment == null) {
+	    		long segmentStart = (long)index * MAPPED_SEGMENT_SIZE;
+	    		if (segmentStart + MAPPED_SEGMENT_SIZE > fileAccess.length()) {
+	    			return null;
+	    		}
+	    		if (segments == null) {
+	    			segments = new MappedByteBuffer[index + 1];
+	    		} else if (index >= segments.length) {
+	    			segments = Arrays.copyOf(segments, index + 1);
+	    		}
+	    		segment = fileAccess.getChannel().map(MapMode.READ_WRITE, segmentStart, MAPPED_SEGMENT_SIZE);
+	    		segments[index] = segment;
+	    	}
+	    	ByteBuffer result = segment.duplicate();
+	    	result.limit(position + length);
+	    	result.position(position);
+	    	return result;
+	    }
+
 		private void setLength(RandomAccessFile fileAccess, long newLength, boolean truncate)
 				throws IOException {
 			long currentLength = fileAccess.length();
@@ -165,6 +340,13 @@ public class FileStorageManager implements StorageManager {
 				}
 			}
 			fileAccess.setLength(newLength);
+			if (bytesUsed < 0 && segments != null) {
+				//release the segments beyond the new length
+				for (int i = (int)(newLength / MAPPED_SEGMENT_SIZE); i < segments.length; i++) {
+					unmap(segments[i]);
+					segments[i] = null;
+				}
+			}
 			long used = usedBufferSpace.addAndGet(bytesUsed);
 			if (LogManager.isMessageToBeRecorded(org.teiid.logging.LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL) && (sample.getAndIncrement() % 100) == 0) {
 				LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "sampling bytes used:", used); //$NON-NLS-1$
@@ -196,6 +378,12 @@ public class FileStorageManager implements StorageManager {
 	    @Override
 		public synchronized void removeDirect() {
 			usedBufferSpace.addAndGet(-getLength());
+			if (segments != null) {
+				for (MappedByteBuffer segment : segments) {
+					unmap(segment);
+				}
+				segments = null;
+			}
 			if (fileInfo != null){
 				fileInfo.delete();
 			}
@@ -253,6 +441,14 @@ public class FileStorageManager implements StorageManager {
         }
     }
     
+    public void setFileAccessMode(FileAccessMode fileAccessMode) {
+		this.fileAccessMode = fileAccessMode;
+	}
+    
+    public FileAccessMode getFileAccessMode() {
+		return fileAccessMode;
+	}
+    
     public void setMaxOpenFiles(int maxOpenFiles) {
 		this.maxOpenFiles = maxOpenFiles;
 	}
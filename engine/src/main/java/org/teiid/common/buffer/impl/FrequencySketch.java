@@ -0,0 +1,121 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer.impl;
+
+/**
+ * A count-min sketch used to estimate the access frequency of memory buffer entries.
+ * There are {@link #DEPTH} rows of saturating counters, one byte each, with the row 
+ * positions derived from a single 64 bit hash by double hashing.  Increments are 
+ * conservative - only the counters holding the current minimum are raised - which 
+ * reduces the over estimation from collisions.
+ * <br>
+ * Once the sample size worth of increments have been seen all counters are halved 
+ * so that the history ages.
+ * <br>
+ * Updates are not synchronized.  Lost or racing increments only affect the
+ * estimate, which is acceptable for an admission heuristic.
+ */
+final class FrequencySketch {
+
+	static final int DEPTH = 4;
+	static final int MAX_FREQUENCY = 15;
+	private static final int MAX_WIDTH = 1 << 22;
+
+	private final byte[] counters;
+	private final int width;
+	private final int widthMask;
+	private final int sampleSize;
+	private int additions;
+
+	/**
+	 * @param maximumSize the expected maximum number of tracked entries
+	 */
+	FrequencySketch(int maximumSize) {
+		int length = Math.max(16, Math.min(MAX_WIDTH, maximumSize));
+		this.width = Integer.highestOneBit(length - 1) << 1;
+		this.widthMask = width - 1;
+		this.counters = new byte[DEPTH * width];
+		this.sampleSize = 10 * width;
+	}
+
+	/**
+	 * @return the estimated number of occurrences of the item up to {@link #MAX_FREQUENCY}
+	 */
+	int frequency(long item) {
+		long hash = hash(item);
+		int min = MAX_FREQUENCY;
+		for (int row = 0; row < DEPTH; row++) {
+			min = Math.min(min, counters[index(hash, row)]);
+		}
+		return min;
+	}
+
+	void increment(long item) {
+		long hash = hash(item);
+		int min = frequency(item);
+		if (min < MAX_FREQUENCY) {
+			for (int row = 0; row < DEPTH; row++) {
+				int index = index(hash, row);
+				if (counters[index] == min) {
+					counters[index] = (byte)(min + 1);
+				}
+			}
+		}
+		if (++additions >= sampleSize) {
+			reset();
+		}
+	}
+
+	/**
+	 * Halve all of the counters
+	 */
+	void reset() {
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = (byte)(counters[i] >> 1);
+		}
+		additions >>= 1;
+	}
+
+	/**
+	 * The row position is h1 + row * h2 within the row, where h2 is forced to be odd 
+	 * so that the rows use distinct positions for distinct items as often as possible.
+	 */
+	private int index(long hash, int row) {
+		int h1 = (int)hash;
+		int h2 = ((int)(hash >>> 32)) | 1;
+		return row * width + ((h1 + row * h2) & widthMask);
+	}
+
+	/**
+	 * A 64 bit finalizer so that sequential keys are well distributed 
+	 */
+	private static long hash(long x) {
+		x ^= x >>> 30;
+		x *= 0xbf58476d1ce4e5b9L;
+		x ^= x >>> 27;
+		x *= 0x94d049bb133111ebL;
+		x ^= x >>> 31;
+		return x;
+	}
+
+	int getSampleSize() {
+		return sampleSize;
+	}
+
+}
@@ -18,8 +18,11 @@
 
 package org.teiid.common.buffer.impl;
 
+import java.util.AbstractCollection;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -31,6 +34,10 @@ import org.teiid.core.TeiidRuntimeException;
 /**
  * A Concurrent LRFU eviction queue.  Has assumptions that match buffermanager usage.
  * Null values are not allowed.
+ * <br>
+ * The queue may be split into stripes by entry id so that adds, removes, and touches of 
+ * different entries do not contend on the same skip list.  The first entry is the least 
+ * of the stripe heads, so the global ordering is only approximate under concurrent modification.
  * @param <V>
  */
 public class LrfuEvictionQueue<V extends BaseCacheEntry> {
@@ -58,29 +65,70 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 	
 	private static final long DEFAULT_HALF_LIFE = 1<<16;
 	static final long MIN_INTERVAL = 1<<9;
-	protected ConcurrentSkipListMap<CacheKey, V> evictionQueue = new ConcurrentSkipListMap<CacheKey, V>();
+	protected ConcurrentSkipListMap<CacheKey, V>[] stripes;
 	protected AtomicLong clock;
 	protected long maxInterval;
 	protected long halfLife;
-	private AtomicInteger size = new AtomicInteger();
+	private AtomicInteger[] sizes;
+	private int stripeMask;
+	private Collection<V> values;
 	
 	public LrfuEvictionQueue(AtomicLong clock) {
+		this(clock, 1);
+	}
+	
+	/**
+	 * @param clock
+	 * @param stripeCount the number of stripes, rounded up to a power of 2
+	 */
+	@SuppressWarnings("unchecked")
+	public LrfuEvictionQueue(AtomicLong clock, int stripeCount) {
 		this.clock = clock;
 		setHalfLife(DEFAULT_HALF_LIFE);
+		int count = 1;
+		while (count < stripeCount) {
+			count <<= 1;
+		}
+		this.stripes = new ConcurrentSkipListMap[count];
+		this.sizes = new AtomicInteger[count];
+		for (int i = 0; i < count; i++) {
+			this.stripes[i] = new ConcurrentSkipListMap<CacheKey, V>();
+			this.sizes[i] = new AtomicInteger();
+		}
+		this.stripeMask = count - 1;
+		if (count == 1) {
+			this.values = stripes[0].values();
+		} else {
+			this.values = new StripedValues();
+		}
+	}
+	
+	private int getStripe(CacheKey key) {
+		if (stripeMask == 0) {
+			return 0;
+		}
+		long id = key.getId();
+		int hash = (int)(id ^ (id >>> 32));
+		hash ^= (hash >>> 16);
+		hash *= 0x45d9f3b;
+		hash ^= (hash >>> 16);
+		return hash & stripeMask;
 	}
 
 	public boolean remove(V value) {
-		if (evictionQueue.remove(value.getKey()) != null) {
-			int result = size.addAndGet(-1);
-			assert result >=0 || !isSuspectSize(size);
+		int stripe = getStripe(value.getKey());
+		if (stripes[stripe].remove(value.getKey()) != null) {
+			int result = sizes[stripe].addAndGet(-1);
+			assert result >=0 || !isSuspectSize(sizes[stripe]);
 			return true;
 		}
 		return false;
 	}
 	
 	public boolean add(V value) {
-		if (evictionQueue.putIfAbsent(value.getKey(), value) == null) {
-			size.addAndGet(1);
+		int stripe = getStripe(value.getKey());
+		if (stripes[stripe].putIfAbsent(value.getKey(), value) == null) {
+			sizes[stripe].addAndGet(1);
 			return true;
 		}
 		return false;
@@ -97,25 +145,53 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		add(value);
 	}
 		
+	/**
+	 * @return a weakly consistent view of the entries in eviction order
+	 */
 	public Collection<V> getEvictionQueue() {
-		return evictionQueue.values();
+		return values;
 	}
 	
 	public V firstEntry(boolean poll) {
-		Map.Entry<CacheKey, V> entry = null;
-		if (poll) {
-			entry = evictionQueue.pollFirstEntry();
+		if (stripeMask == 0) {
+			Map.Entry<CacheKey, V> entry = null;
+			if (poll) {
+				entry = stripes[0].pollFirstEntry();
+				if (entry != null) {
+				    int result = sizes[0].addAndGet(-1);
+				    assert result >=0 || !isSuspectSize(sizes[0]);
+				}
+			} else {
+				entry = stripes[0].firstEntry();
+			}
 			if (entry != null) {
-			    int result = size.addAndGet(-1);
-			    assert result >=0 || !isSuspectSize(size);
+				return entry.getValue();
 			}
-		} else {
-			entry = evictionQueue.firstEntry();
+			return null;
 		}
-		if (entry != null) {
-			return entry.getValue();
+		while (true) {
+			Map.Entry<CacheKey, V> entry = null;
+			int stripe = 0;
+			for (int i = 0; i < stripes.length; i++) {
+				Map.Entry<CacheKey, V> first = stripes[i].firstEntry();
+				if (first != null && (entry == null || first.getKey().compareTo(entry.getKey()) < 0)) {
+					entry = first;
+					stripe = i;
+				}
+			}
+			if (entry == null) {
+				return null;
+			}
+			if (!poll) {
+				return entry.getValue();
+			}
+			if (stripes[stripe].remove(entry.getKey(), entry.getValue())) {
+				int result = sizes[stripe].addAndGet(-1);
+				assert result >=0 || !isSuspectSize(sizes[stripe]);
+				return entry.getValue();
+			}
+			//lost a race, try again
 		}
-		return null;
 	}
 
 	/**
@@ -128,7 +204,7 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		long orderingValue = key.getOrderingValue();
 		orderingValue = computeNextOrderingValue(currentClock, lastAccess,
 				orderingValue);
-		assert !this.evictionQueue.containsKey(value.getKey());
+		assert !this.stripes[getStripe(key)].containsKey(key);
 		value.setKey(new CacheKey(key.getId(), currentClock, orderingValue));
 	}
 	
@@ -155,7 +231,15 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 	}
 	
 	public int getSize() {
-		return size.get();
+		int result = 0;
+		for (AtomicInteger size : sizes) {
+			result += size.get();
+		}
+		return result;
+	}
+	
+	int getStripeCount() {
+		return stripes.length;
 	}
 	
 	@Override
@@ -163,7 +247,8 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		StringBuilder result = new StringBuilder();
 		result.append("Size:").append(getSize()).append(" "); //$NON-NLS-1$ //$NON-NLS-2$
 		int max = 2000;
-		for (CacheKey e : evictionQueue.keySet()) {
+		for (V v : getEvictionQueue()) {
+			CacheKey e = v.getKey();
 			result.append("(").append(e.getOrderingValue()).append(", ") //$NON-NLS-1$ //$NON-NLS-2$
 					.append(e.getLastAccess()).append(", ").append(e.getId()) //$NON-NLS-1$
 					.append(") "); //$NON-NLS-1$
@@ -174,4 +259,71 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		return result.toString();
 	}
 	
+	/**
+	 * Merges the ordered stripes
+	 */
+	private final class StripedValues extends AbstractCollection<V> {
+		
+		@Override
+		public Iterator<V> iterator() {
+			@SuppressWarnings("unchecked")
+			final Iterator<Map.Entry<CacheKey, V>>[] iters = new Iterator[stripes.length];
+			@SuppressWarnings("unchecked")
+			final Map.Entry<CacheKey, V>[] heads = new Map.Entry[stripes.length];
+			for (int i = 0; i < stripes.length; i++) {
+				iters[i] = stripes[i].entrySet().iterator();
+				if (iters[i].hasNext()) {
+					heads[i] = iters[i].next();
+				}
+			}
+			return new Iterator<V>() {
+				
+				@Override
+				public boolean hasNext() {
+					for (Map.Entry<CacheKey, V> head : heads) {
+						if (head != null) {
+							return true;
+						}
+					}
+					return false;
+				}
+				
+				@Override
+				public V next() {
+					int min = -1;
+					for (int i = 0; i < heads.length; i++) {
+						if (heads[i] != null && (min == -1 || heads[i].getKey().compareTo(heads[min].getKey()) < 0)) {
+							min = i;
+						}
+					}
+					if (min == -1) {
+						throw new NoSuchElementException();
+					}
+					V result = heads[min].getValue();
+					heads[min] = iters[min].hasNext()?iters[min].next():null;
+					return result;
+				}
+				
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+		
+		@Override
+		public int size() {
+			return getSize();
+		}
+		
+		@Override
+		public void clear() {
+			for (int i = 0; i < stripes.length; i++) {
+				stripes[i].clear();
+				sizes[i].set(0);
+			}
+		}
+		
+	}
+	
 }
@@ -34,6 +34,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.teiid.common.buffer.ColumnarTupleBatch;
+import org.teiid.common.buffer.ColumnarTupleBatch.Column;
 import org.teiid.core.types.ArrayImpl;
 import org.teiid.core.types.BaseLob;
 import org.teiid.core.types.BinaryType;
@@ -118,6 +120,10 @@ public final class SizeUtility {
 	}
 	
     public long getBatchSize(boolean accountForValueCache, List<? extends List<?>> data) {
+        ColumnarTupleBatch columnar = ColumnarTupleBatch.getColumnarBatch(data);
+        if (columnar != null) {
+        	return getBatchSize(accountForValueCache, columnar);
+        }
         int colLength = types.length;
         int rowLength = data.size();
     
@@ -142,6 +148,39 @@ public final class SizeUtility {
         return size;
     }
 
+    private long getBatchSize(boolean accountForValueCache, ColumnarTupleBatch data) {
+    	int colLength = data.getColumnCount();
+    	int rowLength = data.getRowCount();
+    	// batch, row list and column array overhead
+    	long size = 64 + alignMemory(colLength * REFERENCE_SIZE);
+    	for (int col = 0; col < colLength; col++) {
+    		Column column = data.getColumn(col);
+    		// null bitmap
+    		size += 32 + alignMemory(rowLength/8);
+    		int width = column.getValueWidth();
+    		if (width > 0) {
+    			size += 16 + alignMemory(rowLength * width);
+    			continue;
+    		}
+    		size += 16 + alignMemory(rowLength * REFERENCE_SIZE);
+    		Class<?> type = column.getType();
+    		if (isVariableSize(type)) {
+    			int rowsSampled = 0;
+    			int estimatedSize = 0;
+    			for (int row = 0; row < rowLength; row=(row*2)+1) {
+    				rowsSampled++;
+    				estimatedSize += getSize(column.getValue(row), accountForValueCache);
+    			}
+    			if (rowsSampled > 0) {
+    				size += estimatedSize/(float)rowsSampled * rowLength;
+    			}
+    		} else {
+    			size += getSize(accountForValueCache, type) * rowLength;
+    		}
+    	}
+    	return size;
+    }
+
     public static boolean isVariableSize(Class<?> type) {
         return VARIABLE_SIZE_TYPES.contains(type) || type.isArray();
     }
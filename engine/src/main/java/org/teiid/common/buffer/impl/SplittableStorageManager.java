@@ -19,6 +19,7 @@
 package org.teiid.common.buffer.impl;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -91,6 +92,35 @@ public class SplittableStorageManager implements StorageManager {
 			return length;
 	    }
 
+	    @Override
+	    protected void readWriteFully(long fileOffset, ByteBuffer[] buffers,
+	    		boolean write) throws IOException {
+	    	long length = 0;
+	    	for (ByteBuffer bb : buffers) {
+	    		length += bb.remaining();
+	    	}
+	    	long fileBegin = fileOffset%maxFileSize;
+	    	if (fileBegin + length > maxFileSize) {
+	    		//spans files
+	    		super.readWriteFully(fileOffset, buffers, write);
+	    		return;
+	    	}
+	    	FileStore store = null;
+	    	synchronized (this) {
+	    		if (write) {
+	    			ensureLength(fileOffset + length);
+	    		} else if (fileOffset + length > len) {
+	    			throw new IOException("Invalid file position " + fileOffset + " length " + length); //$NON-NLS-1$ //$NON-NLS-2$
+	    		}
+	    		store = storageFiles.get((int)(fileOffset/maxFileSize));
+	    	}
+	    	if (write) {
+	    		store.write(fileBegin, buffers);
+	    	} else {
+	    		store.readFully(fileBegin, buffers);
+	    	}
+	    }
+
 		private void ensureLength(long length) throws IOException {
 			if (length <= len) {
 				return;
@@ -0,0 +1,215 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.common.buffer.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.teiid.common.buffer.CacheEntry;
+import org.teiid.core.util.ExecutorUtils;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+
+/**
+ * Performs the storage writes for evicted batches on background threads so that
+ * a processing thread crossing the memory threshold does not stall on disk.
+ * <br>
+ * Entries remain in the heap cache while pending, so reads are unaffected.  Writers drain
+ * the queue in groups.  Once the pending bytes would exceed the budget the offer is refused
+ * and the evicting thread performs the write itself, which throttles producers to the
+ * rate that storage can accept.
+ */
+final class WriteBehindQueue {
+
+	static final int MAX_GROUP_SIZE = 64;
+
+	private static final class PendingWrite {
+		final CacheEntry entry;
+		final LrfuEvictionQueue<CacheEntry> queue;
+
+		PendingWrite(CacheEntry entry, LrfuEvictionQueue<CacheEntry> queue) {
+			this.entry = entry;
+			this.queue = queue;
+		}
+	}
+
+	private final BufferManagerImpl bufferManager;
+	private final int threads;
+	private final long maxPendingBytes;
+	private final ExecutorService executor;
+	private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<PendingWrite>();
+	private final ConcurrentHashMap<Long, CacheEntry> pending = new ConcurrentHashMap<Long, CacheEntry>();
+	private final AtomicLong pendingBytes = new AtomicLong();
+	private final AtomicInteger activeWriters = new AtomicInteger();
+
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong writeNanos = new AtomicLong();
+	private final AtomicLong maxWriteNanos = new AtomicLong();
+	private final AtomicLong callerWrites = new AtomicLong();
+
+	WriteBehindQueue(BufferManagerImpl bufferManager, int threads, long maxPendingBytes) {
+		this.bufferManager = bufferManager;
+		this.threads = threads;
+		this.maxPendingBytes = maxPendingBytes;
+		this.executor = ExecutorUtils.newFixedThreadPool(threads, "BufferManager Writer"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return true if the entry was already queued or has been queued, false if
+	 * the caller should write the entry itself.
+	 */
+	boolean offer(CacheEntry ce, LrfuEvictionQueue<CacheEntry> evictionQueue) {
+		if (pending.putIfAbsent(ce.getId(), ce) != null) {
+			return true;
+		}
+		int size = ce.getSizeEstimate();
+		long current = pendingBytes.addAndGet(size);
+		if (current > maxPendingBytes && current != size) {
+			pendingBytes.addAndGet(-size);
+			pending.remove(ce.getId());
+			callerWrites.incrementAndGet();
+			return false;
+		}
+		queue.add(new PendingWrite(ce, evictionQueue));
+		startWriter();
+		return true;
+	}
+
+	boolean isPending(CacheEntry ce) {
+		return pending.containsKey(ce.getId());
+	}
+
+	private void startWriter() {
+		while (true) {
+			int active = activeWriters.get();
+			if (active >= threads || queue.isEmpty()) {
+				return;
+			}
+			if (activeWriters.compareAndSet(active, active + 1)) {
+				break;
+			}
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					drain();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			//shutdown
+			activeWriters.decrementAndGet();
+		}
+	}
+
+	void drain() {
+		List<PendingWrite> group = new ArrayList<PendingWrite>(MAX_GROUP_SIZE);
+		try {
+			while (true) {
+				PendingWrite write = null;
+				while (group.size() < MAX_GROUP_SIZE && (write = queue.poll()) != null) {
+					group.add(write);
+				}
+				if (group.isEmpty()) {
+					return;
+				}
+				for (PendingWrite pendingWrite : group) {
+					write(pendingWrite);
+				}
+				group.clear();
+			}
+		} finally {
+			activeWriters.decrementAndGet();
+			//check for an offer made after the last poll
+			startWriter();
+		}
+	}
+
+	private void write(PendingWrite write) {
+		CacheEntry ce = write.entry;
+		long start = System.nanoTime();
+		try {
+			if (bufferManager.memoryEntries.containsKey(ce.getId())) {
+				bufferManager.completeEviction(ce, write.queue);
+			} //else removed while pending
+		} finally {
+			pending.remove(ce.getId());
+			pendingBytes.addAndGet(-ce.getSizeEstimate());
+		}
+		long elapsed = System.nanoTime() - start;
+		writes.incrementAndGet();
+		writeNanos.addAndGet(elapsed);
+		long max = maxWriteNanos.get();
+		while (elapsed > max && !maxWriteNanos.compareAndSet(max, elapsed)) {
+			max = maxWriteNanos.get();
+		}
+		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.TRACE)) {
+			LogManager.logTrace(LogConstants.CTX_BUFFER_MGR, "Write behind completed", ce.getId(), elapsed, pendingBytes.get()); //$NON-NLS-1$
+		}
+	}
+
+	void shutdown() {
+		executor.shutdownNow();
+		queue.clear();
+		pending.clear();
+		pendingBytes.set(0);
+	}
+
+	int getPendingCount() {
+		return pending.size();
+	}
+
+	long getPendingBytes() {
+		return pendingBytes.get();
+	}
+
+	long getWriteCount() {
+		return writes.get();
+	}
+
+	long getCallerWriteCount() {
+		return callerWrites.get();
+	}
+
+	/**
+	 * @return the average time of a background write in milliseconds
+	 */
+	double getAverageWriteMillis() {
+		long count = writes.get();
+		if (count == 0) {
+			return 0;
+		}
+		return writeNanos.get() / (double)count / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * @return the longest time of a background write in milliseconds
+	 */
+	double getMaxWriteMillis() {
+		return maxWriteNanos.get() / (double)TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+}
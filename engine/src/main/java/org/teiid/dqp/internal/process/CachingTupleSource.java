@@ -48,6 +48,7 @@ final class CachingTupleSource extends
 	private final Collection<GroupSymbol> accessedGroups;
 	final DataTierTupleSource dtts;
 	final RequestWorkItem item;
+	private long maxRows = -1;
 
 	CachingTupleSource(DataTierManagerImpl dataTierManagerImpl, TupleBuffer tb, DataTierTupleSource ts, CacheID cid,
 			RegisterRequestParameter parameterObject, CacheDirective cd,
@@ -71,6 +72,11 @@ final class CachingTupleSource extends
 		}
 		//TODO: the cache directive object needs synchronized for consistency
 		List<?> tuple = super.nextTuple();
+		if (tuple != null && maxRows >= 0 && rowNumber > maxRows + 1) {
+			//too large to cache
+			removeTupleBuffer();
+			return tuple;
+		}
 		if (tuple == null && !dtts.errored) {
 			synchronized (cd) {
 				if (dtts.scope == Scope.NONE) {
@@ -92,7 +98,7 @@ final class CachingTupleSource extends
 		        	cr.setRowLimit(rowNumber);
 		        }
 		        tb.setPrefersMemory(Boolean.TRUE.equals(cd.getPrefersMemory()));
-		    	Determinism determinismLevel = getDeterminismLevel(this.dtts.scope);
+		    	Determinism determinismLevel = getDeterminismLevel(this.dtts.scope != null ? this.dtts.scope : cd.getScope());
 		        this.dataTierManagerImpl.requestMgr.getRsCache().put(cid, determinismLevel, cr, cd.getTtl()); 
 		        tb = null;
 			}
@@ -100,6 +106,13 @@ final class CachingTupleSource extends
 		return tuple;
 	}
 
+	/**
+	 * @param maxRows the maximum number of rows to cache, or -1 for no limit
+	 */
+	void setMaxRows(long maxRows) {
+		this.maxRows = maxRows;
+	}
+
 	public static Determinism getDeterminismLevel(CacheDirective.Scope scope) {
 		Determinism determinismLevel = Determinism.SESSION_DETERMINISTIC;
 		if (scope != null) {
@@ -138,7 +151,7 @@ final class CachingTupleSource extends
 					//we should also shut off any warnings, since the plan isn't consuming these tuples
 					//the approach would probably be to do more read-ahead
 					dtts.getAtomicRequestMessage().setSerial(true);
-					while (dtts.scope != Scope.NONE) {
+					while (dtts.scope != Scope.NONE && tb != null) {
 						if (item.isCanceled()) {
 							LogManager.logDetail(LogConstants.CTX_DQP, dtts.getAtomicRequestMessage().getAtomicRequestID(), "Not using full results due to cancellation."); //$NON-NLS-1$
 							break;
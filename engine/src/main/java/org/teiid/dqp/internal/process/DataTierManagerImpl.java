@@ -102,6 +102,7 @@ import org.teiid.query.resolver.util.ResolverUtil;
 import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.Query;
+import org.teiid.query.sql.lang.QueryCommand;
 import org.teiid.query.sql.lang.SPParameter;
 import org.teiid.query.sql.lang.StoredProcedure;
 import org.teiid.query.sql.lang.UnaryFromClause;
@@ -127,6 +128,15 @@ import org.teiid.vdb.runtime.VDBKey;
 public class DataTierManagerImpl implements ProcessorDataManager {
 	
 	private static final int MAX_VALUE_LENGTH = 1 << 21;
+	
+	/**
+	 * Model properties that enable caching of source query results when the translator
+	 * does not return a {@link CacheDirective}.  The ttl is in milliseconds and the scope
+	 * defaults to USER.  The max rows limits the size of any source cache entry for the model. 
+	 */
+	public static final String SOURCE_CACHE_TTL = AbstractMetadataRecord.RELATIONAL_URI + "source-cache-ttl"; //$NON-NLS-1$
+	public static final String SOURCE_CACHE_SCOPE = AbstractMetadataRecord.RELATIONAL_URI + "source-cache-scope"; //$NON-NLS-1$
+	public static final String SOURCE_CACHE_MAX_ROWS = AbstractMetadataRecord.RELATIONAL_URI + "source-cache-max-rows"; //$NON-NLS-1$
 
 	private static final class ThreadBoundTask implements Callable<Void>, CompletionListener<Void> {
 		private final RequestWorkItem workItem;
@@ -1133,6 +1143,12 @@ public class DataTierManagerImpl implements ProcessorDataManager {
 				} catch (TranslatorException e) {
 					throw new TeiidProcessingException(QueryPlugin.Event.TEIID30504, e, aqr.getConnectorName() + ": " + e.getMessage()); //$NON-NLS-1$
 				}
+				if (cd == null && command instanceof QueryCommand && context.getMetadata() != null) {
+					cd = getModelCacheDirective(context.getMetadata(), modelName);
+					if (cd != null) {
+						context.setDeterminismLevel(CachingTupleSource.getDeterminismLevel(cd.getScope()));
+					}
+				}
 				if (cd != null) {
 					if (cd.getScope() == Scope.NONE) {
 						parameterObject.doNotCache = true;
@@ -1165,8 +1181,15 @@ public class DataTierManagerImpl implements ProcessorDataManager {
 		TupleSource result = dtts;
 		TupleBuffer tb = null;
         if (cid != null) {
+        	if (accessedGroups == null) {
+        		//needed for invalidation by data modifications
+        		accessedGroups = GroupCollectorVisitor.getGroupsIgnoreInlineViews(command, false);
+        	}
         	tb = getBufferManager().createTupleBuffer(aqr.getCommand().getProjectedSymbols(), aqr.getCommandContext().getConnectionId(), TupleSourceType.PROCESSOR);
         	result = new CachingTupleSource(this, tb, (DataTierTupleSource)result, cid, parameterObject, cd, accessedGroups, workItem);
+        	if (context.getMetadata() != null) {
+        		((CachingTupleSource)result).setMaxRows(getModelCacheMaxRows(context.getMetadata(), modelName));
+        	}
         }
         if (work.isThreadBound()) {
         	result = handleThreadBound(workItem, aqr, work, cid, result, dtts, tb);
@@ -1176,6 +1199,42 @@ public class DataTierManagerImpl implements ProcessorDataManager {
 		return result;
 	}
 
+	/**
+	 * @return a {@link CacheDirective} from the model source cache properties or null if caching is not enabled
+	 */
+	private CacheDirective getModelCacheDirective(QueryMetadataInterface metadata, String modelName) throws TeiidComponentException {
+		try {
+			Object modelId = metadata.getModelID(modelName);
+			String ttl = metadata.getExtensionProperty(modelId, SOURCE_CACHE_TTL, false);
+			if (ttl == null) {
+				return null;
+			}
+			CacheDirective cd = new CacheDirective();
+			cd.setTtl(Long.valueOf(ttl));
+			String scope = metadata.getExtensionProperty(modelId, SOURCE_CACHE_SCOPE, false);
+			cd.setScope(scope == null ? Scope.USER : Scope.valueOf(scope.toUpperCase()));
+			return cd;
+		} catch (QueryMetadataException e) {
+			return null;
+		} catch (IllegalArgumentException e) {
+			LogManager.logDetail(LogConstants.CTX_DQP, e, "Invalid source cache property on model", modelName); //$NON-NLS-1$
+			return null;
+		}
+	}
+	
+	private long getModelCacheMaxRows(QueryMetadataInterface metadata, String modelName) throws TeiidComponentException {
+		try {
+			String maxRows = metadata.getExtensionProperty(metadata.getModelID(modelName), SOURCE_CACHE_MAX_ROWS, false);
+			if (maxRows != null) {
+				return Long.parseLong(maxRows);
+			}
+		} catch (QueryMetadataException e) {
+		} catch (NumberFormatException e) {
+			LogManager.logDetail(LogConstants.CTX_DQP, e, "Invalid source cache property on model", modelName); //$NON-NLS-1$
+		}
+		return -1;
+	}
+
 	/**
 	 * thread bound work is tricky for our execution model
 	 * 
@@ -44,6 +44,7 @@ import org.teiid.core.types.TransformationException;
 import org.teiid.core.util.Assertion;
 import org.teiid.dqp.internal.datamgr.ConnectorManagerRepository;
 import org.teiid.dqp.internal.process.AuthorizationValidator.CommandType;
+import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.dqp.service.TransactionContext;
 import org.teiid.dqp.service.TransactionContext.Scope;
@@ -81,6 +82,7 @@ import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.sql.symbol.Reference;
 import org.teiid.query.sql.visitor.GroupCollectorVisitor;
+import org.teiid.query.sql.visitor.ParameterizingVisitor;
 import org.teiid.query.sql.visitor.ReferenceCollectorVisitor;
 import org.teiid.query.tempdata.GlobalTableStore;
 import org.teiid.query.tempdata.TempTableStore;
@@ -99,6 +101,10 @@ import org.teiid.query.validator.ValidatorReport;
 public class Request {
     
 	private static final String CLEAN_LOBS_ONCLOSE = "clean_lobs_onclose"; //$NON-NLS-1$
+	/**
+	 * Distinguishes the parameterized form from prepared statement text in the plan cache
+	 */
+	private static final String PARAMETERIZED_PREFIX = "PARAMETERIZED "; //$NON-NLS-1$
 	// init state
     protected RequestMessage requestMsg;
     private String vdbName;
@@ -419,7 +425,7 @@ public class Request {
 
         checkReferences(references);
         
-        validateAccess(requestMsg.getCommands(), command, CommandType.USER);
+        boolean modified = validateAccess(requestMsg.getCommands(), command, CommandType.USER);
         
     	this.userCommand = (Command) command.clone();
         
@@ -433,6 +439,10 @@ public class Request {
 
         validateQuery(command);
         
+        if (!prepared && !modified && useParameterizedPlan(command)) {
+        	return;
+        }
+        
         command = QueryRewriter.rewrite(command, metadata, context);
         
         /*
@@ -447,7 +457,11 @@ public class Request {
             }
         }
         
-        boolean debug = analysisRecord.recordDebug();
+        optimize(command);
+    }
+
+	private void optimize(Command command) throws TeiidComponentException, TeiidProcessingException {
+		boolean debug = analysisRecord.recordDebug();
 		if(debug) {
 			analysisRecord.println("\n============================================================================"); //$NON-NLS-1$
             analysisRecord.println("USER COMMAND:\n" + command);		 //$NON-NLS-1$
@@ -467,7 +481,48 @@ public class Request {
             }
         }
         LogManager.logDetail(LogConstants.CTX_DQP, new Object[] { QueryPlugin.Util.getString("BasicInterceptor.ProcessTree_for__4"), requestId, processPlan }); //$NON-NLS-1$
-    }
+	}
+	
+	/**
+	 * When auto parameterization is enabled, replace the eligible literals of a query with 
+	 * references so that queries differing only by those literals share a cached plan.
+	 * @return true if the plan was set from the parameterized form
+	 */
+	private boolean useParameterizedPlan(Command command) throws TeiidComponentException, TeiidProcessingException {
+		if (options == null || !options.isAutoParameterize() || planCache == null 
+				|| !(command instanceof QueryCommand) || requestMsg.getCommand() != null 
+				|| requestMsg.getRowLimit() > 0 || requestMsg.getShowPlan() != ShowPlan.OFF) {
+			return false;
+		}
+		Command parameterized = (Command)command.clone();
+		ParameterizingVisitor visitor = ParameterizingVisitor.parameterize(parameterized, metadata);
+		if (visitor.getReferences().isEmpty()) {
+			return false;
+		}
+		CacheID id = new CacheID(this.workContext, createParseInfo(this.requestMsg, this.workContext.getSession()), PARAMETERIZED_PREFIX + parameterized);
+		PreparedPlan prepPlan = planCache.get(id);
+		planCache.recordParameterizedRequest(prepPlan != null);
+		if (prepPlan != null) {
+			LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Parameterized query exists in cache: ", parameterized }); //$NON-NLS-1$
+			analysisRecord = prepPlan.getAnalysisRecord();
+			processPlan = prepPlan.getPlan().clone();
+		} else {
+			LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Parameterized query does not exist in cache: ", parameterized }); //$NON-NLS-1$
+			prepPlan = new PreparedPlan();
+			prepPlan.setCommand((Command)parameterized.clone());
+			prepPlan.setReferences(visitor.getReferences());
+			optimize(QueryRewriter.rewrite(parameterized, metadata, context));
+			prepPlan.setPlan(processPlan.clone(), this.context);
+			prepPlan.setAnalysisRecord(analysisRecord);
+			Determinism determinismLevel = this.context.getDeterminismLevel();
+			if (command.getCacheHint() != null && command.getCacheHint().getDeterminism() != null) {
+				determinismLevel = command.getCacheHint().getDeterminism();
+			}
+			this.planCache.put(id, determinismLevel, prepPlan, command.getCacheHint() != null?command.getCacheHint().getTtl():null);
+		}
+		PreparedStatementRequest.resolveParameterValues(prepPlan.getReferences(), visitor.getValues(), this.context, this.metadata);
+		return true;
+	}
 
 	private AnalysisRecord getAnalysisRecord() {
 		if (this.analysisRecord == null) {
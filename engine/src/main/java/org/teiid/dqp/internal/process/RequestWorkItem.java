@@ -55,6 +55,7 @@ import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.EquivalenceUtil;
+import org.teiid.core.util.PropertiesUtils;
 import org.teiid.dqp.internal.datamgr.ThreadCpuTimer;
 import org.teiid.dqp.internal.process.AuthorizationValidator.CommandType;
 import org.teiid.dqp.internal.process.DQPCore.CompletionListener;
@@ -107,6 +108,18 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	//TODO: this could be configurable
 	private static final int OUTPUT_BUFFER_MAX_BATCHES = 8;
 	private static final int CLIENT_FETCH_MAX_BATCHES = 3;
+	//compress remote results batches, which trades cpu for network bandwidth
+	private static final boolean COMPRESS_RESULTS = PropertiesUtils.getHierarchicalProperty("org.teiid.compressResults", false, Boolean.class); //$NON-NLS-1$
+	
+	private static final class PipelinedRequest {
+		int count;
+		ResultsReceiver<ResultsMessage> receiver;
+
+		PipelinedRequest(int count, ResultsReceiver<ResultsMessage> receiver) {
+			this.count = count;
+			this.receiver = receiver;
+		}
+	}
 	
 	public static final class MoreWorkTask implements Runnable {
 
@@ -211,6 +224,9 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	private ResultsReceiver<ResultsMessage> resultsReceiver;
 	private int begin;
 	private int end;
+	private int lastSentRow;
+	//additional requests for the rows following those already requested
+	private LinkedList<PipelinedRequest> pipelinedRequests = new LinkedList<PipelinedRequest>();
     private TupleBatch savedBatch;
     private Map<Integer, LobWorkItem> lobStreams = Collections.synchronizedMap(new HashMap<Integer, LobWorkItem>(4));    
     
@@ -253,13 +269,23 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     }
     
 	/**
-	 * Ask for results.
+	 * Ask for results.  If results have already been requested, then
+	 * the request is queued and will be answered with the rows following
+	 * those of the previous request - the beginRow is not used.
+	 * <br>
+	 * A beginRow of 0 requests the rows following those last sent.
 	 * @param beginRow
 	 * @param endRow
 	 */
     synchronized void requestResults(int beginRow, int endRow, ResultsReceiver<ResultsMessage> receiver) {
+		int count = endRow - beginRow + 1;
 		if (this.resultsReceiver != null) {
-			throw new IllegalStateException("Results already requested"); //$NON-NLS-1$\
+			this.pipelinedRequests.add(new PipelinedRequest(count, receiver));
+			return;
+		}
+		if (beginRow == 0) {
+			beginRow = this.lastSentRow + 1;
+			endRow = beginRow + count - 1;
 		}
 		this.resultsReceiver = receiver;
 		this.begin = beginRow;
@@ -868,6 +894,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	protected boolean sendResultsIfNeeded(TupleBatch batch) throws TeiidComponentException, TeiidProcessingException {
 		ResultsMessage response = null;
 		ResultsReceiver<ResultsMessage> receiver = null;
+		List<PipelinedRequest> completedRequests = null;
+		boolean pipelined = false;
 		boolean result = true;
 		synchronized (this) {
 			if (this.resultsReceiver == null) {
@@ -1011,6 +1039,19 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	         */
             receiver = this.resultsReceiver;
             this.resultsReceiver = null;    
+            this.lastSentRow = response.getLastRow();
+            if (!this.pipelinedRequests.isEmpty()) {
+            	if (response.getLastRow() == response.getFinalRow()) {
+            		completedRequests = new ArrayList<PipelinedRequest>(this.pipelinedRequests);
+            		this.pipelinedRequests.clear();
+            	} else {
+            		PipelinedRequest next = this.pipelinedRequests.removeFirst();
+            		this.resultsReceiver = next.receiver;
+            		this.begin = this.lastSentRow + 1;
+            		this.end = this.begin + next.count - 1;
+            		pipelined = true;
+            	}
+            }
 		}
 		cancelCancelTask();
 		if ((!this.dqpWorkContext.getSession().isEmbedded() && requestMsg.isDelaySerialization() && this.requestMsg.getShowPlan() == ShowPlan.ON) 
@@ -1033,6 +1074,19 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		}
 		setAnalysisRecords(response);
         receiver.receiveResults(response);
+        if (completedRequests != null) {
+        	//there are no more rows to send
+        	for (PipelinedRequest request : completedRequests) {
+        		ResultsMessage last = createResultsMessage(Collections.<List<?>>emptyList(), this.originalCommand.getProjectedSymbols());
+        		last.setFirstRow(response.getFinalRow() + 1);
+        		last.setLastRow(response.getFinalRow());
+        		last.setFinalRow(response.getFinalRow());
+        		last.setDelayDeserialization(false);
+        		request.receiver.receiveResults(last);
+			}
+        } else if (pipelined) {
+        	moreWork();
+        }
         return result;
 	}
 
@@ -1113,6 +1167,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         ResultsMessage result = new ResultsMessage(batch, columnNames, dataTypes);
         
 		result.setClientSerializationVersion(clientSerializationVersion);
+		result.setCompressResults(COMPRESS_RESULTS && !this.dqpWorkContext.getSession().isEmbedded());
         result.setDelayDeserialization(this.requestMsg.isDelaySerialization() && this.originalCommand.returnsResultSet());
         return result;
     }
@@ -1142,9 +1197,14 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 
     private void sendError() {
     	ResultsReceiver<ResultsMessage> receiver = null;
+    	List<PipelinedRequest> completedRequests = null;
     	synchronized (this) {
     		receiver = this.resultsReceiver;
     		this.resultsReceiver = null;
+    		if (!this.pipelinedRequests.isEmpty()) {
+    			completedRequests = new ArrayList<PipelinedRequest>(this.pipelinedRequests);
+    			this.pipelinedRequests.clear();
+    		}
     		if (receiver == null) {
     			LogManager.logDetail(LogConstants.CTX_DQP, processingException, "Unable to send error to client as results were already sent.", requestID); //$NON-NLS-1$
     			return;
@@ -1164,6 +1224,11 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         response.setException(exception);
         setAnalysisRecords(response);
         receiver.receiveResults(response);
+        if (completedRequests != null) {
+        	for (PipelinedRequest request : completedRequests) {
+        		request.receiver.receiveResults(response);
+        	}
+        }
     }
 
 	private Throwable addCancelCode(Throwable exception) {
@@ -64,6 +64,8 @@ public class SessionAwareCache<T> {
 	private AtomicInteger cacheHit = new AtomicInteger();
 	private AtomicInteger totalRequests = new AtomicInteger();
 	private AtomicInteger cachePuts = new AtomicInteger();
+	private AtomicInteger parameterizedHits = new AtomicInteger();
+	private AtomicInteger parameterizedRequests = new AtomicInteger();
 	
 	private TupleBufferCache bufferManager;
 	
@@ -148,6 +150,24 @@ public class SessionAwareCache<T> {
 		return cachePuts.get();
 	}
 	
+	/**
+	 * Record the lookup of an automatically parameterized plan
+	 */
+	void recordParameterizedRequest(boolean hit) {
+		this.parameterizedRequests.getAndIncrement();
+		if (hit) {
+			this.parameterizedHits.getAndIncrement();
+		}
+	}
+	
+	public int getParameterizedHitCount() {
+		return parameterizedHits.get();
+	}
+	
+	public int getParameterizedRequestCount() {
+		return parameterizedRequests.get();
+	}
+	
 	public int getTotalCacheEntries() {
 		if (this.localCache == this.distributedCache) {
 			return this.localCache.size();
@@ -280,6 +300,8 @@ public class SessionAwareCache<T> {
 		this.totalRequests.set(0);
 		this.cacheHit.set(0);
 		this.cachePuts.set(0);
+		this.parameterizedHits.set(0);
+		this.parameterizedRequests.set(0);
 	}	
 	
 	public void clearForVDB(String vdbName, String version) {
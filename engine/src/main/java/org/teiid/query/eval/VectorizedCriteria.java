@@ -0,0 +1,526 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.ColumnarTupleBatch;
+import org.teiid.common.buffer.ColumnarTupleBatch.BooleanColumn;
+import org.teiid.common.buffer.ColumnarTupleBatch.Column;
+import org.teiid.common.buffer.ColumnarTupleBatch.DoubleColumn;
+import org.teiid.common.buffer.ColumnarTupleBatch.IntColumn;
+import org.teiid.common.buffer.ColumnarTupleBatch.LongColumn;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.lang.BetweenCriteria;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * Batch-at-a-time criteria evaluation against a {@link ColumnarTupleBatch}.
+ * <br>
+ * Compare, IN, BETWEEN and IS NULL predicates over column references and
+ * constants, and AND/OR combinations of them, are compiled into kernels that
+ * filter a selection vector of zero-based row indexes in a tight loop over
+ * the column arrays.  Any other predicate is evaluated row by row with the
+ * {@link Evaluator}, but only for the rows still selected.
+ * <br>
+ * A row is selected only if the criteria evaluates to TRUE, so unknown
+ * results are treated the same as FALSE.
+ */
+public abstract class VectorizedCriteria {
+
+	/**
+	 * Compile the criteria.
+	 * @param elements the map of column references to column index
+	 */
+	public static VectorizedCriteria compile(Criteria criteria, Map<? extends Expression, Integer> elements) {
+		if (criteria instanceof CompoundCriteria) {
+			CompoundCriteria cc = (CompoundCriteria)criteria;
+			List<VectorizedCriteria> kernels = new ArrayList<VectorizedCriteria>(cc.getCriteria().size());
+			List<Criteria> rowCriteria = new ArrayList<Criteria>();
+			for (Criteria crit : cc.getCriteria()) {
+				VectorizedCriteria kernel = compile(crit, elements);
+				if (cc.getOperator() == CompoundCriteria.AND && kernel instanceof RowCriteria) {
+					//evaluate the vectorized conjuncts first
+					rowCriteria.add(crit);
+					continue;
+				}
+				kernels.add(kernel);
+			}
+			if (!rowCriteria.isEmpty()) {
+				kernels.add(new RowCriteria(rowCriteria.size() == 1?rowCriteria.get(0):new CompoundCriteria(rowCriteria)));
+			}
+			if (kernels.size() == 1) {
+				return kernels.get(0);
+			}
+			if (cc.getOperator() == CompoundCriteria.AND) {
+				return new And(kernels);
+			}
+			return new Or(kernels);
+		}
+		if (criteria instanceof CompareCriteria) {
+			CompareCriteria crit = (CompareCriteria)criteria;
+			Integer left = getIndex(crit.getLeftExpression(), elements);
+			Integer right = getIndex(crit.getRightExpression(), elements);
+			if (left != null && right != null) {
+				return new CompareColumns(left, crit.getOperator(), right);
+			}
+			if (left != null && isConstant(crit.getRightExpression())) {
+				return createCompare(left, crit.getOperator(), ((Constant)crit.getRightExpression()).getValue());
+			}
+			if (right != null && isConstant(crit.getLeftExpression())) {
+				return createCompare(right, crit.getReverseOperator(), ((Constant)crit.getLeftExpression()).getValue());
+			}
+		} else if (criteria instanceof BetweenCriteria) {
+			BetweenCriteria crit = (BetweenCriteria)criteria;
+			Integer index = getIndex(crit.getExpression(), elements);
+			if (!crit.isNegated() && index != null && isConstant(crit.getLowerExpression()) && isConstant(crit.getUpperExpression())) {
+				return new And(Arrays.asList(
+						createCompare(index, CompareCriteria.GE, ((Constant)crit.getLowerExpression()).getValue()),
+						createCompare(index, CompareCriteria.LE, ((Constant)crit.getUpperExpression()).getValue())));
+			}
+		} else if (criteria instanceof IsNullCriteria) {
+			IsNullCriteria crit = (IsNullCriteria)criteria;
+			Integer index = getIndex(crit.getExpression(), elements);
+			if (index != null) {
+				return new IsNull(index, crit.isNegated());
+			}
+		} else if (criteria instanceof SetCriteria) {
+			SetCriteria crit = (SetCriteria)criteria;
+			Integer index = getIndex(crit.getExpression(), elements);
+			if (index != null && crit.isAllConstants()) {
+				return new In(index, crit.getValues(), crit.getExpression().getType(), crit.isNegated());
+			}
+		}
+		return new RowCriteria(criteria);
+	}
+
+	private static VectorizedCriteria createCompare(int index, int operator, Object value) {
+		if (value == null) {
+			return None.INSTANCE;
+		}
+		return new CompareConstant(index, operator, value);
+	}
+
+	private static boolean isConstant(Expression ex) {
+		return ex instanceof Constant && !((Constant)ex).isMultiValued();
+	}
+
+	private static Integer getIndex(Expression ex, Map<? extends Expression, Integer> elements) {
+		if (!(ex instanceof ElementSymbol)) {
+			return null;
+		}
+		return elements.get(ex);
+	}
+
+	/**
+	 * Filter the selection vector in place.
+	 * @param selection zero-based row indexes in ascending order
+	 * @param count the number of valid entries in the selection vector
+	 * @return the number of selected rows remaining
+	 */
+	public abstract int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval)
+			throws ExpressionEvaluationException, BlockedException, TeiidComponentException;
+
+	/**
+	 * @return true if the criteria could be evaluated without falling back to row evaluation
+	 */
+	public boolean isVectorized() {
+		return true;
+	}
+
+	static boolean matches(int compare, int operator) {
+		switch (operator) {
+		case CompareCriteria.EQ:
+			return compare == 0;
+		case CompareCriteria.NE:
+			return compare != 0;
+		case CompareCriteria.LT:
+			return compare < 0;
+		case CompareCriteria.LE:
+			return compare <= 0;
+		case CompareCriteria.GT:
+			return compare > 0;
+		case CompareCriteria.GE:
+			return compare >= 0;
+		default:
+			throw new AssertionError();
+		}
+	}
+
+	static final class None extends VectorizedCriteria {
+		static final None INSTANCE = new None();
+
+		@Override
+		public int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval) {
+			return 0;
+		}
+	}
+
+	static final class And extends VectorizedCriteria {
+		private VectorizedCriteria[] kernels;
+
+		And(List<VectorizedCriteria> kernels) {
+			this.kernels = kernels.toArray(new VectorizedCriteria[kernels.size()]);
+		}
+
+		@Override
+		public int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			for (int i = 0; i < kernels.length && count > 0; i++) {
+				count = kernels[i].select(batch, selection, count, eval);
+			}
+			return count;
+		}
+
+		@Override
+		public boolean isVectorized() {
+			for (VectorizedCriteria kernel : kernels) {
+				if (!kernel.isVectorized()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	static final class Or extends VectorizedCriteria {
+		private VectorizedCriteria[] kernels;
+
+		Or(List<VectorizedCriteria> kernels) {
+			this.kernels = kernels.toArray(new VectorizedCriteria[kernels.size()]);
+		}
+
+		@Override
+		public int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			BitSet selected = new BitSet(batch.getRowCount());
+			int[] branch = new int[count];
+			for (VectorizedCriteria kernel : kernels) {
+				System.arraycopy(selection, 0, branch, 0, count);
+				int branchCount = kernel.select(batch, branch, count, eval);
+				for (int i = 0; i < branchCount; i++) {
+					selected.set(branch[i]);
+				}
+			}
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = selection[i];
+				if (selected.get(row)) {
+					selection[result++] = row;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean isVectorized() {
+			for (VectorizedCriteria kernel : kernels) {
+				if (!kernel.isVectorized()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	static final class IsNull extends VectorizedCriteria {
+		private int index;
+		private boolean negated;
+
+		IsNull(int index, boolean negated) {
+			this.index = index;
+			this.negated = negated;
+		}
+
+		@Override
+		public int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval) {
+			Column column = batch.getColumn(index);
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = selection[i];
+				if (column.isNull(row) ^ negated) {
+					selection[result++] = row;
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Compare a column against a non-null constant
+	 */
+	static final class CompareConstant extends VectorizedCriteria {
+		private int index;
+		private int operator;
+		private Object value;
+
+		CompareConstant(int index, int operator, Object value) {
+			this.index = index;
+			this.operator = operator;
+			this.value = value;
+		}
+
+		@Override
+		public int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval) {
+			Column column = batch.getColumn(index);
+			BitSet nulls = column.getNulls();
+			int result = 0;
+			if (column instanceof IntColumn && value instanceof Integer) {
+				int[] values = ((IntColumn)column).getValues();
+				int c = (Integer)value;
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (matches(Integer.compare(values[row], c), operator) && !nulls.get(row)) {
+						selection[result++] = row;
+					}
+				}
+			} else if (column instanceof LongColumn && value instanceof Long) {
+				long[] values = ((LongColumn)column).getValues();
+				long c = (Long)value;
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (matches(Long.compare(values[row], c), operator) && !nulls.get(row)) {
+						selection[result++] = row;
+					}
+				}
+			} else if (column instanceof DoubleColumn && value instanceof Double) {
+				double[] values = ((DoubleColumn)column).getValues();
+				double c = (Double)value;
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (matches(Double.compare(values[row], c), operator) && !nulls.get(row)) {
+						selection[result++] = row;
+					}
+				}
+			} else if (column instanceof BooleanColumn && value instanceof Boolean) {
+				BitSet values = ((BooleanColumn)column).getValues();
+				boolean c = (Boolean)value;
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (matches(Boolean.compare(values.get(row), c), operator) && !nulls.get(row)) {
+						selection[result++] = row;
+					}
+				}
+			} else {
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					Object val = column.getValue(row);
+					if (val != null && Boolean.TRUE.equals(Evaluator.compare(operator, val, value))) {
+						selection[result++] = row;
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	static final class CompareColumns extends VectorizedCriteria {
+		private int left;
+		private int operator;
+		private int right;
+
+		CompareColumns(int left, int operator, int right) {
+			this.left = left;
+			this.operator = operator;
+			this.right = right;
+		}
+
+		@Override
+		public int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval) {
+			Column leftColumn = batch.getColumn(left);
+			Column rightColumn = batch.getColumn(right);
+			int result = 0;
+			if (leftColumn instanceof IntColumn && rightColumn instanceof IntColumn) {
+				int[] l = ((IntColumn)leftColumn).getValues();
+				int[] r = ((IntColumn)rightColumn).getValues();
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (matches(Integer.compare(l[row], r[row]), operator) && !leftColumn.isNull(row) && !rightColumn.isNull(row)) {
+						selection[result++] = row;
+					}
+				}
+			} else if (leftColumn instanceof LongColumn && rightColumn instanceof LongColumn) {
+				long[] l = ((LongColumn)leftColumn).getValues();
+				long[] r = ((LongColumn)rightColumn).getValues();
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (matches(Long.compare(l[row], r[row]), operator) && !leftColumn.isNull(row) && !rightColumn.isNull(row)) {
+						selection[result++] = row;
+					}
+				}
+			} else if (leftColumn instanceof DoubleColumn && rightColumn instanceof DoubleColumn) {
+				double[] l = ((DoubleColumn)leftColumn).getValues();
+				double[] r = ((DoubleColumn)rightColumn).getValues();
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (matches(Double.compare(l[row], r[row]), operator) && !leftColumn.isNull(row) && !rightColumn.isNull(row)) {
+						selection[result++] = row;
+					}
+				}
+			} else {
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					Object l = leftColumn.getValue(row);
+					if (l == null) {
+						continue;
+					}
+					Object r = rightColumn.getValue(row);
+					if (r != null && Boolean.TRUE.equals(Evaluator.compare(operator, l, r))) {
+						selection[result++] = row;
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * IN against a list of constants
+	 */
+	static final class In extends VectorizedCriteria {
+		private int index;
+		private boolean negated;
+		private boolean hasNull;
+		private Collection<?> values;
+		private Class<?> type;
+		private int[] intValues;
+		private long[] longValues;
+
+		In(int index, Collection<?> values, Class<?> type, boolean negated) {
+			this.index = index;
+			this.values = values;
+			this.type = type;
+			this.negated = negated;
+			this.hasNull = values.contains(Constant.NULL_CONSTANT);
+			if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+				int[] vals = new int[values.size()];
+				int i = 0;
+				for (Object o : values) {
+					Object value = ((Constant)o).getValue();
+					if (value instanceof Integer) {
+						vals[i++] = (Integer)value;
+					} else if (value != null) {
+						return;
+					}
+				}
+				intValues = Arrays.copyOf(vals, i);
+				Arrays.sort(intValues);
+			} else if (type == DataTypeManager.DefaultDataClasses.LONG) {
+				long[] vals = new long[values.size()];
+				int i = 0;
+				for (Object o : values) {
+					Object value = ((Constant)o).getValue();
+					if (value instanceof Long) {
+						vals[i++] = (Long)value;
+					} else if (value != null) {
+						return;
+					}
+				}
+				longValues = Arrays.copyOf(vals, i);
+				Arrays.sort(longValues);
+			}
+		}
+
+		@Override
+		public int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval) {
+			if (negated && hasNull) {
+				//not in with a null is never true
+				return 0;
+			}
+			if (values.isEmpty()) {
+				//only the negated form can be true, even for null values
+				return negated?count:0;
+			}
+			Column column = batch.getColumn(index);
+			int result = 0;
+			if (intValues != null && column instanceof IntColumn) {
+				int[] vals = ((IntColumn)column).getValues();
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (!column.isNull(row) && (Arrays.binarySearch(intValues, vals[row]) >= 0 ^ negated)) {
+						selection[result++] = row;
+					}
+				}
+			} else if (longValues != null && column instanceof LongColumn) {
+				long[] vals = ((LongColumn)column).getValues();
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					if (!column.isNull(row) && (Arrays.binarySearch(longValues, vals[row]) >= 0 ^ negated)) {
+						selection[result++] = row;
+					}
+				}
+			} else {
+				for (int i = 0; i < count; i++) {
+					int row = selection[i];
+					Object val = column.getValue(row);
+					if (val != null && (values.contains(new Constant(val, type)) ^ negated)) {
+						selection[result++] = row;
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Fallback to row-based evaluation for the selected rows
+	 */
+	static final class RowCriteria extends VectorizedCriteria {
+		private Criteria criteria;
+
+		RowCriteria(Criteria criteria) {
+			this.criteria = criteria;
+		}
+
+		@Override
+		public int select(ColumnarTupleBatch batch, int[] selection, int count, Evaluator eval)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			List<List<?>> tuples = batch.getTuples();
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = selection[i];
+				if (eval.evaluate(criteria, tuples.get(row))) {
+					selection[result++] = row;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean isVectorized() {
+			return false;
+		}
+	}
+
+}
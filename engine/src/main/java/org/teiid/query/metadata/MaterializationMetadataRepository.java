@@ -56,6 +56,27 @@ public class MaterializationMetadataRepository implements MetadataRepository {
     public static final String MATVIEW_POLLING_INTERVAL = "{http://www.teiid.org/ext/relational/2012}MATVIEW_POLLING_INTERVAL"; //$NON-NLS-1$
     
     public static final String MATVIEW_POLLING_QUERY = "{http://www.teiid.org/ext/relational/2012}MATVIEW_POLLING_QUERY"; //$NON-NLS-1$
+    
+    /**
+     * A version or timestamp column of the {@link #MATVIEW_CHANGE_TABLE}, which is required, 
+     * that increases with each change and allows for incremental refreshes of an internal materialized view
+     */
+    public static final String MATVIEW_INCREMENTAL_COLUMN = "{http://www.teiid.org/ext/relational/2012}MATVIEW_INCREMENTAL_COLUMN"; //$NON-NLS-1$
+    /**
+     * A table with the primary key columns of the view and the {@link #MATVIEW_INCREMENTAL_COLUMN} 
+     * recording the inserted, updated, and deleted keys
+     */
+    public static final String MATVIEW_CHANGE_TABLE = "{http://www.teiid.org/ext/relational/2012}MATVIEW_CHANGE_TABLE"; //$NON-NLS-1$
+    /**
+     * An integral column of the view used to split the full load of an internal materialized view 
+     * into partitions that are loaded concurrently.  The partitions are only used if each is pushed 
+     * in full to the same source.
+     */
+    public static final String MATVIEW_PARTITION_COLUMN = "{http://www.teiid.org/ext/relational/2012}MATVIEW_PARTITION_COLUMN"; //$NON-NLS-1$
+    /**
+     * The number of {@link #MATVIEW_PARTITION_COLUMN} partitions, defaults to the user request source concurrency
+     */
+    public static final String MATVIEW_PARTITION_COUNT = "{http://www.teiid.org/ext/relational/2012}MATVIEW_PARTITION_COUNT"; //$NON-NLS-1$
 	
 	public enum LoadStates {NEEDS_LOADING, LOADING, LOADED, FAILED_LOAD};
 	public enum Scope {IMPORTED, FULL};
@@ -165,6 +165,12 @@ public class PlanToProcessConverter {
 					}
 				}
 			} else {
+				if (useExchange(planNode, nextParent, childNode)) {
+					ExchangeNode exchange = new ExchangeNode(getID());
+					exchange.setElements(child.getElements());
+					exchange.addChild(child);
+					child = exchange;
+				}
 				nextParent.addChild(child);
 			}
 		}
@@ -173,6 +179,74 @@ public class PlanToProcessConverter {
 		return convertedNode;
 	}
 
+    /**
+     * Determine if the child branch should be processed by a separate thread.
+     * Only the independent children of a union all or a non-dependent join qualify.
+     */
+    private boolean useExchange(PlanNode parent, RelationalNode parentNode, PlanNode child) {
+    	if (context == null || context.getOptions().getMaxParallelism() <= 1) {
+    		return false;
+    	}
+    	if (parentNode instanceof JoinNode) {
+    		if (parent.hasProperty(Info.DEPENDENT_VALUE_SOURCE) || parent.hasBooleanProperty(Info.IS_SEMI_DEP)
+    				|| parent.getProperty(Info.JOIN_STRATEGY) == JoinStrategyType.NESTED_TABLE) {
+    			return false;
+    		}
+    	} else if (!(parentNode instanceof UnionAllNode)) {
+    		return false;
+    	}
+    	return isParallelSafe(child);
+    }
+    
+    /**
+     * @return true if the subtree contains only relational operations that do not 
+     * depend upon outer values, subqueries, or nested plans.  Source access is excluded
+     * anywhere in the subtree as it is already asynch and the source registrations, 
+     * shared tuple source states, and temp table stores are not safe for concurrent use.
+     */
+    private static boolean isParallelSafe(PlanNode node) {
+    	if (!node.getSubqueryContainers().isEmpty() || node.hasProperty(Info.CORRELATED_REFERENCES)
+    			|| node.hasProperty(Info.PROCESSOR_PLAN) || node.hasProperty(Info.NESTED_COMMAND)) {
+    		return false;
+    	}
+    	switch (node.getType()) {
+    	case NodeConstants.Types.ACCESS:
+    		return false;
+    	case NodeConstants.Types.JOIN:
+    		if (node.hasProperty(Info.DEPENDENT_VALUE_SOURCE) || node.hasBooleanProperty(Info.IS_SEMI_DEP)) {
+    			return false;
+    		}
+    		break;
+    	case NodeConstants.Types.PROJECT:
+    		if (node.hasProperty(Info.INTO_GROUP)) {
+    			return false;
+    		}
+    		break;
+    	case NodeConstants.Types.SOURCE:
+    		Object source = node.getProperty(Info.TABLE_FUNCTION);
+    		if (source != null && !(source instanceof TextTable) && !(source instanceof ArrayTable)) {
+    			return false;
+    		}
+    		break;
+    	case NodeConstants.Types.SELECT:
+    	case NodeConstants.Types.SORT:
+    	case NodeConstants.Types.DUP_REMOVE:
+    	case NodeConstants.Types.GROUP:
+    	case NodeConstants.Types.SET_OP:
+    	case NodeConstants.Types.TUPLE_LIMIT:
+    	case NodeConstants.Types.NULL:
+    		break;
+    	default:
+    		return false;
+    	}
+    	for (PlanNode child : node.getChildren()) {
+    		if (!isParallelSafe(child)) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+
     protected int getID() {
         return idGenerator.nextInt();
     }
@@ -293,6 +367,17 @@ public class PlanToProcessConverter {
                     List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
                     jnode.setJoinExpressions(leftExpressions, rightExpressions);
                     joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
+                } else if (stype == JoinStrategyType.HASH) {
+                	HashJoinStrategy hjStrategy = new HashJoinStrategy();
+                	if (node.hasBooleanProperty(Info.SINGLE_MATCH)) {
+                	    Assertion.assertTrue(jtype == JoinType.JOIN_LEFT_OUTER);
+                	    hjStrategy.singleMatch(true);
+                	}
+                    jnode.setJoinStrategy(hjStrategy);
+                    List leftExpressions = (List) node.getProperty(NodeConstants.Info.LEFT_EXPRESSIONS);
+                    List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
+                    jnode.setJoinExpressions(leftExpressions, rightExpressions);
+                    joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
                 } else if (stype == JoinStrategyType.NESTED_TABLE) {
                 	NestedTableJoinStrategy ntjStrategy = new NestedTableJoinStrategy();
                 	jnode.setJoinStrategy(ntjStrategy);
@@ -369,6 +454,7 @@ public class PlanToProcessConverter {
                                 depAccessNode.setMaxSetSize(CapabilitiesUtil.getMaxInCriteriaSize(modelID, metadata, capFinder));
                                 depAccessNode.setMaxPredicates(CapabilitiesUtil.getMaxDependentPredicates(modelID, metadata, capFinder));   
                                 depAccessNode.setUseBindings(CapabilitiesUtil.supports(Capability.DEPENDENT_JOIN_BINDINGS, modelID, metadata, capFinder));
+                                depAccessNode.setSupportsRange(CapabilitiesUtil.supports(Capability.CRITERIA_COMPARE_ORDERED, modelID, metadata, capFinder));
                                 //TODO: allow the translator to drive this property
                                 //simplistic check of whether this query is complex to re-execute
                                 Query query = (Query)command;
@@ -585,6 +671,7 @@ public class PlanToProcessConverter {
 			        	}
 			        }
 				}
+				gnode.setHashAggregate(useHashAggregate(node, gCols));
 				if (orderBy != null) {
 			        gnode.setOrderBy(orderBy.getOrderByItems());
 				}
@@ -728,6 +815,24 @@ public class PlanToProcessConverter {
 		return processNode;
 	}
 
+    /**
+     * Hash aggregation is used when the grouping output order is not relied upon and
+     * the estimates indicate that the number of groups is substantially less than the input.
+     */
+    private boolean useHashAggregate(PlanNode node, List<Expression> gCols) {
+    	if (context == null || !context.getOptions().isHashAggregation() || gCols == null 
+    			|| node.getProperty(Info.SORT_ORDER) != null || node.hasBooleanProperty(Info.ROLLUP) 
+    			|| node.hasBooleanProperty(Info.IS_DUP_REMOVAL) || !HashUtil.isHashable(gCols, gCols)) {
+    		return false;
+    	}
+    	Number groups = (Number) node.getProperty(Info.EST_CARDINALITY);
+    	Number input = (Number) node.getFirstChild().getProperty(Info.EST_CARDINALITY);
+    	if (groups == null || input == null || groups.floatValue() == NewCalculateCostUtil.UNKNOWN_VALUE || input.floatValue() == NewCalculateCostUtil.UNKNOWN_VALUE) {
+    		return false;
+    	}
+    	return groups.floatValue() * 4 <= input.floatValue();
+    }
+
     private void validateAggregateFunctionEvaluation(AggregateSymbol as) throws QueryPlannerException {
         if (as.getFunctionDescriptor() != null && as.getFunctionDescriptor().getPushdown() == PushDown.MUST_PUSHDOWN) {
             throw new QueryPlannerException(QueryPlugin.Event.TEIID31211, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31211, as.getFunctionDescriptor().getFullName()));
@@ -41,6 +41,7 @@ import org.teiid.query.optimizer.relational.plantree.NodeConstants.Info;
 import org.teiid.query.optimizer.relational.plantree.NodeEditor;
 import org.teiid.query.optimizer.relational.plantree.NodeFactory;
 import org.teiid.query.optimizer.relational.plantree.PlanNode;
+import org.teiid.query.processor.relational.HashUtil;
 import org.teiid.query.processor.relational.JoinNode.JoinStrategyType;
 import org.teiid.query.processor.relational.MergeJoinStrategy.SortOption;
 import org.teiid.query.processor.relational.RelationalNode;
@@ -57,7 +58,8 @@ import org.teiid.query.util.CommandContext;
 
 
 /**
- * Inserts sort nodes for specific join strategies.
+ * Inserts sort nodes for specific join strategies.  If neither side of an equi-join
+ * would be sorted by its source, a hash join may be used instead.
  */
 public class RuleImplementJoinStrategy implements OptimizerRule {
         
@@ -210,7 +212,9 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
 			}
 
 			boolean pushedRight = insertSort(joinNode.getLastChild(), rightExpressions, joinNode, metadata, capabilitiesFinder, pushRight, context);
-        	if ((!pushedRight || !pushedLeft) && (joinType == JoinType.JOIN_INNER || (joinType == JoinType.JOIN_LEFT_OUTER && !pushedLeft))) {
+			if (useHashJoin(joinNode, joinType, pushedLeft, pushedRight, leftExpressions, rightExpressions, context)) {
+				joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.HASH);
+			} else if ((!pushedRight || !pushedLeft) && (joinType == JoinType.JOIN_INNER || (joinType == JoinType.JOIN_LEFT_OUTER && !pushedLeft))) {
         		joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.ENHANCED_SORT);
         	}
         }
@@ -218,6 +222,26 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
         return plan;
     }
 
+    /**
+     * A hash join is used only when neither side would otherwise be delivered sorted
+     */
+    static boolean useHashJoin(PlanNode joinNode, JoinType joinType, boolean pushedLeft, boolean pushedRight,
+    		List<Expression> leftExpressions, List<Expression> rightExpressions, CommandContext context) {
+    	if (context == null || !context.getOptions().isHashJoin() || pushedLeft || pushedRight) {
+    		return false;
+    	}
+    	if (joinType != JoinType.JOIN_INNER && joinType != JoinType.JOIN_LEFT_OUTER) {
+    		return false;
+    	}
+    	if (joinNode.getProperty(NodeConstants.Info.SORT_LEFT) != SortOption.SORT
+    			|| joinNode.getProperty(NodeConstants.Info.SORT_RIGHT) != SortOption.SORT
+    			|| joinNode.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE) != null
+    			|| joinNode.hasBooleanProperty(Info.IS_SEMI_DEP)) {
+    		return false;
+    	}
+    	return HashUtil.isHashable(leftExpressions, rightExpressions);
+    }
+
     /**
      * Insert a sort node under the merge join node.  If necessary, also insert a project
      * node to handle function evaluation.  
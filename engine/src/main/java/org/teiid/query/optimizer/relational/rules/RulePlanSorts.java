@@ -174,6 +174,11 @@ public class RulePlanSorts implements OptimizerRule {
 					|| node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.NESTED_TABLE) {
 				break;
 			}
+			if (node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.HASH) {
+				//the build side is fully read, but no ordering is required
+				parentBlocking = true;
+				break;
+			}
 			/*
 			 *  Look under the left and the right sources for a dup removal operation
 			 *  join
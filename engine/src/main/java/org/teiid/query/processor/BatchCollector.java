@@ -87,7 +87,7 @@ public class BatchCollector {
 			while (true) {
 				if(sourceBatch == null) {
 		            // Read next batch
-		            sourceBatch = sourceNode.nextBatch();
+		            sourceBatch = updateBatch(sourceNode.nextBatch());
 		        }
 		        
 		        if(sourceBatch.getRowCount() > 0 && sourceRow <= sourceBatch.getEndRow()) {
@@ -107,6 +107,14 @@ public class BatchCollector {
 			}
 		}
 		
+		/**
+		 * Allows subclasses to transform a whole batch before its tuples are read.
+		 * The returned batch must have the same row numbering.
+		 */
+		protected TupleBatch updateBatch(TupleBatch batch) {
+			return batch;
+		}
+		
 		@SuppressWarnings("unused")
 		protected List<?> updateTuple(List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
 			return tuple;
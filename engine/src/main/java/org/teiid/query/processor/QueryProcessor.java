@@ -24,6 +24,7 @@ import java.util.List;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.ColumnarTupleBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
@@ -151,6 +152,10 @@ public class QueryProcessor implements BatchProducer {
 	        		result.setRowOffset(rowOffset);
 	        		
 	        		if (result.getTerminationFlag()) {
+	        			if (result instanceof ColumnarTupleBatch) {
+	        				//need a mutable tuple list
+	        				result = new TupleBatch(result.getBeginRow(), result.getTuples());
+	        			}
 	        			result.setTermination(TupleBatch.ITERATION_TERMINATED);
 	        			List<Object> terminationTuple = Arrays.asList(new Object[this.getOutputElements().size()]);
 	        			result.getTuples().add(terminationTuple);
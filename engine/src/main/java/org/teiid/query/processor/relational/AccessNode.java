@@ -30,6 +30,7 @@ import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.ColumnarTupleBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleSource;
@@ -39,10 +40,15 @@ import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.Assertion;
 import org.teiid.dqp.internal.process.multisource.MultiSourceElementReplacementVisitor;
 import org.teiid.language.SQLConstants.NonReserved;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.metadata.Table;
+import org.teiid.metadata.TableStats;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.relational.RowBasedSecurityHelper;
+import org.teiid.query.processor.DdlPlan;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.QueryProcessor;
@@ -59,12 +65,14 @@ import org.teiid.query.sql.lang.Select;
 import org.teiid.query.sql.lang.StoredProcedure;
 import org.teiid.query.sql.lang.SubqueryContainer;
 import org.teiid.query.sql.lang.SubqueryContainer.Evaluatable;
+import org.teiid.query.sql.lang.UnaryFromClause;
 import org.teiid.query.sql.lang.WithQueryCommand;
 import org.teiid.query.sql.symbol.AggregateSymbol;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.sql.util.SymbolMap;
+import org.teiid.query.sql.visitor.AggregateSymbolCollectorVisitor;
 import org.teiid.query.sql.visitor.ValueIteratorProviderCollectorVisitor;
 import org.teiid.query.util.CommandContext;
 import org.teiid.translator.ExecutionFactory.TransactionSupport;
@@ -104,6 +112,7 @@ public class AccessNode extends SubqueryAwareRelationalNode {
 	public RegisterRequestParameter.SharedAccessInfo info;
 	private Map<GroupSymbol, RelationalPlan> subPlans;
 	private Map<GroupSymbol, SubqueryState> evaluatedPlans;
+	private Class<?>[] columnarTypes;
     
     protected AccessNode() {
 		super();
@@ -118,6 +127,22 @@ public class AccessNode extends SubqueryAwareRelationalNode {
 			ProcessorDataManager dataMgr) {
 		super.initialize(context, bufferManager, dataMgr);
     	this.schemaSize = getBufferManager().getSchemaSize(getOutputElements());
+    	if (context.getOptions().isColumnarBatches()) {
+    		this.columnarTypes = ColumnarTupleBatch.getColumnarTypes(getOutputElements());
+    	}
+	}
+	
+	@Override
+	protected TupleBatch pullBatch() {
+		TupleBatch batch = super.pullBatch();
+		if (columnarTypes != null && batch.getRowCount() > 0) {
+			ColumnarTupleBatch columnar = ColumnarTupleBatch.create(batch.getBeginRow(), columnarTypes, batch.getTuples());
+			if (columnar != null) {
+				columnar.setTermination(batch.getTermination());
+				return columnar;
+			}
+		}
+		return batch;
 	}
 
     public void reset() {
@@ -462,7 +487,45 @@ public class AccessNode extends SubqueryAwareRelationalNode {
             addBatchRow(tuple);
         }
         terminateBatches();
-        return pullBatch();
+        TupleBatch batch = pullBatch();
+        if (getContext().getOptions().isCardinalityFeedback()) {
+        	recordCardinality(batch.getEndRow());
+        }
+        return batch;
+	}
+	
+	/**
+	 * Feed the row count of a full scan of a physical table back into the table cardinality
+	 * used for costing.  The cardinality is only updated when it is unknown or off by more than
+	 * a factor of 2, since the update invalidates the cached plans using the table.
+	 */
+	private void recordCardinality(long rowCount) {
+		if (!shouldExecute || multiSource || isUpdate || hasNextCommand() || !(command instanceof Query)) {
+			return;
+		}
+		Query query = (Query)command;
+		if (query.getCriteria() != null || query.getGroupBy() != null || query.getHaving() != null 
+				|| query.getLimit() != null || query.getInto() != null || query.getWith() != null
+				|| query.getSelect().isDistinct() || query.getFrom() == null || query.getFrom().getClauses().size() != 1 
+				|| !(query.getFrom().getClauses().get(0) instanceof UnaryFromClause)
+				|| !AggregateSymbolCollectorVisitor.getAggregates(query.getSelect(), false).isEmpty()) {
+			return;
+		}
+		GroupSymbol group = ((UnaryFromClause)query.getFrom().getClauses().get(0)).getGroup();
+		if (!(group.getMetadataID() instanceof Table)) {
+			return;
+		}
+		Table table = (Table)group.getMetadataID();
+		if (table.isVirtual()) {
+			return;
+		}
+		int cardinality = table.getCardinality();
+		if (cardinality == Table.UNKNOWN_CARDINALITY || rowCount > 2l*cardinality || 2*rowCount < cardinality) {
+			LogManager.logDetail(LogConstants.CTX_DQP, "Updating the cardinality of", table.getFullName(), "from", cardinality, "to", rowCount); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			TableStats stats = new TableStats();
+			stats.setCardinality(rowCount);
+			DdlPlan.setTableStats(getContext().getVdb(), table, stats);
+		}
 	}
 	
 	@Override
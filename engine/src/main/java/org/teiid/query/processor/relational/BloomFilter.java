@@ -0,0 +1,80 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+/**
+ * A simple Bloom filter over the hash codes of values.  With 10 bits per expected value
+ * and 7 hash functions the false positive rate is roughly 1%.
+ * <br>
+ * Values must be of a type that is consistently hashable - see {@link org.teiid.core.types.DataTypeManager#isHashable(Class)}
+ */
+public class BloomFilter {
+
+	private static final int BITS_PER_VALUE = 10;
+	private static final int HASHES = 7;
+	private static final long MAX_BITS = 1L << 30;
+
+	private long[] bits;
+	private long numBits;
+
+	public BloomFilter(long expectedValues) {
+		long size = Math.min(MAX_BITS, Math.max(64, expectedValues * BITS_PER_VALUE));
+		this.bits = new long[(int)((size + 63) >>> 6)];
+		this.numBits = (long)bits.length << 6;
+	}
+
+	public void add(Object value) {
+		int hash = value.hashCode();
+		int h1 = mix(hash);
+		int h2 = mix(h1 ^ hash);
+		for (int i = 0; i < HASHES; i++) {
+			long index = ((h1 + (long)i * h2) & Long.MAX_VALUE) % numBits;
+			bits[(int)(index >>> 6)] |= 1L << index;
+		}
+	}
+
+	/**
+	 * @return false if the value was definitely not added
+	 */
+	public boolean mightContain(Object value) {
+		int hash = value.hashCode();
+		int h1 = mix(hash);
+		int h2 = mix(h1 ^ hash);
+		for (int i = 0; i < HASHES; i++) {
+			long index = ((h1 + (long)i * h2) & Long.MAX_VALUE) % numBits;
+			if ((bits[(int)(index >>> 6)] & (1L << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * murmur3 finalizer
+	 */
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+}
@@ -19,6 +19,7 @@
 package org.teiid.query.processor.relational;
 
 import java.util.Collections;
+import java.util.List;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.core.TeiidComponentException;
@@ -53,6 +54,7 @@ public class DependentAccessNode extends AccessNode {
     private Command rewrittenCommand;
 	private boolean useBindings;
 	private boolean complexQuery;
+	private boolean supportsRange;
     
     public DependentAccessNode(int nodeID) {
         super(nodeID);
@@ -107,6 +109,7 @@ public class DependentAccessNode extends AccessNode {
         clonedNode.pushdown = this.pushdown;
         clonedNode.useBindings = this.useBindings;
         clonedNode.complexQuery = this.complexQuery;
+        clonedNode.supportsRange = this.supportsRange;
         super.copyTo(clonedNode);
         return clonedNode;
     }
@@ -149,6 +152,7 @@ public class DependentAccessNode extends AccessNode {
                 this.criteriaProcessor.setPushdown(pushdown);
                 this.criteriaProcessor.setUseBindings(useBindings);
                 this.criteriaProcessor.setComplexQuery(complexQuery);
+                this.criteriaProcessor.setSupportsRange(supportsRange);
             }
             
             if (this.dependentCrit == null) {
@@ -202,6 +206,15 @@ public class DependentAccessNode extends AccessNode {
         sort = false;
     }
 
+    @Override
+    protected void addBatchRow(List<?> row) {
+    	//remove the rows that cannot match the independent values
+    	if (criteriaProcessor != null && !criteriaProcessor.mightMatch(row)) {
+    		return;
+    	}
+    	super.addBatchRow(row);
+    }
+
     /**
      * @see org.teiid.query.processor.relational.AccessNode#hasNextCommand()
      */
@@ -236,5 +249,9 @@ public class DependentAccessNode extends AccessNode {
 	public void setComplexQuery(boolean complexQuery) {
 		this.complexQuery = complexQuery;
 	}
+	
+	public void setSupportsRange(boolean supportsRange) {
+		this.supportsRange = supportsRange;
+	}
 
 }
\ No newline at end of file
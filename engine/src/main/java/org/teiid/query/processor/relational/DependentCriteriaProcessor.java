@@ -70,6 +70,8 @@ public class DependentCriteriaProcessor {
         long valueCount = 1;
 
         SetCriteria existingSet;
+        
+        BloomFilter filter;
 
     }
 
@@ -157,6 +159,7 @@ public class DependentCriteriaProcessor {
     
     private static final int SORT = 2;
     private static final int SET_PROCESSING = 3;
+    private static final int FILTERED = 4;
 
     //constructor state
     private int maxSetSize;
@@ -165,6 +168,7 @@ public class DependentCriteriaProcessor {
     private boolean pushdown;
     private boolean useBindings;
     private boolean complexQuery;
+    private boolean supportsRange;
 
     //initialization state
     private List<Criteria> queryCriteria;
@@ -181,6 +185,8 @@ public class DependentCriteriaProcessor {
 	
 	private int totalPredicates;
 	private long maxSize;
+	private int[] filterIndexes;
+	private BloomFilter[] filters;
 
     public DependentCriteriaProcessor(int maxSetSize, int maxPredicates, RelationalNode dependentNode, Criteria dependentCriteria) throws ExpressionEvaluationException, TeiidComponentException {
         this.maxSetSize = maxSetSize;
@@ -333,6 +339,11 @@ public class DependentCriteriaProcessor {
 				}
 			}
 
+			if (shouldFilter()) {
+				phase = FILTERED;
+				return createFilterCriteria();
+			}
+
 			//proceed with set based processing
             phase = SET_PROCESSING;
         }
@@ -365,6 +376,133 @@ public class DependentCriteriaProcessor {
         return new CompoundCriteria(CompoundCriteria.AND, crits);
     }
     
+    /**
+     * Determine if set processing would require more than the filter threshold of source queries, 
+     * in which case a single query with range predicates is used instead and the results are filtered
+     * with Bloom filters of the independent values.
+     */
+    private boolean shouldFilter() {
+    	int threshold = dependentNode.getContext().getOptions().getDependentJoinFilterThreshold();
+    	if (threshold < 0) {
+    		return false;
+    	}
+    	long predicates = 0;
+    	for (Map.Entry<Integer, SetState> entry : setStates.entrySet()) {
+    		SetState state = entry.getValue();
+    		Criteria criteria = queryCriteria.get(entry.getKey());
+    		if (!(criteria instanceof DependentSetCriteria) || state.valueCount > 1 || state.existingSet != null) {
+    			return false;
+    		}
+    		if (state.overMax) {
+    			continue;
+    		}
+    		long rows = dependentState.get(((DependentSetCriteria)criteria).getContextSymbol()).dvs.getTupleBuffer().getRowCount();
+    		predicates += rows/maxSize + (rows%maxSize!=0?1:0);
+    	}
+    	int perQuery = Math.max(1, totalPredicates);
+    	long queries = predicates/perQuery + (predicates%perQuery!=0?1:0);
+    	return queries > threshold;
+    }
+    
+    /**
+     * Replace each dependent set with a range predicate of the independent values, if supported,
+     * and build the Bloom filters for the projected dependent expressions.
+     */
+    private Criteria createFilterCriteria() throws TeiidComponentException {
+    	List<? extends Expression> elements = dependentNode.getElements();
+    	List<Integer> indexes = new ArrayList<Integer>();
+    	List<BloomFilter> bloomFilters = new ArrayList<BloomFilter>();
+        LinkedList<Criteria> crits = new LinkedList<Criteria>();
+        for (int i = 0; i < queryCriteria.size(); i++) {
+        	SetState state = this.setStates.get(i);
+        	Criteria criteria = queryCriteria.get(i);
+            if (state == null) {
+                if (criteria != QueryRewriter.TRUE_CRITERIA) {
+                    crits.add((Criteria)criteria.clone());
+                }
+                continue;
+        	} 
+            if (state.overMax) {
+            	replaceDependentCriteria((AbstractSetCriteria)criteria, state);
+            	continue;
+            }
+            Expression expr = ((AbstractSetCriteria)criteria).getExpression();
+            Class<?> type = expr.getType();
+            //the values must be of the same type to be consistently hashed
+            boolean hashable = DataTypeManager.isHashable(type) && type == state.valueExpression.getType();
+            boolean range = supportsRange && !DataTypeManager.isNonComparable(DataTypeManager.getDataTypeName(type)) 
+            		&& (dependentNode.getContext().getOptions().isAssumeMatchingCollation() 
+            				|| (type != DataTypeManager.DefaultDataClasses.STRING && type != DataTypeManager.DefaultDataClasses.CHAR));
+            if (hashable) {
+            	state.filter = new BloomFilter(dependentState.get(((DependentSetCriteria)criteria).getContextSymbol()).dvs.getTupleBuffer().getRowCount());
+            }
+            Object min = null;
+            Object max = null;
+            while (state.valueIterator.hasNext()) {
+            	Object value = state.valueIterator.next();
+            	if (value == null) {
+            		continue;
+            	}
+            	if (state.filter != null) {
+            		state.filter.add(value);
+            	}
+            	if (min == null || Constant.COMPARATOR.compare(value, min) < 0) {
+            		min = value;
+            	}
+            	if (max == null || Constant.COMPARATOR.compare(value, max) > 0) {
+            		max = value;
+            	}
+            }
+            state.valueIterator.reset();
+            if (min == null) {
+            	return QueryRewriter.FALSE_CRITERIA;
+            }
+            int index = elements.indexOf(expr);
+            if (state.filter != null && index != -1) {
+            	indexes.add(index);
+            	bloomFilters.add(state.filter);
+            }
+            if (!range) {
+            	continue;
+            }
+            if (Constant.COMPARATOR.compare(min, max) == 0) {
+            	crits.add(new CompareCriteria(expr, CompareCriteria.EQ, newConstant(min, expr)));
+            } else {
+            	crits.add(new CompareCriteria(expr, CompareCriteria.GE, newConstant(min, expr)));
+            	crits.add(new CompareCriteria(expr, CompareCriteria.LE, newConstant(max, expr)));
+            }
+        }
+        this.filterIndexes = new int[indexes.size()];
+        for (int i = 0; i < filterIndexes.length; i++) {
+			filterIndexes[i] = indexes.get(i);
+		}
+        this.filters = bloomFilters.toArray(new BloomFilter[bloomFilters.size()]);
+        hasNextCommand = false;
+        if (crits.isEmpty()) {
+        	return QueryRewriter.TRUE_CRITERIA;
+        }
+        if (crits.size() == 1) {
+        	return crits.get(0);
+        }
+        return new CompoundCriteria(CompoundCriteria.AND, crits);
+    }
+    
+    /**
+     * @return false if the tuple definitely does not match the independent values
+     */
+    public boolean mightMatch(List<?> tuple) {
+    	if (filters == null) {
+    		return true;
+    	}
+    	for (int i = 0; i < filters.length; i++) {
+    		Object value = tuple.get(filterIndexes[i]);
+    		if (value == null || !filters[i].mightContain(value)) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+    
     public void consumedCriteria() {
         // flush only the value iterators starting at the restart index
         // it is only safe to do this after the super call to prepare command
@@ -564,4 +702,8 @@ public class DependentCriteriaProcessor {
 		this.complexQuery = complexQuery;
 	}
 	
+	public void setSupportsRange(boolean supportsRange) {
+		this.supportsRange = supportsRange;
+	}
+	
 }
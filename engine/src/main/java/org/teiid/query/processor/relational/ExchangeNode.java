@@ -0,0 +1,225 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.TeiidRuntimeException;
+import org.teiid.dqp.internal.process.DQPWorkContext;
+import org.teiid.dqp.internal.process.RequestWorkItem;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Processes its child on a separate engine thread so that independent branches
+ * of the plan, such as union all children or the sides of a join, may be worked on
+ * concurrently.  The produced batches are handed off through a small bounded queue.
+ * <br>
+ * If the request has already reached its maximum parallelism the child is
+ * simply processed by the calling thread.
+ * <br>
+ * The planner only uses an exchange for subtrees without source access, since
+ * the source registrations and shared state of the request are not safe for 
+ * concurrent use.  Federated branches instead rely on the existing asynch
+ * source access.
+ */
+public class ExchangeNode extends RelationalNode {
+
+	/**
+	 * The number of batches the worker may produce ahead of the consumer
+	 */
+	static final int MAX_QUEUED_BATCHES = 4;
+
+	private ArrayDeque<TupleBatch> queue = new ArrayDeque<TupleBatch>(MAX_QUEUED_BATCHES);
+	private Future<Void> future;
+	private boolean parallel;
+	private volatile boolean done;
+	private volatile boolean closed;
+	private volatile boolean waiting;
+
+	public ExchangeNode(int nodeID) {
+		super(nodeID);
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		queue.clear();
+		future = null;
+		parallel = false;
+		done = false;
+		closed = false;
+		waiting = false;
+	}
+
+	@Override
+	public void open() throws TeiidComponentException,
+			TeiidProcessingException {
+		super.open();
+		this.parallel = getContext().reserveParallelWorker();
+	}
+
+	@Override
+	protected TupleBatch nextBatchDirect() throws BlockedException,
+			TeiidComponentException, TeiidProcessingException {
+		if (!parallel) {
+			return this.getChildren()[0].nextBatch();
+		}
+		waitForWork();
+		synchronized (queue) {
+			TupleBatch batch = queue.poll();
+			if (batch != null) {
+				waiting = false;
+				if (future == null && !done) {
+					workAsync();
+				}
+				return batch;
+			}
+			waiting = true;
+		}
+		if (future == null) {
+			workAsync();
+		}
+		throw BlockedException.block("Waiting on exchange"); //$NON-NLS-1$
+	}
+
+	private void workAsync() {
+		final CommandContext context = getContext();
+		future = context.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				DQPWorkContext workContext = context.getDQPWorkContext();
+				if (workContext == null) {
+					produce(context);
+					return null;
+				}
+				final Exception[] ex = new Exception[1];
+				workContext.runInContext(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							produce(context);
+						} catch (Exception e) {
+							ex[0] = e;
+						}
+					}
+				});
+				if (ex[0] != null) {
+					throw ex[0];
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Pull batches from the child until it is done, blocked, or
+	 * the queue is full.
+	 */
+	void produce(CommandContext context) throws TeiidComponentException, TeiidProcessingException {
+		CommandContext.pushThreadLocalContext(context);
+		try {
+			synchronized (this) {
+				while (!closed) {
+					synchronized (queue) {
+						if (queue.size() >= MAX_QUEUED_BATCHES) {
+							return;
+						}
+					}
+					TupleBatch batch = this.getChildren()[0].nextBatch();
+					boolean notify = false;
+					synchronized (queue) {
+						queue.add(batch);
+						notify = waiting;
+						if (batch.getTerminationFlag()) {
+							done = true;
+						}
+					}
+					if (notify) {
+						RequestWorkItem workItem = context.getWorkItem();
+						if (workItem != null) {
+							workItem.moreWork();
+						}
+					}
+					if (done) {
+						return;
+					}
+				}
+			}
+		} catch (BlockedException e) {
+			//resumed by the consumer
+		} finally {
+			CommandContext.popThreadLocalContext();
+		}
+	}
+
+	private void waitForWork() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (future == null || !future.isDone()) {
+			return;
+		}
+		try {
+			future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof TeiidComponentException) {
+				throw (TeiidComponentException) e.getCause();
+			}
+			if (e.getCause() instanceof TeiidProcessingException) {
+				throw (TeiidProcessingException) e.getCause();
+			}
+			if (e.getCause() instanceof TeiidRuntimeException) {
+				throw (TeiidRuntimeException) e.getCause();
+			}
+			throw new TeiidRuntimeException(e);
+		} catch (InterruptedException e) {
+			Thread.interrupted();
+			throw new TeiidRuntimeException(e);
+		} finally {
+			future = null;
+		}
+	}
+
+	@Override
+	public void closeDirect() {
+		this.closed = true;
+		if (this.parallel) {
+			//wait for any in progress work
+			synchronized (this) {
+				queue.clear();
+			}
+			future = null;
+			getContext().releaseParallelWorker();
+			this.parallel = false;
+		}
+	}
+
+	@Override
+	public Object clone() {
+		ExchangeNode clonedNode = new ExchangeNode(super.getID());
+		super.copyTo(clonedNode);
+		return clonedNode;
+	}
+
+}
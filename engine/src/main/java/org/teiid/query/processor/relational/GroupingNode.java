@@ -20,6 +20,7 @@ package org.teiid.query.processor.relational;
 
 import static org.teiid.query.analysis.AnalysisRecord.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,6 +35,9 @@ import org.teiid.api.exception.query.FunctionExecutionException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.ColumnarTupleBatch;
 import org.teiid.common.buffer.STree;
 import org.teiid.common.buffer.STree.InsertMode;
 import org.teiid.common.buffer.TupleBatch;
@@ -44,6 +48,9 @@ import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.language.SortSpecification.NullOrdering;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.function.aggregate.*;
 import org.teiid.query.processor.BatchCollector;
@@ -55,6 +62,7 @@ import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.lang.OrderByItem;
 import org.teiid.query.sql.symbol.AggregateSymbol;
 import org.teiid.query.sql.symbol.AggregateSymbol.Type;
+import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.TextLine;
@@ -70,6 +78,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     	private Evaluator eval;
     	private List<Expression> collectedExpressions;
     	private int[] projectionIndexes;
+    	private boolean direct = true;
+    	private boolean projected;
+    	private boolean columnar;
     	
 		ProjectingTupleSource(BatchProducer sourceNode, Evaluator eval, List<Expression> expressions, Map<Expression, Integer> elementMap) {
 			super(sourceNode);
@@ -81,12 +92,35 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 				Integer index = elementMap.get(expressions.get(i));
 	            if(index != null) {
 	            	projectionIndexes[i] = index;
+	            } else {
+	            	direct = false;
 	            }
 			}
 		}
+		
+		/**
+		 * Allow the returned tuples to be read-only views of columnar batches
+		 */
+		void setColumnar(boolean columnar) {
+			this.columnar = columnar;
+		}
+		
+		@Override
+		protected TupleBatch updateBatch(TupleBatch batch) {
+			projected = false;
+			if (columnar && direct && batch instanceof ColumnarTupleBatch) {
+				//project the columns once rather than copying each row
+				projected = true;
+				return ((ColumnarTupleBatch)batch).project(projectionIndexes);
+			}
+			return batch;
+		}
 
 		@Override
-		protected List<Object> updateTuple(List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+		protected List<?> updateTuple(List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			if (projected) {
+				return tuple;
+			}
 			int columns = collectedExpressions.size();
 		    List<Object> exprTuple = new ArrayList<Object>(columns);
 		    for(int col = 0; col<columns; col++) {
@@ -105,6 +139,162 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		}
 	}
 
+    /**
+     * Open addressing (linear probing) table of group rows.  Each row holds the
+     * group key values followed by the accumulator state values.
+     */
+    @SuppressWarnings("unchecked")
+    static class GroupHashTable {
+    	
+    	private int[] keyIndexes;
+    	private int[] hashes = new int[16];
+    	private List<Object>[] rows = new List[16];
+    	private int size;
+    	
+    	GroupHashTable(int[] keyIndexes) {
+    		this.keyIndexes = keyIndexes;
+    	}
+    	
+    	/**
+    	 * Hash consistent with the null equality grouping comparison
+    	 */
+    	static int hash(List<?> tuple, int[] indexes) {
+    		int h = 1;
+    		for (int index : indexes) {
+    			Object value = tuple.get(index);
+    			h = 31 * h + (value == null ? 0 : HashUtil.normalize(value).hashCode());
+    		}
+    		return h ^ (h >>> 16);
+    	}
+    	
+    	/**
+    	 * @return the slot of the matching group or -(insertion slot + 1) if not found
+    	 */
+    	int find(List<?> tuple, int hash) {
+    		int mask = rows.length - 1;
+    		int slot = hash & mask;
+    		List<Object> row = null;
+    		while ((row = rows[slot]) != null) {
+    			if (hashes[slot] == hash && keysEqual(tuple, row)) {
+    				return slot;
+    			}
+    			slot = (slot + 1) & mask;
+    		}
+    		return -(slot + 1);
+    	}
+    	
+    	/**
+    	 * Grouping equality, where nulls are equal to each other
+    	 */
+    	private boolean keysEqual(List<?> tuple, List<Object> row) {
+    		for (int i = 0; i < keyIndexes.length; i++) {
+    			Object value = tuple.get(keyIndexes[i]);
+    			Object rowValue = row.get(i);
+    			if (value == null || rowValue == null) {
+    				if (value != rowValue) {
+    					return false;
+    				}
+    			} else if (Constant.COMPARATOR.compare(value, rowValue) != 0) {
+    				return false;
+    			}
+    		}
+    		return true;
+    	}
+    	
+    	void insert(int slot, int hash, List<Object> row) {
+    		rows[slot] = row;
+    		hashes[slot] = hash;
+    		if (++size * 4 > rows.length * 3) {
+    			resize();
+    		}
+    	}
+    	
+    	private void resize() {
+    		List<Object>[] oldRows = rows;
+    		int[] oldHashes = hashes;
+    		rows = new List[oldRows.length << 1];
+    		hashes = new int[rows.length];
+    		int mask = rows.length - 1;
+    		for (int i = 0; i < oldRows.length; i++) {
+    			if (oldRows[i] == null) {
+    				continue;
+    			}
+    			int slot = oldHashes[i] & mask;
+    			while (rows[slot] != null) {
+    				slot = (slot + 1) & mask;
+    			}
+    			rows[slot] = oldRows[i];
+    			hashes[slot] = oldHashes[i];
+    		}
+    	}
+    	
+    	List<Object> get(int slot) {
+    		return rows[slot];
+    	}
+    	
+    	int capacity() {
+    		return rows.length;
+    	}
+    	
+    	int size() {
+    		return size;
+    	}
+    }
+    
+    /**
+     * A spilled partition and the depth of partitioning that created it
+     */
+    private static class Partition {
+    	TupleBuffer buffer;
+    	int depth;
+    	
+    	Partition(TupleBuffer buffer, int depth) {
+    		this.buffer = buffer;
+    		this.depth = depth;
+    	}
+    }
+    
+    /**
+     * Returns the aggregated rows of the hash table, then aggregates and
+     * returns each spilled partition in turn.  A partition with more groups than the 
+     * hash table allows is recursively partitioned in the same way as the input.
+     */
+    private class HashGroupTupleSource implements TupleSource {
+    	private int slot;
+    	
+		@Override
+		public List<?> nextTuple() throws TeiidComponentException,
+				TeiidProcessingException {
+			while (true) {
+				while (slot < hashTable.capacity()) {
+					List<Object> row = hashTable.get(slot++);
+					if (row != null) {
+						return row;
+					}
+				}
+				Partition partition = partitions.poll();
+				if (partition == null) {
+					return null;
+				}
+				hashTable = new GroupHashTable(indexes);
+				TupleBuffer[] spill = null;
+				TupleSource ts = partition.buffer.createIndexedTupleSource(true);
+				List<?> tuple = null;
+				while ((tuple = ts.nextTuple()) != null) {
+					spill = hashTuple(tuple, spill, partition.depth + 1);
+				}
+				ts.closeSource();
+				partition.buffer.remove();
+				addPartitions(spill, partition.depth + 1);
+				slot = 0;
+			}
+		}
+		
+		@Override
+		public void closeSource() {
+		}
+    }
+
 	// Grouping columns set by the planner 
 	private List<OrderByItem> orderBy;
 	private boolean removeDuplicates;
@@ -133,12 +323,27 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     private int[] accumulatorStateCount;
     private TupleSource groupSortTupleSource;
     private int[] projection;
+    
+    // Hash group
+    private boolean hashAggregate;
+    private GroupHashTable hashTable;
+    private TupleBuffer[] spill;
+    private ArrayDeque<Partition> partitions = new ArrayDeque<Partition>();
+    private int maxGroups;
+    private int reserved;
+    private int partitionCount;
 
     private static final int COLLECTION = 1;
     private static final int SORT = 2;
     private static final int GROUP = 3;
     private static final int GROUP_SORT = 4;
     private static final int GROUP_SORT_OUTPUT = 5;
+    private static final int HASH_GROUP = 6;
+    
+    /**
+     * Number of partitions used when the hash table exceeds its reservation
+     */
+    private static final int PARTITION_COUNT = 16;
 	private int[] indexes;
 	private boolean rollup;
 	private HashMap<Integer, Integer> indexMap;
@@ -159,6 +364,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         currentGroupTuple = null;
         doneReading = false;
         
+        hashTable = null;
+        removePartitions();
+        
         if (this.functions != null) {
 	    	for (AggregateFunction[] functions : this.functions) {
 	    		for (AggregateFunction function : functions) {
@@ -179,6 +387,19 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     public void setOutputMapping(SymbolMap outputMapping) {
 		this.outputMapping = outputMapping;
 	}
+    
+    /**
+     * Use a hash table rather than a sort/tree to determine the groups.
+     * Only applies if the output does not need to be ordered and
+     * the aggregate functions expose their state.
+     */
+    public void setHashAggregate(boolean hashAggregate) {
+		this.hashAggregate = hashAggregate;
+	}
+    
+    public boolean isHashAggregate() {
+		return hashAggregate;
+	}
 
 	@Override
 	public void initialize(CommandContext context, BufferManager bufferManager,
@@ -404,6 +625,10 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         	groupSortPhase();
         }
         
+        if (this.phase == HASH_GROUP) {
+        	hashGroupPhase();
+        }
+        
         if (this.phase == GROUP_SORT_OUTPUT) {
         	return groupSortOutputPhase();
         }
@@ -414,7 +639,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 	
 	public TupleSource getGroupSortTupleSource() {
 		final RelationalNode sourceNode = this.getChildren()[0];
-		return new ProjectingTupleSource(sourceNode, getEvaluator(elementMap), new ArrayList<Expression>(collectedExpressions.keySet()), elementMap);
+		ProjectingTupleSource result = new ProjectingTupleSource(sourceNode, getEvaluator(elementMap), new ArrayList<Expression>(collectedExpressions.keySet()), elementMap);
+		result.setColumnar(true);
+		return result;
 	}
 	
 	@Override
@@ -501,6 +728,13 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 			    		schema.add(es);
 		    		}
 		    		
+		    		if (hashAggregate) {
+		    			initHashAggregate(schema);
+			    		this.groupSortTupleSource = this.getGroupSortTupleSource();
+		    			this.phase = HASH_GROUP;
+		    			return;
+		    		}
+		    		
 		    		tree = this.getBufferManager().createSTree(schema, this.getConnectionID(), orderBy.size());
 		    		//non-default order needs to update the comparator
 		    		tree.getComparator().setNullOrdering(nullOrdering);
@@ -589,6 +823,134 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		return pullBatch();
 	}
 
+	private void initHashAggregate(List<Expression> schema) {
+		BufferManager bm = getBufferManager();
+		int schemaSize = Math.max(1, bm.getSchemaSize(schema));
+		this.reserved = bm.reserveBuffers(schemaSize, BufferReserveMode.FORCE);
+		this.reserved += bm.reserveBuffers(Math.max(0, bm.getMaxProcessingSize() - schemaSize), BufferReserveMode.NO_WAIT);
+		this.maxGroups = Math.max(1, this.reserved / schemaSize) * getBatchSize();
+		this.hashTable = new GroupHashTable(this.indexes);
+	}
+	
+    /**
+     * Process the input into the hash table.  New groups beyond what the 
+     * reservation allows are spilled to partitions.
+     * @throws TeiidComponentException
+     * @throws TeiidProcessingException
+     */
+	private void hashGroupPhase() throws TeiidComponentException, TeiidProcessingException {
+		List<?> tuple = null;
+		//the spill partitions are held by the node as the source may block
+		while ((tuple = groupSortTupleSource.nextTuple()) != null) {
+			this.spill = hashTuple(tuple, this.spill, 0);
+		}
+		this.groupSortTupleSource.closeSource();
+		TupleBuffer[] toAdd = this.spill;
+		this.spill = null;
+		addPartitions(toAdd, 0);
+		this.groupSortTupleSource = new HashGroupTupleSource();
+		this.phase = GROUP_SORT_OUTPUT;
+	}
+	
+	/**
+	 * Add the tuple to the hash table, or to a spill partition if its group is new and the table is full.
+	 * The spill partitions are created as needed.
+	 * @return the spill partitions
+	 */
+	private TupleBuffer[] hashTuple(List<?> tuple, TupleBuffer[] spill, int depth) throws TeiidComponentException, TeiidProcessingException {
+		int hash = GroupHashTable.hash(tuple, this.indexes);
+		if (updateGroup(this.hashTable, tuple, hash, this.hashTable.size() < this.maxGroups)) {
+			return spill;
+		}
+		if (spill == null) {
+			List<Expression> schema = new ArrayList<Expression>(collectedExpressions.keySet());
+			spill = new TupleBuffer[PARTITION_COUNT];
+			for (int i = 0; i < spill.length; i++) {
+				spill[i] = getBufferManager().createTupleBuffer(schema, getConnectionID(), TupleSourceType.PROCESSOR);
+				spill[i].setForwardOnly(true);
+			}
+			if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+				LogManager.logDetail(LogConstants.CTX_DQP, "partitioning hash aggregation at depth", depth, getID()); //$NON-NLS-1$
+			}
+		}
+		//seed by depth so that a recursive partitioning does not map all tuples to a single partition
+		spill[(Integer.rotateLeft((hash + depth * 0x9e3779b9) * 0x85ebca6b, 16) & Integer.MAX_VALUE) % PARTITION_COUNT].addTuple(tuple);
+		return spill;
+	}
+	
+	private void addPartitions(TupleBuffer[] spill, int depth) throws TeiidComponentException {
+		if (spill == null) {
+			return;
+		}
+		for (TupleBuffer tb : spill) {
+			tb.close();
+			if (tb.getRowCount() == 0) {
+				tb.remove();
+			} else {
+				this.partitions.addFirst(new Partition(tb, depth));
+			}
+		}
+		this.partitionCount += spill.length;
+	}
+	
+	private void removePartitions() {
+		if (this.spill != null) {
+			for (TupleBuffer tb : this.spill) {
+				tb.remove();
+			}
+			this.spill = null;
+		}
+		for (Partition p : this.partitions) {
+			p.buffer.remove();
+		}
+		this.partitions.clear();
+	}
+	
+	/**
+	 * @return the number of partitions created for spilled rows
+	 */
+	int getPartitionCount() {
+		return partitionCount;
+	}
+	
+	/**
+	 * Add the tuple to the accumulator state of its group
+	 * @return false if the group does not exist and cannot be added
+	 */
+	private boolean updateGroup(GroupHashTable table, List<?> tuple, int hash, boolean canAdd) throws TeiidComponentException, TeiidProcessingException {
+		int slot = table.find(tuple, hash);
+		int keyLength = this.indexes.length;
+		if (slot < 0) {
+			if (!canAdd) {
+				return false;
+			}
+			List<Object> row = new ArrayList<Object>(keyLength + this.groupSortfunctions.length);
+			for (int i = 0; i < keyLength; i++) {
+				row.add(tuple.get(this.indexes[i]));
+			}
+			for (AggregateFunction aggregateFunction : this.groupSortfunctions) {
+				aggregateFunction.reset();
+				aggregateFunction.addInput(tuple, getContext());
+				aggregateFunction.getState(row);
+			}
+			table.insert(-slot - 1, hash, row);
+			return true;
+		}
+		List<Object> row = table.get(slot);
+		int index = keyLength;
+		for (int i = 0; i < this.groupSortfunctions.length; i++) {
+			AggregateFunction aggregateFunction = this.groupSortfunctions[i];
+			aggregateFunction.setState(row, index);
+			index+=this.accumulatorStateCount[i];
+			aggregateFunction.addInput(tuple, getContext());
+		}
+		row.subList(keyLength, row.size()).clear();
+		for (AggregateFunction aggregateFunction : this.groupSortfunctions) {
+			aggregateFunction.getState(row);
+		}
+		return true;
+	}
+
     private void sortPhase() throws BlockedException, TeiidComponentException, TeiidProcessingException {
         this.sortBuffer = this.sortUtility.sort();
         this.sortBuffer.setForwardOnly(true);
@@ -713,6 +1075,12 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     		this.tree.remove();
     		this.tree = null;
     	}
+    	removePartitions();
+    	this.hashTable = null;
+    	if (this.reserved > 0) {
+    		getBufferManager().releaseBuffers(this.reserved);
+    		this.reserved = 0;
+    	}
     }
 
 	protected void getNodeString(StringBuffer str) {
@@ -730,6 +1098,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		clonedNode.outputMapping = outputMapping;
 		clonedNode.orderBy = orderBy;
 		clonedNode.rollup = rollup;
+		clonedNode.hashAggregate = hashAggregate;
 		return clonedNode;
 	}
 
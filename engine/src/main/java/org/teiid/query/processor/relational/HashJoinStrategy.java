@@ -0,0 +1,527 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleBuffer.TupleBufferTupleSource;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.QueryPlugin;
+import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
+import org.teiid.query.sql.lang.JoinType;
+
+
+/**
+ * Hash join for inner and left outer equi-joins that does not require either side to be sorted.
+ *
+ * The build side (the smaller side for inner joins, the right side for left outer joins) is
+ * loaded into a hash table and the other side is streamed against it.  If the build side
+ * cannot obtain a buffer reservation, both sides are hash partitioned into {@link TupleBuffer}s
+ * and the join is performed one partition at a time (a grace hash join).
+ * <br>
+ * A build partition that is still larger than the memory budget is recursively partitioned
+ * with a different hash.  If that does not reduce its size, which happens when a single key
+ * is heavily skewed, the partition is joined in blocks - the hash table is built from a budget
+ * sized block of build rows at a time and the probe partition is re-read for each block.
+ */
+public class HashJoinStrategy extends JoinStrategy {
+
+	/**
+	 * Upper bound on the number of partitions used when the build side does not fit in memory
+	 */
+	private static final int MAX_PARTITIONS = 64;
+	
+	/**
+	 * The number of sub partitions used when recursively partitioning
+	 */
+	private static final int SUB_PARTITIONS = 8;
+	
+	/**
+	 * Limit on the recursive partitioning depth
+	 */
+	private static final int MAX_DEPTH = 4;
+	
+	private static class Partition {
+		TupleBuffer build;
+		TupleBuffer probe;
+		int depth;
+		
+		Partition(TupleBuffer build, TupleBuffer probe, int depth) {
+			this.build = build;
+			this.probe = probe;
+			this.depth = depth;
+		}
+		
+		void remove() {
+			build.remove();
+			probe.remove();
+		}
+	}
+
+	/** false if default processing, true if only a single outer match is allowed */
+	private boolean singleMatch;
+
+	//load time state
+	private SourceState buildSource;
+	private SourceState probeSource;
+	private Map<Object, List<List<?>>> table;
+	private TupleBuffer[] buildPartitions;
+	private TupleBuffer[] probePartitions;
+	private boolean probePartitioned;
+	private long maxBuildRows;
+	private ArrayDeque<Partition> pending;
+	private Partition current;
+	private TupleBufferTupleSource buildTuples;
+	private boolean lastBlock = true;
+	private BitSet probeMatched;
+	private int probeIndex;
+	private int partitionCount;
+	private boolean blockJoin;
+
+	//probe state
+	private TupleSource probeTuples;
+	private List<?> currentTuple;
+	private List<List<?>> matches;
+	private int matchIndex;
+	private boolean matched;
+
+	@Override
+	public void close() {
+		if (joinNode == null) {
+			return;
+		}
+		try {
+			super.close();
+		} finally {
+			removePartitions(this.buildPartitions);
+			removePartitions(this.probePartitions);
+			if (this.pending != null) {
+				for (Partition p : this.pending) {
+					p.remove();
+				}
+				this.pending = null;
+			}
+			if (this.current != null) {
+				this.current.remove();
+				this.current = null;
+			}
+			if (this.buildTuples != null) {
+				this.buildTuples.closeSource();
+				this.buildTuples = null;
+			}
+			this.buildPartitions = null;
+			this.probePartitions = null;
+			this.probeMatched = null;
+			this.lastBlock = true;
+			this.table = null;
+			this.matches = null;
+			this.currentTuple = null;
+			this.probeTuples = null;
+		}
+	}
+
+	private void removePartitions(TupleBuffer[] partitions) {
+		if (partitions == null) {
+			return;
+		}
+		for (TupleBuffer tb : partitions) {
+			if (tb != null) {
+				tb.remove();
+			}
+		}
+	}
+
+	/**
+	 * Choose the build side for inner joins by determining the row counts in an incremental
+	 * fashion so that the larger side is not fully buffered.
+	 */
+	private void chooseBuildSide() throws TeiidComponentException, TeiidProcessingException {
+		SourceState build = this.rightSource;
+		SourceState probe = this.leftSource;
+		if (this.joinNode.getJoinType() == JoinType.JOIN_INNER && !this.joinNode.isDependent()) {
+			long size = this.joinNode.getBatchSize();
+			while (!this.rightSource.rowCountLE(size)) {
+				if (this.leftSource.rowCountLE(size)) {
+					build = this.leftSource;
+					probe = this.rightSource;
+					break;
+				}
+				size *= 2;
+			}
+		}
+		this.buildSource = build;
+		this.probeSource = probe;
+	}
+
+	@Override
+	protected void loadRight() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.table != null || this.buildPartitions != null) {
+			return;
+		}
+		if (this.buildSource == null) {
+			chooseBuildSide();
+		}
+		TupleBuffer buffer = this.buildSource.getTupleBuffer();
+		BufferManager bm = this.joinNode.getBufferManager();
+		int schemaSize = bm.getSchemaSize(this.buildSource.getSource().getOutputElements());
+		long needed = (buffer.getRowCount() / Math.max(1, buffer.getBatchSize()) + 1) * schemaSize;
+		int toReserve = (int)Math.min(needed, Integer.MAX_VALUE);
+		int buildReserved = bm.reserveBuffers(toReserve, BufferReserveMode.NO_WAIT);
+		this.reserved += buildReserved;
+		TupleSource ts = buffer.createIndexedTupleSource(!joinNode.isDependent());
+		if (buildReserved >= toReserve) {
+			this.table = buildTable(ts, this.buildSource.getExpressionIndexes());
+			return;
+		}
+		//not enough memory, use a partitioned approach
+		int partitionSize = Math.max(schemaSize, Math.max(buildReserved, bm.getMaxProcessingSize()));
+		this.maxBuildRows = (long)Math.max(1, partitionSize / schemaSize) * buffer.getBatchSize();
+		int partitionCount = (int)Math.max(2, Math.min(MAX_PARTITIONS, needed / partitionSize + 1));
+		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+			LogManager.logDetail(LogConstants.CTX_DQP, "partitioning hash join into", partitionCount, "partitions", this.joinNode.getID()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		TupleBuffer[] partitions = createPartitions(this.buildSource, partitionCount);
+		int[] indexes = this.buildSource.getExpressionIndexes();
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			Object key = getKey(tuple, indexes);
+			if (key != null) {
+				partitions[getPartition(key, partitionCount, 0)].addTuple(tuple);
+			}
+		}
+		ts.closeSource();
+		for (TupleBuffer tb : partitions) {
+			tb.close();
+		}
+		this.buildPartitions = partitions;
+		this.probePartitions = createPartitions(this.probeSource, partitionCount);
+	}
+
+	private TupleBuffer[] createPartitions(SourceState state, int partitionCount) throws TeiidComponentException {
+		TupleBuffer[] partitions = new TupleBuffer[partitionCount];
+		for (int i = 0; i < partitionCount; i++) {
+			partitions[i] = state.createSourceTupleBuffer();
+		}
+		this.partitionCount += partitionCount;
+		return partitions;
+	}
+
+	private Map<Object, List<List<?>>> buildTable(TupleSource ts, int[] indexes) throws TeiidComponentException, TeiidProcessingException {
+		Map<Object, List<List<?>>> result = buildTable(ts, indexes, -1);
+		ts.closeSource();
+		return result;
+	}
+
+	/**
+	 * Build the hash table from at most maxRows tuples, or all tuples if maxRows is negative
+	 */
+	private Map<Object, List<List<?>>> buildTable(TupleSource ts, int[] indexes, long maxRows) throws TeiidComponentException, TeiidProcessingException {
+		Map<Object, List<List<?>>> result = new HashMap<Object, List<List<?>>>();
+		List<?> tuple = null;
+		long count = 0;
+		while ((maxRows < 0 || count++ < maxRows) && (tuple = ts.nextTuple()) != null) {
+			Object key = getKey(tuple, indexes);
+			if (key == null) {
+				continue; //can never match
+			}
+			List<List<?>> rows = result.get(key);
+			if (rows == null) {
+				result.put(key, Collections.<List<?>>singletonList(tuple));
+				continue;
+			}
+			if (rows.size() == 1) {
+				rows = new ArrayList<List<?>>(rows);
+				result.put(key, rows);
+			}
+			rows.add(tuple);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the hash key for the tuple or null if any of the key values is null
+	 */
+	static Object getKey(List<?> tuple, int[] indexes) {
+		if (indexes.length == 1) {
+			return HashUtil.normalize(tuple.get(indexes[0]));
+		}
+		Object[] key = new Object[indexes.length];
+		for (int i = 0; i < indexes.length; i++) {
+			Object value = tuple.get(indexes[i]);
+			if (value == null) {
+				return null;
+			}
+			key[i] = HashUtil.normalize(value);
+		}
+		return Arrays.asList(key);
+	}
+
+	/**
+	 * Spread the hash so that the partition does not correlate with the hash table bucket,
+	 * or with the partitioning at a different depth
+	 */
+	static int getPartition(Object key, int partitionCount, int depth) {
+		int h = key.hashCode() + depth * 0x9e3779b9;
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		h ^= (h >>> 13);
+		return (h & Integer.MAX_VALUE) % partitionCount;
+	}
+
+	@Override
+	protected void process() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.buildPartitions == null && this.pending == null) {
+			if (this.table.isEmpty() && joinNode.getJoinType() != JoinType.JOIN_LEFT_OUTER) {
+				return;
+			}
+			if (this.probeTuples == null) {
+				this.probeSource.setImplicitBuffer(ImplicitBuffer.NONE);
+				this.probeTuples = this.probeSource.getIterator();
+			}
+			probe();
+			return;
+		}
+		if (!this.probePartitioned) {
+			partitionProbe();
+		}
+		int[] indexes = this.buildSource.getExpressionIndexes();
+		while (true) {
+			if (this.current == null) {
+				this.current = this.pending.poll();
+				if (this.current == null) {
+					return;
+				}
+				if (this.current.build.getRowCount() == 0 && joinNode.getJoinType() != JoinType.JOIN_LEFT_OUTER) {
+					this.current.remove();
+					this.current = null;
+					continue;
+				}
+			}
+			if (this.probeTuples == null) {
+				if (this.table == null) {
+					if (this.buildTuples == null) {
+						if (this.current.build.getRowCount() <= this.maxBuildRows) {
+							this.buildTuples = this.current.build.createIndexedTupleSource(true);
+						} else if (this.current.depth < MAX_DEPTH && split(this.current)) {
+							this.current = null;
+							continue;
+						} else {
+							//skewed, join in blocks
+							this.blockJoin = true;
+							this.probeMatched = new BitSet();
+							this.buildTuples = this.current.build.createIndexedTupleSource(false);
+						}
+					}
+					this.table = buildTable(this.buildTuples, indexes, this.probeMatched == null?-1:this.maxBuildRows);
+					this.lastBlock = this.probeMatched == null || !this.buildTuples.hasNext();
+				}
+				this.probeTuples = this.current.probe.createIndexedTupleSource(this.probeMatched == null);
+				this.probeIndex = 0;
+			}
+			probe();
+			this.probeTuples.closeSource();
+			this.probeTuples = null;
+			this.table = null;
+			if (!this.lastBlock) {
+				continue;
+			}
+			this.buildTuples.closeSource();
+			this.buildTuples = null;
+			this.probeMatched = null;
+			this.current.remove();
+			this.current = null;
+		}
+	}
+	
+	/**
+	 * Split the partition into sub partitions using the hash for the next depth.
+	 * @return false if the build side could not be reduced in size
+	 */
+	private boolean split(Partition p) throws TeiidComponentException, TeiidProcessingException {
+		int depth = p.depth + 1;
+		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+			LogManager.logDetail(LogConstants.CTX_DQP, "recursively partitioning hash join at depth", depth, this.joinNode.getID()); //$NON-NLS-1$
+		}
+		TupleBuffer[] builds = createPartitions(this.buildSource, SUB_PARTITIONS);
+		distribute(p.build.createIndexedTupleSource(false), this.buildSource.getExpressionIndexes(), builds, depth);
+		for (TupleBuffer tb : builds) {
+			if (tb.getRowCount() == p.build.getRowCount()) {
+				removePartitions(builds);
+				return false;
+			}
+		}
+		TupleBuffer[] probes = createPartitions(this.probeSource, SUB_PARTITIONS);
+		distribute(p.probe.createIndexedTupleSource(true), this.probeSource.getExpressionIndexes(), probes, depth);
+		p.remove();
+		for (int i = 0; i < SUB_PARTITIONS; i++) {
+			this.pending.addFirst(new Partition(builds[i], probes[i], depth));
+		}
+		return true;
+	}
+
+	private void distribute(TupleSource ts, int[] indexes, TupleBuffer[] partitions, int depth) throws TeiidComponentException, TeiidProcessingException {
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			partitions[getPartition(getKey(tuple, indexes), partitions.length, depth)].addTuple(tuple);
+		}
+		ts.closeSource();
+		for (TupleBuffer tb : partitions) {
+			tb.close();
+		}
+	}
+
+	private void partitionProbe() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.probeTuples == null) {
+			this.probeSource.setImplicitBuffer(ImplicitBuffer.NONE);
+			this.probeTuples = this.probeSource.getIterator();
+		}
+		int[] indexes = this.probeSource.getExpressionIndexes();
+		List<?> tuple = null;
+		while ((tuple = this.probeTuples.nextTuple()) != null) {
+			Object key = getKey(tuple, indexes);
+			if (key == null) {
+				if (joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+					this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+				}
+				continue;
+			}
+			this.probePartitions[getPartition(key, this.probePartitions.length, 0)].addTuple(tuple);
+		}
+		this.pending = new ArrayDeque<Partition>();
+		for (int i = 0; i < this.probePartitions.length; i++) {
+			this.probePartitions[i].close();
+			this.pending.add(new Partition(this.buildPartitions[i], this.probePartitions[i], 0));
+		}
+		this.buildPartitions = null;
+		this.probePartitions = null;
+		this.probePartitioned = true;
+		this.probeTuples = null;
+	}
+
+	/**
+	 * Stream the probe tuples against the current hash table
+	 */
+	private void probe() throws TeiidComponentException, TeiidProcessingException {
+		int[] indexes = this.probeSource.getExpressionIndexes();
+		boolean probeLeft = this.probeSource == this.leftSource;
+		while (true) {
+			if (this.currentTuple == null) {
+				this.currentTuple = this.probeTuples.nextTuple();
+				if (this.currentTuple == null) {
+					return;
+				}
+				this.matched = this.probeMatched != null && this.probeMatched.get(this.probeIndex);
+				this.matchIndex = 0;
+				Object key = getKey(this.currentTuple, indexes);
+				this.matches = key == null?null:this.table.get(key);
+				if (this.matches == null) {
+					this.matches = Collections.emptyList();
+				}
+			}
+			if (this.matchIndex >= this.matches.size()) {
+				outerMatch();
+				continue;
+			}
+			List<?> buildTuple = this.matches.get(this.matchIndex);
+			List outputTuple = probeLeft?outputTuple(this.currentTuple, buildTuple):outputTuple(buildTuple, this.currentTuple);
+			boolean matches = this.joinNode.matchesCriteria(outputTuple);
+			this.matchIndex++;
+			if (matches) {
+				if (singleMatch && matched) {
+					throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID31293, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31293));
+				}
+				matched = true;
+				if (this.probeMatched != null) {
+					this.probeMatched.set(this.probeIndex);
+				}
+				this.joinNode.addBatchRow(outputTuple);
+			}
+		}
+	}
+
+	private void outerMatch() {
+		List<?> tuple = this.currentTuple;
+		this.currentTuple = null;
+		this.matches = null;
+		this.probeIndex++;
+		if (!matched && this.lastBlock && joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+			this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+		}
+	}
+
+	/**
+	 * @return the number of partitions created, including recursive partitions
+	 */
+	int getPartitionCount() {
+		return partitionCount;
+	}
+	
+	/**
+	 * @return true if a skewed partition was joined in blocks
+	 */
+	boolean isBlockJoin() {
+		return blockJoin;
+	}
+
+	@Override
+	public HashJoinStrategy clone() {
+		return new HashJoinStrategy().singleMatch(singleMatch);
+	}
+
+	/**
+	 * Optional flag for a left outer join to enforce the single
+	 * row restriction of a scalar subquery
+	 */
+	public HashJoinStrategy singleMatch(boolean b) {
+		this.singleMatch = b;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("HASH JOIN"); //$NON-NLS-1$
+		if (this.partitionCount > 0) {
+			sb.append(" RAN PARTITIONED"); //$NON-NLS-1$
+		}
+		if (singleMatch) {
+			sb.append(" subquery"); //$NON-NLS-1$
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.function.FunctionMethods;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * Utilities shared by the hash based join and grouping implementations
+ */
+public class HashUtil {
+
+	/**
+	 * Determine if the expressions can be compared via hashing.  Values that are
+	 * equal by the engine comparator must have the same hash code after {@link #normalize(Object)}.
+	 */
+	public static boolean isHashable(List<? extends Expression> leftExpressions, List<? extends Expression> rightExpressions) {
+		if (leftExpressions == null || leftExpressions.isEmpty() || leftExpressions.size() != rightExpressions.size()) {
+			return false;
+		}
+		for (int i = 0; i < leftExpressions.size(); i++) {
+			Class<?> type = leftExpressions.get(i).getType();
+			if (type != rightExpressions.get(i).getType()
+					|| type == DataTypeManager.DefaultDataClasses.OBJECT
+					|| type.isArray()
+					|| DataTypeManager.isNonComparable(DataTypeManager.getDataTypeName(type))
+					|| (type == DataTypeManager.DefaultDataClasses.STRING && DataTypeManager.COLLATION_LOCALE != null)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Convert the value to a form where equals/hashCode are consistent
+	 * with {@link org.teiid.query.sql.symbol.Constant#COMPARATOR}
+	 */
+	public static Object normalize(Object value) {
+		if (value instanceof String) {
+			if (DataTypeManager.PAD_SPACE) {
+				return FunctionMethods.rightTrim((String)value, ' ', false);
+			}
+		} else if (value instanceof BigDecimal) {
+			BigDecimal bd = (BigDecimal)value;
+			if (bd.signum() == 0) {
+				return BigDecimal.ZERO;
+			}
+			return bd.stripTrailingZeros();
+		}
+		return value;
+	}
+
+}
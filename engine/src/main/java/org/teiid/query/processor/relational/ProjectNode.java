@@ -30,6 +30,7 @@ import java.util.Map;
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.ColumnarTupleBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
@@ -52,6 +53,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     private boolean needsProject = true;
     private List<Expression> expressions;
     private int[] projectionIndexes;
+    private boolean directProject;
 
     // Saved state when blocked on evaluating a row - must be reset
     private TupleBatch currentBatch;
@@ -108,6 +110,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         // 2. project elements are either elements or aggregate symbols (no processing required)
         // 3. order of input values == order of output values
         needsProject = childElements.size() != selectSymbols.size();
+        directProject = true;
         for(int i=0; i<selectSymbols.size(); i++) {
             Expression symbol = selectSymbols.get(i);
             
@@ -123,6 +126,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             Integer index = elementMap.get(symbol);
             if(index == null) {
                 needsProject = true;
+                directProject = false;
             } else {
             	if (index.intValue() != i) {
             		needsProject = true;
@@ -152,6 +156,17 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             	currentBatch = null;
                 return result;
             }
+            
+            if (directProject && currentBatch instanceof ColumnarTupleBatch && !hasPendingRows()) {
+            	//share the projected columns
+            	ColumnarTupleBatch result = ((ColumnarTupleBatch)currentBatch).project(projectionIndexes);
+            	if (currentBatch.getTerminationFlag()) {
+            		terminateBatches();
+            	}
+            	currentRow = (int)currentBatch.getEndRow() + 1;
+            	currentBatch = null;
+            	return pullBatch(result);
+            }
         }
 
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
@@ -206,6 +221,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         super.copyTo(target);
         target.selectSymbols = this.selectSymbols;
         target.needsProject = needsProject;
+        target.directProject = directProject;
         target.elementMap = elementMap;
         target.expressions = expressions;
         target.projectionIndexes = projectionIndexes;
@@ -29,6 +29,7 @@ import java.util.Map;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.ColumnarTupleBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
@@ -242,6 +243,19 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
         return batch;
     }
 
+    /**
+     * Return the given columnar batch as the next output batch, positioned after
+     * the previously pulled rows.  There must not be any pending rows.
+     */
+    protected TupleBatch pullBatch(ColumnarTupleBatch batch) {
+        assert !hasPendingRows();
+        ColumnarTupleBatch result = batch.withRowOffset(this.getProcessingState().beginBatch);
+        getProcessingState().beginBatch += batch.getRowCount();
+        result.setTerminationFlag(this.getProcessingState().lastBatch);
+        this.getProcessingState().lastBatch = false;
+        return result;
+    }
+
 	public void open()
 		throws TeiidComponentException, TeiidProcessingException {
 
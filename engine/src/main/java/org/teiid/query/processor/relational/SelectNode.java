@@ -28,10 +28,12 @@ import java.util.Map;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.ColumnarTupleBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.VectorizedCriteria;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.rewriter.QueryRewriter;
 import org.teiid.query.sql.LanguageObject;
@@ -56,6 +58,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
     // State if blocked on evaluating a criteria
     private TupleBatch currentBatch;
     private int currentRow = 1;
+    private VectorizedCriteria vectorizedCriteria;
 
 	protected SelectNode() {
 		super();
@@ -70,6 +73,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         
         currentBatch = null;
         currentRow = 1;
+        vectorizedCriteria = null;
         noRows = false;
         preEvalCriteria = null;
     }
@@ -111,6 +115,10 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         if(currentBatch == null) {
         	currentBatch = this.getChildren()[0].nextBatch();
         }
+        
+        if (currentBatch instanceof ColumnarTupleBatch && currentRow == currentBatch.getBeginRow() && !hasPendingRows()) {
+        	return selectColumnar((ColumnarTupleBatch)currentBatch);
+        }
 
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
     		List<?> tuple = currentBatch.getTuple(currentRow);
@@ -131,6 +139,29 @@ public class SelectNode extends SubqueryAwareRelationalNode {
     	return pullBatch();
 	}
     
+	/**
+	 * Filter the whole batch with a selection vector, then gather the selected rows
+	 * into a new columnar batch rather than producing boxed rows.
+	 */
+	private TupleBatch selectColumnar(ColumnarTupleBatch batch) throws BlockedException, TeiidComponentException, TeiidProcessingException {
+		if (vectorizedCriteria == null) {
+			vectorizedCriteria = VectorizedCriteria.compile(this.preEvalCriteria!=null?preEvalCriteria:criteria, this.elementMap);
+		}
+		int[] selection = new int[batch.getRowCount()];
+		for (int i = 0; i < selection.length; i++) {
+			selection[i] = i;
+		}
+		//if blocked, the whole batch will be evaluated again
+		int selected = vectorizedCriteria.select(batch, selection, selection.length, getEvaluator(this.elementMap));
+		ColumnarTupleBatch result = batch.select(selection, selected, this.projectionIndexes);
+		currentRow = (int)batch.getEndRow() + 1;
+		if (batch.getTerminationFlag()) {
+			terminateBatches();
+		}
+		currentBatch = null;
+		return pullBatch(result);
+	}
+	
 	protected void getNodeString(StringBuffer str) {
 		super.getNodeString(str);
 		str.append(criteria);
@@ -170,6 +201,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
     public void open()
             throws TeiidComponentException, TeiidProcessingException {
         if (shouldEvaluate) {
+            vectorizedCriteria = null;
             preEvalCriteria = QueryRewriter.evaluateAndRewrite((Criteria)criteria.clone(), getEvaluator(elementMap), getContext(), this.getContext().getMetadata());
             if (preEvalCriteria.equals(QueryRewriter.FALSE_CRITERIA) || preEvalCriteria.equals(QueryRewriter.UNKNOWN_CRITERIA)) {
                 noRows = true;
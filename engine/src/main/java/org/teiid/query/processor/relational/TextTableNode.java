@@ -18,9 +18,16 @@
 
 package org.teiid.query.processor.relational;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,18 +36,25 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.ClobImpl;
 import org.teiid.core.types.ClobType;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.InputStreamFactory;
+import org.teiid.core.types.InputStreamFactory.StorageMode;
+import org.teiid.core.types.Streamable;
 import org.teiid.core.types.TransformationException;
 import org.teiid.dqp.internal.process.RequestWorkItem;
 import org.teiid.query.QueryPlugin;
@@ -91,6 +105,86 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 	private char newLine = '\n';
 	private boolean crNewLine = true;
 	
+	//split state
+	private InputStreamFactory splitFactory;
+	private Charset splitCharset;
+	private boolean countBytes;
+	private boolean utf8;
+	private long bytePosition;
+	private long splitEnd = -1;
+	private List<Split> splits;
+	private int splitIndex;
+	private long splitPosition;
+	private long splitRowOffset;
+	private TupleSource splitSource;
+	private int reservedWorkers;
+	private AtomicInteger runningSplits = new AtomicInteger();
+	
+	/**
+	 * A byte range of the file that is parsed independently.  Other than the first, a split
+	 * speculatively starts at the first line after its nominal start.  That is checked against
+	 * where the prior split actually finished, since a quoted value may span lines, and the
+	 * split is parsed again from the correct position if needed.
+	 */
+	private class Split implements Runnable {
+		long start;
+		long end;
+		boolean exact;
+		boolean submitted;
+		
+		volatile boolean done;
+		volatile boolean cancelled;
+		volatile long actualStart = -1;
+		volatile long endPosition;
+		volatile long rowCount;
+		volatile Throwable exception;
+		TupleBuffer buffer;
+		
+		Split(long start, long end, boolean exact) {
+			this.start = start;
+			this.end = end;
+			this.exact = exact;
+		}
+		
+		@Override
+		public void run() {
+			TupleBuffer result = null;
+			try {
+				result = parseSplit(this);
+			} catch (Throwable e) {
+				exception = e;
+			} finally {
+				synchronized (this) {
+					if (cancelled) {
+						if (result != null) {
+							result.remove();
+						}
+					} else {
+						buffer = result;
+					}
+					done = true;
+				}
+				runningSplits.decrementAndGet();
+				RequestWorkItem workItem = TextTableNode.this.getContext().getWorkItem();
+				if (workItem != null) {
+					workItem.moreWork();
+				} else {
+					synchronized (TextTableNode.this) {
+						TextTableNode.this.notifyAll();
+					}
+				}
+			}
+		}
+		
+		synchronized void cancel() {
+			cancelled = true;
+			if (buffer != null) {
+				buffer.remove();
+				buffer = null;
+			}
+		}
+	}
+	
 	public TextTableNode(int nodeID) {
 		super(nodeID);
 	}
@@ -175,6 +269,24 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		this.running = false;
 		this.asynchException = null;
 		this.limit = -1;
+		this.bytePosition = 0;
+		this.countBytes = false;
+		this.splitFactory = null;
+		if (this.splitSource != null) {
+			this.splitSource.closeSource();
+			this.splitSource = null;
+		}
+		if (this.splits != null) {
+			for (Split split : this.splits) {
+				split.cancel();
+			}
+			this.splits = null;
+		}
+		this.splitIndex = 0;
+		this.splitRowOffset = 0;
+		for (; this.reservedWorkers > 0; this.reservedWorkers--) {
+			getContext().releaseParallelWorker();
+		}
 	}
 	
 	public void setTable(TextTable table) {
@@ -205,8 +317,15 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 	protected synchronized TupleBatch nextBatchDirect() throws BlockedException,
 			TeiidComponentException, TeiidProcessingException {
 		
-		if (reader == null) {
+		if (reader == null && splits == null) {
 			initReader();
+			if (reader != null && countBytes) {
+				initSplits();
+			}
+		}
+		
+		if (splits != null) {
+			return nextSplitBatch();
 		}
 
 		if (reader == null) {
@@ -278,86 +397,107 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 				if (isBatchFull()) {
 					return;
 				}
-				StringBuilder line = readLine(lineWidth, table.isFixedWidth());
+				List<Object> tuple = nextTuple();
 				
-				if (line == null) {
+				if (tuple == null) {
 					terminateBatches();
 					break;
 				}
 				
-				String parentSelector = null;
-				if (table.getSelector() != null) {
-					if (line.length() < table.getSelector().length()) {
-						continue;
-					}
-					if (!line.substring(0, table.getSelector().length()).equals(table.getSelector())) {
-						if (parentLines == null) {
-							continue; //doesn't match any selector
-						}
-						parentSelector = line.substring(0, table.getSelector().length());
-						
-						if (!parentLines.containsKey(parentSelector)) {
-							continue; //doesn't match any selector
-						} 
-					}
-				}
-				
-				List<String> vals = parseLine(line);
+				addBatchRow(tuple);
 				
-				if (parentSelector != null) {
-					this.parentLines.put(parentSelector, vals);
-					continue;
-				} else if (table.getSelector() != null && !table.getSelector().equals(vals.get(0))) {
+				if (rowNumber == limit) {
+					terminateBatches();
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the next tuple or null if there are no more records
+	 */
+	private List<Object> nextTuple() throws TeiidProcessingException {
+		while (true) {
+			if (splitEnd >= 0) {
+				consumeCr();
+				if (bytePosition >= splitEnd) {
+					return null;
+				}
+			}
+			StringBuilder line = readLine(lineWidth, table.isFixedWidth());
+			
+			if (line == null) {
+				return null;
+			}
+			
+			String parentSelector = null;
+			if (table.getSelector() != null) {
+				if (line.length() < table.getSelector().length()) {
 					continue;
 				}
-				
-				rowNumber++;
-				
-				List<Object> tuple = new ArrayList<Object>(projectionIndexes.length);
-				for (int output : projectionIndexes) {
-					TextColumn col = table.getColumns().get(output);
-					String val = null;
-					int index = output;
-					boolean missing = false;
-					
-					if (col.isOrdinal()) {
-						if (rowNumber > Integer.MAX_VALUE) {
-				    		throw new TeiidRuntimeException(new TeiidProcessingException(QueryPlugin.Event.TEIID31174, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31174)));
-				    	}
-						tuple.add((int)rowNumber);
-						continue;
+				if (!line.substring(0, table.getSelector().length()).equals(table.getSelector())) {
+					if (parentLines == null) {
+						continue; //doesn't match any selector
 					}
+					parentSelector = line.substring(0, table.getSelector().length());
 					
-					if (col.getSelector() != null) {
-						vals = this.parentLines.get(col.getSelector());
-						index = col.getPosition() - 1;
-					} else if (nameIndexes != null) {
-						Integer headerIndex = nameIndexes.get(col.getName());
-						if (headerIndex != null) {
-						    index = headerIndex;
-						} else {
-						    missing = true;
-						}
-					}
-					if (vals == null || index >= vals.size() || missing) {
-						//throw new TeiidProcessingException(QueryPlugin.Util.getString("TextTableNode.no_value", col.getName(), textLine, systemId)); //$NON-NLS-1$
-						tuple.add(null);
-						continue;
+					if (!parentLines.containsKey(parentSelector)) {
+						continue; //doesn't match any selector
 					} 
-					val = vals.get(index);
-					try {
-						tuple.add(DataTypeManager.transformValue(val, table.getColumns().get(output).getSymbol().getType()));
-					} catch (TransformationException e) {
-						 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30176, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30176, col.getName(), textLine, systemId));
-					}
 				}
-				addBatchRow(tuple);
+			}
+			
+			List<String> vals = parseLine(line);
+			
+			if (parentSelector != null) {
+				this.parentLines.put(parentSelector, vals);
+				continue;
+			} else if (table.getSelector() != null && !table.getSelector().equals(vals.get(0))) {
+				continue;
+			}
+			
+			rowNumber++;
+			
+			List<Object> tuple = new ArrayList<Object>(projectionIndexes.length);
+			for (int output : projectionIndexes) {
+				TextColumn col = table.getColumns().get(output);
+				String val = null;
+				int index = output;
+				boolean missing = false;
 				
-				if (rowNumber == limit) {
-					terminateBatches();
-					break;
+				if (col.isOrdinal()) {
+					if (rowNumber > Integer.MAX_VALUE) {
+			    		throw new TeiidRuntimeException(new TeiidProcessingException(QueryPlugin.Event.TEIID31174, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31174)));
+			    	}
+					tuple.add((int)rowNumber);
+					continue;
+				}
+				
+				if (col.getSelector() != null) {
+					vals = this.parentLines.get(col.getSelector());
+					index = col.getPosition() - 1;
+				} else if (nameIndexes != null) {
+					Integer headerIndex = nameIndexes.get(col.getName());
+					if (headerIndex != null) {
+					    index = headerIndex;
+					} else {
+					    missing = true;
+					}
+				}
+				if (vals == null || index >= vals.size() || missing) {
+					//throw new TeiidProcessingException(QueryPlugin.Util.getString("TextTableNode.no_value", col.getName(), textLine, systemId)); //$NON-NLS-1$
+					tuple.add(null);
+					continue;
+				} 
+				val = vals.get(index);
+				try {
+					tuple.add(DataTypeManager.transformValue(val, table.getColumns().get(output).getSymbol().getType()));
+				} catch (TransformationException e) {
+					 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30176, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30176, col.getName(), textLine, systemId));
 				}
 			}
+			return tuple;
 		}
 	}
 
@@ -404,10 +544,10 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 	
 	private char readChar() throws TeiidProcessingException {
 		try {
-			int c = reader.read();
+			int c = read();
 		    if (cr) {
 				if (c == newLine) {
-				    c = reader.read();
+				    c = read();
 				}
 				cr = false;
 		    }
@@ -434,6 +574,41 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		}
 	}
 
+	private int read() throws IOException {
+		int c = reader.read();
+		if (countBytes && c != -1) {
+			if (!utf8 || c < 0x80) {
+				bytePosition++;
+			} else if (c < 0x800 || Character.isSurrogate((char)c)) {
+				bytePosition += 2;
+			} else {
+				bytePosition += 3;
+			}
+		}
+		return c;
+	}
+	
+	/**
+	 * Consume the newline of a pending cr newline pair so that the byte position
+	 * is at the start of the next record. 
+	 */
+	private void consumeCr() throws TeiidProcessingException {
+		if (!cr) {
+			return;
+		}
+		cr = false;
+		try {
+			reader.mark(1);
+			if (reader.read() == newLine) {
+				bytePosition++;
+			} else {
+				reader.reset();
+			}
+		} catch (IOException e) {
+			throw new TeiidProcessingException(QueryPlugin.Event.TEIID30179, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30179, systemId));
+		}
+	}
+
 	private void initReader() throws ExpressionEvaluationException,
 			BlockedException, TeiidComponentException, TeiidProcessingException {
 		
@@ -447,10 +622,12 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		try {
 			this.systemId = "Unknown"; //$NON-NLS-1$
 			if (file.getReference() instanceof ClobImpl) {
-				this.systemId = ((ClobImpl)file.getReference()).getStreamFactory().getSystemId();
+				ClobImpl clob = (ClobImpl)file.getReference();
+				this.systemId = clob.getStreamFactory().getSystemId();
 				if (this.systemId == null) {
 					this.systemId = "Unknown"; //$NON-NLS-1$
 				}
+				this.countBytes = canSplit(clob);
 			} 
 			Reader r = file.getCharacterStream();
 			if (!(r instanceof BufferedReader)) {
@@ -483,6 +660,298 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		}
 	}
 
+	/**
+	 * Determine if the file may be split into byte ranges and parsed in parallel.
+	 * The source must be re-readable and large, the charset must allow line starts to be
+	 * found from byte offsets, and each record must be independent of the prior ones.
+	 */
+	private boolean canSplit(ClobImpl clob) throws SQLException {
+		CommandContext context = getContext();
+		long splitSize = context.getOptions().getTextTableSplitSize();
+		if (splitSize <= 0 || context.getOptions().getMaxParallelism() <= 1 || limit != -1 || parentLines != null 
+				|| (table.isFixedWidth() && !table.isUsingRowDelimiter())) {
+			return false;
+		}
+		InputStreamFactory isf = clob.getStreamFactory();
+		if (isf.getStorageMode() != StorageMode.PERSISTENT || isf.getLength() < 2 * splitSize) {
+			return false;
+		}
+		try {
+			Reader r = isf.getCharacterStream();
+			if (r != null) {
+				r.close();
+				return false;
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		Charset cs = clob.getCharset();
+		if (cs == null) {
+			cs = Streamable.CHARSET;
+		}
+		this.utf8 = cs.name().equals("UTF-8"); //$NON-NLS-1$
+		if (!this.utf8 && (!cs.canEncode() || cs.newEncoder().maxBytesPerChar() != 1)) {
+			return false;
+		}
+		this.splitFactory = isf;
+		this.splitCharset = cs;
+		return true;
+	}
+	
+	/**
+	 * Divide the remainder of the file after the header and skipped lines into splits
+	 */
+	private void initSplits() throws TeiidProcessingException {
+		long length = splitFactory.getLength();
+		long splitSize = getContext().getOptions().getTextTableSplitSize();
+		int count = (int)Math.min(Integer.MAX_VALUE, (length - bytePosition + splitSize - 1) / splitSize);
+		while (reservedWorkers < count - 1 && getContext().reserveParallelWorker()) {
+			reservedWorkers++;
+		}
+		if (reservedWorkers == 0) {
+			this.countBytes = false;
+			return;
+		}
+		consumeCr();
+		long start = bytePosition;
+		try {
+			reader.close();
+		} catch (IOException e) {
+		}
+		reader = null;
+		splits = new ArrayList<Split>(count);
+		splitPosition = start;
+		for (int i = 0; i < count; i++) {
+			long end = i == count - 1 ? Long.MAX_VALUE : start + splitSize;
+			splits.add(new Split(start, end, i == 0));
+			start = end;
+		}
+	}
+	
+	private void scheduleSplits() {
+		int concurrency = reservedWorkers + 1;
+		for (int i = splitIndex; i < splits.size() && i < splitIndex + 2 * concurrency; i++) {
+			Split split = splits.get(i);
+			if (split.submitted) {
+				continue;
+			}
+			if (runningSplits.get() >= concurrency) {
+				return;
+			}
+			split.submitted = true;
+			runningSplits.incrementAndGet();
+			getContext().getExecutor().execute(split);
+		}
+	}
+	
+	/**
+	 * Parse the records starting in the split with a separate parsing instance
+	 */
+	private TupleBuffer parseSplit(Split split) throws TeiidComponentException, TeiidProcessingException, IOException {
+		TextTableNode parser = clone();
+		parser.initialize(getContext(), getBufferManager(), getDataManager());
+		parser.nameIndexes = this.nameIndexes;
+		parser.lineWidth = this.lineWidth;
+		parser.systemId = this.systemId;
+		parser.countBytes = true;
+		parser.utf8 = this.utf8;
+		if (split.exact) {
+			split.actualStart = split.start;
+		}
+		long position = split.exact ? split.start : split.start - 1;
+		InputStream is = new BufferedInputStream(splitFactory.getInputStream());
+		TupleBuffer buffer = null;
+		try {
+			skip(is, position);
+			if (!split.exact && utf8) {
+				//move past any utf-8 continuation bytes to a character boundary
+				while (true) {
+					is.mark(1);
+					int b = is.read();
+					if (b < 0x80 || b >= 0xc0) {
+						is.reset();
+						break;
+					}
+					position++;
+				}
+			}
+			//decoding errors must be reported, as replacement characters would misalign the byte positions
+			CharsetDecoder decoder = splitCharset.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+			parser.reader = new BufferedReader(new InputStreamReader(is, decoder));
+			parser.bytePosition = position;
+			if (!split.exact) {
+				//align to the next line
+				while (parser.readChar() != newLine) {
+				}
+			}
+			parser.consumeCr();
+			split.actualStart = parser.bytePosition;
+			parser.splitEnd = split.end;
+			buffer = getBufferManager().createTupleBuffer(getElements(), getConnectionID(), TupleSourceType.PROCESSOR);
+			buffer.setForwardOnly(true);
+			while (!split.cancelled) {
+				List<Object> tuple = parser.nextTuple();
+				if (tuple == null) {
+					break;
+				}
+				buffer.addTuple(tuple);
+			}
+			buffer.close();
+			split.endPosition = parser.bytePosition;
+			split.rowCount = parser.rowNumber;
+			TupleBuffer result = buffer;
+			buffer = null;
+			return result;
+		} finally {
+			if (buffer != null) {
+				buffer.remove();
+			}
+			parser.reader = null;
+			is.close();
+		}
+	}
+	
+	private static void skip(InputStream is, long count) throws IOException {
+		long remaining = count;
+		while (remaining > 0) {
+			long skipped = is.skip(remaining);
+			if (skipped <= 0) {
+				if (is.read() == -1) {
+					break;
+				}
+				skipped = 1;
+			}
+			remaining -= skipped;
+		}
+	}
+	
+	private static boolean isDecodingError(Throwable t) {
+		for (; t != null; t = t.getCause()) {
+			if (t instanceof CharacterCodingException) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Abandon the splits and parse the rest of the file with a single reader from the 
+	 * end of the last completed split, so that invalid input is handled as it would be 
+	 * without splitting.
+	 */
+	private void parseRemainingSerially() throws TeiidProcessingException {
+		for (Split split : this.splits) {
+			split.cancel();
+		}
+		this.splits = null;
+		for (; this.reservedWorkers > 0; this.reservedWorkers--) {
+			getContext().releaseParallelWorker();
+		}
+		this.countBytes = false;
+		this.cr = false;
+		this.rowNumber = this.splitRowOffset;
+		this.splitRowOffset = 0;
+		InputStream is = null;
+		try {
+			is = splitFactory.getInputStream();
+			skip(is, splitPosition);
+			reader = new BufferedReader(new org.teiid.core.util.InputStreamReader(is, splitCharset.newDecoder()));
+		} catch (IOException e) {
+			if (is != null) {
+				try {
+					is.close();
+				} catch (IOException e1) {
+				}
+			}
+			throw new TeiidProcessingException(QueryPlugin.Event.TEIID30179, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30179, systemId));
+		}
+	}
+	
+	/**
+	 * Return the split results in file order
+	 */
+	private TupleBatch nextSplitBatch() throws TeiidComponentException, TeiidProcessingException {
+		while (!isBatchFull()) {
+			if (splitSource != null) {
+				List<?> tuple = splitSource.nextTuple();
+				if (tuple != null) {
+					addBatchRow(adjustOrdinals(tuple));
+					continue;
+				}
+				splitSource.closeSource();
+				splitSource = null;
+				Split split = splits.get(splitIndex);
+				splitPosition = split.endPosition;
+				splitRowOffset += split.rowCount;
+				split.cancel();
+				if (++splitIndex == splits.size()) {
+					terminateBatches();
+					break;
+				}
+			}
+			Split split = splits.get(splitIndex);
+			scheduleSplits();
+			if (!split.done) {
+				if (this.getContext().getWorkItem() == null) {
+					//this is for compatibility with engine tests that are below the level of using the work item
+					try {
+						this.wait();
+					} catch (InterruptedException e) {
+						throw new TeiidRuntimeException(e);
+					}
+					continue;
+				}
+				throw BlockedException.block("Blocking on results from file processing."); //$NON-NLS-1$
+			}
+			if (split.actualStart != splitPosition) {
+				//the speculative start was not at a record boundary
+				split.cancel();
+				Split restart = new Split(splitPosition, split.end, true);
+				splits.set(splitIndex, restart);
+				continue;
+			}
+			if (split.exception != null) {
+				if (isDecodingError(split.exception)) {
+					parseRemainingSerially();
+					return nextBatchDirect();
+				}
+				if (split.exception instanceof TeiidProcessingException) {
+					throw (TeiidProcessingException)split.exception;
+				}
+				if (split.exception instanceof TeiidComponentException) {
+					throw (TeiidComponentException)split.exception;
+				}
+				if (split.exception instanceof TeiidRuntimeException) {
+					throw (TeiidRuntimeException)split.exception;
+				}
+				throw new TeiidRuntimeException(split.exception);
+			}
+			splitSource = split.buffer.createIndexedTupleSource(true);
+		}
+		return pullBatch();
+	}
+	
+	private List<?> adjustOrdinals(List<?> tuple) throws TeiidProcessingException {
+		if (splitRowOffset == 0) {
+			return tuple;
+		}
+		List<Object> result = null;
+		for (int i = 0; i < projectionIndexes.length; i++) {
+			if (!table.getColumns().get(projectionIndexes[i]).isOrdinal()) {
+				continue;
+			}
+			if (result == null) {
+				result = new ArrayList<Object>(tuple);
+			}
+			long value = (Integer)tuple.get(i) + splitRowOffset;
+			if (value > Integer.MAX_VALUE) {
+				throw new TeiidProcessingException(QueryPlugin.Event.TEIID31174, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31174));
+			}
+			result.set(i, (int)value);
+		}
+		return result == null ? tuple : result;
+	}
+
 	private void processHeader(List<String> line) {
 		nameIndexes = new HashMap<String, Integer>();
 		this.lineWidth = DataTypeManager.MAX_STRING_LENGTH * line.size();
@@ -544,6 +1013,17 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 				}
 			}
 			for (int i = 0; i < line.length(); i++) {
+				if (!escaped && (qualified || !wasQualified)) {
+					//append the run of ordinary characters at once
+					int next = nextSpecial(line, i);
+					if (next > i) {
+						builder.append(line, i, next);
+						i = next;
+						if (i == line.length()) {
+							break;
+						}
+					}
+				}
 				char chr = line.charAt(i);
 				if (chr == delimiter) {
 					if (escaped || qualified) {
@@ -596,6 +1076,20 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		}
 	}
 
+	/**
+	 * @return the index of the next delimiter or quote character at or after from
+	 */
+	private int nextSpecial(StringBuilder line, int from) {
+		int length = line.length();
+		for (int i = from; i < length; i++) {
+			char c = line.charAt(i);
+			if (c == delimiter || c == quote) {
+				return i;
+			}
+		}
+		return length;
+	}
+
 	private void addValue(ArrayList<String> result, boolean wasQualified, String val) {
 		if (!wasQualified) {
 			val = val.trim();
@@ -0,0 +1,156 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.sql.visitor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.sql.LanguageObject;
+import org.teiid.query.sql.LanguageVisitor;
+import org.teiid.query.sql.lang.BetweenCriteria;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.navigator.DeepPreOrderNavigator;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.Reference;
+
+
+/**
+ * <p>This visitor replaces the literal values of comparison, in and between predicates
+ * of a resolved command with positional references, so that commands differing only by
+ * those values may share a plan.</p>
+ *
+ * <p>Only literals of the same type as the expression they are compared to are replaced,
+ * so the resolving of the command is not affected.  Literals that affect planning, such as
+ * limits, match patterns, projected values, and multi-source column values are left in place.</p>
+ */
+public class ParameterizingVisitor extends LanguageVisitor {
+
+	private QueryMetadataInterface metadata;
+	private List<Reference> references = new ArrayList<Reference>();
+	private List<Object> values = new ArrayList<Object>();
+	private TeiidComponentException exception;
+
+	public ParameterizingVisitor(QueryMetadataInterface metadata) {
+		this.metadata = metadata;
+	}
+
+	/**
+	 * @return the references in the order they were created
+	 */
+	public List<Reference> getReferences() {
+		return references;
+	}
+
+	/**
+	 * @return the literal values replaced by the references
+	 */
+	public List<Object> getValues() {
+		return values;
+	}
+
+	@Override
+	public void visit(CompareCriteria obj) {
+		if (canParameterize(obj.getRightExpression(), obj.getLeftExpression())) {
+			obj.setRightExpression(parameterize(obj.getRightExpression()));
+		} else if (canParameterize(obj.getLeftExpression(), obj.getRightExpression())) {
+			obj.setLeftExpression(parameterize(obj.getLeftExpression()));
+		}
+	}
+
+	@Override
+	public void visit(BetweenCriteria obj) {
+		if (canParameterize(obj.getLowerExpression(), obj.getExpression())) {
+			obj.setLowerExpression(parameterize(obj.getLowerExpression()));
+		}
+		if (canParameterize(obj.getUpperExpression(), obj.getExpression())) {
+			obj.setUpperExpression(parameterize(obj.getUpperExpression()));
+		}
+	}
+
+	@Override
+	public void visit(SetCriteria obj) {
+		Collection<Expression> setValues = obj.getValues();
+		for (Expression value : setValues) {
+			if (!canParameterize(value, obj.getExpression())) {
+				return;
+			}
+		}
+		List<Expression> newValues = new ArrayList<Expression>(obj.getNumberOfValues());
+		for (Expression value : setValues) {
+			newValues.add(parameterize(value));
+		}
+		obj.setValues(newValues);
+	}
+
+	private boolean canParameterize(Expression value, Expression other) {
+		if (!(value instanceof Constant) || other instanceof Constant || other == null) {
+			return false;
+		}
+		Constant constant = (Constant)value;
+		if (constant.isNull() || constant.isMultiValued() || constant.getType() != other.getType()
+				|| DataTypeManager.isLOB(constant.getType())) {
+			return false;
+		}
+		if (other instanceof ElementSymbol) {
+			ElementSymbol es = (ElementSymbol)other;
+			try {
+				if (es.getMetadataID() != null && !(es.getMetadataID() instanceof String) && metadata.isMultiSourceElement(es.getMetadataID())) {
+					return false;
+				}
+			} catch (TeiidComponentException e) {
+				this.exception = e;
+				return false;
+			} catch (TeiidException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Reference parameterize(Expression value) {
+		Constant constant = (Constant)value;
+		Reference ref = new Reference(references.size());
+		ref.setType(constant.getType());
+		references.add(ref);
+		values.add(constant.getValue());
+		return ref;
+	}
+
+	/**
+	 * Replace the eligible literals of the given object in place.
+	 * @return the visitor holding the references and replaced values
+	 */
+	public static ParameterizingVisitor parameterize(LanguageObject obj, QueryMetadataInterface metadata) throws TeiidComponentException {
+		ParameterizingVisitor visitor = new ParameterizingVisitor(metadata);
+		DeepPreOrderNavigator.doVisit(obj, visitor);
+		if (visitor.exception != null) {
+			throw visitor.exception;
+		}
+		return visitor;
+	}
+
+}
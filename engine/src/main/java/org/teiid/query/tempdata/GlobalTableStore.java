@@ -48,6 +48,12 @@ public interface GlobalTableStore {
 	Serializable getAddress();
 	
 	List<?> updateMatViewRow(String matTableName, List<?> tuple, boolean delete) throws TeiidComponentException;
+	
+	/**
+	 * Apply a batch of row changes with a single swap of the table
+	 * @return the number of rows changed
+	 */
+	int updateMatViewRows(String matTableName, List<? extends List<?>> tuples, boolean delete) throws TeiidComponentException;
 
 	TempTable createMatTable(String tableName, GroupSymbol group)
 	throws TeiidComponentException, QueryMetadataException, TeiidProcessingException;
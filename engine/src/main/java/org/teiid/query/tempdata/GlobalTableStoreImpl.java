@@ -97,6 +97,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		private long ttl = -1;
 		private boolean valid;
 		private boolean asynch; //sub state of loading
+		private Object incrementalValue; //the change column value as of the last refresh
 		private Map<RequestID, WeakReference<RequestWorkItem>> waiters = new HashMap<RequestID, WeakReference<RequestWorkItem>>(2);
 		
 		protected MatTableInfo() {}
@@ -193,6 +194,18 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			waiters.put(waiter.getRequestID(), new WeakReference<RequestWorkItem>(waiter));
 		}
 
+        /**
+         * @return the greatest change column value seen at the start of the last successful refresh,
+         * or null if an incremental refresh is not possible 
+         */
+        public synchronized Object getIncrementalValue() {
+            return incrementalValue;
+        }
+        
+        public synchronized void setIncrementalValue(Object incrementalValue) {
+            this.incrementalValue = incrementalValue;
+        }
+        
         public synchronized boolean getAndClearAsynch() {
             boolean result = asynch;
             asynch = false;
@@ -446,6 +459,33 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		}
 		return null;
 	}
+	
+	@Override
+	public int updateMatViewRows(String matTableName,
+			List<? extends List<?>> tuples, boolean delete)
+			throws TeiidComponentException {
+		TempTable tempTable = tableStore.getTempTable(matTableName);
+		int count = 0;
+		if (tempTable != null) {
+			TempMetadataID id = tableStore.getMetadataStore().getTempGroupID(matTableName);
+			synchronized (id) {
+				boolean clone = tempTable.getActive().get() != 0;
+				if (clone) {
+					tempTable = tempTable.clone();
+				}
+				for (List<?> tuple : tuples) {
+					List<?> result = tempTable.updateTuple(tuple, delete);
+					if (!delete || result != null) {
+						count++;
+					}
+				}
+				if (clone) {
+					swapTempTable(matTableName, tempTable);
+				}
+			}
+		}
+		return count;
+	}
 
 	public TempTableStore getTempTableStore() {
 		return this.tableStore;
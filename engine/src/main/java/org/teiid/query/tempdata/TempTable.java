@@ -49,6 +49,7 @@ import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.processor.CollectionTupleSource;
+import org.teiid.query.processor.relational.ListNestedSortComparator;
 import org.teiid.query.processor.relational.RelationalNode;
 import org.teiid.query.processor.relational.SortUtility;
 import org.teiid.query.processor.relational.SortUtility.Mode;
@@ -472,9 +473,13 @@ public class TempTable implements Cloneable, SearchableTable {
 			return;
 		}
 		TempTable indexTable = createIndexTable(indexColumns, unique);
-		//TODO: ordered insert optimization
 		TupleSource ts = createTupleSource(indexTable.getColumns(), null, null);
-		indexTable.insert(ts, indexTable.getColumns(), false, false, null);
+		TupleBuffer sorted = indexTable.createPrimaryKeySort(ts, indexTable.getColumns()).sort();
+		try {
+			indexTable.insertOrdered(sorted.createIndexedTupleSource(), indexTable.getColumns());
+		} finally {
+			sorted.remove();
+		}
 		indexTable.getTree().compact();
 	}
 
@@ -808,6 +813,66 @@ public class TempTable implements Cloneable, SearchableTable {
         return CollectionTupleSource.createUpdateCountArrayTupleSource(updateCount);
     }
 	
+	/**
+	 * Create a sort of the tuples by the primary key for use with {@link #insertOrdered(TupleSource, List)}.
+	 * The sort is resumable if the source is blocked.
+	 */
+	public SortUtility createPrimaryKeySort(TupleSource tuples, List<ElementSymbol> variables) {
+		if (rowId != null) {
+			throw new AssertionError("no primary key"); //$NON-NLS-1$
+		}
+		List<ElementSymbol> keyColumns = columns.subList(0, tree.getKeyLength());
+		return new SortUtility(tuples, keyColumns, Collections.nCopies(keyColumns.size(), OrderBy.ASC), Mode.SORT, bm, sessionID, variables);
+	}
+	
+	/**
+	 * Bulk load an empty table with tuples sorted by the primary key.  The tree is built 
+	 * by appending to its right edge, rather than searching for the position of each tuple.
+	 * @return the number of tuples inserted
+	 * @throws TeiidProcessingException if the primary key values are not unique
+	 */
+	public long insertOrdered(TupleSource tuples, List<ElementSymbol> variables) throws TeiidComponentException, TeiidProcessingException {
+		if (rowId != null || tree.getRowCount() != 0) {
+			throw new AssertionError("invalid state"); //$NON-NLS-1$
+		}
+		List<ElementSymbol> cols = getColumns();
+		int[] indexes = new int[cols.size()];
+		boolean shouldProject = false;
+		for (int i = 0; i < cols.size(); i++) {
+			indexes[i] = variables.indexOf(cols.get(i));
+			shouldProject |= (indexes[i] != i);
+		}
+		ListNestedSortComparator comparator = tree.getComparator();
+		long count = 0;
+		lock.writeLock().lock();
+		try {
+			tree.setBatchInsert(true);
+			List<?> last = null;
+			List<?> tuple = null;
+			while ((tuple = tuples.nextTuple()) != null) {
+				if (shouldProject) {
+					tuple = RelationalNode.projectTuple(indexes, tuple);
+				}
+				validateNotNull(tuple);
+				if (last != null && comparator.compare(last, tuple) >= 0) {
+					throw new TeiidProcessingException(QueryPlugin.Event.TEIID30238, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30238, this.tid.getID()));
+				}
+				tree.insert(tuple, InsertMode.ORDERED, -1);
+				last = tuple;
+				count++;
+			}
+		} finally {
+			try {
+				tree.setBatchInsert(false);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		tid.setCardinality(tree.getRowCount());
+		tid.getTableData().dataModified(count);
+		return count;
+	}
+	
 	public TupleSource update(Criteria crit, final SetClauseList update) throws TeiidComponentException, ExpressionEvaluationException, TeiidProcessingException {
 		final boolean primaryKeyChangePossible = canChangePrimaryKey(update);
 		final TupleBrowser browser = createTupleBrower(crit, OrderBy.ASC);
@@ -21,9 +21,12 @@ package org.teiid.query.tempdata;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
@@ -41,6 +44,7 @@ import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.CoreConstants;
+import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
@@ -56,12 +60,14 @@ import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
 import org.teiid.dqp.internal.process.TupleSourceCache;
 import org.teiid.events.EventDistributor;
 import org.teiid.language.SQLConstants;
+import org.teiid.language.SQLConstants.NonReserved;
 import org.teiid.language.SQLConstants.Reserved;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
+import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
@@ -70,8 +76,15 @@ import org.teiid.query.parser.ParseInfo;
 import org.teiid.query.processor.BatchCollector;
 import org.teiid.query.processor.CollectionTupleSource;
 import org.teiid.query.processor.ProcessorDataManager;
+import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.processor.RegisterRequestParameter;
+import org.teiid.query.processor.relational.AccessNode;
+import org.teiid.query.processor.relational.ProjectNode;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.processor.relational.RelationalPlan;
+import org.teiid.query.processor.relational.SortUtility;
+import org.teiid.query.processor.relational.UnionAllNode;
 import org.teiid.query.resolver.util.ResolverUtil;
 import org.teiid.query.sql.lang.*;
 import org.teiid.query.sql.symbol.Constant;
@@ -92,6 +105,7 @@ import org.teiid.translator.CacheDirective.Scope;
 public class TempTableDataManager implements ProcessorDataManager {
 	
 	private static final int MIN_ASYNCH_SIZE = 1<<15;
+	private static final int INCREMENTAL_BATCH_SIZE = 256;
 
     public interface RequestExecutor {
 		void execute(String command, List<?> parameters);
@@ -359,6 +373,11 @@ public class TempTableDataManager implements ProcessorDataManager {
 			}
 			GroupSymbol matTable = new GroupSymbol(matTableName);
 			matTable.setMetadataID(matTableId);
+			MatTableInfo info = globalStore.getMatTableInfo(matTableName);
+			if (!invalidate && info.isValid() && info.getIncrementalValue() != null 
+					&& globalStore.getTempTable(matTableName) != null && getIncrementalColumn(metadata, groupID) != null) {
+				return refreshIncrementally(context, groupID, matTable, matTableName, globalStore);
+			}
 			return loadGlobalTable(context, matTable, matTableName, globalStore);
 		} else if (StringUtil.endsWithIgnoreCase(proc.getProcedureCallableName(), REFRESHMATVIEWROWS)) {
 			final Object groupID = validateMatView(metadata, (String)((Constant)proc.getParameter(2).getExpression()).getValue());
@@ -511,6 +530,274 @@ public class TempTableDataManager implements ProcessorDataManager {
 		};
 	}
 
+	/**
+	 * @return the change column if the view may be incrementally refreshed.  A change table
+	 * is required as the view alone cannot report deleted rows. 
+	 */
+	private String getIncrementalColumn(QueryMetadataInterface metadata, Object groupID) throws TeiidComponentException, QueryMetadataException {
+		String column = metadata.getExtensionProperty(groupID, MaterializationMetadataRepository.MATVIEW_INCREMENTAL_COLUMN, false);
+		if (column == null || metadata.getPrimaryKey(groupID) == null) {
+			return null;
+		}
+		if (metadata.getExtensionProperty(groupID, MaterializationMetadataRepository.MATVIEW_CHANGE_TABLE, false) == null) {
+			LogManager.logWarning(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31298, metadata.getFullName(groupID), column));
+			return null;
+		}
+		return column;
+	}
+	
+	/**
+	 * @return the query for the greatest value of the change column
+	 */
+	private String getIncrementalValueQuery(QueryMetadataInterface metadata, Object groupID, String column) throws TeiidComponentException, QueryMetadataException {
+		String changeTable = metadata.getExtensionProperty(groupID, MaterializationMetadataRepository.MATVIEW_CHANGE_TABLE, false);
+		return Reserved.SELECT + ' ' + NonReserved.MAX + '(' + new ElementSymbol(column) + ") " + Reserved.FROM + ' ' + new GroupSymbol(changeTable) + ' ' + Reserved.OPTION + ' ' + Reserved.NOCACHE; //$NON-NLS-1$
+	}
+	
+	/**
+	 * @return the full load query as a union of the {@link MaterializationMetadataRepository#MATVIEW_PARTITION_COLUMN} 
+	 * partitions of the view, which allows the partitions to be processed concurrently, or null if the view is not partitioned 
+	 */
+	private String getPartitionedLoadQuery(CommandContext context, Object groupID, List<ElementSymbol> allColumns) throws TeiidComponentException, QueryMetadataException {
+		QueryMetadataInterface metadata = context.getMetadata();
+		String column = metadata.getExtensionProperty(groupID, MaterializationMetadataRepository.MATVIEW_PARTITION_COLUMN, false);
+		if (column == null) {
+			return null;
+		}
+		String count = metadata.getExtensionProperty(groupID, MaterializationMetadataRepository.MATVIEW_PARTITION_COUNT, false);
+		String matViewName = metadata.getFullName(groupID);
+		ElementSymbol partitionColumn = null;
+		for (ElementSymbol es : allColumns) {
+			if (es.getShortName().equalsIgnoreCase(column)) {
+				partitionColumn = es;
+				break;
+			}
+		}
+		int partitions = context.getUserRequestSourceConcurrency();
+		try {
+			if (count != null) {
+				partitions = Integer.parseInt(count);
+			}
+		} catch (NumberFormatException e) {
+			partitions = 0;
+		}
+		if (partitionColumn == null || partitions < 1 || !isIntegral(partitionColumn.getType())) {
+			LogManager.logWarning(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31297, column, matViewName, count));
+			return null;
+		}
+		if (partitions == 1) {
+			return null;
+		}
+		String partitionExpression = "ABS(MOD(" + new ElementSymbol(partitionColumn.getShortName()) + ", " + partitions + "))"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		StringBuilder query = new StringBuilder();
+		for (int i = 0; i < partitions; i++) {
+			if (i > 0) {
+				query.append(' ').append(Reserved.UNION).append(' ').append(Reserved.ALL).append(' ');
+			}
+			query.append(Reserved.SELECT).append(" * ").append(Reserved.FROM).append(' ').append(new GroupSymbol(matViewName)).append(' ').append(Reserved.WHERE).append(' '); //$NON-NLS-1$
+			query.append(partitionExpression).append(" = ").append(i); //$NON-NLS-1$
+			if (i == 0) {
+				query.append(' ').append(Reserved.OR).append(' ').append(new ElementSymbol(partitionColumn.getShortName())).append(' ').append(Reserved.IS).append(' ').append(Reserved.NULL);
+			}
+		}
+		//the view itself must be bypassed
+		query.append(' ').append(Reserved.OPTION).append(' ').append(Reserved.NOCACHE).append(' ').append(new GroupSymbol(matViewName));
+		return query.toString();
+	}
+	
+	/**
+	 * @return true if each partition of the load query is pushed in full to the same source, 
+	 * otherwise every partition would evaluate the whole view definition in the engine
+	 */
+	static boolean isPartitionPushed(ProcessorPlan plan) {
+		if (!(plan instanceof RelationalPlan)) {
+			return false;
+		}
+		Set<String> models = new HashSet<String>();
+		return isPartitionPushed(((RelationalPlan)plan).getRootNode(), models) && models.size() == 1;
+	}
+	
+	private static boolean isPartitionPushed(RelationalNode node, Set<String> models) {
+		if (node instanceof AccessNode) {
+			models.add(((AccessNode)node).getModelName());
+			return true;
+		}
+		if (!(node instanceof UnionAllNode) && !(node instanceof ProjectNode)) {
+			return false;
+		}
+		for (RelationalNode child : node.getChildren()) {
+			if (child == null) {
+				break;
+			}
+			if (!isPartitionPushed(child, models)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static boolean isIntegral(Class<?> type) {
+		return type == DataTypeManager.DefaultDataClasses.INTEGER || type == DataTypeManager.DefaultDataClasses.LONG 
+				|| type == DataTypeManager.DefaultDataClasses.SHORT || type == DataTypeManager.DefaultDataClasses.BYTE 
+				|| type == DataTypeManager.DefaultDataClasses.BIG_INTEGER;
+	}
+	
+	/**
+	 * Apply the changes since the last refresh to the materialized table in batches.  The view 
+	 * rows for the keys in the change table are upserted and missing keys removed.  
+	 * Keys with a change value equal to the last value are included, as changes with that 
+	 * value may have been committed after it was read.  Any failure will fall back to a full load.
+	 */
+	private TupleSource refreshIncrementally(final CommandContext context, final Object groupID, final GroupSymbol group,
+			final String matTableName, final GlobalTableStore globalStore) throws TeiidComponentException, TeiidProcessingException {
+		final QueryMetadataInterface metadata = context.getMetadata();
+		final MatTableInfo info = globalStore.getMatTableInfo(matTableName);
+		final Object lastValue = info.getIncrementalValue();
+		final String matViewName = metadata.getFullName(groupID);
+		final String column = getIncrementalColumn(metadata, groupID);
+		final String valueQuery = getIncrementalValueQuery(metadata, groupID, column);
+		final String changeTable = metadata.getExtensionProperty(groupID, MaterializationMetadataRepository.MATVIEW_CHANGE_TABLE, false);
+		final List<?> ids = metadata.getElementIDsInKey(metadata.getPrimaryKey(groupID));
+		final int[] keyPositions = new int[ids.size()];
+		final Class<?>[] keyTypes = new Class<?>[ids.size()];
+		StringBuilder keyColumns = new StringBuilder();
+		for (int i = 0; i < ids.size(); i++) {
+			keyPositions[i] = metadata.getPosition(ids.get(i)) - 1;
+			keyTypes[i] = DataTypeManager.getDataTypeClass(metadata.getElementRuntimeTypeName(ids.get(i)));
+			if (i > 0) {
+				keyColumns.append(", "); //$NON-NLS-1$
+			}
+			keyColumns.append(new ElementSymbol(metadata.getName(ids.get(i))));
+		}
+		final String viewQuery = Reserved.SELECT + " * " + Reserved.FROM + ' ' + new GroupSymbol(matViewName) + ' ' + Reserved.WHERE + ' '; //$NON-NLS-1$
+		final String changesQuery = Reserved.SELECT + ' ' + Reserved.DISTINCT + ' ' + keyColumns + ' ' + Reserved.FROM + ' ' + new GroupSymbol(changeTable) + ' ' + Reserved.WHERE + ' ' + new ElementSymbol(column) + " >= ? " + Reserved.OPTION + ' ' + Reserved.NOCACHE; //$NON-NLS-1$
+		return new ProxyTupleSource() {
+			private QueryProcessor qp;
+			private TupleSource ts;
+			private boolean valueRead;
+			private Object newValue;
+			private List<List<?>> batch = new ArrayList<List<?>>();
+			private List<List<?>> keys = new ArrayList<List<?>>();
+			private boolean keysRead;
+			private int keyIndex;
+			private List<List<?>> keyBatch;
+			private int count;
+			
+			@Override
+			protected TupleSource createTupleSource()
+					throws TeiidComponentException, TeiidProcessingException {
+				try {
+					if (!valueRead) {
+						if (qp == null) {
+							open(valueQuery);
+						}
+						List<?> tuple = ts.nextTuple();
+						newValue = tuple == null ? null : tuple.get(0);
+						valueRead = true;
+						close();
+					}
+					refreshChangedKeys();
+					if (newValue != null) {
+						info.setIncrementalValue(newValue);
+					}
+					globalStore.loaded(matTableName, globalStore.getTempTable(matTableName));
+					LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31295, matTableName, count));
+					return CollectionTupleSource.createUpdateCountTupleSource(count);
+				} catch (BlockedException e) {
+					throw e;
+				} catch (TeiidException | RuntimeException e) {
+					LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31296, matTableName));
+					close();
+					return loadGlobalTable(context, group, matTableName, globalStore);
+				}
+			}
+			
+			private void refreshChangedKeys() throws TeiidComponentException, TeiidProcessingException {
+				if (!keysRead) {
+					if (qp == null) {
+						open(changesQuery, lastValue);
+					}
+					//the keys are fully read before being applied
+					for (List<?> tuple = ts.nextTuple(); tuple != null; tuple = ts.nextTuple()) {
+						List<Object> key = new ArrayList<Object>(keyTypes.length);
+						for (int i = 0; i < keyTypes.length; i++) {
+							key.add(DataTypeManager.transformValue(tuple.get(i), keyTypes[i]));
+						}
+						keys.add(key);
+					}
+					close();
+					keysRead = true;
+				}
+				while (keyIndex < keys.size() || keyBatch != null) {
+					if (keyBatch == null) {
+						keyBatch = keys.subList(keyIndex, Math.min(keys.size(), keyIndex + INCREMENTAL_BATCH_SIZE));
+						StringBuilder criteria = new StringBuilder();
+						List<Object> params = new ArrayList<Object>();
+						for (int i = 0; i < keyBatch.size(); i++) {
+							if (i > 0) {
+								criteria.append(' ').append(Reserved.OR).append(' ');
+							}
+							criteria.append('(');
+							for (int j = 0; j < ids.size(); j++) {
+								if (j > 0) {
+									criteria.append(' ').append(Reserved.AND).append(' ');
+								}
+								criteria.append(new ElementSymbol(metadata.getName(ids.get(j)))).append(" = ?"); //$NON-NLS-1$
+								params.add(keyBatch.get(i).get(j));
+							}
+							criteria.append(')');
+						}
+						open(viewQuery + criteria + ' ' + Reserved.OPTION + ' ' + Reserved.NOCACHE, params.toArray());
+					}
+					for (List<?> tuple = ts.nextTuple(); tuple != null; tuple = ts.nextTuple()) {
+						batch.add(new ArrayList<Object>(tuple)); 
+					}
+					close();
+					Set<List<?>> deleted = new LinkedHashSet<List<?>>(keyBatch);
+					for (List<?> tuple : batch) {
+						deleted.remove(RelationalNode.projectTuple(keyPositions, tuple));
+					}
+					apply(batch, false);
+					apply(new ArrayList<List<?>>(deleted), true);
+					keyIndex += keyBatch.size();
+					keyBatch = null;
+				}
+			}
+			
+			private void apply(List<List<?>> tuples, boolean delete) throws TeiidComponentException {
+				if (tuples.isEmpty()) {
+					return;
+				}
+				count += globalStore.updateMatViewRows(matTableName, tuples, delete);
+				if (eventDistributor != null) {
+					for (List<?> tuple : tuples) {
+						eventDistributor.updateMatViewRow(context.getVdbName(), context.getVdbVersion(), metadata.getName(metadata.getModelID(groupID)), metadata.getName(groupID), tuple, delete);
+					}
+				}
+				tuples.clear();
+			}
+			
+			private void open(String query, Object... params) throws TeiidComponentException, TeiidProcessingException {
+				qp = context.getQueryProcessorFactory().createQueryProcessor(query, matViewName.toUpperCase(), context, params);
+				ts = new BatchCollector.BatchProducerTupleSource(qp);
+			}
+			
+			private void close() {
+				if (qp != null) {
+					qp.closeProcessing();
+				}
+				qp = null;
+				ts = null;
+			}
+			
+			@Override
+			public void closeSource() {
+				super.closeSource();
+				close();
+			}
+		};
+	}
+
 	private Object validateMatView(QueryMetadataInterface metadata,	String viewName) throws TeiidComponentException,
 			TeiidProcessingException {
 		try {
@@ -716,25 +1003,77 @@ public class TempTableDataManager implements ProcessorDataManager {
 		final List<ElementSymbol> allColumns = ResolverUtil.resolveElementsInGroup(group, metadata); 
 		final TempTable table = globalStore.createMatTable(tableName, group);
 		table.setUpdatable(false);
+		String query = null;
+		String partitionedQuery = null;
+		if (group.getMetadataID() instanceof TempMetadataID && ((TempMetadataID)group.getMetadataID()).getOriginalMetadataID() != null) {
+			Object viewId = ((TempMetadataID)group.getMetadataID()).getOriginalMetadataID();
+			String column = getIncrementalColumn(metadata, viewId);
+			if (column != null) {
+				query = getIncrementalValueQuery(metadata, viewId, column);
+			}
+			partitionedQuery = getPartitionedLoadQuery(context, viewId, allColumns);
+		}
+		final String valueQuery = query;
+		final String loadQuery = partitionedQuery;
 		return new ProxyTupleSource() {
 			TupleSource insertTupleSource;
+			SortUtility sort;
 			boolean success;
 			QueryProcessor qp;
 			boolean closed;
 			boolean errored;
+			QueryProcessor valueQp;
+			TupleSource valueTs;
+			boolean valueRead;
+			Object incrementalValue;
 		
 			@Override
 			protected TupleSource createTupleSource() throws TeiidComponentException,
 					TeiidProcessingException {
 				long rowCount = -1;
 				try {
+					if (valueQuery != null && !valueRead) {
+						//capture the change value prior to loading, so that no later change is missed
+						if (valueQp == null) {
+							valueQp = context.getQueryProcessorFactory().createQueryProcessor(valueQuery, tableName.substring(RelationalPlanner.MAT_PREFIX.length()), context);
+							valueTs = new BatchCollector.BatchProducerTupleSource(valueQp);
+						}
+						List<?> tuple = valueTs.nextTuple();
+						incrementalValue = tuple == null ? null : tuple.get(0);
+						valueRead = true;
+						valueQp.closeProcessing();
+						valueQp = null;
+					}
 					if (insertTupleSource == null) {
 						String fullName = metadata.getFullName(group.getMetadataID());
-						String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
-						qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
+						if (loadQuery != null) {
+							qp = context.getQueryProcessorFactory().createQueryProcessor(loadQuery, fullName, context);
+							if (!isPartitionPushed(qp.getProcessorPlan())) {
+								LogManager.logWarning(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31299, fullName));
+								qp.closeProcessing();
+								qp = null;
+							}
+						}
+						if (qp == null) {
+							String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
+							qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
+						}
 						insertTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
 					}
-					table.insert(insertTupleSource, allColumns, false, false, null);
+					if (table.getPkLength() > 0) {
+						//build the tree from the sorted runs rather than with searched inserts
+						if (sort == null) {
+							sort = table.createPrimaryKeySort(insertTupleSource, allColumns);
+						}
+						TupleBuffer sorted = sort.sort();
+						try {
+							table.insertOrdered(sorted.createIndexedTupleSource(), allColumns);
+						} finally {
+							sorted.remove();
+						}
+					} else {
+						table.insert(insertTupleSource, allColumns, false, false, null);
+					}
 					table.getTree().compact();
 					rowCount = table.getRowCount();
 					Determinism determinism = qp.getContext().getDeterminismLevel();
@@ -755,6 +1094,7 @@ public class TempTableDataManager implements ProcessorDataManager {
 					if (determinism.compareTo(Determinism.VDB_DETERMINISTIC) < 0 && (hint == null || hint.getScope() == null || Scope.VDB.compareTo(hint.getScope()) <= 0)) {
 						LogManager.logInfo(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31143, determinism, tableName)); //$NON-NLS-1$
 					}
+					globalStore.getMatTableInfo(tableName).setIncrementalValue(incrementalValue);
 					globalStore.loaded(tableName, table);
 					success = true;
 					LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30014, tableName, rowCount));
@@ -789,6 +1129,12 @@ public class TempTableDataManager implements ProcessorDataManager {
 				if (qp != null) {
 					qp.closeProcessing();
 				}
+				if (valueQp != null) {
+					valueQp.closeProcessing();
+				}
+				if (sort != null) {
+					sort.remove();
+				}
 				super.closeSource();
 			}
 		};
@@ -205,6 +205,7 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 		private Throwable batchUpdateException;
 
         public boolean parallel;
+        private int parallelWorkers;
         
         private long timestamp = System.currentTimeMillis();
 	}
@@ -1201,6 +1202,27 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
         this.globalState.parallel = value;
         return result;
     }
+    
+    /**
+     * Reserve one of the additional threads allowed to process this request
+     * @return true if the request is below its maximum parallelism
+     */
+    public boolean reserveParallelWorker() {
+    	int max = getOptions().getMaxParallelism();
+    	synchronized (this.globalState) {
+    		if (this.globalState.parallelWorkers >= max - 1) {
+    			return false;
+    		}
+    		this.globalState.parallelWorkers++;
+    		return true;
+    	}
+    }
+    
+    public void releaseParallelWorker() {
+    	synchronized (this.globalState) {
+    		this.globalState.parallelWorkers--;
+    	}
+    }
 
     public Date currentDate() {
         return TimestampWithTimezone.createDate(new Date(this.globalState.timestamp));
@@ -39,6 +39,14 @@ public class Options {
 	public static final String MAX_SESSION_BUFFER_SIZE_ESTIMATE = "org.teiid.maxSessionBufferSizeEstimate"; //$NON-NLS-1$
 	public static final String TRACING_WITH_ACTIVE_SPAN_ONLY = "org.teiid.tracingWithActiveSpanOnly"; //$NON-NLS-1$
 	public static final String ENFORCE_SINGLE_MAX_BUFFER_SIZE_ESTIMATE = "org.teiid.enforceSingleMaxBufferSizeEstimate"; //$NON-NLS-1$
+	public static final String COLUMNAR_BATCHES = "org.teiid.columnarBatches"; //$NON-NLS-1$
+	public static final String HASH_JOIN = "org.teiid.hashJoin"; //$NON-NLS-1$
+	public static final String HASH_AGGREGATION = "org.teiid.hashAggregation"; //$NON-NLS-1$
+	public static final String MAX_PARALLELISM = "org.teiid.maxParallelism"; //$NON-NLS-1$
+	public static final String AUTO_PARAMETERIZE = "org.teiid.autoParameterize"; //$NON-NLS-1$
+	public static final String DEPENDENT_JOIN_FILTER_THRESHOLD = "org.teiid.dependentJoinFilterThreshold"; //$NON-NLS-1$
+	public static final String TEXT_TABLE_SPLIT_SIZE = "org.teiid.textTableSplitSize"; //$NON-NLS-1$
+	public static final String CARDINALITY_FEEDBACK = "org.teiid.cardinalityFeedback"; //$NON-NLS-1$
 
 	private Properties properties;
 	private boolean subqueryUnnestDefault = false;
@@ -54,6 +62,14 @@ public class Options {
 	private boolean tracingWithActiveSpanOnly = true;
 	private boolean enforceSingleMaxBufferSizeEstimate = false;
 	private boolean relativeXPath = true;
+	private boolean columnarBatches;
+	private boolean hashJoin;
+	private boolean hashAggregation;
+	private int maxParallelism = 1;
+	private boolean autoParameterize;
+	private int dependentJoinFilterThreshold = -1;
+	private long textTableSplitSize = 1 << 26;
+	private boolean cardinalityFeedback;
 	
 	public Properties getProperties() {
 		return properties;
@@ -238,4 +254,108 @@ public class Options {
         return this;
     }
 
+    public boolean isColumnarBatches() {
+        return columnarBatches;
+    }
+    
+    public void setColumnarBatches(boolean columnarBatches) {
+        this.columnarBatches = columnarBatches;
+    }
+    
+    public Options columnarBatches(boolean b) {
+        this.columnarBatches = b;
+        return this;
+    }
+
+    public boolean isHashJoin() {
+        return hashJoin;
+    }
+    
+    public void setHashJoin(boolean hashJoin) {
+        this.hashJoin = hashJoin;
+    }
+    
+    public Options hashJoin(boolean b) {
+        this.hashJoin = b;
+        return this;
+    }
+
+    public boolean isHashAggregation() {
+        return hashAggregation;
+    }
+    
+    public void setHashAggregation(boolean hashAggregation) {
+        this.hashAggregation = hashAggregation;
+    }
+    
+    public Options hashAggregation(boolean b) {
+        this.hashAggregation = b;
+        return this;
+    }
+
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+    
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+    
+    public Options maxParallelism(int i) {
+        this.maxParallelism = i;
+        return this;
+    }
+
+    public boolean isAutoParameterize() {
+        return autoParameterize;
+    }
+    
+    public void setAutoParameterize(boolean autoParameterize) {
+        this.autoParameterize = autoParameterize;
+    }
+    
+    public Options autoParameterize(boolean b) {
+        this.autoParameterize = b;
+        return this;
+    }
+
+    public int getDependentJoinFilterThreshold() {
+        return dependentJoinFilterThreshold;
+    }
+    
+    public void setDependentJoinFilterThreshold(int dependentJoinFilterThreshold) {
+        this.dependentJoinFilterThreshold = dependentJoinFilterThreshold;
+    }
+    
+    public Options dependentJoinFilterThreshold(int i) {
+        this.dependentJoinFilterThreshold = i;
+        return this;
+    }
+    
+    public long getTextTableSplitSize() {
+        return textTableSplitSize;
+    }
+    
+    public void setTextTableSplitSize(long textTableSplitSize) {
+        this.textTableSplitSize = textTableSplitSize;
+    }
+    
+    public Options textTableSplitSize(long l) {
+        this.textTableSplitSize = l;
+        return this;
+    }
+
+    public boolean isCardinalityFeedback() {
+        return cardinalityFeedback;
+    }
+    
+    public void setCardinalityFeedback(boolean cardinalityFeedback) {
+        this.cardinalityFeedback = cardinalityFeedback;
+    }
+    
+    public Options cardinalityFeedback(boolean b) {
+        this.cardinalityFeedback = b;
+        return this;
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.ColumnarTupleBatch.IntColumn;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+@SuppressWarnings({"nls", "unchecked"})
+public class TestColumnarTupleBatch {
+
+	private static final Class<?>[] TYPES = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.DOUBLE};
+
+	private List<List<?>> exampleRows(int numRows) {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < numRows; i++) {
+			rows.add(Arrays.asList(i%3==0?null:i, "data-" + i, i/2.0));
+		}
+		return rows;
+	}
+
+	@Test public void testRowView() {
+		List<List<?>> rows = exampleRows(10);
+		ColumnarTupleBatch batch = ColumnarTupleBatch.create(5, TYPES, rows);
+		assertEquals(10, batch.getRowCount());
+		assertEquals(14, batch.getEndRow());
+		assertEquals(rows, batch.getTuples());
+		assertEquals(rows.get(1), batch.getTuple(6));
+		assertTrue(batch.getColumn(0) instanceof IntColumn);
+		assertTrue(batch.getColumn(0).isNull(0));
+		assertEquals(1, ((IntColumn)batch.getColumn(0)).getInt(1));
+
+		((List<Object>)batch.getTuples().get(0)).set(0, 7);
+		assertEquals(7, batch.getTuple(5).get(0));
+		assertFalse(batch.getColumn(0).isNull(0));
+	}
+
+	@Test public void testTypeMismatch() {
+		assertNull(ColumnarTupleBatch.create(1, TYPES, Arrays.asList(Arrays.asList((short)1, "a", 1.0))));
+		assertFalse(ColumnarTupleBatch.isColumnar(new Class<?>[] {DataTypeManager.DefaultDataClasses.STRING}));
+	}
+
+	@Test public void testSelectAndProject() {
+		ColumnarTupleBatch batch = ColumnarTupleBatch.create(1, TYPES, exampleRows(10));
+		ColumnarTupleBatch result = batch.select(new int[] {0, 4, 9, 0}, 3, new int[] {2, 0});
+		assertEquals(3, result.getRowCount());
+		assertEquals(Arrays.asList(Arrays.asList(0.0, null), Arrays.asList(2.0, 4), Arrays.asList(4.5, null)), result.getTuples());
+
+		result = batch.project(new int[] {1});
+		assertEquals(Arrays.asList("data-3"), result.getTuple(4));
+		assertEquals(1, result.getColumnCount());
+	}
+
+	@Test public void testTupleBuffer() throws Exception {
+		ElementSymbol x = new ElementSymbol("x");
+		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		ElementSymbol y = new ElementSymbol("y");
+		y.setType(DataTypeManager.DefaultDataClasses.STRING);
+		ElementSymbol z = new ElementSymbol("z");
+		z.setType(DataTypeManager.DefaultDataClasses.DOUBLE);
+		List<ElementSymbol> schema = Arrays.asList(x, y, z);
+		TupleBuffer tb = BufferManagerFactory.getStandaloneBufferManager().createTupleBuffer(schema, "x", TupleSourceType.PROCESSOR);
+		tb.setBatchSize(10);
+		List<List<?>> rows = exampleRows(10);
+		tb.addTupleBatch(ColumnarTupleBatch.create(1, TYPES, rows), true);
+		tb.addTupleBatch(ColumnarTupleBatch.create(11, TYPES, rows), true);
+		tb.close();
+		assertEquals(20, tb.getRowCount());
+		TupleBatch batch = tb.getBatch(11);
+		assertEquals(11, batch.getBeginRow());
+		assertTrue(batch.getTerminationFlag());
+		assertEquals(rows, batch.getTuples());
+		//the original should not have been modified
+		assertEquals(1, tb.getBatch(1).getBeginRow());
+	}
+
+}
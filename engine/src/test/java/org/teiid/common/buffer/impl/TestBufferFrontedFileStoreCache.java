@@ -33,6 +33,7 @@ import org.teiid.common.buffer.CacheKey;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.Serializer;
 import org.teiid.common.buffer.StorageManager;
+import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache.StorageTierStatistics;
 import org.teiid.core.TeiidComponentException;
 
 public class TestBufferFrontedFileStoreCache {
@@ -228,6 +229,80 @@ public class TestBufferFrontedFileStoreCache {
 		Mockito.verify(bmi, Mockito.atLeastOnce()).invalidCacheGroup(Long.valueOf(1));
 	}
 
+	@Test public void testAdmission() throws Exception {
+		cache = createLayeredCache(1<<15, 1<<15, true, true);
+		Serializer<Integer> s = new SimpleSerializer();
+		WeakReference<? extends Serializer<?>> ref = new WeakReference<Serializer<?>>(s);
+		cache.createCacheGroup(s.getId());
+		
+		//fill the memory buffer with single block entries
+		for (long i = 1; i <= 3; i++) {
+			addSingleBlock(cache, s, ref, i);
+		}
+		get(cache, 1l, s);
+		for (int i = 0; i < 3; i++) {
+			get(cache, 2l, s);
+			get(cache, 3l, s);
+		}
+		assertEquals(7, cache.getMemoryHits());
+		assertEquals(0, cache.getStorageWrites());
+		
+		//evicts 1
+		addSingleBlock(cache, s, ref, 4l);
+		assertEquals(1, cache.getStorageWrites());
+		
+		//1 is less frequently used than 2, so it's read directly from storage
+		assertEquals(Integer.valueOf(1000), get(cache, 1l, s).getObject());
+		assertEquals(1, cache.getAdmissionRejects());
+		assertEquals(Integer.valueOf(1000), get(cache, 1l, s).getObject());
+		assertEquals(2, cache.getAdmissionRejects());
+		assertEquals(1, cache.getStorageWrites());
+		
+		//now 1 is promoted, which evicts 2
+		assertEquals(Integer.valueOf(1000), get(cache, 1l, s).getObject());
+		assertEquals(2, cache.getAdmissionRejects());
+		assertEquals(2, cache.getStorageWrites());
+		assertEquals(3, cache.getStorageReads());
+		assertEquals(Integer.valueOf(1000), get(cache, 1l, s).getObject());
+		assertEquals(8, cache.getMemoryHits());
+		
+		StorageTierStatistics stats = cache.getStorageTierStatistics().get(0);
+		assertEquals(BufferFrontedFileStoreCache.BLOCK_SIZE, stats.getBlockSize());
+		assertEquals(3, stats.getReads());
+		assertEquals(2, stats.getWrites());
+		assertEquals(2, stats.getBlocksInUse());
+	}
+	
+	@Test public void testAdmissionDisabled() throws Exception {
+		cache = createLayeredCache(1<<15, 1<<15, true);
+		Serializer<Integer> s = new SimpleSerializer();
+		WeakReference<? extends Serializer<?>> ref = new WeakReference<Serializer<?>>(s);
+		cache.createCacheGroup(s.getId());
+		
+		for (long i = 1; i <= 3; i++) {
+			addSingleBlock(cache, s, ref, i);
+		}
+		for (int i = 0; i < 3; i++) {
+			get(cache, 2l, s);
+			get(cache, 3l, s);
+		}
+		addSingleBlock(cache, s, ref, 4l);
+		
+		//always promoted
+		assertEquals(Integer.valueOf(1000), get(cache, 1l, s).getObject());
+		assertEquals(0, cache.getAdmissionRejects());
+		assertEquals(2, cache.getStorageWrites());
+	}
+
+	private void addSingleBlock(BufferFrontedFileStoreCache cache, Serializer<Integer> s,
+			WeakReference<? extends Serializer<?>> ref, long id) {
+		CacheEntry ce = new CacheEntry(id);
+		ce.setSerializer(ref);
+		ce.setObject(Integer.valueOf(1000));
+		cache.addToCacheGroup(s.getId(), ce.getId());
+		cache.add(ce, s);
+	}
+
 	private void add(BufferFrontedFileStoreCache cache, Serializer<Integer> s,
 			WeakReference<? extends Serializer<?>> ref, int i) {
 		CacheEntry ce = new CacheEntry(Long.valueOf(i));
@@ -239,7 +314,12 @@ public class TestBufferFrontedFileStoreCache {
 	}
 
 	private static BufferFrontedFileStoreCache createLayeredCache(int bufferSpace, int objectSize, boolean memStorage) throws TeiidComponentException {
+		return createLayeredCache(bufferSpace, objectSize, memStorage, false);
+	}
+	
+	private static BufferFrontedFileStoreCache createLayeredCache(int bufferSpace, int objectSize, boolean memStorage, boolean admissionFiltering) throws TeiidComponentException {
 		BufferFrontedFileStoreCache fsc = new BufferFrontedFileStoreCache();
+		fsc.setAdmissionFiltering(admissionFiltering);
 		fsc.cleanerRunning.set(true); //prevent async affects
 		fsc.setMemoryBufferSpace(bufferSpace);
 		fsc.setMaxStorageObjectSize(objectSize);
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.Test;
 import org.teiid.adminapi.impl.SessionMetadata;
@@ -32,8 +33,11 @@ import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManager.BufferReserveMode;
 import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.CacheEntry;
 import org.teiid.common.buffer.FileStore;
+import org.teiid.common.buffer.Serializer;
 import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
 import org.teiid.common.buffer.impl.BufferManagerImpl.BatchManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.types.DataTypeManager;
@@ -188,6 +192,90 @@ public class TestBufferManagerImpl {
 		assertEquals(processorBatchSize/8, bm.getProcessorBatchSize(elements));
     }
     
+    @Test public void testWriteBehind() throws Exception {
+        BufferManagerImpl bufferManager = new BufferManagerImpl();
+        bufferManager.setMaxReserveKB(256);
+        bufferManager.setWriteBehindThreads(2);
+        BufferManagerFactory.initBufferManager(bufferManager);
+        ElementSymbol a = new ElementSymbol("a");
+        a.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol b = new ElementSymbol("b");
+        b.setType(DataTypeManager.DefaultDataClasses.STRING);
+        TupleBuffer tb = bufferManager.createTupleBuffer(Arrays.asList(a, b), "x", TupleSourceType.PROCESSOR);
+        int rows = 50000;
+        for (int i = 0; i < rows; i++) {
+            tb.addTuple(Arrays.asList(i, "value " + i));
+        }
+        tb.close();
+        TupleSource ts = tb.createIndexedTupleSource();
+        for (int i = 0; i < rows; i++) {
+            assertEquals(Arrays.asList(i, "value " + i), ts.nextTuple());
+        }
+        assertNull(ts.nextTuple());
+        long end = System.currentTimeMillis() + 10000;
+        while (bufferManager.getWriteBehindPendingCount() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, bufferManager.getWriteBehindPendingBytes());
+        assertTrue(bufferManager.getWriteBehindCount() > 0);
+        assertTrue(bufferManager.getWriteCount() > 0);
+        tb.remove();
+        bufferManager.shutdown();
+    }
+    
+    @Test public void testWriteBehindBackPressure() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        BufferManagerImpl bufferManager = new BufferManagerImpl();
+        bufferManager.setMaxReserveKB(256);
+        bufferManager.setWriteBehindThreads(1);
+        bufferManager.setWriteBehindMaxBytes(1 << 16);
+        //stall the background writer so that the pending bytes can only grow
+        bufferManager.setCache(new MemoryStorageManager() {
+            @Override
+            public boolean add(CacheEntry entry, Serializer<?> s) {
+                if (Thread.currentThread().getName().startsWith("BufferManager Writer")) {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.add(entry, s);
+            }
+        });
+        bufferManager.initialize();
+        bufferManager.setUseWeakReferences(false);
+        ElementSymbol a = new ElementSymbol("a");
+        a.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol b = new ElementSymbol("b");
+        b.setType(DataTypeManager.DefaultDataClasses.STRING);
+        TupleBuffer tb = bufferManager.createTupleBuffer(Arrays.asList(a, b), "x", TupleSourceType.PROCESSOR);
+        int rows = 50000;
+        for (int i = 0; i < rows; i++) {
+            tb.addTuple(Arrays.asList(i, "value " + i));
+        }
+        tb.close();
+        //once the budget was exceeded the evicting thread wrote for itself
+        assertTrue(bufferManager.getWriteBehindCallerWriteCount() > 0);
+        assertTrue(bufferManager.getWriteBehindPendingCount() > 0);
+        assertEquals(0, bufferManager.getWriteBehindCount());
+        
+        latch.countDown();
+        TupleSource ts = tb.createIndexedTupleSource();
+        for (int i = 0; i < rows; i++) {
+            assertEquals(Arrays.asList(i, "value " + i), ts.nextTuple());
+        }
+        assertNull(ts.nextTuple());
+        long end = System.currentTimeMillis() + 10000;
+        while (bufferManager.getWriteBehindPendingCount() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, bufferManager.getWriteBehindPendingBytes());
+        assertTrue(bufferManager.getWriteBehindCount() > 0);
+        tb.remove();
+        bufferManager.shutdown();
+    }
+    
     @Test public void testRemovedException() throws TeiidComponentException {
         BufferManagerImpl bufferManager = new BufferManagerImpl();
         bufferManager.setCache(new MemoryStorageManager());
@@ -24,12 +24,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.Test;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.FileStore.FileStoreOutputStream;
+import org.teiid.common.buffer.impl.FileStorageManager.FileAccessMode;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.util.UnitTestUtil;
 
@@ -151,6 +153,84 @@ public class TestFileStorageManager {
     	fsos.close();
     }
 
+    @Test public void testChannelAccess() throws Exception {
+    	helpTestAccessMode(FileAccessMode.CHANNEL);
+    }
+    
+    @Test public void testMappedAccess() throws Exception {
+    	helpTestAccessMode(FileAccessMode.MAPPED);
+    }
+
+	private void helpTestAccessMode(FileAccessMode mode) throws Exception {
+		FileStorageManager sm = getStorageManager(null, null);
+    	sm.setFileAccessMode(mode);
+    	FileStore store = sm.createFileStore("0");
+    	assertEquals(-1, store.read(0, new byte[1], 0, 1));
+    	writeBytes(store);
+    	
+    	//span the first mapped segment
+    	store.setLength(FileStorageManager.MAPPED_SEGMENT_SIZE + 4096);
+    	long[] offsets = new long[] {0, FileStorageManager.MAPPED_SEGMENT_SIZE - 1024, FileStorageManager.MAPPED_SEGMENT_SIZE};
+    	for (long offset : offsets) {
+	    	writeBytes(store, offset);
+	    	
+	    	ByteBuffer[] buffers = new ByteBuffer[] {ByteBuffer.allocate(1024), ByteBuffer.allocateDirect(1024)};
+	    	r.nextBytes(buffers[0].array());
+	    	buffers[1].put(buffers[0].array()).flip();
+	    	store.write(offset, buffers);
+	    	assertEquals(0, buffers[0].remaining());
+	    	assertEquals(0, buffers[1].remaining());
+	    	
+	    	ByteBuffer[] read = new ByteBuffer[] {ByteBuffer.allocateDirect(1024), ByteBuffer.allocate(1024)};
+	    	store.readFully(offset, read);
+	    	buffers[0].flip();
+	    	buffers[1].flip();
+	    	read[0].flip();
+	    	read[1].flip();
+	    	assertEquals(buffers[0], read[0]);
+	    	assertEquals(buffers[1], read[1]);
+    	}
+    	assertEquals(FileStorageManager.MAPPED_SEGMENT_SIZE + 4096, sm.getUsedBufferSpace());
+    	
+    	store.setLength(100);
+    	assertEquals(100, sm.getUsedBufferSpace());
+    	writeBytes(store, 0);
+    	store.remove();
+    	assertEquals(0, sm.getUsedBufferSpace());
+	}
+    
+    @Test public void testMappedTruncateAndRemove() throws Exception {
+    	FileStorageManager sm = getStorageManager(null, null);
+    	sm.setFileAccessMode(FileAccessMode.MAPPED);
+    	FileStore store = sm.createFileStore("0");
+    	store.setLength(FileStorageManager.MAPPED_SEGMENT_SIZE);
+    	writeBytes(store, 0);
+    	
+    	//the unmapped segment must be mapped again rather than reused
+    	store.setLength(100);
+    	store.setLength(FileStorageManager.MAPPED_SEGMENT_SIZE);
+    	writeBytes(store, 1024);
+    	
+    	store.remove();
+    	assertEquals(0, sm.getUsedBufferSpace());
+    }
+    
+    @Test public void testSplitGatherWrite() throws Exception {
+    	FileStorageManager sm = getStorageManager(null, null);
+    	sm.setFileAccessMode(FileAccessMode.CHANNEL);
+    	SplittableStorageManager ssm = new SplittableStorageManager(sm);
+    	ssm.setMaxFileSizeDirect(2048);
+    	FileStore store = ssm.createFileStore("0");
+    	byte[] bytes = new byte[3072];
+    	r.nextBytes(bytes);
+    	//the first write is within a single file, the second spans files
+    	store.write(0, ByteBuffer.wrap(bytes, 0, 1024), ByteBuffer.wrap(bytes, 1024, 512));
+    	store.write(1536, ByteBuffer.wrap(bytes, 1536, 1536));
+    	ByteBuffer result = ByteBuffer.allocate(3072);
+    	store.readFully(0, result);
+    	assertArrayEquals(bytes, result.array());
+    }
+
     static Random r = new Random();
     
 	static void writeBytes(FileStore store) throws IOException {
@@ -0,0 +1,53 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestFrequencySketch {
+	
+	@Test public void testIncrement() {
+		FrequencySketch sketch = new FrequencySketch(100);
+		assertEquals(0, sketch.frequency(1));
+		sketch.increment(1);
+		sketch.increment(1);
+		sketch.increment(2);
+		assertEquals(2, sketch.frequency(1));
+		assertEquals(1, sketch.frequency(2));
+		for (int i = 0; i < 20; i++) {
+			sketch.increment(1);
+		}
+		//saturates
+		assertEquals(15, sketch.frequency(1));
+	}
+	
+	@Test public void testReset() {
+		FrequencySketch sketch = new FrequencySketch(16);
+		for (int i = 0; i < 20; i++) {
+			sketch.increment(5);
+		}
+		for (int i = 0; i < sketch.getSampleSize(); i++) {
+			sketch.increment(1000 + i);
+		}
+		assertTrue(sketch.frequency(5) < 15);
+	}
+
+}
@@ -20,6 +20,13 @@ package org.teiid.common.buffer.impl;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
@@ -60,4 +67,75 @@ public class TestLrfuEvictionQueue {
         assertNotNull(q.firstEntry(true));
     }
 	
+	@Test public void testStripedOrdering() {
+		LrfuEvictionQueue<BaseCacheEntry> q = new LrfuEvictionQueue<BaseCacheEntry>(new AtomicLong(), 5);
+		assertEquals(8, q.getStripeCount());
+		Random r = new Random(1);
+		for (long i = 0; i < 1000; i++) {
+			q.add(new BaseCacheEntry(new CacheKey(i, r.nextInt(100), r.nextInt(100))));
+		}
+		assertEquals(1000, q.getSize());
+		CacheKey previous = null;
+		int count = 0;
+		for (BaseCacheEntry entry : q.getEvictionQueue()) {
+			assertTrue(previous == null || previous.compareTo(entry.getKey()) < 0);
+			previous = entry.getKey();
+			count++;
+		}
+		assertEquals(1000, count);
+		assertSame(q.getEvictionQueue().iterator().next(), q.firstEntry(false));
+		previous = null;
+		for (int i = 0; i < 500; i++) {
+			BaseCacheEntry entry = q.firstEntry(true);
+			assertTrue(previous == null || previous.compareTo(entry.getKey()) < 0);
+			previous = entry.getKey();
+		}
+		assertEquals(500, q.getSize());
+		q.getEvictionQueue().clear();
+		assertEquals(0, q.getSize());
+		assertNull(q.firstEntry(true));
+	}
+	
+	@Test public void testStripedConcurrentTouch() throws Exception {
+		final AtomicLong clock = new AtomicLong();
+		final LrfuEvictionQueue<BaseCacheEntry> q = new LrfuEvictionQueue<BaseCacheEntry>(clock, 4);
+		final List<BaseCacheEntry> entries = new ArrayList<BaseCacheEntry>();
+		for (long i = 0; i < 100; i++) {
+			BaseCacheEntry entry = new BaseCacheEntry(new CacheKey(i, 0, 0));
+			entries.add(entry);
+			q.add(entry);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < 4; t++) {
+				final int offset = t;
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						for (int i = 0; i < 10000; i++) {
+							BaseCacheEntry entry = entries.get((i*4 + offset)%entries.size());
+							synchronized (entry) {
+								clock.addAndGet(LrfuEvictionQueue.MIN_INTERVAL);
+								q.touch(entry);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(100, q.getSize());
+		int count = 0;
+		while (q.firstEntry(true) != null) {
+			count++;
+		}
+		assertEquals(100, count);
+	}
+	
 }
@@ -23,6 +23,8 @@ import static org.junit.Assert.*;
 import java.sql.ResultSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Properties;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -62,6 +64,7 @@ import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
 import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.Options;
 import org.teiid.translator.SourceSystemFunctions;
 
 @SuppressWarnings("nls")
@@ -401,6 +404,42 @@ public class TestDQPCore {
         assertEquals(8, item.resultsBuffer.getRowCount());
     }
     
+    @Test public void testPipelinedCursorRequests() throws Exception {
+    	//the sql should return 400 rows
+        String sql = "SELECT A.IntKey FROM BQT1.SmallA as A, BQT1.SmallA as B, (select intkey from BQT1.SmallA limit 4) as C"; //$NON-NLS-1$
+        
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setCursorType(ResultSet.TYPE_FORWARD_ONLY);
+        DQPWorkContext.getWorkContext().getSession().setSessionId("1"); //$NON-NLS-1$
+        DQPWorkContext.getWorkContext().getSession().setUserName("1"); //$NON-NLS-1$
+        ((BufferManagerImpl)core.getBufferManager()).setProcessorBatchSize(1);
+        Future<ResultsMessage> message = core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        ResultsMessage rm = message.get(500000, TimeUnit.MILLISECONDS);
+        assertNull(rm.getException());
+        int rowCount = rm.getResultsList().size();
+        
+        //request several batches ahead, the later requests continue from the prior
+        LinkedList<Future<ResultsMessage>> requests = new LinkedList<Future<ResultsMessage>>();
+        requests.add(core.processCursorRequest(reqMsg.getExecutionId(), rm.getLastRow() + 1, 50));
+        boolean done = false;
+        while (!requests.isEmpty()) {
+        	while (!done && requests.size() < 4) {
+        		requests.add(core.processCursorRequest(reqMsg.getExecutionId(), 0, 50));
+        	}
+        	rm = requests.removeFirst().get(5000, TimeUnit.MILLISECONDS);
+        	assertNull(rm.getException());
+        	if (done) {
+        		//answered without results after the final row
+        		assertTrue(rm.getLastRow() < rm.getFirstRow());
+        		continue;
+        	}
+        	assertEquals(rowCount + 1, rm.getFirstRow());
+        	rowCount = rm.getLastRow();
+        	done = rm.getLastRow() == rm.getFinalRow();
+        }
+        assertEquals(400, rowCount);
+    }
+    
     @Test public void testBufferReuse() throws Exception {
     	//the sql should return 100 rows
         String sql = "SELECT A.IntKey FROM BQT1.SmallA as A, BQT1.SmallA as B ORDER BY A.IntKey"; //$NON-NLS-1$
@@ -610,6 +649,24 @@ public class TestDQPCore {
         assertEquals(3, this.core.getPrepPlanCache().getCacheHitCount());
     }
 
+    @Test public void testAutoParameterizedPlan() throws Exception {
+        core.stop();
+        Properties props = new Properties();
+        props.setProperty(Options.AUTO_PARAMETERIZE, "true");
+        config.setProperties(props);
+        core.start(config);
+        
+        helpExecute("SELECT IntKey FROM BQT1.SmallA WHERE IntKey = 1 AND StringKey LIKE 'a%'", "a");
+        helpExecute("SELECT IntKey FROM BQT1.SmallA WHERE IntKey = 2 AND StringKey LIKE 'a%'", "a");
+        //the match pattern is not parameterized
+        helpExecute("SELECT IntKey FROM BQT1.SmallA WHERE IntKey = 2 AND StringKey LIKE 'b%'", "a");
+        //no literals
+        helpExecute("SELECT IntKey FROM BQT1.SmallA", "a");
+        
+        assertEquals(3, this.core.getPrepPlanCache().getParameterizedRequestCount());
+        assertEquals(1, this.core.getPrepPlanCache().getParameterizedHitCount());
+    }
+
 	private void helpTestPlanInvalidation(String query) throws InterruptedException,
 			ExecutionException, TimeoutException, TeiidProcessingException {
 		String sql = "insert into #temp select * FROM vqt.SmallB"; //$NON-NLS-1$
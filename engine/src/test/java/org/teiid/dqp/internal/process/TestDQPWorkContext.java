@@ -160,5 +160,7 @@ public class TestDQPWorkContext {
 	@Test public void testVersion() {
         assertEquals(4, DQPWorkContext.Version.getVersion("11.0").getClientSerializationVersion());
         assertEquals(5, DQPWorkContext.Version.getVersion("11.2").getClientSerializationVersion());
+        assertEquals(5, DQPWorkContext.Version.getVersion("12.0.0").getClientSerializationVersion());
+        assertEquals(6, DQPWorkContext.Version.getVersion("12.1.0-SNAPSHOT").getClientSerializationVersion());
     }
 }
@@ -42,7 +42,9 @@ import org.teiid.dqp.message.RequestID;
 import org.teiid.dqp.service.AutoGenDataService;
 import org.teiid.dqp.service.FakeBufferService;
 import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.metadata.Schema;
 import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
 import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.RegisterRequestParameter;
@@ -331,6 +333,46 @@ public class TestDataTierManager {
     	assertFalse(rrp.doNotCache);
     }
     
+    @Test public void testModelCaching() throws Exception {
+    	TransformationMetadata metadata = RealMetadataFactory.exampleBQT();
+    	Schema schema = metadata.getMetadataStore().getSchema("BQT1");
+    	schema.setProperty(DataTierManagerImpl.SOURCE_CACHE_TTL, "60000");
+    	helpSetupDataTierManager();
+    	Command command = helpSetupRequest("SELECT stringkey from bqt1.smalla", 1, metadata).getCommand();
+    	context.setMetadata(metadata);
+    	RegisterRequestParameter rrp = new RegisterRequestParameter();
+    	rrp.connectorBindingId = "x";
+    	TupleSource ts = dtm.registerRequest(context, command, "BQT1", rrp);
+    	assertTrue(ts instanceof CachingTupleSource);
+    	assertEquals(10, pullTuples(ts, -1));
+    	ts.closeSource();
+    	assertEquals(1, this.rm.getRsCache().getCachePutCount());
+    	
+    	//user scoped by default, so another session can use the entry
+    	command = helpSetupRequest("SELECT stringkey from bqt1.smalla", 1, metadata).getCommand();
+    	context.setMetadata(metadata);
+    	this.context.getSession().setSessionId("different");
+    	rrp = new RegisterRequestParameter();
+    	rrp.connectorBindingId = "x";
+    	ts = dtm.registerRequest(context, command, "BQT1", rrp);
+    	assertFalse(ts instanceof CachingTupleSource);
+    	assertEquals(10, pullTuples(ts, -1));
+    	assertEquals(1, connectorManager.getExecuteCount().get());
+    	
+    	//results over the max rows are not cached
+    	schema.setProperty(DataTierManagerImpl.SOURCE_CACHE_MAX_ROWS, "5");
+    	command = helpSetupRequest("SELECT intkey from bqt1.smalla", 1, metadata).getCommand();
+    	context.setMetadata(metadata);
+    	rrp = new RegisterRequestParameter();
+    	rrp.connectorBindingId = "x";
+    	ts = dtm.registerRequest(context, command, "BQT1", rrp);
+    	assertTrue(ts instanceof CachingTupleSource);
+    	assertEquals(10, pullTuples(ts, -1));
+    	ts.closeSource();
+    	assertEquals(2, connectorManager.getExecuteCount().get());
+    	assertEquals(1, this.rm.getRsCache().getCachePutCount());
+    }
+    
     @Test public void testCancelWithCaching() throws Exception {
     	QueryMetadataInterface metadata = RealMetadataFactory.exampleBQTCached();
     	CacheDirective cd = new CacheDirective();
@@ -54,6 +54,7 @@ import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.lang.SetCriteria;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.translator.ExecutionFactory.NullOrder;
 
 @SuppressWarnings({"rawtypes", "unchecked", "nls"})
@@ -1263,6 +1264,49 @@ public class TestDependentJoins {
         assertNull(s.getDependentValues());
 	}
 	
+    @Test public void testDependentJoinFilter() throws Exception {
+        String sql = "SELECT pm1.g1.e1, pm2.g1.e2 FROM pm1.g1, pm2.g1 WHERE pm1.g1.e2 = pm2.g1.e2 order by pm1.g1.e1 option makedep pm1.g1"; //$NON-NLS-1$
+        
+        List[] expected = new List[] { 
+            Arrays.asList("b", 1), //$NON-NLS-1$
+            Arrays.asList("d", 3), //$NON-NLS-1$
+            Arrays.asList("i", 8), //$NON-NLS-1$
+        };
+        
+        QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+        FakeDataManager dataManager = new FakeDataManager();
+        List[] dependent = new List[10];
+        for (int i = 0; i < dependent.length; i++) {
+        	dependent[i] = Arrays.asList(String.valueOf((char)('a' + i)), i, Boolean.FALSE, null);
+        }
+        dataManager.registerTuples(metadata, "pm1.g1", dependent);
+        dataManager.registerTuples(metadata, "pm2.g1", new List[] {
+        	Arrays.asList("x", 1, Boolean.FALSE, null), 
+        	Arrays.asList("y", 3, Boolean.FALSE, null),
+        	Arrays.asList("z", 8, Boolean.FALSE, null),
+        });
+        
+        BasicSourceCapabilities caps = TestOptimizer.getTypicalCapabilities();
+        caps.setSourceProperty(Capability.MAX_IN_CRITERIA_SIZE, 1);
+        caps.setSourceProperty(Capability.MAX_DEPENDENT_PREDICATES, 1);
+        caps.setCapabilitySupport(Capability.QUERY_ORDERBY, false);
+        
+        ProcessorPlan plan = TestProcessor.helpGetPlan(sql, metadata, new DefaultCapabilitiesFinder(caps));
+        TestProcessor.helpProcess(plan, dataManager, expected);
+        //one query per independent value
+        assertEquals(4, dataManager.getQueries().size());
+        
+        dataManager.clearQueries();
+        CommandContext cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options().dependentJoinFilterThreshold(1));
+        plan = TestProcessor.helpGetPlan(sql, metadata, new DefaultCapabilitiesFinder(caps));
+        TestProcessor.helpProcess(plan, cc, dataManager, expected);
+        //a single range query, with the non-matching rows filtered
+        assertEquals(2, dataManager.getQueries().size());
+        String query = dataManager.getQueries().get(1);
+        assertTrue(query, query.contains("pm1.g1.e2 >= 1") && query.contains("pm1.g1.e2 <= 8")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    
     @Test public void testFullDepJoin() throws Exception {
     	BasicSourceCapabilities caps = TestOptimizer.getTypicalCapabilities();
     	caps.setCapabilitySupport(Capability.FULL_DEPENDENT_JOIN, true);
@@ -50,6 +50,7 @@ import org.teiid.dqp.internal.process.CachedResults;
 import org.teiid.dqp.internal.process.PreparedPlan;
 import org.teiid.dqp.internal.process.QueryProcessorFactoryImpl;
 import org.teiid.dqp.internal.process.SessionAwareCache;
+import org.teiid.metadata.Column;
 import org.teiid.metadata.ColumnSet;
 import org.teiid.metadata.MetadataStore;
 import org.teiid.metadata.Procedure;
@@ -74,6 +75,7 @@ import org.teiid.query.optimizer.capabilities.FakeCapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
 import org.teiid.query.optimizer.relational.rules.RuleChooseDependent;
 import org.teiid.query.parser.QueryParser;
+import org.teiid.query.processor.relational.GroupingNode;
 import org.teiid.query.processor.relational.JoinNode;
 import org.teiid.query.processor.relational.RelationalNode;
 import org.teiid.query.processor.relational.RelationalPlan;
@@ -91,6 +93,7 @@ import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.unittest.TimestampUtil;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.query.validator.Validator;
 import org.teiid.query.validator.ValidatorReport;
 import org.teiid.translator.SourceSystemFunctions;
@@ -8068,6 +8071,143 @@ public class TestProcessor {
        dataManager.addData("SELECT v_0.c_0 FROM (SELECT DISTINCT 1 AS c_0, g_0.b AS c_1 FROM test_x AS g_0) AS v_0", new List<?>[] {Arrays.asList(1)});
        TestProcessor.helpProcess(plan, dataManager, new List<?>[] {Arrays.asList(2)});
    }
+   
+   @Test public void testColumnarBatches() throws Exception {
+       String sql = "SELECT e2, e4 FROM pm1.g1 WHERE e2 > 0 and e3 = false"; //$NON-NLS-1$
+       
+       List<?>[] expected = new List<?>[] { 
+           Arrays.asList(1, 1.0),
+           Arrays.asList(2, 0.0),
+       };    
+       
+       FakeDataManager dataManager = new FakeDataManager();
+       sampleData1(dataManager);
+       
+       ProcessorPlan plan = helpGetPlan(sql, RealMetadataFactory.example1Cached());
+       CommandContext cc = createCommandContext();
+       cc.setOptions(new Options().columnarBatches(true));
+       helpProcess(plan, cc, dataManager, expected);
+       
+       sql = "SELECT e3, sum(e2) FROM pm1.g1 GROUP BY e3"; //$NON-NLS-1$
+       
+       expected = new List<?>[] { 
+           Arrays.asList(false, 3l),
+           Arrays.asList(true, 4l),
+       };
+       
+       plan = helpGetPlan(sql, RealMetadataFactory.example1Cached());
+       cc = createCommandContext();
+       cc.setOptions(new Options().columnarBatches(true));
+       helpProcess(plan, cc, dataManager, expected);
+   }
+
+   @Test public void testHashJoin() throws Exception {
+       String sql = "SELECT pm1.g1.e1, pm2.g1.e2 FROM pm1.g1 LEFT OUTER JOIN pm2.g1 ON pm1.g1.e1 = pm2.g1.e1 ORDER BY pm1.g1.e1, pm2.g1.e2"; //$NON-NLS-1$
+       
+       List<?>[] expected = new List<?>[] { 
+           Arrays.asList(null, null),
+           Arrays.asList("a", 0),
+           Arrays.asList("a", 0),
+           Arrays.asList("a", 0),
+           Arrays.asList("a", 0),
+           Arrays.asList("a", 0),
+           Arrays.asList("a", 0),
+           Arrays.asList("a", 3),
+           Arrays.asList("a", 3),
+           Arrays.asList("a", 3),
+           Arrays.asList("b", 2),
+           Arrays.asList("c", 1),
+       };    
+       
+       FakeDataManager dataManager = new FakeDataManager();
+       sampleData1(dataManager);
+       
+       CommandContext cc = createCommandContext();
+       cc.setOptions(new Options().hashJoin(true));
+       ProcessorPlan plan = helpGetPlan(helpParse(sql), RealMetadataFactory.example1Cached(), DefaultCapabilitiesFinder.INSTANCE, cc);
+       assertTrue(plan.toString().contains("HASH JOIN")); //$NON-NLS-1$
+       helpProcess(plan, cc, dataManager, expected);
+   }
+
+   @Test public void testHashAggregationPlanned() throws Exception {
+       TransformationMetadata metadata = RealMetadataFactory.example1();
+       RealMetadataFactory.setCardinality("pm1.g1", 1000, metadata); //$NON-NLS-1$
+       ((Column)metadata.getElementID("pm1.g1.e1")).setDistinctValues(10); //$NON-NLS-1$
+       String sql = "SELECT e1, count(*) FROM pm1.g1 GROUP BY e1"; //$NON-NLS-1$
+       
+       CommandContext cc = createCommandContext();
+       cc.setOptions(new Options().hashAggregation(true));
+       ProcessorPlan plan = helpGetPlan(helpParse(sql), metadata, DefaultCapabilitiesFinder.INSTANCE, cc);
+       GroupingNode node = (GroupingNode)findNode(((RelationalPlan)plan).getRootNode(), GroupingNode.class);
+       assertTrue(node.isHashAggregate());
+       
+       //the estimated number of groups is not small enough
+       ((Column)metadata.getElementID("pm1.g1.e1")).setDistinctValues(500); //$NON-NLS-1$
+       plan = helpGetPlan(helpParse(sql), metadata, DefaultCapabilitiesFinder.INSTANCE, cc);
+       node = (GroupingNode)findNode(((RelationalPlan)plan).getRootNode(), GroupingNode.class);
+       assertFalse(node.isHashAggregate());
+   }
+   
+   private static RelationalNode findNode(RelationalNode node, Class<?> clazz) {
+       if (clazz.isInstance(node)) {
+           return node;
+       }
+       for (RelationalNode child : node.getChildren()) {
+           if (child == null) {
+               break;
+           }
+           RelationalNode result = findNode(child, clazz);
+           if (result != null) {
+               return result;
+           }
+       }
+       return null;
+   }
+
+   @Test public void testParallelUnionBranches() throws Exception {
+       String sql = "SELECT x, count(*) FROM TEXTTABLE('a\nb\nb\nc' COLUMNS x string) t GROUP BY x UNION ALL SELECT x, count(*) FROM TEXTTABLE('b\nd\ne' COLUMNS x string) t GROUP BY x ORDER BY 1, 2"; //$NON-NLS-1$
+       
+       List<?>[] expected = new List<?>[] { 
+           Arrays.asList("a", 1),
+           Arrays.asList("b", 1),
+           Arrays.asList("b", 2),
+           Arrays.asList("c", 1),
+           Arrays.asList("d", 1),
+           Arrays.asList("e", 1),
+       };    
+       
+       CommandContext cc = createCommandContext();
+       cc.setOptions(new Options().maxParallelism(4));
+       ProcessorPlan plan = helpGetPlan(helpParse(sql), RealMetadataFactory.example1Cached(), DefaultCapabilitiesFinder.INSTANCE, cc);
+       assertEquals(2, plan.toString().split("ExchangeNode").length - 1); //$NON-NLS-1$
+       //process the branches concurrently
+       for (int i = 0; i < 10; i++) {
+           helpProcess(plan.clone(), cc, new HardcodedDataManager(), expected);
+       }
+   }
+   
+   @Test public void testParallelUnionAccessBranches() throws Exception {
+       String sql = "SELECT e1, count(*) FROM pm1.g1 GROUP BY e1 UNION ALL SELECT e1, count(*) FROM pm2.g1 GROUP BY e1 ORDER BY 1, 2"; //$NON-NLS-1$
+       
+       List<?>[] expected = new List<?>[] { 
+           Arrays.asList("a", 1),
+           Arrays.asList("b", 1),
+           Arrays.asList("b", 2),
+           Arrays.asList("c", 1),
+           Arrays.asList("d", 1),
+           Arrays.asList("e", 1),
+       };    
+       
+       FakeDataManager dataManager = new FakeDataManager();
+       sampleData2a(dataManager);
+       
+       CommandContext cc = createCommandContext();
+       cc.setOptions(new Options().maxParallelism(4));
+       ProcessorPlan plan = helpGetPlan(helpParse(sql), RealMetadataFactory.example1Cached(), DefaultCapabilitiesFinder.INSTANCE, cc);
+       //branches with source access are not processed by another thread
+       assertFalse(plan.toString().contains("ExchangeNode")); //$NON-NLS-1$
+       helpProcess(plan, cc, dataManager, expected);
+   }
 	
     private static final boolean DEBUG = false;
 }
@@ -21,6 +21,7 @@ package org.teiid.query.processor;
 import static org.junit.Assert.*;
 
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -40,6 +41,7 @@ import org.teiid.api.exception.query.QueryResolverException;
 import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
@@ -52,7 +54,9 @@ import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.TestOptimizer.ComparisonMode;
+import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.tempdata.GlobalTableStoreImpl;
+import org.teiid.query.tempdata.TempTable;
 import org.teiid.query.tempdata.TempTableDataManager;
 import org.teiid.query.unittest.RealMetadataFactory;
 
@@ -170,6 +174,69 @@ public class TestTempTables extends TempTableTestHarness {
 		synch.afterCompletion(Status.STATUS_COMMITTED);
 	}
 
+	@Test public void testInsertOrdered() throws Exception {
+		GlobalTableStoreImpl gtsi = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), RealMetadataFactory.example1Cached().getVdbMetaData(), RealMetadataFactory.example1Cached());
+		tempStore = gtsi.getTempTableStore();
+		metadata = new TempMetadataAdapter(RealMetadataFactory.example1Cached(), tempStore.getMetadataStore());
+		execute("create local temporary table x (e1 integer, e2 string, primary key (e1))", new List[] {Arrays.asList(0)}); //$NON-NLS-1$
+		TempTable table = gtsi.getTempTable("X");
+		List<ElementSymbol> columns = table.getColumns();
+		TupleBuffer sorted = table.createPrimaryKeySort(new CollectionTupleSource(Arrays.asList(Arrays.asList(3, "c"), Arrays.asList(1, "a"), Arrays.asList(2, "b")).iterator()), columns).sort();
+		try {
+			assertEquals(3, table.insertOrdered(sorted.createIndexedTupleSource(), columns));
+		} finally {
+			sorted.remove();
+		}
+		execute("select e2 from x where e1 >= 2 order by e1", new List[] {Arrays.asList("b"), Arrays.asList("c")}); //$NON-NLS-1$
+		execute("select count(*) from x", new List[] {Arrays.asList(3)}); //$NON-NLS-1$
+	}
+	
+	@Test public void testInsertOrderedDuplicateKey() throws Exception {
+		GlobalTableStoreImpl gtsi = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), RealMetadataFactory.example1Cached().getVdbMetaData(), RealMetadataFactory.example1Cached());
+		tempStore = gtsi.getTempTableStore();
+		metadata = new TempMetadataAdapter(RealMetadataFactory.example1Cached(), tempStore.getMetadataStore());
+		execute("create local temporary table x (e1 integer, e2 string, primary key (e1))", new List[] {Arrays.asList(0)}); //$NON-NLS-1$
+		TempTable table = gtsi.getTempTable("X");
+		List<ElementSymbol> columns = table.getColumns();
+		TupleBuffer sorted = table.createPrimaryKeySort(new CollectionTupleSource(Arrays.asList(Arrays.asList(2, "a"), Arrays.asList(1, "b"), Arrays.asList(2, "c")).iterator()), columns).sort();
+		try {
+			table.insertOrdered(sorted.createIndexedTupleSource(), columns);
+			fail();
+		} catch (TeiidProcessingException e) {
+			assertEquals("TEIID30238", e.getCode());
+		} finally {
+			sorted.remove();
+		}
+	}
+	
+	@Test public void testSortedIndexBuild() throws Exception {
+		GlobalTableStoreImpl gtsi = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), RealMetadataFactory.example1Cached().getVdbMetaData(), RealMetadataFactory.example1Cached());
+		tempStore = gtsi.getTempTableStore();
+		metadata = new TempMetadataAdapter(RealMetadataFactory.example1Cached(), tempStore.getMetadataStore());
+		execute("create local temporary table x (e1 integer, e2 integer, primary key (e1))", new List[] {Arrays.asList(0)}); //$NON-NLS-1$
+		TempTable table = gtsi.getTempTable("X");
+		List<ElementSymbol> columns = table.getColumns();
+		List<List<?>> rows = new ArrayList<List<?>>();
+		List<List<?>> expected = new ArrayList<List<?>>();
+		for (int i = (1<<14) - 1; i >= 0; i--) {
+			rows.add(Arrays.asList(i, i%100));
+			if (i%100 == 7) {
+				expected.add(0, Arrays.asList(i));
+			}
+		}
+		TupleBuffer sorted = table.createPrimaryKeySort(new CollectionTupleSource(rows.iterator()), columns).sort();
+		try {
+			table.insertOrdered(sorted.createIndexedTupleSource(), columns);
+		} finally {
+			sorted.remove();
+		}
+		//the implicit index on e2 is built from a sort of the table rather than searched inserts
+		tempStore.setUpdatable("X", false);
+		table.setAllowImplicitIndexing(true);
+		execute("select e1 from x where e2 = 7 order by e1", expected.toArray(new List[expected.size()])); //$NON-NLS-1$
+		execute("select count(*) from x where e2 = 99", new List[] {Arrays.asList(163)}); //$NON-NLS-1$
+	}
+	
 	private void setupTransaction(int isolation) throws RollbackException, SystemException {
 		txn = Mockito.mock(Transaction.class);
 		Mockito.doAnswer(new Answer<Void>() {
@@ -22,6 +22,10 @@ import static org.junit.Assert.*;
 import static org.teiid.query.optimizer.TestOptimizer.*;
 import static org.teiid.query.processor.TestProcessor.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -48,6 +52,7 @@ import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.sql.lang.Command;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.query.validator.TestValidator;
 
 @SuppressWarnings({"unchecked", "nls"})
@@ -417,6 +422,67 @@ public class TestTextTable {
         helpProcess(plan, createCommandContext(), dataManager, expectedResults);
     }
 	
+	@Test public void testParallelSplits() throws Exception {
+		StringBuilder text = new StringBuilder("id,val\n");
+		List<List<?>> expected = new ArrayList<List<?>>();
+		for (int i = 1; i <= 50; i++) {
+			String val = null;
+			if (i % 7 == 0) {
+				//quoted new lines may cross a split boundary
+				val = "multi\nlin\u00e9 " + i;
+				text.append(i).append(",\"").append(val).append("\"\n");
+			} else {
+				val = "valu\u00e9 " + i;
+				text.append(i).append(',').append(val).append("\r\n");
+			}
+			expected.add(Arrays.asList(i, i, val));
+		}
+		File f = UnitTestUtil.getTestScratchFile("parallel.csv");
+		try (FileOutputStream fos = new FileOutputStream(f)) {
+			fos.write(text.toString().getBytes(Charset.forName("UTF-8")));
+		}
+		String sql = "select x.* from texttable(? COLUMNS n for ordinality, id integer, val string HEADER) x";
+		
+		Command command = helpParse(sql);
+		CommandContext cc = createCommandContext();
+		cc.setOptions(new Options().maxParallelism(4).textTableSplitSize(16));
+		cc.setMetadata(RealMetadataFactory.example1Cached());
+		setParameterValues(Arrays.asList(new ClobType(new ClobImpl(new InputStreamFactory.FileInputStreamFactory(f), -1))), command, cc);
+		ProcessorPlan plan = helpGetPlan(command, RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), cc);
+		helpProcess(plan, cc, new FakeDataManager(), expected.toArray(new List<?>[expected.size()]));
+	}
+	
+	@Test public void testParallelSplitsMalformedInput() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		baos.write("id,val\n".getBytes(Charset.forName("UTF-8")));
+		for (int i = 1; i <= 50; i++) {
+			baos.write((i + ",valu\u00e9 " + i + "\n").getBytes(Charset.forName("UTF-8")));
+			if (i == 40) {
+				//an invalid utf-8 sequence after the first splits
+				baos.write(new byte[] {'4', '1', ',', (byte)0xc3, '\n'});
+			}
+		}
+		File f = UnitTestUtil.getTestScratchFile("malformed.csv");
+		try (FileOutputStream fos = new FileOutputStream(f)) {
+			fos.write(baos.toByteArray());
+		}
+		String sql = "select x.* from texttable(? COLUMNS n for ordinality, id integer, val string HEADER) x";
+		
+		Command command = helpParse(sql);
+		CommandContext cc = createCommandContext();
+		cc.setOptions(new Options().maxParallelism(4).textTableSplitSize(16));
+		cc.setMetadata(RealMetadataFactory.example1Cached());
+		setParameterValues(Arrays.asList(new ClobType(new ClobImpl(new InputStreamFactory.FileInputStreamFactory(f), -1))), command, cc);
+		ProcessorPlan plan = helpGetPlan(command, RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), cc);
+		try {
+			helpProcess(plan, cc, new FakeDataManager(), null);
+			fail();
+		} catch (TeiidProcessingException e) {
+			//reported by the serial reader, the same as without splitting
+			assertTrue(e.getCause().getMessage(), e.getCause().getMessage().startsWith("TEIID10082"));
+		}
+	}
+	
 	public static ClobType clobFromFile(final String file) {
 		return new ClobType(new ClobImpl(new InputStreamFactory.FileInputStreamFactory(UnitTestUtil.getTestDataFile(file)), -1));
 	}
@@ -0,0 +1,147 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.eval;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.teiid.common.buffer.ColumnarTupleBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.eval.VectorizedCriteria;
+import org.teiid.query.sql.lang.BetweenCriteria;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.MatchCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+@SuppressWarnings("nls")
+public class TestVectorizedCriteria {
+
+	private static final Class<?>[] TYPES = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.DOUBLE, DataTypeManager.DefaultDataClasses.INTEGER};
+
+	private ElementSymbol x = getElement("x", DataTypeManager.DefaultDataClasses.INTEGER);
+	private ElementSymbol y = getElement("y", DataTypeManager.DefaultDataClasses.STRING);
+	private ElementSymbol z = getElement("z", DataTypeManager.DefaultDataClasses.DOUBLE);
+	private ElementSymbol w = getElement("w", DataTypeManager.DefaultDataClasses.INTEGER);
+
+	private static ElementSymbol getElement(String name, Class<?> type) {
+		ElementSymbol es = new ElementSymbol(name);
+		es.setType(type);
+		return es;
+	}
+
+	private ColumnarTupleBatch exampleBatch() {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < 20; i++) {
+			rows.add(Arrays.asList(i%5==0?null:i, i%4==0?null:"v" + i%3, i%7==0?null:i/2.0, 10 - i));
+		}
+		return ColumnarTupleBatch.create(1, TYPES, rows);
+	}
+
+	/**
+	 * Check the kernel result against row by row evaluation
+	 */
+	private void helpTest(Criteria crit, boolean vectorized) throws Exception {
+		Map<Expression, Integer> elements = new HashMap<Expression, Integer>();
+		elements.put(x, 0);
+		elements.put(y, 1);
+		elements.put(z, 2);
+		elements.put(w, 3);
+		ColumnarTupleBatch batch = exampleBatch();
+		Evaluator eval = new Evaluator(elements, null, new CommandContext());
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < batch.getRowCount(); i++) {
+			if (eval.evaluate(crit, batch.getTuples().get(i))) {
+				expected.add(i);
+			}
+		}
+		VectorizedCriteria kernel = VectorizedCriteria.compile(crit, elements);
+		assertEquals(vectorized, kernel.isVectorized());
+		int[] selection = new int[batch.getRowCount()];
+		for (int i = 0; i < selection.length; i++) {
+			selection[i] = i;
+		}
+		int count = kernel.select(batch, selection, selection.length, eval);
+		List<Integer> actual = new ArrayList<Integer>();
+		for (int i = 0; i < count; i++) {
+			actual.add(selection[i]);
+		}
+		assertEquals(expected, actual);
+	}
+
+	@Test public void testCompare() throws Exception {
+		helpTest(new CompareCriteria(x, CompareCriteria.GT, new Constant(7)), true);
+		helpTest(new CompareCriteria(new Constant(7), CompareCriteria.GT, x), true);
+		helpTest(new CompareCriteria(z, CompareCriteria.LE, new Constant(3.5)), true);
+		helpTest(new CompareCriteria(y, CompareCriteria.NE, new Constant("v1")), true);
+		helpTest(new CompareCriteria(x, CompareCriteria.GE, w), true);
+		helpTest(new CompareCriteria(x, CompareCriteria.EQ, new Constant(null, DataTypeManager.DefaultDataClasses.INTEGER)), true);
+	}
+
+	@Test public void testIn() throws Exception {
+		SetCriteria crit = new SetCriteria(x, Arrays.asList(new Constant(1), new Constant(3), new Constant(11)));
+		crit.setAllConstants(true);
+		helpTest(crit, true);
+		crit.setNegated(true);
+		helpTest(crit, true);
+		crit = new SetCriteria(x, Arrays.asList(new Constant(1), new Constant(null, DataTypeManager.DefaultDataClasses.INTEGER)));
+		crit.setAllConstants(true);
+		helpTest(crit, true);
+		crit.setNegated(true);
+		helpTest(crit, true);
+		crit = new SetCriteria(y, Arrays.asList(new Constant("v0"), new Constant("v2")));
+		crit.setAllConstants(true);
+		helpTest(crit, true);
+	}
+
+	@Test public void testBetweenAndIsNull() throws Exception {
+		helpTest(new BetweenCriteria(x, new Constant(3), new Constant(12)), true);
+		helpTest(new IsNullCriteria(y), true);
+		IsNullCriteria crit = new IsNullCriteria(z);
+		crit.setNegated(true);
+		helpTest(crit, true);
+	}
+
+	@Test public void testCompound() throws Exception {
+		Criteria crit = new CompoundCriteria(CompoundCriteria.OR, new CompareCriteria(x, CompareCriteria.LT, new Constant(4)), new IsNullCriteria(y));
+		helpTest(crit, true);
+		helpTest(new CompoundCriteria(CompoundCriteria.AND, crit, new CompareCriteria(z, CompareCriteria.GT, new Constant(0.5))), true);
+	}
+
+	@Test public void testRowFallback() throws Exception {
+		Criteria like = new MatchCriteria(y, new Constant("%1"));
+		helpTest(like, false);
+		helpTest(new CompoundCriteria(CompoundCriteria.AND, like, new CompareCriteria(x, CompareCriteria.GT, new Constant(2))), false);
+		helpTest(new CompoundCriteria(CompoundCriteria.OR, like, new CompareCriteria(x, CompareCriteria.GT, new Constant(15))), false);
+	}
+
+}
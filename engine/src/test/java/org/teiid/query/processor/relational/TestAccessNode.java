@@ -21,12 +21,16 @@ package org.teiid.query.processor.relational;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.metadata.Table;
+import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.FakeDataManager;
+import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.TestProcessor;
 import org.teiid.query.resolver.TestResolver;
 import org.teiid.query.sql.lang.Command;
@@ -40,6 +44,7 @@ import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 
 
@@ -127,4 +132,28 @@ public class TestAccessNode {
     @Test public void testUninitailizedClose() throws Exception {
     	new AccessNode().close();
     }
+    @Test public void testCardinalityFeedback() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Table table = (Table)metadata.getGroupID("pm1.g1"); //$NON-NLS-1$
+        assertEquals(Table.UNKNOWN_CARDINALITY, table.getCardinality());
+        FakeDataManager dataManager = new FakeDataManager();
+        dataManager.registerTuples(metadata, "pm1.g1", new List[] { //$NON-NLS-1$
+                Arrays.asList("a", 0, Boolean.FALSE, 2.0), //$NON-NLS-1$
+                Arrays.asList("b", 1, Boolean.TRUE, null), //$NON-NLS-1$
+                Arrays.asList("c", 2, Boolean.FALSE, 0.0)}); //$NON-NLS-1$
+        
+        //not a full scan
+        ProcessorPlan plan = TestProcessor.helpGetPlan("select e1 from pm1.g1 where e2 = 1", metadata); //$NON-NLS-1$
+        CommandContext cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options().cardinalityFeedback(true));
+        TestProcessor.helpProcess(plan, cc, dataManager, new List[] {Arrays.asList("b")}); //$NON-NLS-1$
+        assertEquals(Table.UNKNOWN_CARDINALITY, table.getCardinality());
+        
+        plan = TestProcessor.helpGetPlan("select e1 from pm1.g1", metadata); //$NON-NLS-1$
+        cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options().cardinalityFeedback(true));
+        TestProcessor.helpProcess(plan, cc, dataManager, new List[] {Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c")}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(3, table.getCardinality());
+    }
+
 }
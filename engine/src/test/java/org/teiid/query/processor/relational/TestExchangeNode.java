@@ -0,0 +1,103 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
+
+@SuppressWarnings({"nls", "unchecked"})
+public class TestExchangeNode {
+
+	private List<?> helpProcess(int maxParallelism, int rows, boolean parallel) throws Exception {
+		ElementSymbol x = new ElementSymbol("x");
+		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		List<ElementSymbol> elements = Arrays.asList(x);
+		List[] data = new List[rows];
+		for (int i = 0; i < rows; i++) {
+			data[i] = Arrays.asList(i);
+		}
+		BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
+		CommandContext context = new CommandContext("pid", "test", null, null, 1);
+		context.setOptions(new Options().maxParallelism(maxParallelism));
+
+		FakeRelationalNode child = new FakeRelationalNode(2, data, 3);
+		child.setElements(elements);
+		child.initialize(context, mgr, null);
+		ExchangeNode node = new ExchangeNode(1);
+		node.setElements(elements);
+		node.addChild(child);
+		node.initialize(context, mgr, null);
+		node.open();
+		//no additional worker is allowed
+		assertFalse(context.reserveParallelWorker());
+
+		List<Object> result = new ArrayList<Object>();
+		long end = System.currentTimeMillis() + 10000;
+		while (true) {
+			try {
+				TupleBatch batch = node.nextBatch();
+				for (List<?> tuple : batch.getTuples()) {
+					result.add(tuple.get(0));
+				}
+				if (batch.getTerminationFlag()) {
+					break;
+				}
+			} catch (BlockedException e) {
+				assertTrue(parallel);
+				assertTrue(System.currentTimeMillis() < end);
+				Thread.sleep(1);
+			}
+		}
+		assertTrue(node.isClosed());
+		//the worker has been released
+		assertEquals(parallel, context.reserveParallelWorker());
+		return result;
+	}
+
+	@Test public void testParallel() throws Exception {
+		List<?> result = helpProcess(2, 100, true);
+		assertEquals(100, result.size());
+		for (int i = 0; i < result.size(); i++) {
+			assertEquals(i, result.get(i));
+		}
+	}
+
+	@Test public void testParallelEmpty() throws Exception {
+		assertEquals(0, helpProcess(2, 0, true).size());
+	}
+
+	@Test public void testSerial() throws Exception {
+		List<?> result = helpProcess(1, 10, false);
+		assertEquals(10, result.size());
+	}
+
+}
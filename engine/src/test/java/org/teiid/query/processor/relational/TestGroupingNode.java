@@ -24,6 +24,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -478,6 +479,98 @@ public class TestGroupingNode {
         helpProcess(mgr, node, context, expected, null);
     }
 
+    private GroupingNode getHashGroupingNode(boolean hash) {
+		GroupingNode node = new GroupingNode(1);
+        List outputElements = new ArrayList();
+        ElementSymbol col1 = new ElementSymbol("col1"); //$NON-NLS-1$
+        col1.setType(Integer.class);
+        ElementSymbol col2 = new ElementSymbol("col2"); //$NON-NLS-1$
+        col2.setType(Integer.class);
+        outputElements.add(col1);
+        outputElements.add(new AggregateSymbol("COUNT", false, null)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("SUM", false, col2)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("MAX", false, col2)); //$NON-NLS-1$
+        node.setElements(outputElements);
+        
+        List groupingElements = new ArrayList();
+        groupingElements.add(col1); 
+        node.setOrderBy(new OrderBy(groupingElements).getOrderByItems());
+        node.setHashAggregate(hash);
+		return node;
+    }
+    
+    private HashSet<List<?>> helpProcessUnordered(BufferManager mgr, GroupingNode node) throws Exception {
+        return helpProcessUnordered(mgr, node, createTupleSource1());
+    }
+    
+    private HashSet<List<?>> helpProcessUnordered(BufferManager mgr, GroupingNode node, FakeTupleSource dataSource) throws Exception {
+        RelationalNode dataNode = new FakeRelationalNode(0, dataSource, mgr.getProcessorBatchSize());
+        dataNode.setElements(dataSource.getSchema());            
+        node.addChild(dataNode);    
+        node.initialize(new CommandContext("pid", "test", null, null, 1), mgr, null); //$NON-NLS-1$ //$NON-NLS-2$
+        node.open();
+        
+        HashSet<List<?>> result = new HashSet<List<?>>();
+        while(true) {
+            try {
+                TupleBatch batch = node.nextBatch();
+                for (List<?> tuple : batch.getTuples()) {
+                	assertTrue(result.add(tuple));
+                }
+                if(batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch (BlockedException e) {
+                //ignore
+            }
+        }
+        node.close();
+        return result;
+    }
+    
+    @Test public void testHashAggregate() throws Exception {
+        HashSet<List<?>> expected = helpProcessUnordered(BufferManagerFactory.getStandaloneBufferManager(), getHashGroupingNode(false));
+        assertEquals(8, expected.size());
+        assertEquals(expected, helpProcessUnordered(BufferManagerFactory.getStandaloneBufferManager(), getHashGroupingNode(true)));
+    }
+    
+    @Test public void testHashAggregatePartitioned() throws Exception {
+        HashSet<List<?>> expected = helpProcessUnordered(BufferManagerFactory.getStandaloneBufferManager(), getHashGroupingNode(false));
+        BufferManagerImpl mgr = BufferManagerFactory.createBufferManager();
+        mgr.setProcessorBatchSize(1);
+        mgr.setMaxProcessingKB(0);
+        mgr.setTargetBytesPerRow(100);
+        GroupingNode node = getHashGroupingNode(true);
+        assertEquals(expected, helpProcessUnordered(mgr, node));
+        //only a single group fits in memory, so the partition holding both the null and 0 groups is partitioned again
+        assertTrue(node.getPartitionCount() > 16);
+    }
+
+    @Test public void testHashAggregatePartitionedBlocking() throws Exception {
+        HashSet<List<?>> expected = helpProcessUnordered(BufferManagerFactory.getStandaloneBufferManager(), getHashGroupingNode(false));
+        BufferManagerImpl mgr = BufferManagerFactory.createBufferManager();
+        mgr.setProcessorBatchSize(1);
+        mgr.setMaxProcessingKB(0);
+        mgr.setTargetBytesPerRow(100);
+        GroupingNode node = getHashGroupingNode(true);
+        final FakeTupleSource dataSource = createTupleSource1();
+        //block before every row so that spilling continues across blocked calls
+        FakeTupleSource blockingSource = new FakeTupleSource(dataSource.getSchema(), null) {
+        	boolean block = true;
+        	@Override
+        	public List nextTuple() throws TeiidComponentException {
+        		if (block) {
+        			block = false;
+        			throw BlockedException.INSTANCE;
+        		}
+        		block = true;
+        		return dataSource.nextTuple();
+        	}
+        };
+        assertEquals(expected, helpProcessUnordered(mgr, node, blockingSource));
+        assertTrue(node.getPartitionCount() > 16);
+    }
+
 	private GroupingNode getExampleGroupingNode() {
 		GroupingNode node = new GroupingNode(1);
         List outputElements = new ArrayList();
@@ -1231,4 +1231,133 @@ public class TestJoinNode {
         TestProcessor.helpProcess(plan, context, hdm, results);
     }
     
+    @Test public void testHashJoin() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        expected = new List[] {
+            Arrays.asList(1, 1),
+            Arrays.asList(2, 2),
+            Arrays.asList(2, 2),
+            Arrays.asList(4, 4),
+            Arrays.asList(4, 4),
+            Arrays.asList(4, 4),
+            Arrays.asList(4, 4)
+        };
+        helpTestHashJoin(expected);
+    }
+
+    @Test public void testHashJoinLeftOuter() throws Exception {
+        joinType = JoinType.JOIN_LEFT_OUTER;
+        this.rightTuples = createTuples3();
+        expected = new List[] {
+            Arrays.asList(1, 1),
+            Arrays.asList(2, 2),
+            Arrays.asList(3, 3),
+            Arrays.asList(4, null),
+            Arrays.asList(4, null),
+            Arrays.asList(5, 5),
+            Arrays.asList(10, 10),
+            Arrays.asList(10, 10),
+            Arrays.asList(11, null),
+            Arrays.asList(11, null)
+        };
+        helpTestHashJoin(expected);
+    }
+
+    @Test public void testHashJoinNullKeys() throws Exception {
+        joinType = JoinType.JOIN_LEFT_OUTER;
+        this.leftTuples = createTuples4();
+        this.rightTuples = createTuples3();
+        expected = new List[] {
+            Arrays.asList(null, null),
+            Arrays.asList(null, null),
+            Arrays.asList(null, null),
+            Arrays.asList(1, 1),
+            Arrays.asList(2, 2),
+            Arrays.asList(2, 2),
+            Arrays.asList(4, null),
+            Arrays.asList(4, null),
+            Arrays.asList(5, 5),
+            Arrays.asList(6, null),
+            Arrays.asList(7, null),
+            Arrays.asList(9, 9),
+            Arrays.asList(9, 9),
+            Arrays.asList(9, 9),
+            Arrays.asList(10, 10),
+            Arrays.asList(10, 10)
+        };
+        helpTestHashJoin(expected);
+    }
+
+    @Test public void testHashJoinSkewedKey() throws Exception {
+        joinType = JoinType.JOIN_LEFT_OUTER;
+        this.leftTuples = new List[] {
+            Arrays.asList(1), Arrays.asList(1), Arrays.asList(1), Arrays.asList(1), Arrays.asList(1), Arrays.asList(2)
+        };
+        this.rightTuples = new List[] {
+            Arrays.asList(1), Arrays.asList(1), Arrays.asList(1), Arrays.asList(1), Arrays.asList(3)
+        };
+        expected = new List[21];
+        for (int i = 0; i < 20; i++) {
+            expected[i] = Arrays.asList(1, 1);
+        }
+        expected[20] = Arrays.asList(2, null);
+        assertTrue(helpTestHashJoin(expected).isBlockJoin());
+    }
+
+    /**
+     * Run both the in memory and partitioned forms, the output order is not defined
+     * @return the strategy used for the smallest batch and processing sizes
+     */
+    private HashJoinStrategy helpTestHashJoin(List[] expectedResults) throws TeiidComponentException, TeiidProcessingException {
+        HashJoinStrategy result = null;
+        List<String> expectedRows = new ArrayList<String>();
+        for (List row : expectedResults) {
+            expectedRows.add(row.toString());
+        }
+        Collections.sort(expectedRows);
+        for (int processingBytes : new int[] {100000, 1}) {
+            for (int batchSize : new int[] {1, 3, 100}) {
+                helpCreateJoin();
+                this.joinStrategy = new HashJoinStrategy();
+                this.join.setJoinStrategy(joinStrategy);
+                BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(processingBytes, batchSize);
+                mgr.setTargetBytesPerRow(100);
+                CommandContext context = new CommandContext("pid", "test", null, null, 1);
+                join.addChild(leftNode);
+                join.addChild(rightNode);
+                leftNode.initialize(context, mgr, dataMgr);
+                rightNode.initialize(context, mgr, dataMgr);
+                join.initialize(context, mgr, dataMgr);
+                join.open();
+                List<String> actualRows = new ArrayList<String>();
+                while (true) {
+                    try {
+                        TupleBatch batch = join.nextBatch();
+                        for (List<?> tuple : batch.getTuples()) {
+                            actualRows.add(tuple.toString());
+                        }
+                        if (batch.getTerminationFlag()) {
+                            break;
+                        }
+                    } catch (BlockedException e) {
+                        // ignore and retry
+                    }
+                }
+                join.close();
+                Collections.sort(actualRows);
+                assertEquals(expectedRows, actualRows);
+                HashJoinStrategy strategy = (HashJoinStrategy)this.joinStrategy;
+                if (processingBytes == 1) {
+                    assertTrue(strategy.getPartitionCount() > 0);
+                    if (result == null) {
+                        result = strategy;
+                    }
+                } else {
+                    assertEquals(0, strategy.getPartitionCount());
+                }
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.odata.api;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A {@link QueryResponse} that reads the rows of the page as they are serialized.
+ * When the total count is not needed the client will call {@link #setRows(RowCursor)} 
+ * rather than adding each row. 
+ */
+public interface StreamingQueryResponse extends QueryResponse {
+    
+    interface RowCursor {
+        /**
+         * Position the {@link ResultSet} on the next row of the page.  Once false is returned 
+         * the count and next token have been set on the response. 
+         */
+        boolean next() throws SQLException;
+        ResultSet getResultSet();
+    }
+    
+    void setRows(RowCursor rows);
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.olingo;
+
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.ContentNegotiatorException;
+import org.apache.olingo.server.core.ServiceRequest;
+import org.apache.olingo.server.core.responses.ServiceResponse;
+import org.apache.olingo.server.core.responses.ServiceResponseVisior;
+
+/**
+ * Writes an entity set as the entities are produced rather than 
+ * from a fully built collection.
+ * <br>
+ * The status is committed before the entities are read, so an error 
+ * while reading will truncate the response rather than change the status.
+ */
+public class StreamingEntitySetResponse extends ServiceResponse {
+    private final ODataSerializer serializer;
+    private final ContentType responseContentType;
+    private final EntityCollectionSerializerOptions options;
+    
+    private StreamingEntitySetResponse(ServiceMetadata metadata,
+            ODataResponse response, ODataSerializer serializer,
+            EntityCollectionSerializerOptions options,
+            ContentType responseContentType, Map<String, String> preferences) {
+        super(metadata, response, preferences);
+        this.serializer = serializer;
+        this.responseContentType = responseContentType;
+        this.options = options;
+    }
+
+    public static StreamingEntitySetResponse getInstance(ServiceRequest request,
+            ContextURL contextURL, boolean referencesOnly,
+            ODataResponse response) throws ContentNegotiatorException,
+            SerializerException {
+        EntityCollectionSerializerOptions options = request.getSerializerOptions(
+                EntityCollectionSerializerOptions.class, contextURL, referencesOnly);
+        return new StreamingEntitySetResponse(request.getServiceMetaData(), response,
+                request.getSerializer(), options,
+                request.getResponseContentType(), request.getPreferences());
+    }
+
+    /**
+     * The entities are not read until the response content is written
+     */
+    public void writeReadEntitySet(EdmEntityType entityType, EntityIterator entitySet) throws SerializerException {
+        assert (!isClosed());
+        
+        this.response.setODataContent(this.serializer.entityCollectionStreamed(
+                this.metadata, entityType, entitySet, this.options).getODataContent());
+        writeOK(this.responseContentType);
+        close();
+    }
+
+    @Override
+    public void accepts(ServiceResponseVisior visitor)
+            throws ODataLibraryException, ODataApplicationException {
+    }
+}
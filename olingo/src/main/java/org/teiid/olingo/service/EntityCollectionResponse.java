@@ -95,11 +95,11 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
     public void addRow(ResultSet rs) throws SQLException {
         Entity entity = createEntity(rs, this.documentNode, this.baseURL, this);
         
-    	processExpands(asRow(rs), entity, this.documentNode);
+    	processExpands(asRow(rs), entity, this.documentNode, this.baseURL, this);
         getEntities().add(entity);
     }
 
-	private void processExpands(Row vals, Entity entity, DocumentNode node)
+	static void processExpands(Row vals, Entity entity, DocumentNode node, String baseURL, EntityCollectionResponse response)
 			throws SQLException {
 		if (node.getExpands() == null || node.getExpands().isEmpty()) {
 			return;
@@ -111,7 +111,7 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
             }
             for (Object o : expandedVals) {
             	Object[] expandedVal = (Object[])o;
-    			Entity expandEntity = createEntity(expandedVal, expandNode, this.baseURL, this);
+    			Entity expandEntity = createEntity(expandedVal, expandNode, baseURL, response);
                 
                 Link link = entity.getNavigationLink(expandNode.getNavigationName());
                 if (expandNode.isCollection()) {
@@ -130,7 +130,7 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
                     link.setInlineEntity(expandEntity);
                 }
                 
-                processExpands(asRow(expandedVal), expandEntity, expandNode);
+                processExpands(asRow(expandedVal), expandEntity, expandNode, baseURL, response);
             }
         }
 	}
@@ -227,7 +227,7 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
         return entity;
     }
 
-	private static Row asRow(final ResultSet vals) {
+	static Row asRow(final ResultSet vals) {
 		return new Row() {
 			@Override
 			public Object getObject(int column) throws SQLException {
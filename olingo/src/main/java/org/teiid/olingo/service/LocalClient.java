@@ -17,6 +17,7 @@
  */
 package org.teiid.olingo.service;
 
+import java.nio.charset.Charset;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -24,6 +25,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,8 +34,12 @@ import java.util.StringTokenizer;
 
 import org.teiid.adminapi.VDB.Status;
 import org.teiid.adminapi.impl.VDBMetaData;
+import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
+import org.teiid.core.util.Base64;
 import org.teiid.core.util.PropertiesUtils;
 import org.teiid.jdbc.ConnectionImpl;
 import org.teiid.jdbc.ExecutionProperties;
@@ -42,7 +48,9 @@ import org.teiid.jdbc.PreparedStatementImpl;
 import org.teiid.jdbc.TeiidDriver;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.metadata.KeyRecord;
 import org.teiid.metadata.MetadataStore;
+import org.teiid.metadata.Table;
 import org.teiid.net.TeiidURL;
 import org.teiid.odata.api.Client;
 import org.teiid.odata.api.CountResponse;
@@ -50,6 +58,7 @@ import org.teiid.odata.api.OperationResponse;
 import org.teiid.odata.api.ProcedureReturnType;
 import org.teiid.odata.api.QueryResponse;
 import org.teiid.odata.api.SQLParameter;
+import org.teiid.odata.api.StreamingQueryResponse;
 import org.teiid.odata.api.UpdateResponse;
 import org.teiid.odbc.ODBCServerRemoteImpl;
 import org.teiid.olingo.ODataPlugin;
@@ -57,10 +66,20 @@ import org.teiid.query.QueryPlugin;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.sql.lang.CacheHint;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.Limit;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.lang.OrderByItem;
 import org.teiid.query.sql.lang.Query;
+import org.teiid.query.sql.lang.UnaryFromClause;
 import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.sql.symbol.Reference;
+import org.teiid.query.sql.util.SymbolMap;
 import org.teiid.query.sql.visitor.ReferenceCollectorVisitor;
 import org.teiid.translator.CacheDirective;
 import org.teiid.transport.LocalServerConnection;
@@ -194,7 +213,12 @@ public class LocalClient implements Client {
     public void executeSQL(Query query, List<SQLParameter> parameters,
             boolean calculateTotalSize, Integer skipOption, Integer topOption,
             String nextOption, int pageSize, final QueryResponse response)  throws SQLException {
-        boolean cache = pageSize > 0; 
+        List<ElementSymbol> keyColumns = null;
+        if (pageSize > 0 && skipOption == null && topOption == null 
+                && PropertiesUtils.getBooleanProperty(this.properties, Client.SKIPTOKEN_KEYSET, false)) {
+            keyColumns = getKeysetColumns(query);
+        }
+        boolean cache = pageSize > 0 && keyColumns == null; 
         if (cache) {
             CacheHint hint = new CacheHint();
             hint.setTtl(getCacheTime());
@@ -217,7 +241,10 @@ public class LocalClient implements Client {
         Integer nextSkip = null; 
         Integer savedEntityCount = null;
         if (nextOption != null) {
-            if (cache) {
+            if (keyColumns != null) {
+                //seek past the last key of the previous page
+                savedEntityCount = addKeysetCriteria(query, keyColumns, nextOption);
+            } else if (cache) {
                 StringTokenizer st = new StringTokenizer(nextOption, DELIMITER);
                 sessionId = st.nextToken();
                 if (!st.hasMoreTokens()) {
@@ -236,6 +263,10 @@ public class LocalClient implements Client {
             }
             getCount = false; // the URL might have $count=true, but ignore it.
         }
+        if (keyColumns != null && !getCount) {
+            //one extra row determines if there is a next page
+            query.setLimit(new Limit(null, new Constant(pageSize + 1)));
+        }
         String sql = query.toString();
         if (cache && !Boolean.valueOf(conn.getExecutionProperty(ExecutionProperties.RESULT_SET_CACHE_MODE))) {
             sql += " /* "+ sessionId +" */"; //$NON-NLS-1$ //$NON-NLS-2$
@@ -289,48 +320,254 @@ public class LocalClient implements Client {
             size = Integer.MAX_VALUE;
         }
         
-        //build the results
-        int i = 0;
-        int nextCount = count;
-        while(true) {            
-            if (!rs.next()) {
-                break;
-            }
-            count++;
-            i++;
-            entityCount++;
-            if (i > size) {
-                break;
+        PageCursor page = new PageCursor(rs, response, cache, sessionId, size, pageSize, top, getCount, savedEntityCount);
+        page.count = count;
+        page.nextCount = count;
+        page.entityCount = entityCount;
+        if (keyColumns != null) {
+            page.keyIndexes = getProjectedIndexes(query, keyColumns);
+        }
+        
+        //stream the results if possible, otherwise build them
+        if (!getCount && response instanceof StreamingQueryResponse) {
+            if (savedEntityCount != null) {
+                response.setCount(savedEntityCount);
             }
-            nextCount++;
+            ((StreamingQueryResponse)response).setRows(page);
+            return;
+        }
+        while (page.next()) {
             response.addRow(rs);
         }
+    }
+    
+    /**
+     * Positions the results over the rows of the page, then sets the count and skipToken
+     */
+    private class PageCursor implements StreamingQueryResponse.RowCursor {
+        private final ResultSet rs;
+        private final QueryResponse response;
+        private final boolean cache;
+        private final String sessionId;
+        private final int size;
+        private final int pageSize;
+        private final int top;
+        private final boolean getCount;
+        private final Integer savedEntityCount;
+        int count;
+        int entityCount;
+        int nextCount;
+        int[] keyIndexes;
+        private Object[] lastKey;
+        private int i;
+        private int rows;
+        private boolean done;
         
-        //set the count
-        if (getCount) {
-            while (rs.next()) {
+        public PageCursor(ResultSet rs, QueryResponse response, boolean cache,
+                String sessionId, int size, int pageSize, int top,
+                boolean getCount, Integer savedEntityCount) {
+            this.rs = rs;
+            this.response = response;
+            this.cache = cache;
+            this.sessionId = sessionId;
+            this.size = size;
+            this.pageSize = pageSize;
+            this.top = top;
+            this.getCount = getCount;
+            this.savedEntityCount = savedEntityCount;
+        }
+        
+        @Override
+        public ResultSet getResultSet() {
+            return rs;
+        }
+        
+        @Override
+        public boolean next() throws SQLException {
+            if (done) {
+                return false;
+            }
+            if (rs.next()) {
                 count++;
+                i++;
                 entityCount++;
+                if (i <= size) {
+                    nextCount++;
+                    rows++;
+                    if (keyIndexes != null && rows == pageSize) {
+                        lastKey = new Object[keyIndexes.length];
+                        for (int k = 0; k < keyIndexes.length; k++) {
+                            lastKey[k] = rs.getObject(keyIndexes[k]);
+                        }
+                    }
+                    return true;
+                }
             }
-        }
-        if (savedEntityCount != null) {
-            response.setCount(savedEntityCount);
-        } else {
-            response.setCount(entityCount);
+            done = true;
+            complete();
+            return false;
         }
         
-        //set the skipToken if needed
-        if (cache && response.size() == pageSize) {
-            long end = nextCount;
+        private void complete() throws SQLException {
+            //set the count
             if (getCount) {
-                if (end < Math.min(top, count)) {
-                    response.setNextToken(nextToken(cache, sessionId, end, entityCount));
+                while (rs.next()) {
+                    count++;
+                    entityCount++;
+                }
+            }
+            if (savedEntityCount != null) {
+                response.setCount(savedEntityCount);
+            } else {
+                response.setCount(entityCount);
+            }
+            
+            //set the skipToken if needed
+            if (cache && rows == pageSize) {
+                long end = nextCount;
+                if (getCount) {
+                    if (end < Math.min(top, count)) {
+                        response.setNextToken(nextToken(cache, sessionId, end, entityCount));
+                    }
+                } else if (count != nextCount){
+                    response.setNextToken(nextToken(cache, sessionId, end, null));
+                    //will force the entry to cache or is effectively a no-op when already cached
+                    rs.last();    
+                }
+            } else if (keyIndexes != null && rows == pageSize) {
+                if (getCount) {
+                    if (nextCount < count) {
+                        response.setNextToken(keysetToken(lastKey, entityCount));
+                    }
+                } else if (count != nextCount) {
+                    response.setNextToken(keysetToken(lastKey, savedEntityCount));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Keyset paging may be used if the results are ordered by the primary key
+     * of a single entity table.
+     * @return the ordered key columns or null if keyset paging cannot be used
+     */
+    private List<ElementSymbol> getKeysetColumns(Query query) {
+        OrderBy orderBy = query.getOrderBy();
+        if (orderBy == null || query.getGroupBy() != null || query.getFrom() == null 
+                || query.getFrom().getClauses().size() != 1 
+                || !(query.getFrom().getClauses().get(0) instanceof UnaryFromClause)) {
+            return null;
+        }
+        GroupSymbol group = ((UnaryFromClause)query.getFrom().getClauses().get(0)).getGroup();
+        Table table = null;
+        try {
+            table = getVDB().getAttachment(TransformationMetadata.class).getGroupID(group.getNonCorrelationName());
+        } catch (TeiidException e) {
+            return null;
+        }
+        KeyRecord key = table.getPrimaryKey();
+        if (key == null) {
+            return null;
+        }
+        if (orderBy.getOrderByItems().size() != key.getColumns().size()) {
+            return null;
+        }
+        List<ElementSymbol> result = new ArrayList<ElementSymbol>();
+        for (int i = 0; i < key.getColumns().size(); i++) {
+            OrderByItem item = orderBy.getOrderByItems().get(i);
+            if (!item.isAscending() || item.getNullOrdering() != null || !(item.getSymbol() instanceof ElementSymbol)) {
+                return null;
+            }
+            ElementSymbol symbol = (ElementSymbol)item.getSymbol();
+            if (!symbol.getShortName().equalsIgnoreCase(key.getColumns().get(i).getName())
+                    || (symbol.getGroupSymbol() != null && !symbol.getGroupSymbol().equals(group))) {
+                return null;
+            }
+            result.add(symbol);
+        }
+        if (getProjectedIndexes(query, result) == null) {
+            return null;
+        }
+        return result;
+    }
+    
+    private int[] getProjectedIndexes(Query query, List<ElementSymbol> columns) {
+        List<Expression> projected = query.getSelect().getProjectedSymbols();
+        int[] result = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            for (int j = 0; j < projected.size(); j++) {
+                if (SymbolMap.getExpression(projected.get(j)).equals(columns.get(i))) {
+                    result[i] = j + 1;
+                    break;
+                }
+            }
+            if (result[i] == 0) {
+                return null;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Encode the entity count and typed key values as url safe text 
+     */
+    static String keysetToken(Object[] key, Integer entityCount) throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        if (entityCount != null) {
+            sb.append(entityCount);
+        }
+        sb.append(DELIMITER);
+        for (Object value : key) {
+            try {
+                String type = DataTypeManager.getDataTypeName(value.getClass());
+                String string = (String)DataTypeManager.transformValue(value, DataTypeManager.DefaultDataClasses.STRING);
+                sb.append(type).append(DELIMITER).append(string.length()).append(DELIMITER).append(string);
+            } catch (TransformationException e) {
+                throw new SQLException(e);
+            }
+        }
+        return Base64.encodeUrlSafe(sb.toString().getBytes(Charset.forName("UTF-8"))); //$NON-NLS-1$
+    }
+    
+    /**
+     * Decode a token created by {@link #keysetToken(Object[], Integer)} and add the criteria 
+     * to seek past the key - k1 > v1 OR (k1 = v1 AND k2 > v2) ...
+     * @return the saved entity count
+     */
+    static Integer addKeysetCriteria(Query query, List<ElementSymbol> keyColumns, String token) {
+        try {
+            String value = new String(Base64.decodeUrlSafe(token), Charset.forName("UTF-8")); //$NON-NLS-1$
+            int index = value.indexOf(DELIMITER);
+            Integer entityCount = index > 0?Integer.valueOf(value.substring(0, index)):null;
+            Constant[] key = new Constant[keyColumns.size()];
+            for (int i = 0; i < key.length; i++) {
+                int typeEnd = value.indexOf(DELIMITER, index + 1);
+                String type = value.substring(index + 1, typeEnd);
+                int lengthEnd = value.indexOf(DELIMITER, typeEnd + 1);
+                int length = Integer.parseInt(value.substring(typeEnd + 1, lengthEnd));
+                String string = value.substring(lengthEnd + 1, lengthEnd + 1 + length);
+                Class<?> typeClass = DataTypeManager.getDataTypeClass(type);
+                key[i] = new Constant(DataTypeManager.transformValue(string, typeClass), typeClass);
+                index = lengthEnd + length;
+            }
+            if (index != value.length() - 1) {
+                throw new IllegalArgumentException();
+            }
+            Criteria seek = null;
+            for (int i = key.length - 1; i >= 0; i--) {
+                Criteria greater = new CompareCriteria(keyColumns.get(i).clone(), CompareCriteria.GT, key[i]);
+                if (seek == null) {
+                    seek = greater;
+                } else {
+                    seek = new CompoundCriteria(CompoundCriteria.OR, greater, 
+                            new CompoundCriteria(CompoundCriteria.AND, new CompareCriteria(keyColumns.get(i).clone(), CompareCriteria.EQ, key[i]), seek));
                 }
-            } else if (count != nextCount){
-                response.setNextToken(nextToken(cache, sessionId, end, null));
-                //will force the entry to cache or is effectively a no-op when already cached
-                rs.last();    
             }
+            query.setCriteria(Criteria.combineCriteria(query.getCriteria(), seek));
+            return entityCount;
+        } catch (RuntimeException | TransformationException e) {
+            throw new TeiidRuntimeException(ODataPlugin.Event.TEIID16062, e, ODataPlugin.Util.gs(
+                    ODataPlugin.Event.TEIID16062));
         }
     }
     
@@ -171,6 +171,10 @@ public class ODataSQLBuilder extends RequestURLHierarchyVisitor {
     public boolean hasNavigation() {
         return this.navigation;
     }
+    
+    public boolean isReference() {
+        return this.reference;
+    }
 
     public Query selectQuery() throws TeiidException {
         
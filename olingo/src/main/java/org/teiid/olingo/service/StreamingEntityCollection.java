@@ -0,0 +1,151 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.olingo.service;
+
+import java.net.URI;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Operation;
+import org.teiid.core.TeiidRuntimeException;
+import org.teiid.odata.api.StreamingQueryResponse;
+
+/**
+ * An entity collection that is built from the results as it is serialized, 
+ * so that only the current entity and its expansions are held in memory.
+ */
+public class StreamingEntityCollection extends EntityIterator implements StreamingQueryResponse {
+    
+    private String nextToken;
+    private DocumentNode documentNode;
+    private String baseURL;
+    private RowCursor rows;
+    private ArrayDeque<Entity> entities = new ArrayDeque<Entity>();
+    private Integer count;
+    private long size;
+    
+    public StreamingEntityCollection(String baseURL, DocumentNode resource) {
+        this.baseURL = baseURL;
+        this.documentNode = resource;
+    }
+    
+    @Override
+    public void setRows(RowCursor rows) {
+        this.rows = rows;
+    }
+    
+    /**
+     * Only used if the client does not support streaming 
+     */
+    @Override
+    public void addRow(ResultSet rs) throws SQLException {
+        Entity entity = createEntity(rs);
+        if (entity != null) {
+            this.entities.add(entity);
+        }
+        this.size++;
+    }
+    
+    private Entity createEntity(ResultSet rs) throws SQLException {
+        Entity entity = EntityCollectionResponse.createEntity(rs, this.documentNode, this.baseURL, null);
+        if (entity != null) {
+            EntityCollectionResponse.processExpands(EntityCollectionResponse.asRow(rs), entity, this.documentNode, this.baseURL, null);
+        }
+        return entity;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (!this.entities.isEmpty()) {
+            return true;
+        }
+        if (this.rows == null) {
+            return false;
+        }
+        try {
+            while (this.rows.next()) {
+                this.size++;
+                Entity entity = createEntity(this.rows.getResultSet());
+                if (entity != null) {
+                    this.entities.add(entity);
+                    return true;
+                }
+            }
+        } catch (SQLException e) {
+            throw new TeiidRuntimeException(e);
+        }
+        this.rows = null;
+        return false;
+    }
+    
+    @Override
+    public Entity next() {
+        hasNext();
+        return this.entities.remove();
+    }
+    
+    @Override
+    public long size() {
+        return this.size;
+    }
+    
+    @Override
+    public void setCount(long count) {
+        this.count = (int)count;
+    }
+    
+    @Override
+    public Integer getCount() {
+        return this.count;
+    }
+    
+    /**
+     * Called after all of the entities have been serialized.
+     * Should be overriden to provide the link when there is a next token.
+     */
+    @Override
+    public URI getNext() {
+        return null;
+    }
+    
+    @Override
+    public URI getDeltaLink() {
+        return null;
+    }
+    
+    @Override
+    public List<Operation> getOperations() {
+        return Collections.emptyList();
+    }
+    
+    @Override
+    public void setNextToken(String token) {
+        this.nextToken = token;
+    }
+    
+    @Override
+    public String getNextToken() {
+        return this.nextToken;
+    }
+    
+}
@@ -82,6 +82,7 @@ import org.teiid.odata.api.QueryResponse;
 import org.teiid.odata.api.UpdateResponse;
 import org.teiid.olingo.EdmComplexResponse;
 import org.teiid.olingo.ODataPlugin;
+import org.teiid.olingo.StreamingEntitySetResponse;
 import org.teiid.olingo.service.ProcedureSQLBuilder.ActionParameterValueProvider;
 import org.teiid.olingo.service.ProcedureSQLBuilder.FunctionParameterValueProvider;
 import org.teiid.olingo.service.ProcedureSQLBuilder.ProcedureReturn;
@@ -158,6 +159,11 @@ public class TeiidServiceHandler implements ServiceHandler {
                 request.getODataRequest().getRawBaseUri(), this.serviceMetadata);
         visitor.visit(request.getUriInfo());
         
+        if (response instanceof EntitySetResponse && isStreamable(request, visitor)) {
+            streamResults(request, visitor, (EntitySetResponse)response);
+            return;
+        }
+        
         final BaseResponse queryResponse;
         try {
             Query query = visitor.selectQuery();
@@ -263,17 +269,72 @@ public class TeiidServiceHandler implements ServiceHandler {
         EntityCollectionResponse result = (EntityCollectionResponse)queryResponse;
         if (result.getNextToken() != null) {
             try {
-                String nextUri = request.getODataRequest().getRawBaseUri()
-                        +request.getODataRequest().getRawODataPath()
-                        + "?"
-                        +buildNextToken(request.getODataRequest().getRawQueryPath(), result.getNextToken());
-                result.setNext(new URI(nextUri));
+                result.setNext(buildNextUri(request, result.getNextToken()));
             } catch (URISyntaxException e) {
                 throw new ODataApplicationException(e.getMessage(), 500, Locale.getDefault(), e);
             }
         }
         response.writeReadEntitySet(visitor.getContext().getEdmEntityType(), result);
     }
+    
+    /**
+     * Json entity sets are streamed unless a count is needed, since the 
+     * count is written ahead of the entities.  $ref collections are not
+     * streamed as they are written as references only.
+     */
+    private boolean isStreamable(final DataRequest request, final ODataSQLBuilder visitor) throws ODataLibraryException {
+        DocumentNode context = visitor.getContext();
+        return !request.isCountRequest() && !visitor.includeTotalSize() && !visitor.isReference()
+                && !(context instanceof CrossJoinNode) && !(context instanceof ComplexDocumentNode)
+                && request.getResponseContentType().isCompatible(ContentType.JSON);
+    }
+    
+    private void streamResults(final DataRequest request, final ODataSQLBuilder visitor, 
+            EntitySetResponse response) throws ODataLibraryException, ODataApplicationException {
+        StreamingEntityCollection result = new StreamingEntityCollection(
+                request.getODataRequest().getRawBaseUri(), visitor.getContext()) {
+            @Override
+            public URI getNext() {
+                if (getNextToken() == null) {
+                    return null;
+                }
+                try {
+                    return buildNextUri(request, getNextToken());
+                } catch (URISyntaxException e) {
+                    throw new TeiidRuntimeException(e);
+                }
+            }
+        };
+        try {
+            Query query = visitor.selectQuery();
+            getClient().executeSQL(query, visitor.getParameters(),
+                    false, visitor.getSkip(), visitor.getTop(), visitor.getNextToken(), 
+                    Integer.parseInt(getPageSize(request)), result);
+            //read ahead the first entity so that an error from the first batch
+            //is still reported with an error status.  An error after the status
+            //has been written can only end the response early.
+            result.hasNext();
+        } catch (Throwable e) {
+            throw new ODataApplicationException(e.getMessage(),
+                    HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(),
+                    Locale.getDefault(), e);
+        }
+        if (request.getPreference(ODATA_MAXPAGESIZE) != null) {
+            response.writeHeader(PREFERENCE_APPLIED,
+                    ODATA_MAXPAGESIZE+"="+ request.getPreference(ODATA_MAXPAGESIZE)); //$NON-NLS-1$
+        }
+        StreamingEntitySetResponse streamingResponse = StreamingEntitySetResponse.getInstance(
+                request, request.getContextURL(this.odata), false, response.getODataResponse());
+        streamingResponse.writeReadEntitySet(visitor.getContext().getEdmEntityType(), result);
+    }
+    
+    private URI buildNextUri(final ServiceRequest request, String nextToken) throws URISyntaxException {
+        String nextUri = request.getODataRequest().getRawBaseUri()
+                +request.getODataRequest().getRawODataPath()
+                + "?"
+                +buildNextToken(request.getODataRequest().getRawQueryPath(), nextToken);
+        return new URI(nextUri);
+    }
 
     String buildNextToken(final String queryPath, String nextToken) {
         StringBuilder sb = new StringBuilder();
@@ -308,11 +369,7 @@ public class TeiidServiceHandler implements ServiceHandler {
         URI next = null;
         if (result.getNextToken() != null) {
             try {
-                String nextUri = request.getODataRequest().getRawBaseUri()
-                        +request.getODataRequest().getRawODataPath()
-                        + "?"
-                        +buildNextToken(request.getODataRequest().getRawQueryPath(), result.getNextToken());
-                next = new URI(nextUri);
+                next = buildNextUri(request, result.getNextToken());
             } catch (URISyntaxException e) {
                 throw new ODataApplicationException(e.getMessage(), 500, Locale.getDefault(), e);
             }
@@ -1153,6 +1153,123 @@ public class TestODataIntegration {
         }
     }
     
+    @Test
+    public void testStreamedPages() throws Exception {
+        try {
+            ModelMetaData mmd = new ModelMetaData();
+            mmd.setName("vw");
+            mmd.addSourceMetadata("ddl", "create view x (a integer primary key, b string) "
+                    + "as select e1, 'b' || e1 from (select row_number() over (order by UID) as e1 from sys.columns) as c where e1 <= 25;");
+            mmd.setModelType(Model.Type.VIRTUAL);
+            teiid.deployVDB("northwind", mmd);
+
+            Properties props = new Properties();
+            props.setProperty("batch-size", "10");
+            localClient = getClient(teiid.getDriver(), "northwind", props);
+
+            String nextLink = baseURL + "/northwind/vw/x?$format=json";
+            int rows = 0;
+            int pages = 0;
+            while (nextLink != null) {
+                ContentResponse response = http.GET(nextLink);
+                assertEquals(200, response.getStatus());
+                JsonNode node = getJSONNode(response);
+                JsonNode value = node.get("value");
+                for (int i = 0; i < value.size(); i++) {
+                    rows++;
+                    assertEquals(rows, value.get(i).get("a").asInt());
+                    assertEquals("b" + rows, value.get(i).get("b").asText());
+                }
+                pages++;
+                nextLink = node.has("@odata.nextLink")?node.get("@odata.nextLink").asText():null;
+            }
+            assertEquals(25, rows);
+            assertEquals(3, pages);
+
+            //counts are not streamed
+            ContentResponse response = http.GET(baseURL + "/northwind/vw/x?$format=json&$count=true");
+            assertEquals(200, response.getStatus());
+            assertEquals(25, getJSONNode(response).get("@odata.count").asInt());
+        } finally {
+            localClient = null;
+            teiid.undeployVDB("northwind");
+        }
+    }
+    
+    @Test
+    public void testKeysetSkipToken() throws Exception {
+        try {
+            ModelMetaData mmd = new ModelMetaData();
+            mmd.setName("vw");
+            mmd.addSourceMetadata("ddl", "create view x (a string primary key, b integer) "
+                    + "as select 'xyz', 123 union all select 'abc', 456 union all select 'a,c', 789;");
+            mmd.setModelType(Model.Type.VIRTUAL);
+            teiid.deployVDB("northwind", mmd);
+
+            Properties props = new Properties();
+            props.setProperty("batch-size", "1");
+            props.setProperty("skiptoken-keyset", "true");
+            localClient = getClient(teiid.getDriver(), "northwind", props);
+            
+            String nextLink = baseURL + "/northwind/vw/x?$format=json&$count=true";
+            StringBuilder keys = new StringBuilder();
+            int pages = 0;
+            while (nextLink != null) {
+                ContentResponse response = http.GET(nextLink);
+                assertEquals(200, response.getStatus());
+                JsonNode node = getJSONNode(response);
+                assertEquals(3, node.get("@odata.count").asInt());
+                JsonNode value = node.get("value");
+                assertEquals(1, value.size());
+                keys.append(value.get(0).get("a").asText()).append(";");
+                pages++;
+                nextLink = node.has("@odata.nextLink")?node.get("@odata.nextLink").asText():null;
+            }
+            assertEquals("a,c;abc;xyz;", keys.toString());
+            assertEquals(3, pages);
+            
+            //the session is not needed to continue
+            localClient = getClient(teiid.getDriver(), "northwind", props);
+            ContentResponse response = http.GET(baseURL + "/northwind/vw/x?$format=json");
+            nextLink = getJSONNode(response).get("@odata.nextLink").asText();
+            localClient = getClient(teiid.getDriver(), "northwind", props);
+            response = http.GET(nextLink);
+            assertEquals(200, response.getStatus());
+            assertEquals("abc", getJSONNode(response).get("value").get(0).get("a").asText());
+            
+            //invalid
+            response = http.GET(baseURL + "/northwind/vw/x?$skiptoken=a");
+            assertEquals(500, response.getStatus());
+            assertTrue(response.getContentAsString(), response.getContentAsString().contains("TEIID16062"));
+        } finally {
+            localClient = null;
+            teiid.undeployVDB("northwind");
+        }
+    }
+
+    @Test
+    public void testStreamedError() throws Exception {
+        try {
+            ModelMetaData mmd = new ModelMetaData();
+            mmd.setName("vw");
+            mmd.addSourceMetadata("ddl", "create view x (a integer primary key, b integer) "
+                    + "as select e1, cast(case when e1 = 5 then 'b' else '1' end as integer) from (select row_number() over (order by UID) as e1 from sys.columns) as c where e1 <= 25;");
+            mmd.setModelType(Model.Type.VIRTUAL);
+            teiid.deployVDB("northwind", mmd);
+
+            Properties props = new Properties();
+            props.setProperty("batch-size", "10");
+            localClient = getClient(teiid.getDriver(), "northwind", props);
+
+            //the failure is in the first batch, so the status is not yet committed
+            ContentResponse response = http.GET(baseURL + "/northwind/vw/x?$format=json");
+            assertEquals(500, response.getStatus());
+        } finally {
+            localClient = null;
+            teiid.undeployVDB("northwind");
+        }
+    }
+
     @Test 
     public void testSkipTokenNoSystemOptions() throws Exception {
         try {
@@ -130,6 +130,13 @@ public class CompositeGlobalTableStore implements GlobalTableStore {
 			boolean delete) throws TeiidComponentException {
 		return getStoreForTable(matTableName).updateMatViewRow(matTableName, tuple, delete);
 	}
+	
+	@Override
+	public int updateMatViewRows(String matTableName,
+			List<? extends List<?>> tuples, boolean delete)
+			throws TeiidComponentException {
+		return getStoreForTable(matTableName).updateMatViewRows(matTableName, tuples, delete);
+	}
 
 	@Override
 	public TempTable createMatTable(String matTableName, GroupSymbol group)
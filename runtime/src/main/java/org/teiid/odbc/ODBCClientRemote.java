@@ -34,6 +34,12 @@ public interface ODBCClientRemote {
 		LAST
 	}
 	
+	enum CopyFormat {
+		TEXT,
+		CSV,
+		BINARY
+	}
+	
 	void initialized(Properties props);
 	
 	void setEncoding(String value, boolean init);
@@ -78,6 +84,12 @@ public interface ODBCClientRemote {
 	void sendResults(String sql, ResultSetImpl rs, List<PgColInfo> cols, ResultsFuture<Integer> result, CursorDirection direction, int rowCount, boolean describeRows, short[] resultColumnFormat);
 	
 	void sendCommandComplete(String sql, Integer count);	
+	
+	//	CopyOutResponse (B)
+	//	CopyData (B)
+	//	CopyDone (B)
+	//	CommandComplete (B)
+	void sendCopyOut(ResultSetImpl rs, List<PgColInfo> cols, ResultsFuture<Integer> result, CopyFormat format, char delimiter, boolean header);
 
 	//	CommandComplete (B)
 	void sendUpdateCount(String sql, int updateCount);
@@ -107,10 +119,7 @@ public interface ODBCClientRemote {
 	
 	//	CloseComplete (B)
 
-	//	CopyData (F & B)
-	//	CopyDone (F & B)
 	//	CopyInResponse (B)
-	//	CopyOutResponse (B)
 	
 	//	NoticeResponse (B)
 	//	NotificationResponse (B)
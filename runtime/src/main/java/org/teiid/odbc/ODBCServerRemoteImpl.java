@@ -65,6 +65,7 @@ import org.teiid.logging.LogManager;
 import org.teiid.net.TeiidURL;
 import org.teiid.net.socket.AuthenticationType;
 import org.teiid.net.socket.SocketServerConnection;
+import org.teiid.odbc.ODBCClientRemote.CopyFormat;
 import org.teiid.odbc.ODBCClientRemote.CursorDirection;
 import org.teiid.odbc.PGUtil.PgColInfo;
 import org.teiid.runtime.RuntimePlugin;
@@ -187,6 +188,9 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 	private static Pattern movePattern = Pattern.compile("MOVE(?:\\s+(FORWARD|BACKWARD))?\\s+(\\d+)\\s+(?:IN|FROM)\\s+(\\S+)\\s*", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	private static Pattern closePattern = Pattern.compile("CLOSE (\\S+)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	
+	private static Pattern copyOutPattern = Pattern.compile("COPY\\s*\\((.*)\\)\\s*TO\\s+STDOUT(?:\\s+(.*))?", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+	private static Pattern copyOptionPattern = Pattern.compile("'((?:[^']|'')*)'|([^\\s,()]+)"); //$NON-NLS-1$
+	
 	private static Pattern deallocatePattern = Pattern.compile("DEALLOCATE(?:\\s+PREPARE)?\\s+(.*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	private static Pattern releasePattern = Pattern.compile("RELEASE\\s+(\\w+\\d?_*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	private static Pattern savepointPattern = Pattern.compile("SAVEPOINT\\s+(\\w+\\d?_*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
@@ -555,6 +559,91 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		});    	
     }	
 	
+    /**
+     * Execute the query of a COPY (query) TO STDOUT and stream the results as copy data.
+     * Both the parenthesized option list and the older WITH BINARY | CSV [HEADER] forms are accepted.
+     */
+    private void copyOut(final String sql, String options, final ResultsFuture<Integer> completion) throws SQLException {
+    	CopyFormat format = CopyFormat.TEXT;
+    	Character delimiter = null;
+    	boolean header = false;
+    	if (options != null) {
+    		List<String> tokens = new ArrayList<String>();
+    		Matcher m = copyOptionPattern.matcher(options);
+    		while (m.find()) {
+    			tokens.add(m.group(1) != null?m.group(1).replace("''", "'"):m.group(2)); //$NON-NLS-1$ //$NON-NLS-2$
+    		}
+    		for (int i = 0; i < tokens.size(); i++) {
+    			String token = tokens.get(i).toUpperCase();
+    			String next = i + 1 < tokens.size()?tokens.get(i + 1):null;
+    			if (token.equals("WITH")) { //$NON-NLS-1$
+    				continue;
+    			}
+    			if (token.equals("FORMAT") && next != null) { //$NON-NLS-1$
+    				token = next.toUpperCase();
+    				i++;
+    			}
+    			if (token.equals("TEXT") || token.equals("CSV") || token.equals("BINARY")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    				format = CopyFormat.valueOf(token);
+    			} else if (token.equals("DELIMITER") && next != null) { //$NON-NLS-1$
+    				if (next.equalsIgnoreCase("AS") && i + 2 < tokens.size()) { //$NON-NLS-1$
+    					next = tokens.get(++i + 1);
+    				}
+    				if (next.length() != 1) {
+    					throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40170, next));
+    				}
+    				delimiter = next.charAt(0);
+    				i++;
+    			} else if (token.equals("HEADER")) { //$NON-NLS-1$
+    				header = true;
+    				if (next != null && (next.equalsIgnoreCase("TRUE") || next.equalsIgnoreCase("ON") || next.equals("1"))) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    					i++;
+    				} else if (next != null && (next.equalsIgnoreCase("FALSE") || next.equalsIgnoreCase("OFF") || next.equals("0"))) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    					header = false;
+    					i++;
+    				}
+    			} else {
+    				throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40170, tokens.get(i)));
+    			}
+    		}
+    	}
+    	if (delimiter == null) {
+    		delimiter = format == CopyFormat.CSV?',':'\t';
+    	}
+    	final CopyFormat copyFormat = format;
+    	final char copyDelimiter = delimiter;
+    	final boolean copyHeader = header && format == CopyFormat.CSV;
+    	final StatementImpl stmt = connection.createStatement();
+        executionFuture = stmt.submitExecute(fixSQL(sql), null);
+        this.executingStatement = stmt.getRequestIdentifier();
+        completion.addCompletionListener(new ResultsFuture.CompletionListener<Integer>() {
+        	public void onCompletion(ResultsFuture<Integer> future) {
+        		try {
+					stmt.close();
+				} catch (SQLException e) {
+					LogManager.logDetail(LogConstants.CTX_ODBC, e, "Error closing statement"); //$NON-NLS-1$
+				}
+        	}
+        });
+        executionFuture.addCompletionListener(new ResultsFuture.CompletionListener<Boolean>() {
+    		@Override
+    		public void onCompletion(ResultsFuture<Boolean> future) {
+    			executionFuture = null;
+    			try {
+	                if (!future.get()) {
+	                	throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40171));
+	                }
+	                List<PgColInfo> cols = getPgColInfo(stmt.getResultSet().getMetaData());
+	                client.sendCopyOut(stmt.getResultSet(), cols, completion, copyFormat, copyDelimiter, copyHeader);
+    			} catch (Throwable e) {
+    				if (!completion.isDone()) {
+    					completion.getResultsReceiver().exceptionOccurred(e);
+    				}
+    			}
+    		}
+		});    	
+    }
+	
 	@Override
 	public void prepare(String prepareName, String sql, int[] paramType) {
 		if (prepareName == null || prepareName.length() == 0) {
@@ -1284,6 +1373,9 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		    				cursorClose(normalizeName(m.group(1)));
 		    				results.getResultsReceiver().receiveResults(1);
 		    			}
+		    			else if ((m = copyOutPattern.matcher(sql)).matches()) {
+		    				copyOut(m.group(1), m.group(2), results);
+		    			}
 		    			else if ((m = deallocatePattern.matcher(sql)).matches()) { 
 		    				String plan_name = m.group(1);
 		    				plan_name = normalizeName(plan_name);
@@ -37,21 +37,31 @@ import org.teiid.adminapi.impl.ModelMetaData;
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.client.util.ResultsFuture;
 import org.teiid.client.util.ResultsFuture.CompletionListener;
+import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.StringUtil;
 import org.teiid.deployers.CompositeVDB;
 import org.teiid.deployers.ContainerLifeCycleListener;
 import org.teiid.deployers.VDBLifeCycleListener;
 import org.teiid.deployers.VDBRepository;
+import org.teiid.dqp.internal.datamgr.ConnectorManager;
+import org.teiid.dqp.internal.datamgr.ConnectorManagerRepository;
 import org.teiid.dqp.internal.process.DQPCore;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.metadata.AbstractMetadataRecord;
+import org.teiid.metadata.Column;
 import org.teiid.metadata.MetadataStore;
 import org.teiid.metadata.Schema;
 import org.teiid.metadata.Table;
 import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.TransformationMetadata;
+import org.teiid.query.optimizer.capabilities.SourceCapabilities;
+import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
+import org.teiid.query.sql.visitor.SQLStringVisitor;
 import org.teiid.query.tempdata.TempTableDataManager;
+import org.teiid.translator.TranslatorException;
 import org.teiid.vdb.runtime.VDBKey;
 
 public abstract class MaterializationManager implements VDBLifeCycleListener, NodeListener {
@@ -60,6 +70,12 @@ public abstract class MaterializationManager implements VDBLifeCycleListener, No
 		void process(Table table);
 	}
 
+	/**
+	 * The interval in milliseconds at which table and column statistics should be collected
+	 * from the source.  May be set on a physical table or its schema.
+	 */
+	public static final String STATISTICS_TTL = AbstractMetadataRecord.RELATIONAL_URI + "STATISTICS_TTL"; //$NON-NLS-1$
+	
 	private static final int WAITTIME = 60000;
     public abstract ScheduledExecutorService getScheduledExecutorService();
     public abstract DQPCore getDQP();
@@ -124,6 +140,7 @@ public abstract class MaterializationManager implements VDBLifeCycleListener, No
 		if (vdb.getStatus() != Status.ACTIVE) {
 		    return;
 		}
+		scheduleStatisticsJobs(cvdb, vdb);
 			doMaterializationActions(vdb, new MaterializationAction() {
 				@Override
 				public void process(final Table table) {
@@ -243,6 +260,137 @@ public abstract class MaterializationManager implements VDBLifeCycleListener, No
 			});
 	}
 	
+	/**
+	 * Schedule the collection of statistics for the physical tables with a {@link #STATISTICS_TTL}.
+	 * Table values take precedence over schema values.  Only tables whose source can compute the
+	 * statistics aggregates are scheduled, and the first runs are spread over the interval.
+	 */
+	private void scheduleStatisticsJobs(final CompositeVDB cvdb, final VDBMetaData vdb) {
+		TransformationMetadata metadata = vdb.getAttachment(TransformationMetadata.class);
+		if (metadata == null) {
+			return;
+		}
+		Set<String> imports = vdb.getImportedModels();
+		List<Table> tables = new ArrayList<Table>();
+		for (Schema schema : metadata.getMetadataStore().getSchemaList()) {
+			if (imports.contains(schema.getName()) || !schema.isPhysical()) {
+				continue;
+			}
+			SourceCapabilities caps = null;
+			boolean capsChecked = false;
+			for (Table table : schema.getTables().values()) {
+				if (table.isVirtual() || table.isSystem() || getStatisticsTtl(table) <= 0) {
+					continue;
+				}
+				if (!capsChecked) {
+					caps = getCapabilities(vdb, schema.getName());
+					capsChecked = true;
+				}
+				if (caps == null || !supportsStatistics(caps)) {
+					LogManager.logWarning(LogConstants.CTX_RUNTIME, RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40174, table.getFullName()));
+					continue;
+				}
+				tables.add(table);
+			}
+		}
+		for (int i = 0; i < tables.size(); i++) {
+			Table table = tables.get(i);
+			long ttl = getStatisticsTtl(table);
+			//stagger the first runs over the interval, and wait the whole interval if the cardinality is already known
+			long delay = ttl * (i + 1) / tables.size();
+			if (table.getCardinality() != Table.UNKNOWN_CARDINALITY) {
+				delay += ttl;
+			}
+			final String command = getStatisticsCommand(table);
+			Future<?> f = getScheduledExecutorService().scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						executeAsynchQuery(vdb, command);
+					} catch (SQLException e) {
+						LogManager.logWarning(LogConstants.CTX_RUNTIME, e, e.getMessage());
+					}
+				}
+			}, delay, ttl, TimeUnit.MILLISECONDS);
+			cvdb.addTask(f);
+		}
+	}
+	
+	private static long getStatisticsTtl(Table table) {
+		String ttl = table.getProperty(STATISTICS_TTL, false);
+		if (ttl == null) {
+			ttl = table.getParent().getProperty(STATISTICS_TTL, false);
+		}
+		if (ttl == null) {
+			return -1;
+		}
+		return Long.parseLong(ttl);
+	}
+	
+	/**
+	 * @return the capabilities of the single source of the model, or null if they are not available
+	 */
+	private SourceCapabilities getCapabilities(VDBMetaData vdb, String modelName) {
+		ModelMetaData model = vdb.getModel(modelName);
+		ConnectorManagerRepository cmr = vdb.getAttachment(ConnectorManagerRepository.class);
+		if (model == null || cmr == null || model.getSourceNames().size() != 1) {
+			//multi-source distinct counts cannot be pushed
+			return null;
+		}
+		ConnectorManager cm = cmr.getConnectorManager(model.getSourceNames().get(0));
+		if (cm == null) {
+			return null;
+		}
+		try {
+			return cm.getCapabilities();
+		} catch (TranslatorException | TeiidComponentException e) {
+			LogManager.logDetail(LogConstants.CTX_RUNTIME, e, "Could not determine the capabilities of model", modelName); //$NON-NLS-1$
+			return null;
+		}
+	}
+	
+	/**
+	 * @return true if the statistics query can be pushed to the source, otherwise the 
+	 * engine would need to read the whole table to compute the aggregates
+	 */
+	static boolean supportsStatistics(SourceCapabilities caps) {
+		return caps.supportsCapability(Capability.QUERY_AGGREGATES_COUNT_STAR) 
+				&& caps.supportsCapability(Capability.QUERY_AGGREGATES_COUNT)
+				&& caps.supportsCapability(Capability.QUERY_AGGREGATES_DISTINCT)
+				&& caps.supportsCapability(Capability.QUERY_AGGREGATES_MIN)
+				&& caps.supportsCapability(Capability.QUERY_AGGREGATES_MAX);
+	}
+	
+	/**
+	 * Create a procedure that computes the cardinality and the column distinct counts, null counts, 
+	 * and min/max values with a single aggregate query against the source, then
+	 * sets them with SYSADMIN.setTableStats and SYSADMIN.setColumnStats
+	 */
+	static String getStatisticsCommand(Table table) {
+		String tableName = "'" + StringUtil.replaceAll(table.getFullName(), "'", "''") + "'"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		StringBuilder query = new StringBuilder("SELECT COUNT_BIG(*) AS c0"); //$NON-NLS-1$
+		StringBuilder updates = new StringBuilder();
+		updates.append("EXECUTE SYSADMIN.setTableStats(").append(tableName).append(", s.c0);"); //$NON-NLS-1$ //$NON-NLS-2$
+		int index = 1;
+		for (Column column : table.getColumns()) {
+			if (!column.isSelectable() || DataTypeManager.isNonComparable(column.getRuntimeType())) {
+				continue;
+			}
+			String name = SQLStringVisitor.escapeSinglePart(column.getName());
+			query.append(", COUNT_BIG(DISTINCT ").append(name).append(") AS c").append(index); //$NON-NLS-1$ //$NON-NLS-2$
+			query.append(", COUNT_BIG(").append(name).append(") AS c").append(index + 1); //$NON-NLS-1$ //$NON-NLS-2$
+			query.append(", CAST(MIN(").append(name).append(") AS string) AS c").append(index + 2); //$NON-NLS-1$ //$NON-NLS-2$
+			query.append(", CAST(MAX(").append(name).append(") AS string) AS c").append(index + 3); //$NON-NLS-1$ //$NON-NLS-2$
+			updates.append(" EXECUTE SYSADMIN.setColumnStats(").append(tableName).append(", '") //$NON-NLS-1$ //$NON-NLS-2$
+				.append(StringUtil.replaceAll(column.getName(), "'", "''")).append("', s.c").append(index) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				.append(", s.c0 - s.c").append(index + 1).append(", s.c").append(index + 3) //$NON-NLS-1$ //$NON-NLS-2$
+				.append(", s.c").append(index + 2).append(");"); //$NON-NLS-1$ //$NON-NLS-2$
+			index += 4;
+		}
+		query.append(" FROM ").append(table.getSQLString()); //$NON-NLS-1$
+		return "BEGIN LOOP ON (" + query + ") AS s BEGIN " + updates + " END END"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+	
     public int resetPendingJob(final VDBMetaData vdb, final Table table, String nodeName){
         try {
             String statusTable = table.getProperty(MaterializationMetadataRepository.MATVIEW_STATUS_TABLE, false);
@@ -171,6 +171,11 @@ public class RuntimePlugin {
         TEIID40166, 
         TEIID40167, 
         TEIID40168,
-        TEIID40169
+        TEIID40169,
+        TEIID40170,
+        TEIID40171,
+        TEIID40172,
+        TEIID40173,
+        TEIID40174
     }
 }
@@ -21,6 +21,7 @@ package org.teiid.services;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.StorageManager;
@@ -70,6 +71,9 @@ public class BufferServiceImpl implements BufferService, Serializable {
     //fixed memory properties
 	private long fixedMemoryBufferSpaceMb = -1;
     private boolean fixedMemoryBufferOffHeap;
+    private boolean memoryBufferAdmissionFiltering;
+    private int writeBehindThreads;
+    private int writeBehindMaxPendingMb = 64;
     
 	//disk properties
 	private File bufferDir;
@@ -77,6 +81,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
     private int maxOpenFiles = FileStorageManager.DEFAULT_MAX_OPEN_FILES;
     private long maxFileSize = SplittableStorageManager.DEFAULT_MAX_FILESIZE; // 2GB
     private long maxDiskBufferSpace = FileStorageManager.DEFAULT_MAX_BUFFERSPACE>>20;
+    private FileStorageManager.FileAccessMode diskAccessMode = FileStorageManager.FileAccessMode.RANDOM_ACCESS;
        
     private long vmMaxMemory = Runtime.getRuntime().maxMemory();
     private SessionServiceImpl sessionService;
@@ -99,6 +104,8 @@ public class BufferServiceImpl implements BufferService, Serializable {
             this.bufferMgr.setMaxProcessingKB(this.maxProcessingKb);
             this.bufferMgr.setInlineLobs(inlineLobs);
             this.bufferMgr.setSessionService(sessionService);
+            this.bufferMgr.setWriteBehindThreads(writeBehindThreads);
+            this.bufferMgr.setWriteBehindMaxBytes(writeBehindMaxPendingMb * MB);
             this.bufferMgr.initialize();
             
             // If necessary, add disk storage manager
@@ -114,6 +121,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 fsm = new FileStorageManager();
                 fsm.setStorageDirectory(bufferDir.getCanonicalPath());
                 fsm.setMaxOpenFiles(maxOpenFiles);
+                fsm.setFileAccessMode(diskAccessMode);
                 fsm.setMaxBufferSpace(maxDiskBufferSpace*MB);
                 SplittableStorageManager ssm = new SplittableStorageManager(fsm);
                 ssm.setMaxFileSize(maxFileSize);
@@ -125,6 +133,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 fsc.setBufferManager(this.bufferMgr);
                 fsc.setMaxStorageObjectSize(maxStorageObjectSize);
                 fsc.setDirect(fixedMemoryBufferOffHeap);
+                fsc.setAdmissionFiltering(memoryBufferAdmissionFiltering);
                 if (fixedMemoryBufferSpaceMb < 0) {
                     //use approximately 40% of what's set aside for the reserved accounting for conversion from kb to bytes
                     long autoMaxBufferSpace = 4*(((long)this.bufferMgr.getMaxReserveKB())<<10)/10; 
@@ -234,6 +243,26 @@ public class BufferServiceImpl implements BufferService, Serializable {
     public void setMaxOpenFiles(int maxOpenFiles) {
 		this.maxOpenFiles = maxOpenFiles;
 	}
+    
+    /**
+     * Set the access mode used for buffer files - RANDOM_ACCESS, CHANNEL, or MAPPED
+     * @param diskAccessMode
+     */
+    public void setDiskAccessMode(String diskAccessMode) {
+    	if (diskAccessMode == null) {
+    		this.diskAccessMode = FileStorageManager.FileAccessMode.RANDOM_ACCESS;
+    		return;
+    	}
+    	try {
+    		this.diskAccessMode = FileStorageManager.FileAccessMode.valueOf(diskAccessMode.trim().toUpperCase());
+    	} catch (IllegalArgumentException e) {
+    		LogManager.logWarning(LogConstants.CTX_DQP, RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40172, diskAccessMode, Arrays.toString(FileStorageManager.FileAccessMode.values()), this.diskAccessMode));
+    	}
+	}
+    
+    public String getDiskAccessMode() {
+		return diskAccessMode.name();
+	}
 
     public int getMaxProcessingKb() {
 		return maxProcessingKb;
@@ -310,6 +339,20 @@ public class BufferServiceImpl implements BufferService, Serializable {
     	return 0;
     }
     
+    public long getMemoryBufferHitCount() {
+    	if (fsc != null) {
+    		return fsc.getMemoryHits();
+    	}
+    	return 0;
+    }
+    
+    public long getMemoryBufferAdmissionRejectCount() {
+    	if (fsc != null) {
+    		return fsc.getAdmissionRejects();
+    	}
+    	return 0;
+    }
+    
     public long getMemoryBufferUsedKb() {
     	if (fsc != null) {
     		return fsc.getMemoryInUseBytes() >> 10;
@@ -324,6 +367,26 @@ public class BufferServiceImpl implements BufferService, Serializable {
     public long getStorageWriteCount() {
     	return bufferMgr.getWriteCount();
     }    
+    
+    public int getWriteBehindPendingCount() {
+    	return bufferMgr.getWriteBehindPendingCount();
+    }
+    
+    public long getWriteBehindPendingKb() {
+    	return bufferMgr.getWriteBehindPendingBytes() >> 10;
+    }
+    
+    public long getWriteBehindCallerWriteCount() {
+    	return bufferMgr.getWriteBehindCallerWriteCount();
+    }
+    
+    public double getWriteBehindAverageWriteMillis() {
+    	return bufferMgr.getWriteBehindAverageWriteMillis();
+    }
+    
+    public double getWriteBehindMaxWriteMillis() {
+    	return bufferMgr.getWriteBehindMaxWriteMillis();
+    }
 	
 	public long getReadAttempts() {
 		return bufferMgr.getReadAttempts();
@@ -341,6 +404,40 @@ public class BufferServiceImpl implements BufferService, Serializable {
 		return fixedMemoryBufferOffHeap;
 	}    
     
+    /**
+     * When true reads from disk are only promoted into the fixed memory buffer if 
+     * they are more frequently used than the entries that would be evicted.  Defaults to false.
+     * @param memoryBufferAdmissionFiltering
+     */
+    public void setMemoryBufferAdmissionFiltering(boolean memoryBufferAdmissionFiltering) {
+		this.memoryBufferAdmissionFiltering = memoryBufferAdmissionFiltering;
+	}
+    
+    public boolean isMemoryBufferAdmissionFiltering() {
+		return memoryBufferAdmissionFiltering;
+	}
+    
+    /**
+     * The number of background threads that write evicted batches to storage.
+     * 0 performs the writes on the processing thread.
+     * @param writeBehindThreads
+     */
+    public void setWriteBehindThreads(int writeBehindThreads) {
+		this.writeBehindThreads = writeBehindThreads;
+	}
+    
+    public int getWriteBehindThreads() {
+		return writeBehindThreads;
+	}
+    
+    public void setWriteBehindMaxPendingMb(int writeBehindMaxPendingMb) {
+		this.writeBehindMaxPendingMb = writeBehindMaxPendingMb;
+	}
+    
+    public int getWriteBehindMaxPendingMb() {
+		return writeBehindMaxPendingMb;
+	}
+    
     public boolean isEncryptFiles() {
 		return encryptFiles;
 	}
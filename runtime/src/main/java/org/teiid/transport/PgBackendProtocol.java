@@ -24,9 +24,11 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StreamCorruptedException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
@@ -35,8 +37,11 @@ import java.sql.Blob;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Properties;
+import java.util.TimeZone;
 
 import javax.net.ssl.SSLEngine;
 
@@ -59,7 +64,9 @@ import org.teiid.odbc.ODBCClientRemote;
 import org.teiid.odbc.PGUtil.PgColInfo;
 import org.teiid.query.function.GeometryUtils;
 import org.teiid.runtime.RuntimePlugin;
+import org.teiid.transport.pg.PGbinary;
 import org.teiid.transport.pg.PGbytea;
+import org.teiid.transport.pg.PGcopy;
 import org.teiid.transport.pg.TimestampUtils;
 
 import io.netty.buffer.ByteBuf;
@@ -109,6 +116,8 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		private int rowsSent = 0;
 		private int rowsInBuffer = 0;
 		String sql;
+		CopyFormat copyFormat;
+		char delimiter;
 
 		private ResultsWorkItem(List<PgColInfo> cols, ResultSetImpl rs, ResultsFuture<Integer> result, int rows2Send, short[] resultColumnFormat) {
 			this.cols = cols;
@@ -153,24 +162,21 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 			boolean processNext = true;
 			try {
     			if (future.get()) {
-    				sendDataRow(rs, cols, resultColumnFormat);
+    				if (copyFormat != null) {
+    					sendCopyData(rs, cols, copyFormat, delimiter);
+    				} else {
+    					sendDataRow(rs, cols, resultColumnFormat);
+    				}
     				rowsSent++;
     				rowsInBuffer++;
     				boolean done = rowsSent == rows2Send;
-    				flushResults(done);
-    				processNext = !done;
+    				processNext = flushResults(done) && !done;
     				if (done) {
-    					if (sql != null) {
-    						sendCommandComplete(sql, rowsSent);
-    					}
-    					result.getResultsReceiver().receiveResults(rowsSent);
+    					sendCompletion();
     				}
     			} else {
     				sendContents();
-    				if (sql != null) {
-		    			sendCommandComplete(sql, rowsSent);
-		    		}
-    				result.getResultsReceiver().receiveResults(rowsSent);
+    				sendCompletion();
     				processNext = false;
     			}
 			} catch (Throwable t) {
@@ -180,13 +186,41 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 			return processNext;
 		}
 		
-		private void flushResults(boolean force) {
+		private void sendCompletion() {
+			if (copyFormat != null) {
+				sendCopyDone(copyFormat);
+				sendCommandComplete("COPY", rowsSent); //$NON-NLS-1$
+			} else if (sql != null) {
+				sendCommandComplete(sql, rowsSent);
+			}
+			result.getResultsReceiver().receiveResults(rowsSent);
+		}
+		
+		/**
+		 * @return false if the channel is not writable and processing will resume 
+		 * once the flushed contents have been written
+		 */
+		private boolean flushResults(boolean force) {
 			int avgRowsize = dataOut.writerIndex()/rowsInBuffer;
 			if (force || (maxBufferSize - dataOut.writerIndex()) < (avgRowsize*2)) {
-				sendContents();
+				ChannelFuture future = sendContents();
 				initBuffer(maxBufferSize / 8);
 				rowsInBuffer = 0;
-			}			
+				if (!force && !ctx.channel().isWritable()) {
+					future.addListener(new ChannelFutureListener() {
+						@Override
+						public void operationComplete(ChannelFuture f) throws Exception {
+							if (f.isSuccess()) {
+								ResultsWorkItem.this.run();
+							} else {
+								result.getResultsReceiver().exceptionOccurred(f.cause());
+							}
+						}
+					});
+					return false;
+				}
+			}
+			return true;
 		}
 	}
 
@@ -194,7 +228,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 	public static final String CLIENT_ENCODING = "client_encoding";
 
     private ByteBuf dataOut;
-	private OutputStreamWriter writer;
+	private Writer writer;
 
     private Properties props;    
     private Charset encoding = Charset.forName("UTF-8");
@@ -206,6 +240,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 	private boolean requireSecure;
     
 	private volatile ResultsFuture<Boolean> nextFuture;
+	private StringWriter copyValue;
 
 	private SSLConfiguration config;
 
@@ -271,7 +306,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		
 		sendParameterStatus("client_encoding", clientEncoding);
 		sendParameterStatus("DateStyle", this.props.getProperty("DateStyle", "ISO"));
-		sendParameterStatus("integer_datetimes", "off");
+		sendParameterStatus("integer_datetimes", "on");
 		sendParameterStatus("is_superuser", "off");
 		sendParameterStatus("server_encoding", "SQL_ASCII");
 		sendParameterStatus("server_version", "8.2");
@@ -396,6 +431,64 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		}
 	}
 
+	@Override
+	public void sendCopyOut(ResultSetImpl rs, List<PgColInfo> cols,
+			ResultsFuture<Integer> result, CopyFormat format, char delimiter,
+			boolean header) {
+		if (nextFuture != null) {
+			sendErrorResponse(new IllegalStateException("Pending results have not been sent")); //$NON-NLS-1$
+		}
+		if (format == CopyFormat.BINARY) {
+			//every column must use the binary form, there is no per column fallback to text
+			for (PgColInfo col : cols) {
+				if (!isBinary(col.type)) {
+					result.getResultsReceiver().exceptionOccurred(new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40173, col.name)));
+					return;
+				}
+			}
+		}
+		int columnFormat = format == CopyFormat.BINARY?1:0;
+		startMessage('H', 7 + 2*cols.size());
+		write(columnFormat);
+		writeShort(cols.size());
+		for (int i = 0; i < cols.size(); i++) {
+			writeShort(columnFormat);
+		}
+		sendMessage();
+		try {
+			if (format == CopyFormat.BINARY) {
+				startMessage('d');
+				write(PGcopy.BINARY_SIGNATURE);
+				writeInt(0);
+				writeInt(0);
+				sendMessage();
+			} else {
+				if (this.copyValue == null) {
+					this.copyValue = new StringWriter();
+				}
+				if (header) {
+					startMessage('d');
+					for (int i = 0; i < cols.size(); i++) {
+						if (i > 0) {
+							writer.write(delimiter);
+						}
+						PGcopy.writeCsv(writer, cols.get(i).name, delimiter);
+					}
+					writer.write('\n');
+					writer.flush();
+					sendMessage();
+				}
+			}
+		} catch (IOException e) {
+			result.getResultsReceiver().exceptionOccurred(e);
+			return;
+		}
+		ResultsWorkItem r = new ResultsWorkItem(cols, rs, result, -1, null);
+		r.copyFormat = format;
+		r.delimiter = delimiter;
+		r.run();
+	}
+
 	@Override
 	public void sendUpdateCount(String sql, int updateCount) {
 		sendCommandComplete(sql, updateCount);
@@ -492,6 +585,66 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		this.dataOut.setInt(lengthIndex, this.dataOut.writerIndex() - lengthIndex);
 	}
 	
+	/**
+	 * Send a single row as CopyData - the text and csv values are captured then escaped,
+	 * the binary form matches a binary DataRow.
+	 */
+	private void sendCopyData(ResultSet rs, List<PgColInfo> cols, CopyFormat format, char delimiter) throws SQLException, IOException {
+		startMessage('d', -1);
+		int lengthIndex = this.dataOut.writerIndex() - 4;
+		if (format == CopyFormat.BINARY) {
+			writeShort(cols.size());
+			for (int i = 0; i < cols.size(); i++) {
+				int dataBytesIndex = this.dataOut.writerIndex();
+				writeInt(-1);
+				getBinaryContent(rs, cols.get(i), i+1);
+				writer.flush();
+				if (!rs.wasNull()) {
+					this.dataOut.setInt(dataBytesIndex, this.dataOut.writerIndex() - dataBytesIndex - 4);
+				}
+			}
+		} else {
+			Writer out = this.writer;
+			for (int i = 0; i < cols.size(); i++) {
+				if (i > 0) {
+					out.write(delimiter);
+				}
+				this.copyValue.getBuffer().setLength(0);
+				this.writer = this.copyValue;
+				try {
+					getContent(rs, cols.get(i), i+1);
+				} finally {
+					this.writer = out;
+				}
+				if (rs.wasNull()) {
+					if (format == CopyFormat.TEXT) {
+						out.write(PGcopy.TEXT_NULL);
+					}
+				} else if (format == CopyFormat.TEXT) {
+					PGcopy.writeText(out, this.copyValue.getBuffer(), delimiter);
+				} else {
+					PGcopy.writeCsv(out, this.copyValue.getBuffer(), delimiter);
+				}
+			}
+			out.write('\n');
+			out.flush();
+		}
+		this.dataOut.setInt(lengthIndex, this.dataOut.writerIndex() - lengthIndex);
+	}
+	
+	/**
+	 * Send the binary trailer if needed and CopyDone
+	 */
+	private void sendCopyDone(CopyFormat format) {
+		if (format == CopyFormat.BINARY) {
+			startMessage('d');
+			writeShort(-1);
+			sendMessage();
+		}
+		startMessage('c');
+		sendMessage();
+	}
+	
     private void getBinaryContent(ResultSet rs, PgColInfo col, int column) throws SQLException, TeiidSQLException, IOException {
 	    switch (col.type) {
 	    case PG_TYPE_INT2:
@@ -538,16 +691,125 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 	    case PG_TYPE_DATE:
 	        Date d = rs.getDate(column);
 	        if (d != null) {
-	            long millis = d.getTime();
-	            millis += TimestampWithTimezone.getCalendar().getTimeZone().getOffset(millis);
-	            long secs = TimestampUtils.toPgSecs(millis / 1000);
-	            dataOut.writeInt((int) (secs / 86400));
+	            dataOut.writeInt(TimestampUtils.toPgDays(TimestampWithTimezone.getCalendar().getTimeZone(), d));
+	        }
+	        break;
+	    case PG_TYPE_BOOL:
+	        boolean b = rs.getBoolean(column);
+	        if (!rs.wasNull()) {
+	            dataOut.writeByte(b?1:0);
+	        }
+	        break;
+	    case PG_TYPE_NUMERIC:
+	        BigDecimal bd = rs.getBigDecimal(column);
+	        if (bd != null) {
+	            PGbinary.writeNumeric(dataOut, bd);
+	        }
+	        break;
+	    case PG_TYPE_TIME:
+	        Time t = rs.getTime(column);
+	        if (t != null) {
+	            dataOut.writeLong(TimestampUtils.toPgMicros(TimestampWithTimezone.getCalendar().getTimeZone(), t));
+	        }
+	        break;
+	    case PG_TYPE_TIMESTAMP_NO_TMZONE:
+	        Timestamp ts = rs.getTimestamp(column);
+	        if (ts != null) {
+	            dataOut.writeLong(TimestampUtils.toPgMicros(TimestampWithTimezone.getCalendar().getTimeZone(), ts));
+	        }
+	        break;
+	    case PG_TYPE_BPCHAR:
+	    case PG_TYPE_VARCHAR:
+	    case PG_TYPE_TEXT:
+	        //the binary form is the same as the text
+	        getContent(rs, col, column);
+	        break;
+	    case PG_TYPE_BOOLARRAY:
+	    case PG_TYPE_INT2ARRAY:
+	    case PG_TYPE_INT4ARRAY:
+	    case PG_TYPE_INT8ARRAY:
+	    case PG_TYPE_FLOAT4ARRAY:
+	    case PG_TYPE_FLOAT8ARRAY:
+	    case PG_TYPE_NUMERICARRAY:
+	    case PG_TYPE_DATEARRAY:
+	    case PG_TYPE_TIMEARRAY:
+	    case PG_TYPE_TIMESTAMP_NO_TMZONEARRAY:
+	    case PG_TYPE_TEXTARRAY:
+	        Array array = rs.getArray(column);
+	        if (array != null) {
+	            writeBinaryArray(array.getArray(), PGbinary.getElementType(col.type));
 	        }
 	        break;
 	    default:
 	        throw new AssertionError();
 	    }
 	}
+    
+    /**
+     * Write a single dimension array - the number of dimensions, the null flag, the element type, 
+     * then the dimension length and lower bound followed by the length prefixed elements.
+     */
+    private void writeBinaryArray(Object array, int elementType) throws IOException {
+        int length = java.lang.reflect.Array.getLength(array);
+        boolean hasNull = false;
+        for (int i = 0; i < length && !hasNull; i++) {
+            hasNull = java.lang.reflect.Array.get(array, i) == null;
+        }
+        dataOut.writeInt(length == 0?0:1);
+        dataOut.writeInt(hasNull?1:0);
+        dataOut.writeInt(elementType);
+        if (length == 0) {
+            return;
+        }
+        dataOut.writeInt(length);
+        dataOut.writeInt(1);
+        TimeZone tz = TimestampWithTimezone.getCalendar().getTimeZone();
+        for (int i = 0; i < length; i++) {
+            Object o = java.lang.reflect.Array.get(array, i);
+            int dataBytesIndex = this.dataOut.writerIndex();
+            writeInt(-1);
+            if (o == null) {
+                continue;
+            }
+            switch (elementType) {
+            case PG_TYPE_BOOL:
+                dataOut.writeByte(((Boolean)o)?1:0);
+                break;
+            case PG_TYPE_INT2:
+                dataOut.writeShort(((Number)o).shortValue());
+                break;
+            case PG_TYPE_INT4:
+                dataOut.writeInt(((Number)o).intValue());
+                break;
+            case PG_TYPE_INT8:
+                dataOut.writeLong(((Number)o).longValue());
+                break;
+            case PG_TYPE_FLOAT4:
+                dataOut.writeInt(Float.floatToIntBits(((Number)o).floatValue()));
+                break;
+            case PG_TYPE_FLOAT8:
+                dataOut.writeLong(Double.doubleToLongBits(((Number)o).doubleValue()));
+                break;
+            case PG_TYPE_NUMERIC:
+                PGbinary.writeNumeric(dataOut, o instanceof BigDecimal?(BigDecimal)o:new BigDecimal(o.toString()));
+                break;
+            case PG_TYPE_DATE:
+                dataOut.writeInt(TimestampUtils.toPgDays(tz, (Date)o));
+                break;
+            case PG_TYPE_TIME:
+                dataOut.writeLong(TimestampUtils.toPgMicros(tz, (Time)o));
+                break;
+            case PG_TYPE_TIMESTAMP_NO_TMZONE:
+                dataOut.writeLong(TimestampUtils.toPgMicros(tz, (Timestamp)o));
+                break;
+            default:
+                writer.write(o.toString());
+                writer.flush();
+                break;
+            }
+            this.dataOut.setInt(dataBytesIndex, this.dataOut.writerIndex() - dataBytesIndex - 4);
+        }
+    }
 	
 	private void getContent(ResultSet rs, PgColInfo col, int column) throws SQLException, TeiidSQLException, IOException {
 		switch (col.type) {
@@ -753,9 +1015,16 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 	    case PG_TYPE_FLOAT8:
 	    case PG_TYPE_BYTEA:
 	    case PG_TYPE_DATE:
+	    case PG_TYPE_BOOL:
+	    case PG_TYPE_NUMERIC:
+	    case PG_TYPE_TIME:
+	    case PG_TYPE_TIMESTAMP_NO_TMZONE:
+	    case PG_TYPE_BPCHAR:
+	    case PG_TYPE_VARCHAR:
+	    case PG_TYPE_TEXT:
 	        return true;
 	    }
-	    return false;
+	    return PGbinary.getElementType(oid) != PG_TYPE_UNSPECIFIED;
 	}
 	
 	private void sendRowDescription(List<PgColInfo> cols, short[] resultColumnFormat) {
@@ -957,11 +1226,11 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		sendContents();
 	}
 	
-	private void sendContents() {
+	private ChannelFuture sendContents() {
 		ByteBuf cb = this.dataOut;
 		this.dataOut = null;
 		this.writer = null;
-		this.ctx.writeAndFlush(cb);
+		return this.ctx.writeAndFlush(cb);
 	}
 
 	private static void trace(String... msg) {
@@ -0,0 +1,121 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.transport.pg;
+
+import static org.teiid.odbc.PGUtil.*;
+
+import java.math.BigDecimal;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Binary encodings used by the backend that are not covered by simple
+ * fixed width values.
+ */
+public class PGbinary {
+
+	private static final int NUMERIC_POS = 0x0000;
+	private static final int NUMERIC_NEG = 0x4000;
+
+	/**
+	 * Write the binary numeric value - the number of base 10000 digits,
+	 * the weight of the first digit, the sign, the display scale, then the digits.
+	 */
+	public static void writeNumeric(ByteBuf out, BigDecimal value) {
+		if (value.scale() < 0) {
+			value = value.setScale(0);
+		}
+		int scale = value.scale();
+		String digits = value.unscaledValue().abs().toString();
+		int intDigits = digits.length() - scale;
+		int leftPad = 0;
+		if (intDigits < 0) {
+			//leading fractional zeros
+			leftPad = -intDigits;
+			intDigits = 0;
+		}
+		int intPad = (4 - intDigits % 4) % 4;
+		leftPad += intPad;
+		int rightPad = (4 - scale % 4) % 4;
+		int length = leftPad + digits.length() + rightPad;
+		int groups = length / 4;
+		int weight = (intPad + intDigits) / 4 - 1;
+		short[] values = new short[groups];
+		for (int i = 0; i < length; i++) {
+			int digit = 0;
+			int index = i - leftPad;
+			if (index >= 0 && index < digits.length()) {
+				digit = digits.charAt(index) - '0';
+			}
+			values[i / 4] = (short)(values[i / 4] * 10 + digit);
+		}
+		int first = 0;
+		while (first < groups && values[first] == 0) {
+			first++;
+			weight--;
+		}
+		int last = groups;
+		while (last > first && values[last - 1] == 0) {
+			last--;
+		}
+		if (first == last) {
+			weight = 0;
+		}
+		out.writeShort(last - first);
+		out.writeShort(weight);
+		out.writeShort(value.signum() < 0 ? NUMERIC_NEG : NUMERIC_POS);
+		out.writeShort(scale);
+		for (int i = first; i < last; i++) {
+			out.writeShort(values[i]);
+		}
+	}
+
+	/**
+	 * @return the element type of an array type that has a binary encoding,
+	 * or {@link PGUtil#PG_TYPE_UNSPECIFIED}
+	 */
+	public static int getElementType(int arrayType) {
+		switch (arrayType) {
+		case PG_TYPE_BOOLARRAY:
+			return PG_TYPE_BOOL;
+		case PG_TYPE_INT2ARRAY:
+			return PG_TYPE_INT2;
+		case PG_TYPE_INT4ARRAY:
+			return PG_TYPE_INT4;
+		case PG_TYPE_INT8ARRAY:
+			return PG_TYPE_INT8;
+		case PG_TYPE_FLOAT4ARRAY:
+			return PG_TYPE_FLOAT4;
+		case PG_TYPE_FLOAT8ARRAY:
+			return PG_TYPE_FLOAT8;
+		case PG_TYPE_NUMERICARRAY:
+			return PG_TYPE_NUMERIC;
+		case PG_TYPE_DATEARRAY:
+			return PG_TYPE_DATE;
+		case PG_TYPE_TIMEARRAY:
+			return PG_TYPE_TIME;
+		case PG_TYPE_TIMESTAMP_NO_TMZONEARRAY:
+			return PG_TYPE_TIMESTAMP_NO_TMZONE;
+		case PG_TYPE_TEXTARRAY:
+			return PG_TYPE_TEXT;
+		}
+		return PG_TYPE_UNSPECIFIED;
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.transport.pg;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Value encodings for the COPY TO STDOUT text, csv and binary formats.
+ */
+public class PGcopy {
+
+	/**
+	 * The binary format signature, which is followed by the flags and header extension length
+	 */
+	public static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xff, '\r', '\n', 0};
+
+	public static final String TEXT_NULL = "\\N"; //$NON-NLS-1$
+
+	/**
+	 * Write a text format value - backslash, newline, carriage return, tab and the delimiter
+	 * are backslash escaped.
+	 */
+	public static void writeText(Writer out, CharSequence value, char delimiter) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				out.write("\\\\"); //$NON-NLS-1$
+				break;
+			case '\n':
+				out.write("\\n"); //$NON-NLS-1$
+				break;
+			case '\r':
+				out.write("\\r"); //$NON-NLS-1$
+				break;
+			case '\t':
+				out.write("\\t"); //$NON-NLS-1$
+				break;
+			default:
+				if (c == delimiter) {
+					out.write('\\');
+				}
+				out.write(c);
+			}
+		}
+	}
+
+	/**
+	 * Write a csv format value.  The value is quoted if it is empty, so that it is
+	 * distinguished from null, or if it contains the delimiter, a quote or a line break.
+	 */
+	public static void writeCsv(Writer out, CharSequence value, char delimiter) throws IOException {
+		boolean quote = value.length() == 0;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote) {
+			out.append(value);
+			return;
+		}
+		out.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				out.write('"');
+			}
+			out.write(c);
+		}
+		out.write('"');
+	}
+
+}
@@ -8,6 +8,8 @@
 package org.teiid.transport.pg;
 
 import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.util.TimeZone;
 
 /**
@@ -94,4 +96,36 @@ public class TimestampUtils {
         return secs;
     }
 
+    /**
+     * Returns the binary encoded date value - the days since
+     * the postgresql epoch.
+     */
+    public static int toPgDays(TimeZone tz, Date d) {
+        long millis = d.getTime();
+        millis += tz.getOffset(millis);
+        long secs = toPgSecs(millis / 1000);
+        return (int) (secs / 86400);
+    }
+
+    /**
+     * Returns the binary encoded time value with integer_datetimes - the
+     * microseconds since midnight.
+     */
+    public static long toPgMicros(TimeZone tz, Time t) {
+        long millis = t.getTime();
+        millis += tz.getOffset(millis);
+        return Math.floorMod(millis, 86400000L) * 1000L;
+    }
+
+    /**
+     * Returns the binary encoded timestamp value with integer_datetimes - the
+     * microseconds since the postgresql epoch.
+     */
+    public static long toPgMicros(TimeZone tz, Timestamp ts) {
+        long millis = ts.getTime();
+        millis += tz.getOffset(millis);
+        long secs = toPgSecs(Math.floorDiv(millis, 1000L));
+        return secs * 1000000L + ts.getNanos() / 1000;
+    }
+
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.runtime;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.metadata.MetadataStore;
+import org.teiid.metadata.Schema;
+import org.teiid.metadata.Table;
+import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
+import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
+import org.teiid.query.unittest.RealMetadataFactory;
+
+@SuppressWarnings("nls")
+public class TestMaterializationManager {
+	
+	@Test public void testStatisticsCommand() {
+		Schema schema = RealMetadataFactory.createPhysicalModel("pm1", new MetadataStore());
+		Table table = RealMetadataFactory.createPhysicalGroup("g1", schema);
+		RealMetadataFactory.createElements(table, new String[] {"e1", "e2", "e3"}, 
+				new String[] {DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.CLOB});
+		
+		//the clob column is not comparable and is skipped
+		//setColumnStats takes the distinct count, null count, max, then min
+		assertEquals("BEGIN LOOP ON (SELECT COUNT_BIG(*) AS c0, "
+				+ "COUNT_BIG(DISTINCT e1) AS c1, COUNT_BIG(e1) AS c2, CAST(MIN(e1) AS string) AS c3, CAST(MAX(e1) AS string) AS c4, "
+				+ "COUNT_BIG(DISTINCT e2) AS c5, COUNT_BIG(e2) AS c6, CAST(MIN(e2) AS string) AS c7, CAST(MAX(e2) AS string) AS c8 "
+				+ "FROM \"pm1\".\"g1\") AS s BEGIN EXECUTE SYSADMIN.setTableStats('pm1.g1', s.c0); "
+				+ "EXECUTE SYSADMIN.setColumnStats('pm1.g1', 'e1', s.c1, s.c0 - s.c2, s.c4, s.c3); "
+				+ "EXECUTE SYSADMIN.setColumnStats('pm1.g1', 'e2', s.c5, s.c0 - s.c6, s.c8, s.c7); END END", 
+				MaterializationManager.getStatisticsCommand(table));
+	}
+	
+	@Test public void testSupportsStatistics() {
+		BasicSourceCapabilities caps = new BasicSourceCapabilities();
+		assertFalse(MaterializationManager.supportsStatistics(caps));
+		caps.setCapabilitySupport(Capability.QUERY_AGGREGATES_COUNT_STAR, true);
+		caps.setCapabilitySupport(Capability.QUERY_AGGREGATES_COUNT, true);
+		caps.setCapabilitySupport(Capability.QUERY_AGGREGATES_MIN, true);
+		caps.setCapabilitySupport(Capability.QUERY_AGGREGATES_MAX, true);
+		//without distinct the engine would read the whole table
+		assertFalse(MaterializationManager.supportsStatistics(caps));
+		caps.setCapabilitySupport(Capability.QUERY_AGGREGATES_DISTINCT, true);
+		assertTrue(MaterializationManager.supportsStatistics(caps));
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.transport.pg;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.TimeZone;
+
+import org.junit.Test;
+import org.teiid.odbc.PGUtil;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+@SuppressWarnings("nls")
+public class TestPGbinary {
+
+	private void helpTestNumeric(String value, int weight, int sign, int scale, int... digits) {
+		ByteBuf buf = Unpooled.buffer();
+		PGbinary.writeNumeric(buf, new BigDecimal(value));
+		assertEquals(digits.length, buf.readShort());
+		assertEquals(weight, buf.readShort());
+		assertEquals(sign, buf.readShort());
+		assertEquals(scale, buf.readShort());
+		for (int digit : digits) {
+			assertEquals(digit, buf.readShort());
+		}
+		assertEquals(0, buf.readableBytes());
+	}
+
+	@Test public void testNumeric() {
+		helpTestNumeric("0", 0, 0, 0);
+		helpTestNumeric("0.00", 0, 0, 2);
+		helpTestNumeric("123.45", 0, 0, 2, 123, 4500);
+		helpTestNumeric("-12345678", 1, 0x4000, 0, 1234, 5678);
+		helpTestNumeric("0.001", -1, 0, 3, 10);
+		helpTestNumeric("0.00001", -2, 0, 5, 1000);
+		helpTestNumeric("10000.0001", 1, 0, 4, 1, 0, 1);
+		helpTestNumeric("1E+5", 1, 0, 0, 10);
+	}
+
+	@Test public void testTimestamp() {
+		TimeZone tz = TimeZone.getTimeZone("GMT");
+		long pgEpoch = 946684800000L;
+		assertEquals(0, TimestampUtils.toPgMicros(tz, new Timestamp(pgEpoch)));
+		Timestamp ts = new Timestamp(pgEpoch - 1000);
+		ts.setNanos(999999000);
+		assertEquals(-1, TimestampUtils.toPgMicros(tz, ts));
+		ts = new Timestamp(pgEpoch + 3723000);
+		ts.setNanos(1000);
+		assertEquals(3723000001L, TimestampUtils.toPgMicros(tz, ts));
+		assertEquals(3723000000L, TimestampUtils.toPgMicros(tz, new Time(3723000)));
+		assertEquals(1, TimestampUtils.toPgDays(tz, new Date(pgEpoch + 86400000)));
+	}
+
+	@Test public void testElementType() {
+		assertEquals(PGUtil.PG_TYPE_NUMERIC, PGbinary.getElementType(PGUtil.PG_TYPE_NUMERICARRAY));
+		assertEquals(PGUtil.PG_TYPE_UNSPECIFIED, PGbinary.getElementType(PGUtil.PG_TYPE_XMLARRAY));
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.transport.pg;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class TestPGcopy {
+
+	private String text(String value, char delimiter) throws Exception {
+		StringWriter sw = new StringWriter();
+		PGcopy.writeText(sw, value, delimiter);
+		return sw.toString();
+	}
+
+	private String csv(String value, char delimiter) throws Exception {
+		StringWriter sw = new StringWriter();
+		PGcopy.writeCsv(sw, value, delimiter);
+		return sw.toString();
+	}
+
+	@Test public void testText() throws Exception {
+		assertEquals("abc", text("abc", '\t'));
+		assertEquals("", text("", '\t'));
+		assertEquals("a\\tb\\nc\\rd\\\\", text("a\tb\nc\rd\\", '\t'));
+		assertEquals("a\\|b,c", text("a|b,c", '|'));
+	}
+
+	@Test public void testCsv() throws Exception {
+		assertEquals("abc", csv("abc", ','));
+		assertEquals("\"\"", csv("", ','));
+		assertEquals("\"a,b\"", csv("a,b", ','));
+		assertEquals("a,b", csv("a,b", '|'));
+		assertEquals("\"say \"\"hi\"\"\"", csv("say \"hi\"", ','));
+		assertEquals("\"a\nb\"", csv("a\nb", ','));
+	}
+
+}
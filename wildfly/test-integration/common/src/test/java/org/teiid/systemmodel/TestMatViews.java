@@ -399,6 +399,137 @@ public class TestMatViews {
 		assertFalse(rs.next());
 	}
 	
+	private static String incrementalData;
+	private static String incrementalChanges;
+	
+	public static String incrementalData() {
+		return incrementalData;
+	}
+	
+	public static String incrementalChanges() {
+		return incrementalChanges;
+	}
+	
+	@Test public void testIncrementalRefresh() throws Exception {
+		incrementalData = "1,a\n2,b";
+		incrementalChanges = "1,1\n2,1";
+		ModelMetaData mmd2 = new ModelMetaData();
+		mmd2.setName("view1");
+		mmd2.setModelType(Type.VIRTUAL);
+		mmd2.setSchemaSourceType("DDL");
+		mmd2.setSchemaText("CREATE VIRTUAL FUNCTION incrementalData() RETURNS string OPTIONS (JAVA_CLASS '" + TestMatViews.class.getName() + "', JAVA_METHOD 'incrementalData', DETERMINISM 'NONDETERMINISTIC'); "
+				+ "CREATE VIRTUAL FUNCTION incrementalChanges() RETURNS string OPTIONS (JAVA_CLASS '" + TestMatViews.class.getName() + "', JAVA_METHOD 'incrementalChanges', DETERMINISM 'NONDETERMINISTIC'); "
+				+ "CREATE VIEW changes ( col integer, version integer ) AS select t.* from texttable(incrementalChanges() columns col integer, version integer) t; "
+				+ "CREATE VIEW v1 ( col integer primary key, col1 string ) OPTIONS (MATERIALIZED true, \"teiid_rel:MATVIEW_INCREMENTAL_COLUMN\" 'version', \"teiid_rel:MATVIEW_CHANGE_TABLE\" 'view1.changes') "
+				+ "AS select t.* from texttable(incrementalData() columns col integer, col1 string) t");
+		server.deployVDB("comp", mmd2);
+		
+		Connection c = server.getDriver().connect("jdbc:teiid:comp", null);
+		Statement s = c.createStatement();
+		ResultSet rs = s.executeQuery("select col1 from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals("a", rs.getString(1));
+		assertTrue(rs.next());
+		assertEquals("b", rs.getString(1));
+		assertFalse(rs.next());
+		
+		//1 is deleted, 2 updated, and 3 inserted - all with the last seen version, which must not be skipped
+		incrementalData = "2,c\n3,d";
+		incrementalChanges = "1,1\n2,1\n1,1\n3,1";
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', false)) p");
+		assertTrue(rs.next());
+		assertEquals(3, rs.getInt(1));
+		
+		rs = s.executeQuery("select col, col1 from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		assertEquals("c", rs.getString(2));
+		assertTrue(rs.next());
+		assertEquals(3, rs.getInt(1));
+		assertEquals("d", rs.getString(2));
+		assertFalse(rs.next());
+		
+		//the keys at or after the last version are refreshed, then only those changed since
+		incrementalData = "2,e\n3,f";
+		incrementalChanges = "1,1\n2,1\n3,1\n3,2";
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', false)) p");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', false)) p");
+		assertTrue(rs.next());
+		assertEquals(1, rs.getInt(1));
+		
+		rs = s.executeQuery("select col1 from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals("e", rs.getString(1));
+		assertTrue(rs.next());
+		assertEquals("f", rs.getString(1));
+		assertFalse(rs.next());
+		
+		//an invalidating refresh performs a full load
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', true)) p");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		rs = s.executeQuery("select count(*) from v1");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+	}
+	
+	@Test public void testIncrementalRefreshWithoutChangeTable() throws Exception {
+		incrementalData = "1,a,1\n2,b,1";
+		ModelMetaData mmd2 = new ModelMetaData();
+		mmd2.setName("view1");
+		mmd2.setModelType(Type.VIRTUAL);
+		mmd2.setSchemaSourceType("DDL");
+		mmd2.setSchemaText("CREATE VIRTUAL FUNCTION incrementalData() RETURNS string OPTIONS (JAVA_CLASS '" + TestMatViews.class.getName() + "', JAVA_METHOD 'incrementalData', DETERMINISM 'NONDETERMINISTIC'); "
+				+ "CREATE VIEW v1 ( col integer primary key, col1 string, version integer ) OPTIONS (MATERIALIZED true, \"teiid_rel:MATVIEW_INCREMENTAL_COLUMN\" 'version') "
+				+ "AS select t.* from texttable(incrementalData() columns col integer, col1 string, version integer) t");
+		server.deployVDB("comp", mmd2);
+		
+		Connection c = server.getDriver().connect("jdbc:teiid:comp", null);
+		Statement s = c.createStatement();
+		ResultSet rs = s.executeQuery("select count(*) from v1");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		
+		//deletes can't be detected, so a full load is performed
+		incrementalData = "2,c,2\n3,d,3";
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', false)) p");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		
+		rs = s.executeQuery("select col1 from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals("c", rs.getString(1));
+		assertTrue(rs.next());
+		assertEquals("d", rs.getString(1));
+		assertFalse(rs.next());
+	}
+	
+	@Test public void testPartitionedLoad() throws Exception {
+		ModelMetaData mmd2 = new ModelMetaData();
+		mmd2.setName("view1");
+		mmd2.setModelType(Type.VIRTUAL);
+		mmd2.setSchemaSourceType("DDL");
+		mmd2.setSchemaText("CREATE VIEW v1 ( col integer primary key, col1 string ) OPTIONS (MATERIALIZED true, \"teiid_rel:MATVIEW_PARTITION_COLUMN\" 'col', \"teiid_rel:MATVIEW_PARTITION_COUNT\" '3') "
+				+ "AS select t.* from texttable('5,e\n-4,d\n3,c\n2,b\n1,a\n0,z' columns col integer, col1 string) t");
+		server.deployVDB("comp", mmd2);
+		
+		//the texttable partitions can't be pushed to a source, so the view is loaded without partitioning
+		Connection c = server.getDriver().connect("jdbc:teiid:comp", null);
+		Statement s = c.createStatement();
+		ResultSet rs = s.executeQuery("select * from (call refreshMatView('view1.v1', true)) p");
+		assertTrue(rs.next());
+		assertEquals(6, rs.getInt(1));
+		
+		rs = s.executeQuery("select col from v1 order by col");
+		for (int i : new int[] {-4, 0, 1, 2, 3, 5}) {
+			assertTrue(rs.next());
+			assertEquals(i, rs.getInt(1));
+		}
+		assertFalse(rs.next());
+	}
+	
 	@Test public void testMatViewProceduresWithSameName() throws Exception {
 		ModelMetaData mmd = new ModelMetaData();
     	mmd.setName("x");
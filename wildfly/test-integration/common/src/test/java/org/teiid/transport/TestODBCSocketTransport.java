@@ -20,6 +20,10 @@ package org.teiid.transport;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.StringWriter;
 import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
 import java.sql.Array;
@@ -40,6 +44,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.postgresql.core.v3.ExtendedQueryExecutorImpl;
 import org.postgresql.util.PSQLException;
 import org.teiid.adminapi.Model.Type;
@@ -204,6 +210,51 @@ public class TestODBCSocketTransport {
 		assertEquals("abc", new String(bytes, Charset.forName("UTF-16")));
 	}
 	
+	@Test public void testCopyOut() throws Exception {
+		CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+		StringWriter writer = new StringWriter();
+		assertEquals(2, copyManager.copyOut("COPY (select 1, 'a,b' union all select 2, null order by 1) TO STDOUT", writer));
+		assertEquals("1\ta,b\n2\t\\N\n", writer.toString());
+		
+		writer = new StringWriter();
+		assertEquals(2, copyManager.copyOut("COPY (select 1 as x, 'a,b' as y union all select 2, null order by 1) TO STDOUT WITH (FORMAT csv, HEADER)", writer));
+		assertEquals("x,y\n1,\"a,b\"\n2,\n", writer.toString());
+		
+		//the statement is still usable
+		testTextCat();
+	}
+	
+	@Test public void testCopyOutBinary() throws Exception {
+		CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		assertEquals(1, copyManager.copyOut("COPY (select 7, 'x') TO STDOUT (FORMAT binary)", baos));
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		byte[] signature = new byte[11];
+		dis.readFully(signature);
+		assertEquals("PGCOPY\n\377\r\n\0", new String(signature, Charset.forName("ISO-8859-1")));
+		assertEquals(0, dis.readInt()); //flags
+		assertEquals(0, dis.readInt()); //header extension
+		assertEquals(2, dis.readShort());
+		assertEquals(4, dis.readInt());
+		assertEquals(7, dis.readInt());
+		assertEquals(1, dis.readInt());
+		assertEquals('x', dis.read());
+		assertEquals(-1, dis.readShort()); //trailer
+		assertEquals(-1, dis.read());
+	}
+	
+	@Test public void testCopyOutBinaryUnsupportedType() throws Exception {
+		CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+		try {
+			copyManager.copyOut("COPY (select xmlparse(document '<a/>')) TO STDOUT (FORMAT binary)", new ByteArrayOutputStream());
+			fail();
+		} catch (PSQLException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("TEIID40173"));
+		}
+		//the connection is still usable
+		testTextCat();
+	}
+	
 	@Test public void testTextCat() throws Exception {
         Statement s = conn.createStatement();
         assertTrue(s.execute("SELECT textcat('a','b')"));